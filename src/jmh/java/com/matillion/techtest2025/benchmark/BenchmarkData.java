@@ -0,0 +1,101 @@
+package com.matillion.techtest2025.benchmark;
+
+import com.matillion.techtest2025.DataAnalysisApplication;
+import com.matillion.techtest2025.controller.response.DataAnalysisResponse;
+import com.matillion.techtest2025.model.ColumnStatistics;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Deterministic synthetic inputs shared by the benchmarks.
+ */
+final class BenchmarkData {
+
+    private static final String[] WORDS = {
+            "Verstappen", "Hamilton", "Leclerc", "Norris", "Piastri", "Russell", "Sainz", "Alonso",
+            "Monégasque", "British", "Dutch", "Spanish", "Red Bull Racing", "McLaren", "Ferrari"
+    };
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Builds a CSV with a header and {@code rows} data rows. Columns cycle through integer,
+     * decimal, boolean and string values, and roughly 5% of cells are empty.
+     */
+    static byte[] wideCsv(int columns, int rows, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        StringBuilder csv = new StringBuilder(columns * rows * 8);
+        for (int c = 0; c < columns; c++) {
+            if (c > 0) {
+                csv.append(',');
+            }
+            csv.append("col_").append(c);
+        }
+        csv.append('\n');
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                if (c > 0) {
+                    csv.append(',');
+                }
+                if (random.nextInt(20) == 0) {
+                    continue;
+                }
+                switch (c % 4) {
+                    case 0 -> csv.append(random.nextInt(100_000));
+                    case 1 -> csv.append(random.nextInt(10_000)).append('.').append(random.nextInt(100));
+                    case 2 -> csv.append(random.nextBoolean());
+                    default -> csv.append(WORDS[random.nextInt(WORDS.length)]);
+                }
+            }
+            csv.append('\n');
+        }
+        return csv.toString().getBytes(UTF_8);
+    }
+
+    /**
+     * Builds an analysis response with {@code columns} column statistics.
+     */
+    static DataAnalysisResponse wideAnalysisResponse(int columns, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<ColumnStatistics> stats = new ArrayList<>(columns);
+        for (int c = 0; c < columns; c++) {
+            stats.add(new ColumnStatistics("column_" + c, random.nextInt(1_000), random.nextInt(100_000)));
+        }
+        return new DataAnalysisResponse(
+                100_000,
+                columns,
+                50_000_000L,
+                stats,
+                OffsetDateTime.of(2025, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC)
+        );
+    }
+
+    /**
+     * Starts the application without a web server under the {@code prod} profile, with its
+     * file-backed database and columnar files in {@code directory}.
+     */
+    static ConfigurableApplicationContext startApplication(Path directory) {
+        return new SpringApplicationBuilder(DataAnalysisApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("prod")
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .run(
+                        "--spring.datasource.url=jdbc:h2:file:" + directory.resolve("analysis").toAbsolutePath(),
+                        "--analysis.storage.columnar.directory=" + directory.resolve("columnar").toAbsolutePath(),
+                        "--logging.level.root=WARN"
+                );
+    }
+}
@@ -0,0 +1,102 @@
+package com.matillion.techtest2025.benchmark;
+
+import com.matillion.techtest2025.parser.CsvRow;
+import com.matillion.techtest2025.parser.CsvTokenizer;
+import com.matillion.techtest2025.parser.CsvTokenizers;
+import com.matillion.techtest2025.parser.DistinctValueBudget;
+import com.matillion.techtest2025.parser.ExactDistinctCounter;
+import com.matillion.techtest2025.parser.SliceSets;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares keeping the distinct values of an ingest on the heap with keeping them off-heap.
+ * <p>
+ * Each operation counts the distinct values of every column of a wide CSV, as ingest does, with a
+ * budget large enough that nothing spills. Besides the time per operation, each trial prints the
+ * GC pause time and the heap high-water mark it caused; {@code -PjmhProfilers=gc} adds allocation
+ * rates. Off-heap storage needs {@code --enable-preview}, which the {@code jmh} task passes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class DistinctValuesBenchmark {
+
+    @Param({"heap", "off-heap"})
+    public String storage;
+
+    private final CsvTokenizer tokenizer = CsvTokenizers.scalar();
+    private byte[] data;
+    private Path spillDirectory;
+    private long gcMillisBefore;
+    private long gcCountBefore;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        if (storage.equals("off-heap") && !SliceSets.offHeapAvailable()) {
+            throw new IllegalStateException("Off-heap storage needs the JVM to run with --enable-preview");
+        }
+        data = BenchmarkData.wideCsv(8, 500_000, 42);
+        spillDirectory = Files.createTempDirectory("distinct-benchmark");
+        System.gc();
+        ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+        gcMillisBefore = gcTotals()[0];
+        gcCountBefore = gcTotals()[1];
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        long[] gc = gcTotals();
+        long heapPeak = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .mapToLong(pool -> pool.getPeakUsage().getUsed())
+                .sum();
+        System.out.printf("%n%s: %d ms GC over %d collections, heap high-water %d MB%n",
+                storage, gc[0] - gcMillisBefore, gc[1] - gcCountBefore, heapPeak >> 20);
+        Files.deleteIfExists(spillDirectory);
+    }
+
+    @Benchmark
+    public int[] countDistinctValues() {
+        try (DistinctValueBudget budget = new DistinctValueBudget(Long.MAX_VALUE, spillDirectory, storage.equals("off-heap"))) {
+            ExactDistinctCounter[][] counters = {null};
+            tokenizer.tokenize(data, (CsvRow row) -> {
+                if (counters[0] == null) {
+                    counters[0] = new ExactDistinctCounter[row.fieldCount()];
+                    Arrays.setAll(counters[0], c -> budget.newCounter());
+                    return;
+                }
+                for (int c = 0; c < counters[0].length; c++) {
+                    if (!row.isEmpty(c)) {
+                        counters[0][c].add(row.data(), row.start(c), row.end(c));
+                    }
+                }
+            });
+            return Arrays.stream(counters[0]).mapToInt(ExactDistinctCounter::count).toArray();
+        }
+    }
+
+    /**
+     * @return total collection time in milliseconds and number of collections so far
+     */
+    private static long[] gcTotals() {
+        long millis = 0;
+        long count = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, collector.getCollectionTime());
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return new long[]{millis, count};
+    }
+}
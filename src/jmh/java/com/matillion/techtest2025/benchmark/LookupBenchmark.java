@@ -0,0 +1,82 @@
+package com.matillion.techtest2025.benchmark;
+
+import com.matillion.techtest2025.repository.CacheValidators;
+import com.matillion.techtest2025.repository.DataAnalysisRepository;
+import com.matillion.techtest2025.repository.entity.DataAnalysisEntity;
+import com.matillion.techtest2025.service.DataAnalysisService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the database lookups behind the read endpoints on the {@code prod} profile's
+ * file-backed database: loading an analysis with its column statistics (foreign key index), the
+ * content hash check behind conditional requests (primary key) and selecting ids by creation time
+ * (created_at index), as retention and bulk deletion do.
+ * <p>
+ * Run with {@code ./gradlew jmh -PjmhIncludes=LookupBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LookupBenchmark {
+
+    @Param({"10000"})
+    public int analyses;
+
+    private Path directory;
+    private ConfigurableApplicationContext context;
+    private DataAnalysisRepository repository;
+    private Long[] ids;
+    private OffsetDateTime[] createdAt;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("lookup-benchmark");
+        context = BenchmarkData.startApplication(directory);
+        DataAnalysisService service = context.getBean(DataAnalysisService.class);
+        repository = context.getBean(DataAnalysisRepository.class);
+        ids = new Long[analyses];
+        createdAt = new OffsetDateTime[analyses];
+        for (int i = 0; i < analyses; i++) {
+            ids[i] = service.analyzeCsvData(BenchmarkData.wideCsv(10, 20, i), false).analysisId();
+            createdAt[i] = OffsetDateTime.now();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public DataAnalysisEntity findById() {
+        return repository.findById(ids[random.nextInt(ids.length)]).orElseThrow();
+    }
+
+    @Benchmark
+    public Optional<CacheValidators> findCacheValidatorsById() {
+        return repository.findCacheValidatorsById(ids[random.nextInt(ids.length)]);
+    }
+
+    @Benchmark
+    public List<Long> findIdsCreatedBetween() {
+        int from = random.nextInt(ids.length);
+        return repository.findIdsCreatedBetween(createdAt[from], null, PageRequest.ofSize(100));
+    }
+}
@@ -0,0 +1,75 @@
+package com.matillion.techtest2025.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.matillion.techtest2025.controller.response.DataAnalysisResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import static com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS;
+
+/**
+ * Compares JSON, CBOR and Smile encoding and decoding of a {@link DataAnalysisResponse} with a wide
+ * {@code columnStatistics} list, as served by {@code GET /api/analysis/{id}}.
+ * <p>
+ * Run with {@code ./gradlew jmh -PjmhIncludes=SerializationBenchmark}. Payload sizes, raw and
+ * gzip-compressed (as with {@code server.compression}), are printed during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    @Param({"100", "10000"})
+    public int columns;
+
+    private ObjectMapper mapper;
+    private DataAnalysisResponse response;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() throws IOException {
+        mapper = switch (format) {
+            case "cbor" -> CBORMapper.builder().findAndAddModules().disable(WRITE_DATES_AS_TIMESTAMPS).build();
+            case "smile" -> SmileMapper.builder().findAndAddModules().disable(WRITE_DATES_AS_TIMESTAMPS).build();
+            default -> JsonMapper.builder().findAndAddModules().disable(WRITE_DATES_AS_TIMESTAMPS).build();
+        };
+        response = BenchmarkData.wideAnalysisResponse(columns, 42);
+        payload = mapper.writeValueAsBytes(response);
+
+        if (!mapper.readValue(payload, DataAnalysisResponse.class).equals(response)) {
+            throw new IllegalStateException(format + " does not round-trip the response");
+        }
+        System.out.printf("%n%s, %d columns: %d bytes, %d bytes gzipped%n", format, columns, payload.length, gzippedSize(payload));
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return mapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public DataAnalysisResponse deserialize() throws IOException {
+        return mapper.readValue(payload, DataAnalysisResponse.class);
+    }
+
+    private static int gzippedSize(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.size();
+    }
+}
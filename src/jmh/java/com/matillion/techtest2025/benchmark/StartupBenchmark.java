@@ -0,0 +1,52 @@
+package com.matillion.techtest2025.benchmark;
+
+import com.matillion.techtest2025.service.DataAnalysisService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures application start-up under the {@code prod} profile against an existing file-backed
+ * database: connection pool, Flyway's migration check and JPA bootstrap, then shutdown.
+ * <p>
+ * Run with {@code ./gradlew jmh -PjmhIncludes=StartupBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StartupBenchmark {
+
+    @Param({"0", "1000"})
+    public int analyses;
+
+    private Path directory;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("startup-benchmark");
+        try (ConfigurableApplicationContext context = BenchmarkData.startApplication(directory)) {
+            DataAnalysisService service = context.getBean(DataAnalysisService.class);
+            for (int i = 0; i < analyses; i++) {
+                service.analyzeCsvData(BenchmarkData.wideCsv(10, 100, i), false);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public void startAndStop() {
+        BenchmarkData.startApplication(directory).close();
+    }
+}
@@ -0,0 +1,69 @@
+package com.matillion.techtest2025.benchmark;
+
+import com.matillion.techtest2025.parser.CsvRow;
+import com.matillion.techtest2025.parser.CsvTokenizer;
+import com.matillion.techtest2025.parser.CsvTokenizers;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the scalar and Vector API tokenizer backends on wide CSV input.
+ * <p>
+ * Run with {@code ./gradlew jmh}. The setup verifies that both backends produce bit-identical
+ * statistics for the generated input before anything is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenizerBenchmark {
+
+    @Param({"scalar", "vector"})
+    public String backend;
+
+    @Param({"8", "300"})
+    public int columns;
+
+    private byte[] data;
+    private CsvTokenizer tokenizer;
+
+    @Setup
+    public void setUp() {
+        data = BenchmarkData.wideCsv(columns, 2_000_000 / columns, 42);
+        tokenizer = backend.equals("vector") ? CsvTokenizers.vector() : CsvTokenizers.scalar();
+
+        long[] expected = statistics(CsvTokenizers.scalar());
+        long[] actual = statistics(tokenizer);
+        if (!Arrays.equals(expected, actual)) {
+            throw new IllegalStateException(tokenizer.name() + " statistics differ from the scalar backend");
+        }
+    }
+
+    @Benchmark
+    public void tokenize(Blackhole blackhole) {
+        blackhole.consume(statistics(tokenizer));
+    }
+
+    /**
+     * Character count, row count, and per-column null counts and value byte totals.
+     */
+    private long[] statistics(CsvTokenizer csvTokenizer) {
+        long[] stats = new long[2 + 2 * columns];
+        stats[0] = csvTokenizer.tokenize(data, (CsvRow row) -> {
+            stats[1]++;
+            for (int c = 0; c < row.fieldCount() && c < columns; c++) {
+                if (row.isEmpty(c)) {
+                    stats[2 + c]++;
+                } else {
+                    stats[2 + columns + c] += row.length(c);
+                }
+            }
+        });
+        return stats;
+    }
+}
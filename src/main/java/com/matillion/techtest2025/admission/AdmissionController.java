@@ -0,0 +1,235 @@
+package com.matillion.techtest2025.admission;
+
+import com.matillion.techtest2025.config.AnalysisProperties;
+import com.matillion.techtest2025.exception.PayloadTooLargeException;
+import com.matillion.techtest2025.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Decides whether a CSV ingest may start, so that one client uploading large files in parallel
+ * cannot exhaust the heap and CPU for everyone else.
+ * <p>
+ * Each ingest is checked against the same three limits, once for its client and once globally:
+ * <ul>
+ *     <li>the number of ingests running at the same time,</li>
+ *     <li>the sum of their {@code Content-Length}, which bounds the request bodies held in memory,</li>
+ *     <li>a token bucket limiting how often ingests may start.</li>
+ * </ul>
+ * A request that can never fit the byte limits is rejected with {@link PayloadTooLargeException};
+ * one that only has to wait is rejected with {@link TooManyRequestsException} carrying the time
+ * to wait. Admitted ingests hold a {@link Permit} until they finish.
+ * <p>
+ * The state is small and every operation is a handful of arithmetic steps, so a single lock is
+ * held for each decision rather than juggling atomics across the client and global limits. At
+ * most {@code max-tracked-clients} clients are tracked: a new client replaces the least recently
+ * admitted one with nothing running. Only clients with running ingests are skipped, and there are
+ * never more of those than the global concurrency limit, so finding one to replace takes a bounded
+ * number of steps. If every tracked client is busy, the new client is rejected.
+ * Rejections are counted in the {@code analysis.admission.rejected} metric, tagged by reason and
+ * by whether the client or the global limit was hit.
+ */
+@Component
+public class AdmissionController {
+
+    private final AnalysisProperties.Admission properties;
+    private final MeterRegistry meterRegistry;
+    private final LongSupplier nanoClock;
+    /** In access order, least recently admitted first. */
+    private final Map<String, ClientState> clients = new LinkedHashMap<>(16, 0.75f, true);
+    private final TokenBucket globalBucket;
+    private final Counter admitted;
+    private int globalIngests;
+    private long globalBytes;
+
+    @Autowired
+    public AdmissionController(AnalysisProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, System::nanoTime);
+    }
+
+    AdmissionController(AnalysisProperties properties, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.properties = properties.getAdmission();
+        this.meterRegistry = meterRegistry;
+        this.nanoClock = nanoClock;
+        this.globalBucket = bucket(this.properties.getGlobal(), nanoClock.getAsLong());
+        this.admitted = Counter.builder("analysis.admission.admitted")
+                .description("Ingests admitted by admission control")
+                .register(meterRegistry);
+        Gauge.builder("analysis.admission.in.flight", this, controller -> controller.inFlight(false))
+                .description("Ingests currently running")
+                .register(meterRegistry);
+        Gauge.builder("analysis.admission.in.flight.bytes", this, controller -> controller.inFlight(true))
+                .description("Sum of the Content-Length of running ingests")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Admits an ingest or rejects it.
+     *
+     * @param client        identifies the client the request is accounted to
+     * @param contentLength the request's {@code Content-Length}, or {@code -1} when unknown; an
+     *                      unknown length reserves the whole per-client byte limit
+     * @return a permit that must be closed when the ingest finishes
+     * @throws PayloadTooLargeException if the request is larger than a byte limit
+     * @throws TooManyRequestsException if a limit is currently exhausted
+     */
+    public synchronized Permit admit(String client, long contentLength) {
+        AnalysisProperties.Limits perClient = properties.getPerClient();
+        AnalysisProperties.Limits global = properties.getGlobal();
+        long clientByteLimit = perClient.getMaxInFlightBytes().toBytes();
+        long globalByteLimit = global.getMaxInFlightBytes().toBytes();
+        long bytes = contentLength < 0 ? clientByteLimit : contentLength;
+
+        if (bytes > clientByteLimit || bytes > globalByteLimit) {
+            rejected("size", bytes > clientByteLimit ? "client" : "global");
+            throw new PayloadTooLargeException(
+                    "Request body of " + bytes + " bytes exceeds the limit of " + Math.min(clientByteLimit, globalByteLimit) + " bytes");
+        }
+
+        long now = nanoClock.getAsLong();
+        ClientState state = clients.get(client);
+        if (state == null) {
+            if (clients.size() >= properties.getMaxTrackedClients() && !evictLeastRecentlyUsedIdleClient()) {
+                throw rejectedForNow("clients", "global", properties.getRetryAfter(),
+                        "Too many clients with running ingests (limit " + properties.getMaxTrackedClients() + ")");
+            }
+            state = new ClientState(bucket(perClient, now));
+            clients.put(client, state);
+        }
+
+        if (state.ingests >= perClient.getMaxConcurrentIngests()) {
+            throw rejectedForNow("concurrency", "client", properties.getRetryAfter(),
+                    "Too many concurrent ingests for this client (limit " + perClient.getMaxConcurrentIngests() + ")");
+        }
+        if (globalIngests >= global.getMaxConcurrentIngests()) {
+            throw rejectedForNow("concurrency", "global", properties.getRetryAfter(),
+                    "Too many concurrent ingests (limit " + global.getMaxConcurrentIngests() + ")");
+        }
+        if (state.bytes + bytes > clientByteLimit) {
+            throw rejectedForNow("bytes", "client", properties.getRetryAfter(),
+                    "Too many bytes in flight for this client (limit " + clientByteLimit + ")");
+        }
+        if (globalBytes + bytes > globalByteLimit) {
+            throw rejectedForNow("bytes", "global", properties.getRetryAfter(),
+                    "Too many bytes in flight (limit " + globalByteLimit + ")");
+        }
+        long clientWait = state.bucket.tryTake(now);
+        if (clientWait > 0) {
+            throw rejectedForNow("rate", "client", Duration.ofNanos(clientWait),
+                    "Ingest rate limit exceeded for this client (" + perClient.getIngestsPerSecond() + " per second)");
+        }
+        long globalWait = globalBucket.tryTake(now);
+        if (globalWait > 0) {
+            state.bucket.giveBack();
+            throw rejectedForNow("rate", "global", Duration.ofNanos(globalWait),
+                    "Ingest rate limit exceeded (" + global.getIngestsPerSecond() + " per second)");
+        }
+
+        state.ingests++;
+        state.bytes += bytes;
+        globalIngests++;
+        globalBytes += bytes;
+        admitted.increment();
+        return new Permit(state, bytes);
+    }
+
+    /**
+     * @return the number of clients currently tracked
+     */
+    synchronized int trackedClients() {
+        return clients.size();
+    }
+
+    private synchronized void release(ClientState state, long bytes) {
+        state.ingests--;
+        state.bytes -= bytes;
+        globalIngests--;
+        globalBytes -= bytes;
+    }
+
+    private synchronized double inFlight(boolean bytes) {
+        return bytes ? globalBytes : globalIngests;
+    }
+
+    /**
+     * Forgets the least recently admitted client with nothing running. Its token bucket is
+     * forgotten with it, so if it comes back it starts with a full burst.
+     *
+     * @return whether a client was forgotten
+     */
+    private boolean evictLeastRecentlyUsedIdleClient() {
+        for (Iterator<ClientState> states = clients.values().iterator(); states.hasNext(); ) {
+            if (states.next().ingests == 0) {
+                states.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private TooManyRequestsException rejectedForNow(String reason, String scope, Duration retryAfter, String message) {
+        rejected(reason, scope);
+        return new TooManyRequestsException(message, retryAfter);
+    }
+
+    private void rejected(String reason, String scope) {
+        Counter.builder("analysis.admission.rejected")
+                .description("Ingests rejected by admission control")
+                .tag("reason", reason)
+                .tag("scope", scope)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private static TokenBucket bucket(AnalysisProperties.Limits limits, long now) {
+        return new TokenBucket(limits.getBurst(), limits.getIngestsPerSecond(), now);
+    }
+
+    private static final class ClientState {
+
+        private final TokenBucket bucket;
+        private int ingests;
+        private long bytes;
+
+        private ClientState(TokenBucket bucket) {
+            this.bucket = bucket;
+        }
+    }
+
+    /**
+     * An admitted ingest. Closing it returns its concurrency and byte reservations; closing it
+     * again has no effect.
+     */
+    public final class Permit implements AutoCloseable {
+
+        private final ClientState state;
+        private final long bytes;
+        private boolean closed;
+
+        private Permit(ClientState state, long bytes) {
+            this.state = state;
+            this.bytes = bytes;
+        }
+
+        @Override
+        public void close() {
+            synchronized (AdmissionController.this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                release(state, bytes);
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.matillion.techtest2025.admission;
+
+/**
+ * Token bucket holding up to {@code capacity} tokens, refilled continuously at a fixed rate.
+ * <p>
+ * Not thread-safe; {@link AdmissionController} only uses it while holding its lock. Time is passed
+ * in as {@link System#nanoTime()} readings so that callers control the clock.
+ */
+final class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerSecond;
+    private double tokens;
+    private long lastRefill;
+
+    TokenBucket(double capacity, double tokensPerSecond, long now) {
+        this.capacity = capacity;
+        this.tokensPerSecond = tokensPerSecond;
+        this.tokens = capacity;
+        this.lastRefill = now;
+    }
+
+    /**
+     * Takes one token if there is one.
+     *
+     * @return {@code 0} if a token was taken, otherwise the nanoseconds until one will be available
+     */
+    long tryTake(long now) {
+        refill(now);
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) * 1e9 / tokensPerSecond);
+    }
+
+    /**
+     * Returns a token taken by {@link #tryTake} for a request that was then rejected for another
+     * reason.
+     */
+    void giveBack() {
+        tokens = Math.min(capacity, tokens + 1);
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerSecond / 1e9);
+        lastRefill = now;
+    }
+}
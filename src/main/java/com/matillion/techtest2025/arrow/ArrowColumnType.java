@@ -0,0 +1,28 @@
+package com.matillion.techtest2025.arrow;
+
+/**
+ * The Arrow types that {@link ArrowStreamWriter} writes columns as, each with the text it accepts.
+ * Empty cells are always null; so is any other cell that does not convert to the column's type.
+ */
+public enum ArrowColumnType {
+    /** {@code Int(64, signed)}, from integers that fit in a {@code long} and integral decimals. */
+    INT64,
+    /** {@code FloatingPoint(DOUBLE)}, from any integer or decimal. */
+    FLOAT64,
+    /** {@code Bool}, from {@code true} and {@code false} in any case. */
+    BOOL,
+    /** {@code Date(DAY)}, days since the epoch, from ISO-8601 {@code yyyy-MM-dd}. */
+    DATE,
+    /**
+     * {@code Timestamp(MICROSECOND, "UTC")}, from ISO-8601 dates and times; values without an
+     * offset are read as UTC, and fraction digits beyond microseconds are dropped.
+     */
+    TIMESTAMP,
+    /**
+     * The {@code arrow.uuid} canonical extension type, stored as {@code FixedSizeBinary(16)}, from
+     * UUIDs in their {@code 8-4-4-4-12} hex form.
+     */
+    UUID,
+    /** {@code Utf8}, from any text, which is written as it is. */
+    UTF8
+}
@@ -0,0 +1,334 @@
+package com.matillion.techtest2025.arrow;
+
+import com.matillion.techtest2025.storage.CellVisitor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Writes rows as an Apache Arrow IPC stream: a schema message, a record batch message per
+ * {@code batchRows} rows, and the end-of-stream marker.
+ * <p>
+ * Cells are passed in as text through each column's {@link CellVisitor}, the same way the rest of
+ * the service reads values, and are converted to the column's {@link ArrowColumnType} while the
+ * batch is collected. Only one batch is held in memory, and each is written and flushed as soon as
+ * it is full, so readers can start on the first batch while later ones are still being produced.
+ * <p>
+ * Messages use metadata version V5 and little-endian buffers aligned to 8 bytes, without
+ * compression or dictionaries. Every field is nullable. The metadata is written with a minimal
+ * FlatBuffers builder of our own, which keeps the Arrow libraries, with their off-heap allocator,
+ * out of the service.
+ */
+public final class ArrowStreamWriter {
+
+    /**
+     * Media type of the Arrow IPC stream format.
+     */
+    public static final String MEDIA_TYPE = "application/vnd.apache.arrow.stream";
+
+    private static final int CONTINUATION = 0xFFFFFFFF;
+    private static final int ALIGNMENT = 8;
+    private static final byte[] PADDING = new byte[ALIGNMENT];
+
+    // Schema.fbs and Message.fbs enum values
+    private static final short METADATA_V5 = 4;
+    private static final byte HEADER_SCHEMA = 1;
+    private static final byte HEADER_RECORD_BATCH = 3;
+    private static final byte TYPE_INT = 2;
+    private static final byte TYPE_FLOATING_POINT = 3;
+    private static final byte TYPE_UTF8 = 5;
+    private static final byte TYPE_BOOL = 6;
+    private static final byte TYPE_DATE = 8;
+    private static final byte TYPE_TIMESTAMP = 10;
+    private static final byte TYPE_FIXED_SIZE_BINARY = 15;
+    private static final short PRECISION_DOUBLE = 2;
+    private static final short DATE_UNIT_DAY = 0;
+    private static final short TIME_UNIT_MICROSECOND = 2;
+    private static final short ENDIANNESS_LITTLE = 0;
+
+    private final OutputStream out;
+    private final List<Column> columns;
+    private final Map<String, String> metadata;
+    private final int batchRows;
+    private final ColumnBuilder[] builders;
+    private final List<ByteBuffer> buffers = new ArrayList<>();
+
+    private boolean schemaWritten;
+    private int rows;
+    private long batches;
+
+    /**
+     * A column of the stream.
+     *
+     * @param metadata custom metadata of the field, e.g. statistics about its values
+     */
+    public record Column(String name, ArrowColumnType type, Map<String, String> metadata) {
+    }
+
+    /**
+     * @param metadata  custom metadata of the schema
+     * @param batchRows maximum number of rows per record batch
+     */
+    public ArrowStreamWriter(OutputStream out, List<Column> columns, Map<String, String> metadata, int batchRows) {
+        if (batchRows < 1) {
+            throw new IllegalArgumentException("batchRows must be positive, was " + batchRows);
+        }
+        this.out = out;
+        this.columns = columns;
+        this.metadata = metadata;
+        this.batchRows = batchRows;
+        this.builders = new ColumnBuilder[columns.size()];
+        for (int c = 0; c < builders.length; c++) {
+            builders[c] = ColumnBuilder.of(columns.get(c).type(), batchRows);
+        }
+    }
+
+    /**
+     * @return the visitor that takes the current row's value of column {@code column}; each column
+     * must receive exactly one value before {@link #endRow()}
+     */
+    public CellVisitor column(int column) {
+        return builders[column];
+    }
+
+    /**
+     * Completes the current row, writing the batch if it is full.
+     */
+    public void endRow() throws IOException {
+        if (++rows == batchRows) {
+            writeBatch();
+        }
+    }
+
+    /**
+     * Writes the rows of an unfinished batch and ends the stream. Does not close the output.
+     */
+    public void finish() throws IOException {
+        if (rows > 0 || !schemaWritten) {
+            writeBatch();
+        }
+        writeInt(CONTINUATION);
+        writeInt(0);
+        out.flush();
+    }
+
+    /**
+     * @return the number of record batches written so far
+     */
+    public long batchCount() {
+        return batches;
+    }
+
+    private void writeBatch() throws IOException {
+        if (!schemaWritten) {
+            writeMessage(HEADER_SCHEMA, schema(new FlatBufferBuilder()), List.of());
+            schemaWritten = true;
+            if (rows == 0) {
+                return;
+            }
+        }
+        buffers.clear();
+        for (ColumnBuilder builder : builders) {
+            builder.buffers(buffers);
+        }
+        long[] bufferOffsets = new long[buffers.size()];
+        long[] bufferLengths = new long[buffers.size()];
+        long bodyLength = 0;
+        for (int b = 0; b < bufferOffsets.length; b++) {
+            bufferOffsets[b] = bodyLength;
+            bufferLengths[b] = buffers.get(b).remaining();
+            bodyLength += padded(bufferLengths[b]);
+        }
+        long[] nodeLengths = new long[builders.length];
+        long[] nodeNullCounts = new long[builders.length];
+        for (int c = 0; c < builders.length; c++) {
+            nodeLengths[c] = builders[c].rowCount();
+            nodeNullCounts[c] = builders[c].nullCount();
+        }
+
+        FlatBufferBuilder fb = new FlatBufferBuilder();
+        int nodes = fb.createLongPairVector(nodeLengths, nodeNullCounts);
+        int bufferVector = fb.createLongPairVector(bufferOffsets, bufferLengths);
+        fb.startTable(5);
+        fb.addLong(rows);
+        fb.slot(0);
+        fb.addOffset(nodes);
+        fb.slot(1);
+        fb.addOffset(bufferVector);
+        fb.slot(2);
+        int recordBatch = fb.endTable();
+        writeMessage(HEADER_RECORD_BATCH, new Header(fb, recordBatch, bodyLength), buffers);
+
+        for (ColumnBuilder builder : builders) {
+            builder.reset();
+        }
+        rows = 0;
+        batches++;
+    }
+
+    private Header schema(FlatBufferBuilder fb) {
+        int[] fields = new int[columns.size()];
+        for (int c = 0; c < fields.length; c++) {
+            fields[c] = field(fb, columns.get(c));
+        }
+        int fieldVector = fb.createOffsetVector(fields);
+        int customMetadata = keyValues(fb, metadata);
+        fb.startTable(4);
+        fb.addOffset(fieldVector);
+        fb.slot(1);
+        fb.addOffset(customMetadata);
+        fb.slot(2);
+        fb.addShort(ENDIANNESS_LITTLE);
+        fb.slot(0);
+        return new Header(fb, fb.endTable(), 0);
+    }
+
+    private static int field(FlatBufferBuilder fb, Column column) {
+        Map<String, String> fieldMetadata = column.metadata();
+        if (column.type() == ArrowColumnType.UUID) {
+            fieldMetadata = new LinkedHashMap<>(fieldMetadata);
+            fieldMetadata.put("ARROW:extension:name", "arrow.uuid");
+            fieldMetadata.put("ARROW:extension:metadata", "");
+        }
+        int name = fb.createString(column.name().getBytes(UTF_8));
+        int type = type(fb, column.type());
+        int children = fb.createOffsetVector(new int[0]);
+        int customMetadata = keyValues(fb, fieldMetadata);
+        fb.startTable(7);
+        fb.addOffset(name);
+        fb.slot(0);
+        fb.addOffset(type);
+        fb.slot(3);
+        fb.addOffset(children);
+        fb.slot(5);
+        fb.addOffset(customMetadata);
+        fb.slot(6);
+        fb.addBool(true);
+        fb.slot(1);
+        fb.addByte(typeId(column.type()));
+        fb.slot(2);
+        return fb.endTable();
+    }
+
+    private static byte typeId(ArrowColumnType type) {
+        return switch (type) {
+            case INT64 -> TYPE_INT;
+            case FLOAT64 -> TYPE_FLOATING_POINT;
+            case BOOL -> TYPE_BOOL;
+            case DATE -> TYPE_DATE;
+            case TIMESTAMP -> TYPE_TIMESTAMP;
+            case UUID -> TYPE_FIXED_SIZE_BINARY;
+            case UTF8 -> TYPE_UTF8;
+        };
+    }
+
+    /**
+     * Writes the type table of the field's {@code Type} union.
+     */
+    private static int type(FlatBufferBuilder fb, ArrowColumnType type) {
+        int timezone = type == ArrowColumnType.TIMESTAMP ? fb.createString("UTC".getBytes(UTF_8)) : 0;
+        switch (type) {
+            case INT64 -> {
+                fb.startTable(2);
+                fb.addInt(Long.SIZE);
+                fb.slot(0);
+                fb.addBool(true);
+                fb.slot(1);
+            }
+            case FLOAT64 -> {
+                fb.startTable(1);
+                fb.addShort(PRECISION_DOUBLE);
+                fb.slot(0);
+            }
+            case DATE -> {
+                fb.startTable(1);
+                fb.addShort(DATE_UNIT_DAY);
+                fb.slot(0);
+            }
+            case TIMESTAMP -> {
+                fb.startTable(2);
+                fb.addOffset(timezone);
+                fb.slot(1);
+                fb.addShort(TIME_UNIT_MICROSECOND);
+                fb.slot(0);
+            }
+            case UUID -> {
+                fb.startTable(1);
+                fb.addInt(ColumnBuilder.UuidColumn.BYTES);
+                fb.slot(0);
+            }
+            case BOOL, UTF8 -> fb.startTable(0);
+        }
+        return fb.endTable();
+    }
+
+    private static int keyValues(FlatBufferBuilder fb, Map<String, String> entries) {
+        int[] keyValues = new int[entries.size()];
+        int i = 0;
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            int key = fb.createString(entry.getKey().getBytes(UTF_8));
+            int value = fb.createString(entry.getValue().getBytes(UTF_8));
+            fb.startTable(2);
+            fb.addOffset(key);
+            fb.slot(0);
+            fb.addOffset(value);
+            fb.slot(1);
+            keyValues[i++] = fb.endTable();
+        }
+        return fb.createOffsetVector(keyValues);
+    }
+
+    /**
+     * The header table of a message, still in the builder that the message is finished in.
+     */
+    private record Header(FlatBufferBuilder builder, int table, long bodyLength) {
+    }
+
+    /**
+     * Writes an encapsulated message: the continuation marker, the length of the padded metadata,
+     * the {@code Message} flatbuffer, and the body buffers, each padded to 8 bytes.
+     */
+    private void writeMessage(byte headerType, Header header, List<ByteBuffer> body) throws IOException {
+        FlatBufferBuilder fb = header.builder();
+        fb.startTable(5);
+        fb.addLong(header.bodyLength());
+        fb.slot(3);
+        fb.addOffset(header.table());
+        fb.slot(2);
+        fb.addShort(METADATA_V5);
+        fb.slot(0);
+        fb.addByte(headerType);
+        fb.slot(1);
+        byte[] message = fb.finish(fb.endTable());
+
+        int metadataLength = (int) padded(2L * Integer.BYTES + message.length) - 2 * Integer.BYTES;
+        writeInt(CONTINUATION);
+        writeInt(metadataLength);
+        out.write(message);
+        out.write(PADDING, 0, metadataLength - message.length);
+        for (ByteBuffer buffer : body) {
+            int length = buffer.remaining();
+            out.write(buffer.array(), buffer.arrayOffset() + buffer.position(), length);
+            out.write(PADDING, 0, (int) (padded(length) - length));
+        }
+        out.flush();
+    }
+
+    private void writeInt(int value) throws IOException {
+        out.write(value);
+        out.write(value >>> 8);
+        out.write(value >>> 16);
+        out.write(value >>> 24);
+    }
+
+    private static long padded(long length) {
+        return (length + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+}
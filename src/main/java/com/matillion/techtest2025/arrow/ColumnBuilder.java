@@ -0,0 +1,386 @@
+package com.matillion.techtest2025.arrow;
+
+import com.matillion.techtest2025.parser.TextShapes;
+import com.matillion.techtest2025.parser.Utf8;
+import com.matillion.techtest2025.storage.CellVisitor;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Collects one column of a record batch in Arrow's memory layout, converting each cell's text to
+ * the column's {@link ArrowColumnType} as it arrives.
+ * <p>
+ * Buffers are sized for a full batch up front and reused by every batch; only the character data
+ * of text columns grows. The buffers returned by {@link #buffers} are valid until {@link #reset()}.
+ */
+abstract sealed class ColumnBuilder implements CellVisitor {
+
+    /** Largest magnitude up to which every integral {@code double} is exactly a {@code long}. */
+    private static final double MAX_EXACT = 0x1p53;
+    private static final int MICROS_PER_SECOND = 1_000_000;
+
+    private final byte[] validity;
+    int rows;
+    private int nullCount;
+
+    ColumnBuilder(int capacity) {
+        this.validity = new byte[(capacity + 7) >>> 3];
+    }
+
+    static ColumnBuilder of(ArrowColumnType type, int capacity) {
+        return switch (type) {
+            case INT64 -> new Int64Column(capacity);
+            case FLOAT64 -> new Float64Column(capacity);
+            case BOOL -> new BoolColumn(capacity);
+            case DATE -> new DateColumn(capacity);
+            case TIMESTAMP -> new TimestampColumn(capacity);
+            case UUID -> new UuidColumn(capacity);
+            case UTF8 -> new Utf8Column(capacity);
+        };
+    }
+
+    @Override
+    public final void accept(byte[] bytes, int start, int end) {
+        finishCell(start < end && append(bytes, start, end));
+    }
+
+    @Override
+    public final void acceptNumber(byte[] bytes, int start, int end, double value, boolean decimal) {
+        finishCell(appendNumber(bytes, start, end, value, decimal));
+    }
+
+    /**
+     * Sets the value of the current row from its non-empty text.
+     *
+     * @return whether the text converted to the column's type; if not, the row is null
+     */
+    abstract boolean append(byte[] bytes, int start, int end);
+
+    /**
+     * Sets the value of the current row from a number that was already parsed, {@code [start, end)}
+     * being its text.
+     */
+    boolean appendNumber(byte[] bytes, int start, int end, double value, boolean decimal) {
+        return append(bytes, start, end);
+    }
+
+    /**
+     * Called instead of {@link #append} for a null row.
+     */
+    void appendNull() {
+    }
+
+    /**
+     * Adds the buffers of the rows so far to {@code buffers}, in the order of Arrow's layout for
+     * the type. The validity bitmap is left empty when no row is null.
+     */
+    void buffers(List<ByteBuffer> buffers) {
+        buffers.add(ByteBuffer.wrap(validity, 0, nullCount > 0 ? (rows + 7) >>> 3 : 0));
+    }
+
+    int rowCount() {
+        return rows;
+    }
+
+    int nullCount() {
+        return nullCount;
+    }
+
+    /**
+     * Empties the column for the next batch.
+     */
+    void reset() {
+        Arrays.fill(validity, 0, (rows + 7) >>> 3, (byte) 0);
+        rows = 0;
+        nullCount = 0;
+    }
+
+    private void finishCell(boolean valid) {
+        if (valid) {
+            validity[rows >>> 3] |= (byte) (1 << (rows & 7));
+        } else {
+            nullCount++;
+            appendNull();
+        }
+        rows++;
+    }
+
+    /**
+     * Values of {@code width} bytes at each row's slot; a null row's slot keeps whatever it held.
+     */
+    abstract static sealed class FixedWidth extends ColumnBuilder {
+
+        final ByteBuffer values;
+        private final int width;
+
+        FixedWidth(int capacity, int width) {
+            super(capacity);
+            this.values = ByteBuffer.allocate(capacity * width).order(LITTLE_ENDIAN);
+            this.width = width;
+        }
+
+        @Override
+        void buffers(List<ByteBuffer> buffers) {
+            super.buffers(buffers);
+            buffers.add(ByteBuffer.wrap(values.array(), 0, rows * width));
+        }
+    }
+
+    static final class Int64Column extends FixedWidth {
+
+        Int64Column(int capacity) {
+            super(capacity, Long.BYTES);
+        }
+
+        @Override
+        boolean append(byte[] bytes, int start, int end) {
+            int shape = Utf8.numericShape(bytes, start, end);
+            if (shape == Utf8.DECIMAL_SHAPE) {
+                return appendIntegral(Utf8.parseDouble(bytes, start, end));
+            }
+            if (shape != Utf8.INTEGER_SHAPE) {
+                return false;
+            }
+            boolean negative = bytes[start] == '-';
+            int digits = bytes[start] == '-' || bytes[start] == '+' ? start + 1 : start;
+            if (end - digits <= 18) {
+                long value = 0;
+                for (int i = digits; i < end; i++) {
+                    value = value * 10 + (bytes[i] - '0');
+                }
+                values.putLong(rows * Long.BYTES, negative ? -value : value);
+                return true;
+            }
+            try {
+                values.putLong(rows * Long.BYTES, Long.parseLong(new String(bytes, start, end - start, US_ASCII)));
+                return true;
+            } catch (NumberFormatException e) {
+                // outside the range of a long
+                return false;
+            }
+        }
+
+        @Override
+        boolean appendNumber(byte[] bytes, int start, int end, double value, boolean decimal) {
+            // the text of an integer is exact, its double value may not be
+            return decimal ? appendIntegral(value) : append(bytes, start, end);
+        }
+
+        private boolean appendIntegral(double value) {
+            if (value != Math.rint(value) || Math.abs(value) > MAX_EXACT) {
+                return false;
+            }
+            values.putLong(rows * Long.BYTES, (long) value);
+            return true;
+        }
+    }
+
+    static final class Float64Column extends FixedWidth {
+
+        Float64Column(int capacity) {
+            super(capacity, Double.BYTES);
+        }
+
+        @Override
+        boolean append(byte[] bytes, int start, int end) {
+            if (Utf8.numericShape(bytes, start, end) == Utf8.NOT_NUMERIC) {
+                return false;
+            }
+            values.putDouble(rows * Double.BYTES, Utf8.parseDouble(bytes, start, end));
+            return true;
+        }
+
+        @Override
+        boolean appendNumber(byte[] bytes, int start, int end, double value, boolean decimal) {
+            values.putDouble(rows * Double.BYTES, value);
+            return true;
+        }
+    }
+
+    static final class DateColumn extends FixedWidth {
+
+        DateColumn(int capacity) {
+            super(capacity, Integer.BYTES);
+        }
+
+        @Override
+        boolean append(byte[] bytes, int start, int end) {
+            if (TextShapes.shape(bytes, start, end) != TextShapes.DATE) {
+                return false;
+            }
+            values.putInt(rows * Integer.BYTES, (int) epochDay(bytes, start));
+            return true;
+        }
+    }
+
+    /**
+     * Microseconds since the epoch in UTC. Dates without a time are midnight UTC.
+     */
+    static final class TimestampColumn extends FixedWidth {
+
+        TimestampColumn(int capacity) {
+            super(capacity, Long.BYTES);
+        }
+
+        @Override
+        boolean append(byte[] bytes, int start, int end) {
+            int shape = TextShapes.shape(bytes, start, end);
+            if (shape != TextShapes.TIMESTAMP && shape != TextShapes.DATE) {
+                return false;
+            }
+            long seconds = epochDay(bytes, start) * 86_400;
+            long micros = 0;
+            int i = start + 10;
+            if (shape == TextShapes.TIMESTAMP) {
+                // [T ]HH:mm[:ss[.f{1,9}]][Z|±HH:mm|±HHmm], already validated
+                seconds += digits(bytes, i + 1, 2) * 3600L + digits(bytes, i + 4, 2) * 60L;
+                i += 6;
+                if (i < end && bytes[i] == ':') {
+                    seconds += digits(bytes, i + 1, 2);
+                    i += 3;
+                    if (i < end && bytes[i] == '.') {
+                        i++;
+                        for (int scale = MICROS_PER_SECOND / 10; i < end && bytes[i] >= '0' && bytes[i] <= '9'; i++, scale /= 10) {
+                            micros += (bytes[i] - '0') * scale;
+                        }
+                    }
+                }
+                if (i < end && bytes[i] != 'Z') {
+                    int offsetMinutes = end - i == 6
+                            ? digits(bytes, i + 1, 2) * 60 + digits(bytes, i + 4, 2)
+                            : digits(bytes, i + 1, 2) * 60 + digits(bytes, i + 3, 2);
+                    seconds -= (bytes[i] == '-' ? -offsetMinutes : offsetMinutes) * 60L;
+                }
+            }
+            values.putLong(rows * Long.BYTES, seconds * MICROS_PER_SECOND + micros);
+            return true;
+        }
+    }
+
+    /**
+     * The 16 bytes of a UUID, in the order its hex digits are written.
+     */
+    static final class UuidColumn extends FixedWidth {
+
+        static final int BYTES = 16;
+
+        UuidColumn(int capacity) {
+            super(capacity, BYTES);
+        }
+
+        @Override
+        boolean append(byte[] bytes, int start, int end) {
+            if (TextShapes.shape(bytes, start, end) != TextShapes.UUID) {
+                return false;
+            }
+            int slot = rows * BYTES;
+            int i = start;
+            for (int b = 0; b < BYTES; b++) {
+                if (bytes[i] == '-') {
+                    i++;
+                }
+                values.put(slot + b, (byte) (hex(bytes[i]) << 4 | hex(bytes[i + 1])));
+                i += 2;
+            }
+            return true;
+        }
+
+        private static int hex(byte c) {
+            return c <= '9' ? c - '0' : (c | 0x20) - 'a' + 10;
+        }
+    }
+
+    static final class BoolColumn extends ColumnBuilder {
+
+        private final byte[] values;
+
+        BoolColumn(int capacity) {
+            super(capacity);
+            this.values = new byte[(capacity + 7) >>> 3];
+        }
+
+        @Override
+        boolean append(byte[] bytes, int start, int end) {
+            if (Utf8.equalsIgnoreAsciiCase(bytes, start, end, "true")) {
+                values[rows >>> 3] |= (byte) (1 << (rows & 7));
+                return true;
+            }
+            return Utf8.equalsIgnoreAsciiCase(bytes, start, end, "false");
+        }
+
+        @Override
+        void buffers(List<ByteBuffer> buffers) {
+            super.buffers(buffers);
+            buffers.add(ByteBuffer.wrap(values, 0, (rows + 7) >>> 3));
+        }
+
+        @Override
+        void reset() {
+            Arrays.fill(values, 0, (rows + 7) >>> 3, (byte) 0);
+            super.reset();
+        }
+    }
+
+    /**
+     * Text as it is: an offset per row into the concatenated UTF-8 bytes of all values.
+     */
+    static final class Utf8Column extends ColumnBuilder {
+
+        private final ByteBuffer offsets;
+        private byte[] data = new byte[8192];
+        private int length;
+
+        Utf8Column(int capacity) {
+            super(capacity);
+            this.offsets = ByteBuffer.allocate((capacity + 1) * Integer.BYTES).order(LITTLE_ENDIAN);
+        }
+
+        @Override
+        boolean append(byte[] bytes, int start, int end) {
+            int valueLength = end - start;
+            if (length + valueLength > data.length) {
+                data = Arrays.copyOf(data, Math.max(length + valueLength, data.length * 2));
+            }
+            System.arraycopy(bytes, start, data, length, valueLength);
+            length += valueLength;
+            offsets.putInt((rows + 1) * Integer.BYTES, length);
+            return true;
+        }
+
+        @Override
+        void appendNull() {
+            offsets.putInt((rows + 1) * Integer.BYTES, length);
+        }
+
+        @Override
+        void buffers(List<ByteBuffer> buffers) {
+            super.buffers(buffers);
+            buffers.add(ByteBuffer.wrap(offsets.array(), 0, (rows + 1) * Integer.BYTES));
+            buffers.add(ByteBuffer.wrap(data, 0, length));
+        }
+
+        @Override
+        void reset() {
+            length = 0;
+            super.reset();
+        }
+    }
+
+    private static long epochDay(byte[] bytes, int start) {
+        return LocalDate.of(digits(bytes, start, 4), digits(bytes, start + 5, 2), digits(bytes, start + 8, 2)).toEpochDay();
+    }
+
+    private static int digits(byte[] bytes, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            value = value * 10 + (bytes[i] - '0');
+        }
+        return value;
+    }
+}
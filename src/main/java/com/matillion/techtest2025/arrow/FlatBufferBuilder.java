@@ -0,0 +1,183 @@
+package com.matillion.techtest2025.arrow;
+
+import java.util.Arrays;
+
+/**
+ * Just enough of a FlatBuffers builder to write Arrow IPC metadata: tables with scalar and offset
+ * fields, strings, vectors of offsets and vectors of structs of longs.
+ * <p>
+ * As in the reference implementation, the buffer is filled back to front, so every object is
+ * written before the objects that refer to it and offsets are measured from the end of the buffer
+ * ({@link #offset()}). Values are aligned to their size relative to the end, and {@link #finish}
+ * pads the buffer to its largest alignment, so the finished buffer is aligned from its start too.
+ * Every field is written explicitly, even when it holds the schema's default; vtables are not
+ * shared between tables.
+ */
+final class FlatBufferBuilder {
+
+    private byte[] buf = new byte[1024];
+    private int space = buf.length;
+    private int minAlign = 1;
+    private int[] vtable;
+    private int objectStart;
+
+    /**
+     * @return the number of bytes written so far, which is also the offset of the last object
+     * written
+     */
+    int offset() {
+        return buf.length - space;
+    }
+
+    void addBool(boolean value) {
+        addByte((byte) (value ? 1 : 0));
+    }
+
+    void addByte(byte value) {
+        prep(Byte.BYTES, 0);
+        buf[--space] = value;
+    }
+
+    void addShort(short value) {
+        prep(Short.BYTES, 0);
+        space -= Short.BYTES;
+        buf[space] = (byte) value;
+        buf[space + 1] = (byte) (value >>> 8);
+    }
+
+    void addInt(int value) {
+        prep(Integer.BYTES, 0);
+        putInt(value);
+    }
+
+    void addLong(long value) {
+        prep(Long.BYTES, 0);
+        space -= Long.BYTES;
+        for (int i = 0; i < Long.BYTES; i++) {
+            buf[space + i] = (byte) (value >>> (8 * i));
+        }
+    }
+
+    /**
+     * Adds a reference to the object at {@code target}, which must already have been written.
+     */
+    void addOffset(int target) {
+        prep(Integer.BYTES, 0);
+        putInt(offset() + Integer.BYTES - target);
+    }
+
+    /**
+     * @return the offset of a null-terminated string holding {@code utf8}
+     */
+    int createString(byte[] utf8) {
+        prep(Integer.BYTES, utf8.length + 1);
+        buf[--space] = 0;
+        space -= utf8.length;
+        System.arraycopy(utf8, 0, buf, space, utf8.length);
+        putInt(utf8.length);
+        return offset();
+    }
+
+    /**
+     * @return the offset of a vector referring to the objects at {@code targets}
+     */
+    int createOffsetVector(int[] targets) {
+        startVector(Integer.BYTES, targets.length, Integer.BYTES);
+        for (int i = targets.length - 1; i >= 0; i--) {
+            addOffset(targets[i]);
+        }
+        return endVector(targets.length);
+    }
+
+    /**
+     * @return the offset of a vector of structs of two longs, element {@code i} being
+     * {@code (first[i], second[i])}
+     */
+    int createLongPairVector(long[] first, long[] second) {
+        startVector(2 * Long.BYTES, first.length, Long.BYTES);
+        for (int i = first.length - 1; i >= 0; i--) {
+            addLong(second[i]);
+            addLong(first[i]);
+        }
+        return endVector(first.length);
+    }
+
+    void startTable(int fields) {
+        vtable = new int[fields];
+        objectStart = offset();
+    }
+
+    /**
+     * Records that the value just added is field {@code field} of the table being built.
+     */
+    void slot(int field) {
+        vtable[field] = offset();
+    }
+
+    /**
+     * @return the offset of the table
+     */
+    int endTable() {
+        addInt(0);
+        int objectOffset = offset();
+        for (int field = vtable.length - 1; field >= 0; field--) {
+            addShort((short) (vtable[field] != 0 ? objectOffset - vtable[field] : 0));
+        }
+        addShort((short) (objectOffset - objectStart));
+        addShort((short) ((vtable.length + 2) * Short.BYTES));
+        // the table starts with the signed distance back to its vtable
+        int vtableOffset = offset();
+        int tablePosition = buf.length - objectOffset;
+        int distance = vtableOffset - objectOffset;
+        for (int i = 0; i < Integer.BYTES; i++) {
+            buf[tablePosition + i] = (byte) (distance >>> (8 * i));
+        }
+        vtable = null;
+        return objectOffset;
+    }
+
+    /**
+     * Adds the reference to the root table and returns the finished buffer.
+     */
+    byte[] finish(int root) {
+        prep(minAlign, Integer.BYTES);
+        addOffset(root);
+        return Arrays.copyOfRange(buf, space, buf.length);
+    }
+
+    private void startVector(int elementSize, int count, int alignment) {
+        prep(Integer.BYTES, elementSize * count);
+        prep(alignment, elementSize * count);
+    }
+
+    private int endVector(int count) {
+        putInt(count);
+        return offset();
+    }
+
+    /**
+     * Pads so that a value of {@code size} bytes, written after {@code additional} more bytes, is
+     * aligned to {@code size}, and makes room for both.
+     */
+    private void prep(int size, int additional) {
+        minAlign = Math.max(minAlign, size);
+        int padding = -(offset() + additional) & (size - 1);
+        int needed = padding + size + additional;
+        while (space < needed) {
+            byte[] grown = new byte[buf.length * 2];
+            System.arraycopy(buf, 0, grown, buf.length, buf.length);
+            space += buf.length;
+            buf = grown;
+        }
+        for (int i = 0; i < padding; i++) {
+            buf[--space] = 0;
+        }
+    }
+
+    private void putInt(int value) {
+        space -= Integer.BYTES;
+        for (int i = 0; i < Integer.BYTES; i++) {
+            buf[space + i] = (byte) (value >>> (8 * i));
+        }
+    }
+}
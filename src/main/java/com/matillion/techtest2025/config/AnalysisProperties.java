@@ -0,0 +1,427 @@
+package com.matillion.techtest2025.config;
+
+import com.matillion.techtest2025.sketch.HyperLogLogSketch;
+import com.matillion.techtest2025.sketch.KllSketch;
+import com.matillion.techtest2025.sketch.SpaceSavingSketch;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Tunable settings for the analysis service, bound from the {@code analysis.*} properties in
+ * {@code application.yml}.
+ * <p>
+ * Every setting has a default, so the service runs without any of them configured.
+ */
+@ConfigurationProperties(prefix = "analysis")
+@Getter
+@Setter
+public class AnalysisProperties {
+
+    private Parser parser = new Parser();
+    private Profile profile = new Profile();
+    private Storage storage = new Storage();
+    private Http http = new Http();
+    private Admission admission = new Admission();
+    private Drift drift = new Drift();
+    private Export export = new Export();
+
+    @Getter
+    @Setter
+    public static class Parser {
+
+        /**
+         * Which tokenizer backend to use for CSV parsing.
+         */
+        private TokenizerBackend backend = TokenizerBackend.AUTO;
+
+        /**
+         * Input formats that ingests can name in their {@code format} parameter. Entries configured
+         * here are added to, or replace, the built-in {@code csv}, {@code tsv} and {@code psv}.
+         */
+        private Map<String, Format> formats = new LinkedHashMap<>(Map.of(
+                "csv", new Format(',', '"'),
+                "tsv", new Format('\t', '"'),
+                "psv", new Format('|', '"')
+        ));
+
+        /**
+         * Format of ingests that do not name one.
+         */
+        private String defaultFormat = "csv";
+    }
+
+    @Getter
+    @Setter
+    public static class Format {
+
+        /**
+         * Field separator; any ASCII character other than a line break.
+         */
+        private char delimiter = ',';
+
+        /**
+         * Character that quotes fields containing delimiters, line breaks or itself (doubled);
+         * empty to read every character literally.
+         */
+        private Character quote = '"';
+
+        public Format() {
+        }
+
+        public Format(char delimiter, Character quote) {
+            this.delimiter = delimiter;
+            this.quote = quote;
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class Profile {
+
+        /**
+         * Accuracy parameter {@code k} of the per-column KLL quantile sketch. Larger values give
+         * more accurate quantiles at the cost of roughly {@code 3k} retained values per column.
+         */
+        private int quantileSketchK = KllSketch.DEFAULT_K;
+
+        /**
+         * Number of equal-width buckets in numeric column histograms.
+         */
+        private int histogramBuckets = 10;
+
+        /**
+         * Precision {@code p} of the per-column HyperLogLog sketch stored for comparing analyses:
+         * {@code 2^p} registers, a relative error of about {@code 1.04 / sqrt(2^p)}, and at most
+         * {@code 2^p} bytes per column. {@code 0} stops recording the sketch.
+         */
+        private int distinctSketchPrecision = HyperLogLogSketch.DEFAULT_PRECISION;
+
+        private TopValues topValues = new TopValues();
+
+        private DistinctValues distinctValues = new DistinctValues();
+
+        private TypeInference typeInference = new TypeInference();
+
+        private Pairwise pairwise = new Pairwise();
+    }
+
+    @Getter
+    @Setter
+    public static class Pairwise {
+
+        /**
+         * Most column pairs one request may ask for, since the work grows with the number of pairs.
+         */
+        private int maxPairs = 1000;
+
+        /**
+         * Most ranges of columnar chunks scanned at the same time for one request.
+         */
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+    }
+
+    @Getter
+    @Setter
+    public static class TypeInference {
+
+        /**
+         * Share of a column's non-null values that must match a specific type (boolean, integer,
+         * decimal, date, timestamp, UUID or e-mail) for the column to get that type.
+         */
+        private double minConfidence = 0.9;
+
+        /**
+         * Most distinct values a text column may have to be reported as categorical.
+         */
+        private int maxCategories = 50;
+    }
+
+    @Getter
+    @Setter
+    public static class DistinctValues {
+
+        /**
+         * Memory allowed for the distinct values of all columns of one ingest or sampled profile.
+         * Beyond it the largest columns spill sorted runs to disk, and unique counts are merged
+         * from them; counts stay exact either way.
+         */
+        private DataSize memoryBudget = DataSize.ofMegabytes(256);
+
+        /**
+         * Directory for spilled runs. Files are deleted once the counts are taken.
+         */
+        private Path spillDirectory = Path.of(System.getProperty("java.io.tmpdir"), "techtest2025", "distinct");
+
+        /**
+         * Where distinct values are kept while counting.
+         */
+        private DistinctValueStorage storage = DistinctValueStorage.AUTO;
+    }
+
+    @Getter
+    @Setter
+    public static class TopValues {
+
+        /**
+         * Whether to track the most frequent values of each column during ingest.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Number of counters per column. Memory per column is fixed by this value, and any value
+         * occurring in more than {@code 1/capacity} of the rows is guaranteed to be tracked.
+         */
+        private int capacity = SpaceSavingSketch.DEFAULT_CAPACITY;
+
+        /**
+         * Number of top values returned when a profile request does not specify {@code topK}.
+         */
+        private int defaultK = 10;
+    }
+
+    @Getter
+    @Setter
+    public static class Storage {
+
+        private Columnar columnar = new Columnar();
+        private Retention retention = new Retention();
+
+        /**
+         * Analyses deleted per transaction by a bulk delete.
+         */
+        private int deleteBatchSize = 500;
+    }
+
+    @Getter
+    @Setter
+    public static class Columnar {
+
+        /**
+         * Whether ingest also writes a columnar copy of the data, which lets re-profiling read only
+         * the requested columns instead of tokenizing the stored CSV again.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Directory holding one columnar file per analysis.
+         */
+        private Path directory = Path.of(System.getProperty("java.io.tmpdir"), "techtest2025", "columnar");
+
+        /**
+         * Rows per column chunk. Each chunk picks its own encoding and records its own min/max, and
+         * ingest buffers one chunk's field offsets ({@code 8 * columns} bytes per row).
+         */
+        private int chunkRows = 4096;
+    }
+
+    @Getter
+    @Setter
+    public static class Retention {
+
+        /**
+         * Whether retention policies are applied periodically. Policies that are not set are
+         * never applied.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Delay between the end of one retention run and the start of the next.
+         */
+        private Duration interval = Duration.ofHours(1);
+
+        /**
+         * Analyses older than this lose their stored CSV data. Their statistics and columnar copy
+         * are kept, so profiles and row queries keep working while the columnar copy exists.
+         */
+        private Duration stripDataAfter;
+
+        /**
+         * Analyses older than this are deleted entirely.
+         */
+        private Duration deleteAfter;
+
+        /**
+         * Upper bound on the CSV data kept in the database. When it is exceeded, the oldest
+         * analyses lose their data first.
+         */
+        private DataSize maxStoredData;
+
+        /**
+         * Analyses stripped or deleted per transaction. Each batch commits on its own, so no run
+         * holds locks for longer than one batch.
+         */
+        private int batchSize = 500;
+    }
+
+    @Getter
+    @Setter
+    public static class Http {
+
+        /**
+         * How long clients and caches may reuse an analysis response without revalidating. Stored
+         * analyses never change, so responses that do not read the stored rows are also marked
+         * {@code immutable}; a deleted analysis can still be served from a cache until this expires.
+         */
+        private Duration cacheMaxAge = Duration.ofDays(1);
+
+        private Progress progress = new Progress();
+    }
+
+    @Getter
+    @Setter
+    public static class Progress {
+
+        /**
+         * Shortest time between two progress events of an ingest while it parses. Events for the
+         * start of each phase are always sent.
+         */
+        private Duration interval = Duration.ofMillis(500);
+
+        /**
+         * How long an ingest's event stream is kept open; when it runs out, the client stops
+         * receiving events but the ingest still completes.
+         */
+        private Duration timeout = Duration.ofMinutes(30);
+
+        /**
+         * How long shutdown waits for streamed ingests that are still running to finish.
+         */
+        private Duration shutdownTimeout = Duration.ofSeconds(30);
+    }
+
+    @Getter
+    @Setter
+    public static class Drift {
+
+        /**
+         * Change in a column's share of null values, in absolute terms, reported as drift.
+         */
+        private double nullRatioChange = 0.05;
+
+        /**
+         * Change in a column's unique count, relative to the first analysis, reported as drift.
+         */
+        private double cardinalityChange = 0.2;
+
+        /**
+         * Largest distance between the value distributions of a numeric column (the
+         * Kolmogorov-Smirnov statistic of the two quantile sketches) reported as drift.
+         */
+        private double distributionShift = 0.1;
+    }
+
+    @Getter
+    @Setter
+    public static class Export {
+
+        /**
+         * Rows per Arrow record batch. The export holds one batch of every exported column in
+         * memory, and readers receive each batch as soon as it is full.
+         */
+        private int batchRows = 65_536;
+    }
+
+    @Getter
+    @Setter
+    public static class Admission {
+
+        /**
+         * Whether CSV ingests are subject to the limits below.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Request header identifying the client, for deployments behind a proxy that sets it.
+         * Unset by default: a header sent by the client itself could be changed on every request
+         * to get fresh limits, so clients are identified by their authenticated principal, or
+         * else their remote address. Requests without the header fall back to the same.
+         */
+        private String clientHeader;
+
+        /**
+         * {@code Retry-After} sent when a concurrency or in-flight byte limit is exhausted; rate
+         * limit rejections use the time until the next token instead.
+         */
+        private Duration retryAfter = Duration.ofSeconds(1);
+
+        /**
+         * Number of clients tracked. Beyond it, the least recently admitted idle client is
+         * forgotten, and new clients are rejected while every tracked one has an ingest running.
+         */
+        private int maxTrackedClients = 10_000;
+
+        /**
+         * Limits shared by all clients.
+         */
+        private Limits global = new Limits(64, DataSize.ofMegabytes(512), 100, 200);
+
+        /**
+         * Limits applied to each client separately.
+         */
+        private Limits perClient = new Limits(8, DataSize.ofMegabytes(128), 20, 100);
+    }
+
+    @Getter
+    @Setter
+    public static class Limits {
+
+        /**
+         * Ingests allowed to run at the same time.
+         */
+        private int maxConcurrentIngests;
+
+        /**
+         * Upper bound on the sum of {@code Content-Length} of running ingests. A single request
+         * larger than this is rejected outright.
+         */
+        private DataSize maxInFlightBytes;
+
+        /**
+         * Sustained ingest rate.
+         */
+        private double ingestsPerSecond;
+
+        /**
+         * Ingests that may start back to back before the sustained rate applies.
+         */
+        private int burst;
+
+        public Limits() {
+        }
+
+        public Limits(int maxConcurrentIngests, DataSize maxInFlightBytes, double ingestsPerSecond, int burst) {
+            this.maxConcurrentIngests = maxConcurrentIngests;
+            this.maxInFlightBytes = maxInFlightBytes;
+            this.ingestsPerSecond = ingestsPerSecond;
+            this.burst = burst;
+        }
+    }
+
+    public enum DistinctValueStorage {
+        /**
+         * Off-heap when the JVM runs with {@code --enable-preview}, on the heap otherwise.
+         */
+        AUTO,
+        HEAP,
+        /**
+         * Native memory allocated per parse and freed when it finishes; needs {@code --enable-preview}.
+         */
+        OFF_HEAP
+    }
+
+    public enum TokenizerBackend {
+        /**
+         * Vector API backend when {@code jdk.incubator.vector} is enabled, scalar otherwise.
+         */
+        AUTO,
+        SCALAR,
+        VECTOR
+    }
+}
@@ -0,0 +1,95 @@
+package com.matillion.techtest2025.config;
+
+import com.matillion.techtest2025.controller.request.BulkDeleteRequest;
+import com.matillion.techtest2025.controller.response.AnalysisDiffResponse;
+import com.matillion.techtest2025.controller.response.BulkDeleteResponse;
+import com.matillion.techtest2025.controller.response.DataAnalysisResponse;
+import com.matillion.techtest2025.controller.response.DataAnalysisSummary;
+import com.matillion.techtest2025.model.ColumnDrift;
+import com.matillion.techtest2025.model.ColumnPairStatistics;
+import com.matillion.techtest2025.model.ColumnProfile;
+import com.matillion.techtest2025.model.ColumnStatistics;
+import com.matillion.techtest2025.model.DriftKind;
+import com.matillion.techtest2025.model.HistogramBucket;
+import com.matillion.techtest2025.model.InferredType;
+import com.matillion.techtest2025.model.IngestProgress;
+import com.matillion.techtest2025.model.SamplingMode;
+import com.matillion.techtest2025.model.ValueFrequency;
+import com.matillion.techtest2025.model.ValuePairFrequency;
+import com.matillion.techtest2025.repository.AnalysisContentHash;
+import com.matillion.techtest2025.repository.CacheValidators;
+import com.matillion.techtest2025.repository.StoredAnalysis;
+import com.matillion.techtest2025.repository.StoredDataSize;
+import com.matillion.techtest2025.repository.entity.ColumnStatisticsEntity;
+import com.matillion.techtest2025.repository.entity.DataAnalysisEntity;
+import com.matillion.techtest2025.service.IngestResult;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+/**
+ * Reflection and resource hints for running as a GraalVM native image.
+ * <p>
+ * Spring AOT infers most hints from the application context, but not for types that are only
+ * reached reflectively at runtime: records written by {@code JsonStreams} or read back by clients,
+ * the JPA entities with their Lombok builders, DTOs created by JPQL constructor expressions, and
+ * the Flyway migrations, and the off-heap distinct-value storage that {@code SliceSets} loads by
+ * name. The vector tokenizer needs no hints: native images run without
+ * {@code jdk.incubator.vector}, so the scalar backend is selected.
+ */
+@Configuration
+@ImportRuntimeHints(AnalysisRuntimeHints.Registrar.class)
+public class AnalysisRuntimeHints {
+
+    static class Registrar implements RuntimeHintsRegistrar {
+
+        private static final Class<?>[] JSON_TYPES = {
+                DataAnalysisResponse.class,
+                DataAnalysisSummary.class,
+                ColumnStatistics.class,
+                ColumnProfile.class,
+                HistogramBucket.class,
+                ValueFrequency.class,
+                BulkDeleteRequest.class,
+                BulkDeleteResponse.class,
+                AnalysisDiffResponse.class,
+                ColumnDrift.class,
+                ColumnPairStatistics.class,
+                ValuePairFrequency.class,
+                IngestProgress.class,
+                IngestResult.class
+        };
+
+        private static final Class<?>[] PERSISTENCE_TYPES = {
+                DataAnalysisEntity.class,
+                DataAnalysisEntity.DataAnalysisEntityBuilder.class,
+                ColumnStatisticsEntity.class,
+                ColumnStatisticsEntity.ColumnStatisticsEntityBuilder.class,
+                StoredDataSize.class,
+                AnalysisContentHash.class,
+                CacheValidators.class,
+                StoredAnalysis.class,
+                InferredType.class,
+                SamplingMode.class,
+                DriftKind.class
+        };
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(), JSON_TYPES);
+            for (Class<?> type : PERSISTENCE_TYPES) {
+                hints.reflection().registerType(type, MemberCategory.values());
+            }
+            // built with --enable-preview, so the preview-marked class can be loaded
+            hints.reflection().registerType(TypeReference.of("com.matillion.techtest2025.parser.OffHeapSliceSet"),
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+            hints.resources()
+                    .registerPattern("db/migration/*.sql")
+                    .registerPattern("banner.txt");
+        }
+    }
+}
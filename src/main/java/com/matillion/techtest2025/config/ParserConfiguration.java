@@ -0,0 +1,47 @@
+package com.matillion.techtest2025.config;
+
+import com.matillion.techtest2025.parser.CsvFormat;
+import com.matillion.techtest2025.parser.CsvTokenizer;
+import com.matillion.techtest2025.parser.CsvTokenizers;
+import com.matillion.techtest2025.parser.InputFormats;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Wires the CSV tokenizer backend selected by {@code analysis.parser.backend}, and the input
+ * formats of {@code analysis.parser.formats}.
+ */
+@Configuration
+@EnableConfigurationProperties(AnalysisProperties.class)
+public class ParserConfiguration {
+
+    @Bean
+    public CsvTokenizer csvTokenizer(AnalysisProperties properties) {
+        return switch (properties.getParser().getBackend()) {
+            case AUTO -> CsvTokenizers.auto();
+            case SCALAR -> CsvTokenizers.scalar();
+            case VECTOR -> CsvTokenizers.vector();
+        };
+    }
+
+    /**
+     * @throws IllegalArgumentException at startup if a configured format is not usable
+     */
+    @Bean
+    public InputFormats inputFormats(AnalysisProperties properties) {
+        AnalysisProperties.Parser parser = properties.getParser();
+        Map<String, CsvFormat> formats = new LinkedHashMap<>();
+        parser.getFormats().forEach((name, format) -> {
+            try {
+                formats.put(name, CsvFormat.of(format.getDelimiter(), format.getQuote()));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid input format '" + name + "': " + e.getMessage(), e);
+            }
+        });
+        return new InputFormats(formats, parser.getDefaultFormat());
+    }
+}
@@ -0,0 +1,33 @@
+package com.matillion.techtest2025.config;
+
+import com.matillion.techtest2025.service.RetentionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.FixedDelayTask;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+
+import java.time.Duration;
+
+/**
+ * Schedules {@link RetentionService} every {@code analysis.storage.retention.interval} when
+ * {@code analysis.storage.retention.enabled} is set.
+ */
+@Configuration
+@EnableScheduling
+@RequiredArgsConstructor
+public class RetentionConfiguration implements SchedulingConfigurer {
+
+    private final AnalysisProperties properties;
+    private final RetentionService retentionService;
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        AnalysisProperties.Retention retention = properties.getStorage().getRetention();
+        if (retention.isEnabled()) {
+            Duration interval = retention.getInterval();
+            registrar.addFixedDelayTask(new FixedDelayTask(retentionService::applyPolicies, interval, interval));
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.matillion.techtest2025.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Adds binary response formats for machine clients: {@code application/cbor} and
+ * {@code application/x-jackson-smile} are served when a client asks for them in {@code Accept},
+ * and JSON stays the default.
+ * <p>
+ * Both converters are built from Spring Boot's {@link Jackson2ObjectMapperBuilder}, so they share
+ * the JSON mapper's configuration (modules, date handling, property inclusion) and encode exactly
+ * the same fields. Spring Boot puts these beans in place of the default binary converters.
+ */
+@Configuration
+public class SerializationConfiguration {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
@@ -0,0 +1,27 @@
+package com.matillion.techtest2025.config;
+
+import com.matillion.techtest2025.controller.ConditionalGetInterceptor;
+import com.matillion.techtest2025.controller.IngestAdmissionInterceptor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Registers the MVC interceptors that sit in front of the analysis endpoints.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class WebConfiguration implements WebMvcConfigurer {
+
+    private final ConditionalGetInterceptor conditionalGetInterceptor;
+    private final IngestAdmissionInterceptor ingestAdmissionInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(conditionalGetInterceptor)
+                .addPathPatterns("/api/analysis/*", "/api/analysis/*/**");
+        registry.addInterceptor(ingestAdmissionInterceptor)
+                .addPathPatterns("/api/analysis/ingestCsv");
+    }
+}
@@ -0,0 +1,108 @@
+package com.matillion.techtest2025.controller;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Holds back caching headers until a response turns out to be successful.
+ * <p>
+ * {@link ConditionalGetInterceptor} works out a response's entity tag and {@code Cache-Control}
+ * before the controller runs, but only a {@code 2xx} response may carry them: a 400 for a bad
+ * parameter or a 410 after retention must not be cached, nor be answered with {@code 304} later.
+ * Headers added with {@link #addOnSuccess} are written when the status is settled, which is when
+ * the body is first written or, for a response without one, when the request ends.
+ */
+@Component
+public class CacheHeadersFilter extends OncePerRequestFilter {
+
+    /**
+     * Adds a header to {@code response} if it ends up with a {@code 2xx} status. Does nothing if the
+     * response did not pass through this filter.
+     */
+    static void addOnSuccess(HttpServletResponse response, String name, String value) {
+        StagedHeadersResponse staged = WebUtils.getNativeResponse(response, StagedHeadersResponse.class);
+        if (staged != null) {
+            staged.headers.put(name, value);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        StagedHeadersResponse staged = new StagedHeadersResponse(response);
+        chain.doFilter(request, staged);
+        if (!request.isAsyncStarted()) {
+            staged.writeHeaders();
+        }
+    }
+
+    private static final class StagedHeadersResponse extends HttpServletResponseWrapper {
+
+        private final Map<String, String> headers = new LinkedHashMap<>();
+
+        StagedHeadersResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        void writeHeaders() {
+            int status = getStatus();
+            if (status >= 200 && status < 300 && !isCommitted()) {
+                headers.forEach(this::addHeader);
+            }
+            headers.clear();
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeHeaders();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeaders();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeaders();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            headers.clear();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            headers.clear();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            headers.clear();
+            super.sendRedirect(location);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.matillion.techtest2025.controller;
+
+import com.matillion.techtest2025.config.AnalysisProperties;
+import com.matillion.techtest2025.repository.CacheValidators;
+import com.matillion.techtest2025.repository.DataAnalysisRepository;
+import com.matillion.techtest2025.storage.ColumnarStore;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Enumeration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Answers conditional {@code GET} requests for stored analyses before they reach the controller.
+ * <p>
+ * An analysis never changes after it is stored, so every response derived from it (the analysis
+ * itself, profiles, row queries, in any format) can carry a strong entity tag built from the
+ * analysis id, the content hash recorded at ingest, and the request details that select the
+ * representation: the path below the analysis, the query parameters and the {@code Accept}
+ * header. A diff's tag also covers the content hash of the other analysis. Only the content hash
+ * is read from the database; when {@code If-None-Match} matches, the response is a {@code 304} and
+ * neither the stored data nor the parser is touched.
+ * <p>
+ * Responses that read the stored rows (row queries, exports, pairwise statistics and sampled
+ * profiles) fail with 410 once retention has removed the rows, so they are not marked
+ * {@code immutable}, and are passed through to the controller as soon as the rows are gone. The
+ * tag and {@code Cache-Control} are only written to {@code 2xx} responses, by
+ * {@link CacheHeadersFilter}. Requests for unknown ids pass through unchanged, so they still get
+ * the controller's 404.
+ */
+@Component
+@RequiredArgsConstructor
+public class ConditionalGetInterceptor implements HandlerInterceptor {
+
+    /**
+     * Part of every entity tag. Bump it when the format of any analysis response changes, so that
+     * clients holding a tag from an older release download the new representation.
+     */
+    private static final String REPRESENTATION_VERSION = "1";
+
+    /**
+     * Endpoints whose responses are computed from the stored rows rather than the statistics
+     * recorded at ingest. Profiles are, too, when sampled.
+     */
+    private static final Set<String> STORED_ROWS_PATTERNS = Set.of(
+            "/api/analysis/{id}/rows",
+            "/api/analysis/{id}/export",
+            "/api/analysis/{id}/correlations"
+    );
+    private static final String PROFILE_PATTERN = "/api/analysis/{id}/profile";
+
+    private final DataAnalysisRepository dataAnalysisRepository;
+    private final ColumnarStore columnarStore;
+    private final AnalysisProperties properties;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // async dispatches of streamed responses come back through here after the headers are sent
+        if (request.getDispatcherType() != DispatcherType.REQUEST) {
+            return true;
+        }
+        if (!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) {
+            return true;
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, String> variables =
+                (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        Long id = analysisId(variables, "id");
+        if (id == null) {
+            return true;
+        }
+        Optional<CacheValidators> validators = dataAnalysisRepository.findCacheValidatorsById(id);
+        if (validators.isEmpty()) {
+            return true;
+        }
+        StringBuilder representation = representation(request);
+        if (variables.containsKey("otherId")) {
+            Long otherId = analysisId(variables, "otherId");
+            Optional<CacheValidators> other = otherId != null
+                    ? dataAnalysisRepository.findCacheValidatorsById(otherId)
+                    : Optional.empty();
+            if (other.isEmpty()) {
+                return true;
+            }
+            representation.append('\n').append(otherId).append('=').append(other.get().contentHash());
+        }
+        boolean readsStoredRows = readsStoredRows(request);
+        if (readsStoredRows && !validators.get().dataStored() && !columnarStore.exists(id, validators.get().contentHash())) {
+            // retention removed the rows, so this is a 410
+            return true;
+        }
+
+        String entityTag = "\"" + id + "-" + validators.get().contentHash().substring(0, 16) + "-"
+                + sha256Prefix(representation.toString()) + "\"";
+        String cacheControl = "max-age=" + properties.getHttp().getCacheMaxAge().toSeconds()
+                + (readsStoredRows ? "" : ", immutable");
+        if (matches(request.getHeaders(HttpHeaders.IF_NONE_MATCH), entityTag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            response.setHeader(HttpHeaders.ETAG, entityTag);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+            return false;
+        }
+        CacheHeadersFilter.addOnSuccess(response, HttpHeaders.ETAG, entityTag);
+        CacheHeadersFilter.addOnSuccess(response, HttpHeaders.CACHE_CONTROL, cacheControl);
+        CacheHeadersFilter.addOnSuccess(response, HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        return true;
+    }
+
+    private static Long analysisId(Map<String, String> variables, String name) {
+        String id = variables != null ? variables.get(name) : null;
+        if (id == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(id);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static boolean readsStoredRows(HttpServletRequest request) {
+        String pattern = String.valueOf(request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE));
+        return STORED_ROWS_PATTERNS.contains(pattern)
+                || PROFILE_PATTERN.equals(pattern) && request.getParameter("sample") != null;
+    }
+
+    /**
+     * Everything that can change the response body for the same analysis; query parameters are
+     * sorted so that their order does not matter.
+     */
+    private static StringBuilder representation(HttpServletRequest request) {
+        StringBuilder representation = new StringBuilder(REPRESENTATION_VERSION)
+                .append('\n').append(request.getRequestURI())
+                .append('\n').append(request.getHeader(HttpHeaders.ACCEPT));
+        new TreeMap<>(request.getParameterMap()).forEach((name, values) -> {
+            for (String value : values) {
+                representation.append('\n').append(name).append('=').append(value);
+            }
+        });
+        return representation;
+    }
+
+    /**
+     * Whether any {@code If-None-Match} header lists {@code entityTag} or {@code *}, comparing
+     * weakly as the header requires.
+     */
+    private static boolean matches(Enumeration<String> ifNoneMatch, String entityTag) {
+        while (ifNoneMatch.hasMoreElements()) {
+            for (String candidate : ifNoneMatch.nextElement().split(",")) {
+                String tag = candidate.strip();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(entityTag)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String sha256Prefix(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.matillion.techtest2025.controller;
+
+import com.matillion.techtest2025.config.AnalysisProperties;
+import com.matillion.techtest2025.exception.PayloadTooLargeException;
+import com.matillion.techtest2025.exception.UnsupportedContentEncodingException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Decodes request bodies sent with {@code Content-Encoding: gzip} while they are read, and caps
+ * every body whose size is not known up front.
+ * <p>
+ * The body is inflated as the message converter reads it, straight into the array the endpoint
+ * receives, so a compressed upload is never stored compressed or written to a temporary file. The
+ * decoded size of such a body is unknown up front, as is the size of a chunked upload without a
+ * {@code Content-Length}: admission reserves the per-client byte limit for both (see
+ * {@link IngestAdmissionInterceptor}), and reading beyond that limit fails with
+ * {@link PayloadTooLargeException}, which also stops compression bombs. Other encodings are
+ * rejected with {@link UnsupportedContentEncodingException}.
+ */
+@ControllerAdvice
+@RequiredArgsConstructor
+public class ContentEncodingAdvice extends RequestBodyAdviceAdapter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final AnalysisProperties properties;
+
+    /**
+     * @return whether a request with this {@code Content-Encoding} header has a body that must be
+     * decoded, so that its {@code Content-Length} says nothing about its decoded size
+     */
+    static boolean isEncoded(String contentEncoding) {
+        return contentEncoding != null && !contentEncoding.isBlank() && !contentEncoding.trim().equalsIgnoreCase("identity");
+    }
+
+    @Override
+    public boolean supports(MethodParameter methodParameter, Type targetType,
+                            Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public HttpInputMessage beforeBodyRead(HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                           Class<? extends HttpMessageConverter<?>> converterType) throws IOException {
+        String contentEncoding = inputMessage.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING);
+        if (!isEncoded(contentEncoding)) {
+            if (inputMessage.getHeaders().getContentLength() >= 0) {
+                return inputMessage;
+            }
+            return withBody(inputMessage.getHeaders(), new LimitedInputStream(inputMessage.getBody(), maxBodyBytes()));
+        }
+        String encoding = contentEncoding.trim();
+        if (!encoding.equalsIgnoreCase("gzip") && !encoding.equalsIgnoreCase("x-gzip")) {
+            throw new UnsupportedContentEncodingException("Content-Encoding '" + encoding + "' is not supported; use gzip");
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(inputMessage.getHeaders());
+        headers.remove(HttpHeaders.CONTENT_ENCODING);
+        headers.remove(HttpHeaders.CONTENT_LENGTH);
+        return withBody(headers, new LimitedInputStream(new GZIPInputStream(inputMessage.getBody(), BUFFER_SIZE), maxBodyBytes()));
+    }
+
+    private static HttpInputMessage withBody(HttpHeaders headers, InputStream body) {
+        return new HttpInputMessage() {
+            @Override
+            public InputStream getBody() {
+                return body;
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                return headers;
+            }
+        };
+    }
+
+    private long maxBodyBytes() {
+        AnalysisProperties.Admission admission = properties.getAdmission();
+        return Math.min(admission.getPerClient().getMaxInFlightBytes().toBytes(),
+                admission.getGlobal().getMaxInFlightBytes().toBytes());
+    }
+
+    /**
+     * Fails as soon as more than {@code limit} bytes have been read.
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+
+        private final long limit;
+        private long count;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        private void count(int n) {
+            count += n;
+            if (count > limit) {
+                throw new PayloadTooLargeException("Request body exceeds the limit of " + limit + " bytes");
+            }
+        }
+    }
+}
@@ -1,13 +1,37 @@
 package com.matillion.techtest2025.controller;
 
+import com.matillion.techtest2025.arrow.ArrowStreamWriter;
+import com.matillion.techtest2025.controller.request.BulkDeleteRequest;
+import com.matillion.techtest2025.controller.response.AnalysisDiffResponse;
+import com.matillion.techtest2025.controller.response.BulkDeleteResponse;
 import com.matillion.techtest2025.controller.response.DataAnalysisResponse;
 import com.matillion.techtest2025.exception.BadRequestException;
+import com.matillion.techtest2025.model.ColumnPairStatistics;
 import com.matillion.techtest2025.model.ColumnProfile;
+import com.matillion.techtest2025.model.SamplingMode;
+import com.matillion.techtest2025.parser.Utf8;
 import com.matillion.techtest2025.service.DataAnalysisService;
+import com.matillion.techtest2025.service.IngestProgressListener;
+import com.matillion.techtest2025.service.IngestResult;
+import com.matillion.techtest2025.service.ProfileOptions;
+import com.matillion.techtest2025.service.SchemaDriftService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static com.matillion.techtest2025.controller.JsonStreams.APPLICATION_NDJSON_VALUE;
+import static org.springframework.http.HttpHeaders.CONTENT_DISPOSITION;
+import static org.springframework.http.HttpHeaders.CONTENT_LOCATION;
 import static org.springframework.http.HttpStatus.NO_CONTENT;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.TEXT_EVENT_STREAM_VALUE;
 
 /**
  * REST controller for data analysis endpoints.
@@ -20,7 +44,15 @@ import static org.springframework.http.HttpStatus.NO_CONTENT;
 @RequiredArgsConstructor
 public class DataAnalysisController {
 
+    private static final byte[] SONNY_HAYES = "Sonny Hayes".getBytes(UTF_8);
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv", UTF_8);
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType(APPLICATION_NDJSON_VALUE);
+    private static final MediaType APPLICATION_ARROW_STREAM = MediaType.parseMediaType(ArrowStreamWriter.MEDIA_TYPE);
+
     private final DataAnalysisService dataAnalysisService;
+    private final SchemaDriftService schemaDriftService;
+    private final JsonStreams jsonStreams;
+    private final IngestProgressStreams ingestProgressStreams;
 
     // Part 1 endpoints
 
@@ -29,20 +61,72 @@ public class DataAnalysisController {
      * <p>
      * Validates the input data (rejects data containing "Sonny Hayes"), performs analysis,
      * persists the results to the database, and returns statistics about the CSV.
+     * <p>
+     * The body is taken as raw UTF-8 bytes rather than a {@code String} so that the payload is
+     * never decoded as a whole; the validation below searches the bytes directly.
+     * <p>
+     * Content that was already analysed is not analysed again unless {@code force=true}: the
+     * existing analysis is returned. Either way, {@code Content-Location} links to the stored
+     * analysis.
+     * <p>
+     * {@code format} names one of {@code analysis.parser.formats} (such as {@code tsv} or
+     * {@code psv}) for data that is not comma-separated. Bodies sent with
+     * {@code Content-Encoding: gzip} are decompressed while they are read, see
+     * {@link ContentEncodingAdvice}.
      *
-     * @param data the raw CSV data as a string
+     * @param data   the raw CSV data as UTF-8 bytes
+     * @param format the input format, or {@code null} for {@code analysis.parser.default-format}
+     * @param force  analyse and store the data even if identical content was analysed before
      * @return analysis results including row count, column count, total characters, and column statistics
-     * @throws BadRequestException if validation fails
+     * @throws BadRequestException if validation fails or the format is unknown
      */
     @PostMapping("/ingestCsv")
-    public DataAnalysisResponse ingestAndAnalyzeCsv(@RequestBody String data) {
+    public ResponseEntity<DataAnalysisResponse> ingestAndAnalyzeCsv(
+            @RequestBody byte[] data,
+            @RequestParam(required = false) String format,
+            @RequestParam(defaultValue = "false") boolean force
+    ) {
+        validate(data);
+
+        IngestResult result = dataAnalysisService.analyzeCsvData(data, format, force, IngestProgressListener.NONE);
+        return ResponseEntity.ok()
+                .header(CONTENT_LOCATION, "/api/analysis/" + result.analysisId())
+                .body(result.analysis());
+    }
+
+    /**
+     * Ingests and analyzes CSV data like {@link #ingestAndAnalyzeCsv}, streaming its progress as
+     * server-sent events ({@code Accept: text/event-stream}).
+     * <p>
+     * {@code progress} events report the phase, bytes parsed, rows and running null counts per
+     * column, at most once per {@code analysis.http.progress.interval} while parsing. The last event
+     * is {@code result}, holding the analysis id and results, or {@code error}, holding a problem
+     * detail. Validation of the upload happens before the stream starts, and fails as a plain 400.
+     * <p>
+     * The ingest keeps its admission permit until it has finished, even if the stream ends first.
+     *
+     * @param data   the raw CSV data as UTF-8 bytes
+     * @param format the input format, or {@code null} for {@code analysis.parser.default-format}
+     * @param force  analyse and store the data even if identical content was analysed before
+     * @throws BadRequestException if validation fails
+     */
+    @PostMapping(value = "/ingestCsv", produces = TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter ingestAndAnalyzeCsvWithProgress(
+            @RequestBody byte[] data,
+            @RequestParam(required = false) String format,
+            @RequestParam(defaultValue = "false") boolean force,
+            HttpServletRequest request
+    ) {
+        validate(data);
+        return ingestProgressStreams.ingest(data, format, force, IngestAdmissionInterceptor.takePermit(request));
+    }
+
+    private static void validate(byte[] data) {
         // Simple validation: reject data containing "Sonny Hayes"
         // (fictional F1 driver from the recent F1 movie)
-        if (data.contains("Sonny Hayes")) {
+        if (Utf8.indexOf(data, SONNY_HAYES) >= 0) {
             throw new BadRequestException("CSV data containing 'Sonny Hayes' is not allowed");
         }
-
-        return dataAnalysisService.analyzeCsvData(data);
     }
 
     // Part 2 endpoints
@@ -62,22 +146,225 @@ public class DataAnalysisController {
         return dataAnalysisService.getAnalysisById(id);
     }
 
+    /**
+     * Streams a previously analyzed CSV as JSON ({@code ?stream=true}), writing column statistics
+     * as they are produced instead of building the whole response first. The JSON is the same as
+     * {@link #getAnalysisById}'s.
+     *
+     * @param id the ID of the analysis to retrieve
+     */
+    @GetMapping(value = "/{id}", params = "stream=true", produces = APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAnalysisById(@PathVariable Long id) {
+        StreamingResponseBody body = jsonStreams.analysis(dataAnalysisService.streamAnalysisById(id));
+        return ResponseEntity.ok()
+                .contentType(APPLICATION_JSON)
+                .body(body);
+    }
+
+    /**
+     * Streams a previously analyzed CSV as NDJSON ({@code Accept: application/x-ndjson}): the
+     * analysis summary on the first line, then one line of statistics per column.
+     *
+     * @param id the ID of the analysis to retrieve
+     */
+    @GetMapping(value = "/{id}", produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getAnalysisByIdAsNdjson(@PathVariable Long id) {
+        StreamingResponseBody body = jsonStreams.analysisNdjson(dataAnalysisService.streamAnalysisById(id));
+        return ResponseEntity.ok()
+                .contentType(APPLICATION_NDJSON)
+                .body(body);
+    }
+
     // Part 3 endpoints
 
     /**
-     * Returns per-column profiles including inferred type and numeric summaries.
+     * Returns per-column profiles including inferred type, numeric summaries and most frequent values.
+     * <p>
+     * Profiles can be restricted to named columns, and computed from a sample of the stored rows
+     * instead of the statistics recorded at ingest.
+     *
+     * @param id          the ID of the analysis to profile
+     * @param columns     optional column names to profile (all columns if omitted)
+     * @param sample      optional sampling mode: {@code RESERVOIR} or {@code NTH}
+     * @param sampleSize  rows to sample in {@code RESERVOIR} mode
+     * @param sampleEvery take every Nth row in {@code NTH} mode
+     * @param seed        sampler seed (default 0); the same seed always selects the same rows
+     * @param topK        optional number of most frequent values to include per column
      */
     @GetMapping("/{id}/profile")
-    public java.util.List<ColumnProfile> getColumnProfiles(@PathVariable Long id) {
-        return dataAnalysisService.getColumnProfiles(id);
+    public java.util.List<ColumnProfile> getColumnProfiles(
+            @PathVariable Long id,
+            @RequestParam(required = false) java.util.List<String> columns,
+            @RequestParam(required = false) SamplingMode sample,
+            @RequestParam(required = false) Integer sampleSize,
+            @RequestParam(required = false) Integer sampleEvery,
+            @RequestParam(defaultValue = "0") long seed,
+            @RequestParam(required = false) Integer topK
+    ) {
+        return dataAnalysisService.getColumnProfiles(
+                id,
+                new ProfileOptions(columns, sample, sampleSize, sampleEvery, seed, topK)
+        );
+    }
+
+    /**
+     * Streams column profiles as a JSON array ({@code ?stream=true}), building and writing one
+     * profile at a time. Takes the same parameters as {@link #getColumnProfiles}.
+     */
+    @GetMapping(value = "/{id}/profile", params = "stream=true", produces = APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamColumnProfiles(
+            @PathVariable Long id,
+            @RequestParam(required = false) java.util.List<String> columns,
+            @RequestParam(required = false) SamplingMode sample,
+            @RequestParam(required = false) Integer sampleSize,
+            @RequestParam(required = false) Integer sampleEvery,
+            @RequestParam(defaultValue = "0") long seed,
+            @RequestParam(required = false) Integer topK
+    ) {
+        StreamingResponseBody body = jsonStreams.array(dataAnalysisService.streamColumnProfiles(
+                id,
+                new ProfileOptions(columns, sample, sampleSize, sampleEvery, seed, topK)
+        ));
+        return ResponseEntity.ok()
+                .contentType(APPLICATION_JSON)
+                .body(body);
+    }
+
+    /**
+     * Streams column profiles as NDJSON ({@code Accept: application/x-ndjson}), one profile per
+     * line. Takes the same parameters as {@link #getColumnProfiles}.
+     */
+    @GetMapping(value = "/{id}/profile", produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getColumnProfilesAsNdjson(
+            @PathVariable Long id,
+            @RequestParam(required = false) java.util.List<String> columns,
+            @RequestParam(required = false) SamplingMode sample,
+            @RequestParam(required = false) Integer sampleSize,
+            @RequestParam(required = false) Integer sampleEvery,
+            @RequestParam(defaultValue = "0") long seed,
+            @RequestParam(required = false) Integer topK
+    ) {
+        StreamingResponseBody body = jsonStreams.ndjson(dataAnalysisService.streamColumnProfiles(
+                id,
+                new ProfileOptions(columns, sample, sampleSize, sampleEvery, seed, topK)
+        ));
+        return ResponseEntity.ok()
+                .contentType(APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * Returns statistics for pairs of columns: Pearson correlation and covariance for numeric pairs
+     * (e.g. {@code podiums} and {@code championships}), and the most frequent combinations of
+     * values for other pairs.
+     * <p>
+     * Without {@code with}, every pair of {@code columns} is computed; with it, every column of
+     * {@code columns} is paired with every column of {@code with}, so the cost grows with the
+     * pairs requested rather than with the square of the column count.
+     *
+     * @param id      the ID of the analysis
+     * @param columns the columns to pair
+     * @param with    optional columns to pair each of {@code columns} with
+     * @param topK    optional number of value combinations to include per non-numeric pair
+     * @throws BadRequestException if no columns are given, a column is unknown, or more than
+     *                             {@code analysis.profile.pairwise.max-pairs} pairs are requested
+     */
+    @GetMapping("/{id}/correlations")
+    public java.util.List<ColumnPairStatistics> getPairwiseStatistics(
+            @PathVariable Long id,
+            @RequestParam(required = false) java.util.List<String> columns,
+            @RequestParam(required = false) java.util.List<String> with,
+            @RequestParam(required = false) Integer topK
+    ) {
+        return dataAnalysisService.getPairwiseStatistics(id, columns, with, topK);
+    }
+
+    /**
+     * Returns the rows of an analysis that match a single-column filter, as CSV with a header line.
+     * <p>
+     * The filter is {@code <column><operator><value>} with one of {@code =}, {@code !=}, {@code <},
+     * {@code <=}, {@code >} or {@code >=}, e.g. {@code podiums>100}. Numeric values compare
+     * numerically against numeric cells; other values compare as text. Rows are streamed as they
+     * are found.
+     *
+     * @param id    the ID of the analysis to query
+     * @param where the filter
+     * @param limit optional maximum number of rows to return
+     * @throws BadRequestException if the filter is malformed or names an unknown column
+     */
+    @GetMapping("/{id}/rows")
+    public ResponseEntity<StreamingResponseBody> queryRows(
+            @PathVariable Long id,
+            @RequestParam String where,
+            @RequestParam(required = false) Integer limit
+    ) {
+        StreamingResponseBody rows = dataAnalysisService.queryRows(id, where, limit);
+        return ResponseEntity.ok()
+                .contentType(TEXT_CSV)
+                .body(rows);
+    }
+
+    /**
+     * Exports the rows of an analysis as an Apache Arrow IPC stream, each column typed according to
+     * its inferred type, with the column statistics in the field metadata. Record batches are
+     * streamed as they are filled.
+     *
+     * @param id      the ID of the analysis to export
+     * @param columns optional columns to export (all columns if omitted)
+     * @throws BadRequestException if a column is unknown
+     * @throws com.matillion.techtest2025.exception.GoneException if retention has removed the stored rows
+     */
+    @GetMapping("/{id}/export")
+    public ResponseEntity<StreamingResponseBody> exportArrow(
+            @PathVariable Long id,
+            @RequestParam(required = false) java.util.List<String> columns
+    ) {
+        StreamingResponseBody body = dataAnalysisService.exportArrow(id, columns);
+        return ResponseEntity.ok()
+                .contentType(APPLICATION_ARROW_STREAM)
+                .header(CONTENT_DISPOSITION, ContentDisposition.attachment().filename("analysis-" + id + ".arrows").build().toString())
+                .body(body);
+    }
+
+    /**
+     * Compares two analyses, typically two uploads of the same feed: columns added and removed, and
+     * for every shared column its type, null ratio, unique count, value overlap and distribution
+     * shift, with the changes that exceed {@code analysis.drift.*} listed per column.
+     * <p>
+     * Only the small per-column summaries stored at ingest are read, never the data, so analyses
+     * whose CSV was removed by retention can still be compared.
+     *
+     * @param id      the ID of the first analysis
+     * @param otherId the ID of the analysis to compare it with
+     * @throws com.matillion.techtest2025.exception.NotFoundException if either analysis does not exist
+     */
+    @GetMapping("/{id}/diff/{otherId}")
+    public AnalysisDiffResponse diffAnalyses(@PathVariable Long id, @PathVariable Long otherId) {
+        return schemaDriftService.diff(id, otherId);
+    }
+
+    /**
+     * Deletes many analyses at once, selected either by {@code ids} or by a creation time range
+     * ({@code createdAfter} inclusive, {@code createdBefore} exclusive, either may be omitted).
+     * <p>
+     * Analyses are deleted with set-based statements in batches, without loading them, and ids
+     * that do not exist are ignored.
+     *
+     * @param request the ids or creation time range to delete
+     * @return the number of analyses and column statistics deleted
+     * @throws BadRequestException if the request gives both or neither selection
+     */
+    @PostMapping("/bulkDelete")
+    public BulkDeleteResponse deleteAnalyses(@RequestBody BulkDeleteRequest request) {
+        return dataAnalysisService.deleteAnalyses(request);
     }
 
     /**
      * Deletes an analysis by its ID.
      * <p>
      * <b>Part 2:</b> This endpoint removes an analysis and all its associated
-     * column statistics from the database. The cascade configuration ensures that
-     * all related data is properly cleaned up.
+     * column statistics from the database. Both are removed with set-based statements, without
+     * loading the analysis or its stored data.
      *
      * @param id the ID of the analysis to delete
      * @throws com.matillion.techtest2025.exception.NotFoundException if no analysis exists with the given ID (returns HTTP 404)
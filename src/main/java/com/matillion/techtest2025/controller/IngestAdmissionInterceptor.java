@@ -0,0 +1,83 @@
+package com.matillion.techtest2025.controller;
+
+import com.matillion.techtest2025.admission.AdmissionController;
+import com.matillion.techtest2025.config.AnalysisProperties;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.security.Principal;
+
+/**
+ * Puts CSV ingests through the {@link AdmissionController} before their body is read.
+ * <p>
+ * Runs ahead of argument resolution, so a rejected request never has its body buffered. The
+ * client is identified by its authenticated principal or remote address, or by a header set by a
+ * trusted proxy if {@code analysis.admission.client-header} is configured. A compressed
+ * body is admitted as being of unknown length, since only decoding it tells its size. The permit
+ * is held until the request completes, including when the ingest fails. An ingest that outlives
+ * its request, such as one streaming its progress, takes the permit over with {@link #takePermit}
+ * and closes it when the ingest itself ends, so a client that disconnects does not free the
+ * reservation of work that is still running.
+ */
+@Component
+@RequiredArgsConstructor
+public class IngestAdmissionInterceptor implements HandlerInterceptor {
+
+    private static final String PERMIT_ATTRIBUTE = IngestAdmissionInterceptor.class.getName() + ".permit";
+
+    private final AdmissionController admissionController;
+    private final AnalysisProperties properties;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        AnalysisProperties.Admission admission = properties.getAdmission();
+        if (!admission.isEnabled() || request.getDispatcherType() != DispatcherType.REQUEST
+                || !"POST".equals(request.getMethod())) {
+            return true;
+        }
+        String client = client(request, admission.getClientHeader());
+        // a compressed body's Content-Length says nothing about the size it decodes to
+        long contentLength = ContentEncodingAdvice.isEncoded(request.getHeader(HttpHeaders.CONTENT_ENCODING))
+                ? -1 : request.getContentLengthLong();
+        request.setAttribute(PERMIT_ATTRIBUTE, admissionController.admit(client, contentLength));
+        return true;
+    }
+
+    /**
+     * The trusted client header if one is configured and present, else the authenticated
+     * principal, else the remote address.
+     */
+    private static String client(HttpServletRequest request, String clientHeader) {
+        String client = clientHeader != null ? request.getHeader(clientHeader) : null;
+        if (StringUtils.hasText(client)) {
+            return client;
+        }
+        Principal principal = request.getUserPrincipal();
+        return principal != null ? principal.getName() : request.getRemoteAddr();
+    }
+
+    /**
+     * Hands the request's permit over to the caller, who must close it once the ingest ends;
+     * the request no longer releases it when it completes.
+     *
+     * @return the permit, or {@code null} when the request was not put through admission control
+     */
+    static AdmissionController.Permit takePermit(HttpServletRequest request) {
+        Object permit = request.getAttribute(PERMIT_ATTRIBUTE);
+        request.removeAttribute(PERMIT_ATTRIBUTE);
+        return permit instanceof AdmissionController.Permit admitted ? admitted : null;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(PERMIT_ATTRIBUTE) instanceof AdmissionController.Permit permit) {
+            permit.close();
+        }
+    }
+}
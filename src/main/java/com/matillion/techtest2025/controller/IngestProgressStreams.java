@@ -0,0 +1,144 @@
+package com.matillion.techtest2025.controller;
+
+import com.matillion.techtest2025.admission.AdmissionController;
+import com.matillion.techtest2025.config.AnalysisProperties;
+import com.matillion.techtest2025.exception.BadRequestException;
+import com.matillion.techtest2025.model.IngestProgress;
+import com.matillion.techtest2025.service.DataAnalysisService;
+import com.matillion.techtest2025.service.IngestResult;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.http.ProblemDetail;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+/**
+ * Runs CSV ingests whose clients follow them as server-sent events.
+ * <p>
+ * Each ingest runs on its own virtual thread, which is also the thread that sends its events, so
+ * the parse loop hands snapshots straight to the emitter. The stream is a series of
+ * {@code progress} events ({@link IngestProgress}), then a single {@code result} event with the
+ * {@link IngestResult}, or an {@code error} event with a {@link ProblemDetail} if the ingest failed.
+ * <p>
+ * An ingest that was started is finished even if its client goes away: events that can no longer
+ * be delivered are dropped, and the analysis is stored as usual. Its admission permit is held
+ * until then, so disconnecting does not let a client start more work than its limits allow.
+ */
+@Slf4j
+@Component
+public class IngestProgressStreams {
+
+    private final DataAnalysisService dataAnalysisService;
+    private final AnalysisProperties properties;
+    private final SimpleAsyncTaskExecutor executor;
+
+    public IngestProgressStreams(DataAnalysisService dataAnalysisService, AnalysisProperties properties) {
+        this.dataAnalysisService = dataAnalysisService;
+        this.properties = properties;
+        this.executor = new SimpleAsyncTaskExecutor("ingest-progress-");
+        this.executor.setVirtualThreads(true);
+        this.executor.setTaskTerminationTimeout(properties.getHttp().getProgress().getShutdownTimeout().toMillis());
+    }
+
+    /**
+     * Starts ingesting {@code data} and returns the emitter its events are sent to.
+     *
+     * @param format the input format, or {@code null} for the default format
+     * @param permit the ingest's admission permit, closed when the ingest ends rather than when
+     *               the stream does; {@code null} without admission control
+     */
+    public SseEmitter ingest(byte[] data, String format, boolean force, AdmissionController.Permit permit) {
+        SseEmitter emitter = new SseEmitter(properties.getHttp().getProgress().getTimeout().toMillis());
+        Events events = new Events(emitter);
+        emitter.onTimeout(events::close);
+        emitter.onError(error -> events.close());
+        try {
+            executor.execute(() -> {
+                try {
+                    IngestResult result = dataAnalysisService.analyzeCsvData(data, format, force, events::progress);
+                    events.send("result", result);
+                } catch (RuntimeException e) {
+                    events.send("error", problem(e));
+                } finally {
+                    release(permit);
+                    events.complete();
+                }
+            });
+        } catch (RuntimeException e) {
+            release(permit);
+            throw e;
+        }
+        return emitter;
+    }
+
+    /**
+     * Waits for running ingests to finish, up to {@code analysis.http.progress.shutdown-timeout}.
+     */
+    @PreDestroy
+    void close() {
+        executor.close();
+    }
+
+    private static void release(AdmissionController.Permit permit) {
+        if (permit != null) {
+            permit.close();
+        }
+    }
+
+    private static ProblemDetail problem(RuntimeException e) {
+        if (e instanceof BadRequestException) {
+            ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(BAD_REQUEST, e.getMessage());
+            problemDetail.setTitle("Bad Request");
+            return problemDetail;
+        }
+        log.error("Ingest failed", e);
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(INTERNAL_SERVER_ERROR, "The ingest failed");
+        problemDetail.setTitle("Internal Server Error");
+        return problemDetail;
+    }
+
+    /**
+     * Sends one ingest's events, and stops trying once the emitter has been closed.
+     */
+    private static final class Events {
+
+        private final SseEmitter emitter;
+        private volatile boolean closed;
+
+        Events(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void progress(IngestProgress progress) {
+            send("progress", progress);
+        }
+
+        void send(String name, Object data) {
+            if (closed) {
+                return;
+            }
+            try {
+                emitter.send(SseEmitter.event().name(name).data(data, APPLICATION_JSON));
+            } catch (Exception e) {
+                // the client disconnected or the stream timed out; keep ingesting regardless
+                log.debug("Dropping ingest {} event: {}", name, e.toString());
+                closed = true;
+            }
+        }
+
+        void complete() {
+            if (!closed) {
+                emitter.complete();
+            }
+        }
+
+        void close() {
+            closed = true;
+        }
+    }
+}
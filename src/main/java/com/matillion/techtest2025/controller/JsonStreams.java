@@ -0,0 +1,118 @@
+package com.matillion.techtest2025.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.matillion.techtest2025.controller.response.DataAnalysisStream;
+import com.matillion.techtest2025.controller.response.DataAnalysisSummary;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.stream.Stream;
+
+import static com.fasterxml.jackson.databind.SerializationFeature.FLUSH_AFTER_WRITE_VALUE;
+
+/**
+ * Writes lazily produced results as JSON or NDJSON straight to the response with a Jackson
+ * {@link JsonGenerator}, one element at a time, instead of materialising the whole response first.
+ * <p>
+ * Elements are serialised with the application's {@link ObjectMapper}, so they look exactly as they
+ * do in the non-streamed responses. Output is flushed as the generator's buffer fills rather than
+ * after every element.
+ */
+@Component
+@RequiredArgsConstructor
+public class JsonStreams {
+
+    /**
+     * Media type of newline-delimited JSON: one JSON value per line.
+     */
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Streams {@code items} as a JSON array.
+     */
+    public StreamingResponseBody array(Stream<?> items) {
+        return out -> {
+            ObjectWriter writer = writer();
+            try (Stream<?> values = items; JsonGenerator generator = generator(writer, out)) {
+                generator.writeStartArray();
+                values.forEach(value -> write(writer, generator, value));
+                generator.writeEndArray();
+            }
+        };
+    }
+
+    /**
+     * Streams {@code items} as NDJSON, one element per line.
+     */
+    public StreamingResponseBody ndjson(Stream<?> items) {
+        return out -> {
+            ObjectWriter writer = writer().withRootValueSeparator("\n");
+            try (Stream<?> values = items; JsonGenerator generator = generator(writer, out)) {
+                boolean[] any = new boolean[1];
+                values.forEach(value -> {
+                    write(writer, generator, value);
+                    any[0] = true;
+                });
+                if (any[0]) {
+                    generator.writeRaw('\n');
+                }
+            }
+        };
+    }
+
+    /**
+     * Streams an analysis as the same JSON object as a
+     * {@link com.matillion.techtest2025.controller.response.DataAnalysisResponse}.
+     */
+    public StreamingResponseBody analysis(DataAnalysisStream analysis) {
+        return out -> {
+            ObjectWriter writer = writer();
+            DataAnalysisSummary summary = analysis.summary();
+            try (Stream<?> stats = analysis.columnStatistics(); JsonGenerator generator = generator(writer, out)) {
+                generator.writeStartObject();
+                generator.writeNumberField("numberOfRows", summary.numberOfRows());
+                generator.writeNumberField("numberOfColumns", summary.numberOfColumns());
+                generator.writeNumberField("totalCharacters", summary.totalCharacters());
+                generator.writeArrayFieldStart("columnStatistics");
+                stats.forEach(value -> write(writer, generator, value));
+                generator.writeEndArray();
+                generator.writeFieldName("createdAt");
+                writer.writeValue(generator, summary.createdAt());
+                generator.writeEndObject();
+            }
+        };
+    }
+
+    /**
+     * Streams an analysis as NDJSON: its {@link DataAnalysisSummary} on the first line, then one
+     * line per column.
+     */
+    public StreamingResponseBody analysisNdjson(DataAnalysisStream analysis) {
+        return ndjson(Stream.concat(Stream.of(analysis.summary()), analysis.columnStatistics()));
+    }
+
+    private ObjectWriter writer() {
+        return objectMapper.writer().without(FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    private static JsonGenerator generator(ObjectWriter writer, OutputStream out) throws IOException {
+        // the servlet container owns the response stream; closing the generator only flushes it
+        return writer.createGenerator(out).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    private static void write(ObjectWriter writer, JsonGenerator generator, Object value) {
+        try {
+            writer.writeValue(generator, value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
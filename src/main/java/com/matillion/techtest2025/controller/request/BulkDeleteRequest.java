@@ -0,0 +1,19 @@
+package com.matillion.techtest2025.controller.request;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Selects the analyses to delete in one bulk request: either a list of ids, or a range of
+ * creation times.
+ *
+ * @param ids           ids of the analyses to delete; ids that do not exist are ignored
+ * @param createdAfter  delete analyses created at or after this time
+ * @param createdBefore delete analyses created before this time
+ */
+public record BulkDeleteRequest(
+        List<Long> ids,
+        OffsetDateTime createdAfter,
+        OffsetDateTime createdBefore
+) {
+}
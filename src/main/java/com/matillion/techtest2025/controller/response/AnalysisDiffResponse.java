@@ -0,0 +1,30 @@
+package com.matillion.techtest2025.controller.response;
+
+import com.matillion.techtest2025.model.ColumnDrift;
+
+import java.util.List;
+
+/**
+ * Schema drift between two analyses.
+ *
+ * @param analysisId        the id of the first analysis
+ * @param otherAnalysisId   the id of the analysis it is compared with
+ * @param numberOfRows      the row count of the first analysis
+ * @param otherNumberOfRows the row count of the other analysis
+ * @param addedColumns      columns only the other analysis has, in its header order
+ * @param removedColumns    columns only the first analysis has, in its header order
+ * @param columns           comparison of every column both analyses have, in the first
+ *                          analysis' header order
+ * @param drifted           {@code true} if a column was added or removed, or any column has changes
+ */
+public record AnalysisDiffResponse(
+        long analysisId,
+        long otherAnalysisId,
+        int numberOfRows,
+        int otherNumberOfRows,
+        List<String> addedColumns,
+        List<String> removedColumns,
+        List<ColumnDrift> columns,
+        boolean drifted
+) {
+}
@@ -0,0 +1,13 @@
+package com.matillion.techtest2025.controller.response;
+
+/**
+ * Counts of what a bulk delete removed.
+ *
+ * @param deletedAnalyses        the number of analyses deleted
+ * @param deletedColumnStatistics the number of column statistics deleted with them
+ */
+public record BulkDeleteResponse(
+        int deletedAnalyses,
+        int deletedColumnStatistics
+) {
+}
@@ -0,0 +1,18 @@
+package com.matillion.techtest2025.controller.response;
+
+import com.matillion.techtest2025.model.ColumnStatistics;
+
+import java.util.stream.Stream;
+
+/**
+ * A persisted analysis whose column statistics are produced lazily, one at a time, so that
+ * streaming responses never hold a list of every column.
+ *
+ * @param summary          the analysis' scalar results
+ * @param columnStatistics per-column statistics in header order; can be consumed once
+ */
+public record DataAnalysisStream(
+        DataAnalysisSummary summary,
+        Stream<ColumnStatistics> columnStatistics
+) {
+}
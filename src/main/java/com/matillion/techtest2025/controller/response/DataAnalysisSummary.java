@@ -0,0 +1,21 @@
+package com.matillion.techtest2025.controller.response;
+
+import java.time.OffsetDateTime;
+
+/**
+ * The scalar part of a {@link DataAnalysisResponse}, without the per-column statistics.
+ * <p>
+ * Used as the first line of an NDJSON analysis response, followed by one line per column.
+ *
+ * @param numberOfRows    the count of data rows in the CSV (excluding header)
+ * @param numberOfColumns the count of columns in the CSV
+ * @param totalCharacters the total character count in the CSV
+ * @param createdAt       when the analysis was created
+ */
+public record DataAnalysisSummary(
+        int numberOfRows,
+        int numberOfColumns,
+        long totalCharacters,
+        OffsetDateTime createdAt
+) {
+}
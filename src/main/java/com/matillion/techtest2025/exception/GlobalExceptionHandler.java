@@ -1,11 +1,17 @@
 package com.matillion.techtest2025.exception;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.GONE;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.PAYLOAD_TOO_LARGE;
+import static org.springframework.http.HttpStatus.TOO_MANY_REQUESTS;
+import static org.springframework.http.HttpStatus.UNSUPPORTED_MEDIA_TYPE;
 
 /**
  * Global exception handler for converting exceptions into HTTP error responses.
@@ -50,4 +56,75 @@ public class GlobalExceptionHandler {
         problemDetail.setTitle("Not Found");
         return problemDetail;
     }
+
+    /**
+     * Converts {@link GoneException} to HTTP 410 Gone response.
+     *
+     * @param ex the exception
+     * @return problem detail with error information
+     */
+    @ExceptionHandler(GoneException.class)
+    public ProblemDetail handleGoneException(GoneException ex) {
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(
+                GONE,
+                ex.getMessage()
+        );
+        problemDetail.setTitle("Gone");
+        return problemDetail;
+    }
+
+    /**
+     * Converts {@link TooManyRequestsException} to HTTP 429 Too Many Requests response, telling
+     * the client when to retry in {@code Retry-After}.
+     *
+     * @param ex the exception
+     * @return problem detail with error information
+     */
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ProblemDetail> handleTooManyRequestsException(TooManyRequestsException ex) {
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(
+                TOO_MANY_REQUESTS,
+                ex.getMessage()
+        );
+        problemDetail.setTitle("Too Many Requests");
+        long retryAfterSeconds = Math.max(1, (ex.getRetryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity.status(TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+                .body(problemDetail);
+    }
+
+    /**
+     * Converts {@link PayloadTooLargeException} to HTTP 413 Content Too Large response.
+     *
+     * @param ex the exception
+     * @return problem detail with error information
+     */
+    @ExceptionHandler(PayloadTooLargeException.class)
+    public ProblemDetail handlePayloadTooLargeException(PayloadTooLargeException ex) {
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(
+                PAYLOAD_TOO_LARGE,
+                ex.getMessage()
+        );
+        problemDetail.setTitle("Content Too Large");
+        return problemDetail;
+    }
+
+    /**
+     * Converts {@link UnsupportedContentEncodingException} to HTTP 415 Unsupported Media Type
+     * response, naming the encodings that can be decoded in {@code Accept-Encoding} (RFC 7694).
+     *
+     * @param ex the exception
+     * @return problem detail with error information
+     */
+    @ExceptionHandler(UnsupportedContentEncodingException.class)
+    public ResponseEntity<ProblemDetail> handleUnsupportedContentEncodingException(UnsupportedContentEncodingException ex) {
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(
+                UNSUPPORTED_MEDIA_TYPE,
+                ex.getMessage()
+        );
+        problemDetail.setTitle("Unsupported Media Type");
+        return ResponseEntity.status(UNSUPPORTED_MEDIA_TYPE)
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .body(problemDetail);
+    }
 }
@@ -0,0 +1,30 @@
+package com.matillion.techtest2025.exception;
+
+/**
+ * Custom exception class representing a gone (HTTP 410) error: the analysis exists, but data the
+ * request needs has been removed by retention.
+ * <p>
+ * Like the other exceptions in this package it is unchecked, and the
+ * {@link GlobalExceptionHandler} converts it into an HTTP 410 Gone response.
+ * <p>
+ * <b>Example usage:</b>
+ * <pre>
+ * if (entity.getOriginalBytes() == null) {
+ *     throw new GoneException("The stored rows of analysis " + id + " have been removed");
+ * }
+ * </pre>
+ *
+ * @see GlobalExceptionHandler
+ * @see RuntimeException
+ */
+public class GoneException extends RuntimeException {
+
+    /**
+     * Creates a new GoneException with the specified error message.
+     *
+     * @param message a descriptive error message explaining what is no longer available
+     */
+    public GoneException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,22 @@
+package com.matillion.techtest2025.exception;
+
+/**
+ * Custom exception class representing a payload too large (HTTP 413) error: the request body is
+ * larger than any limit would ever admit, so retrying it cannot succeed.
+ * <p>
+ * The {@link GlobalExceptionHandler} converts it into an HTTP 413 Content Too Large response.
+ *
+ * @see GlobalExceptionHandler
+ * @see RuntimeException
+ */
+public class PayloadTooLargeException extends RuntimeException {
+
+    /**
+     * Creates a new PayloadTooLargeException with the specified error message.
+     *
+     * @param message a descriptive error message naming the size limit
+     */
+    public PayloadTooLargeException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,33 @@
+package com.matillion.techtest2025.exception;
+
+import java.time.Duration;
+
+/**
+ * Custom exception class representing a too many requests (HTTP 429) error: the request was not
+ * admitted because a client or global limit is exhausted, and may be retried later.
+ * <p>
+ * The {@link GlobalExceptionHandler} converts it into an HTTP 429 Too Many Requests response with
+ * a {@code Retry-After} header.
+ *
+ * @see GlobalExceptionHandler
+ * @see RuntimeException
+ */
+public class TooManyRequestsException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    /**
+     * Creates a new TooManyRequestsException.
+     *
+     * @param message    a descriptive error message naming the exhausted limit
+     * @param retryAfter how long the client should wait before retrying
+     */
+    public TooManyRequestsException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
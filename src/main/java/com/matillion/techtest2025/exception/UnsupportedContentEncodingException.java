@@ -0,0 +1,23 @@
+package com.matillion.techtest2025.exception;
+
+/**
+ * Custom exception class representing an unsupported content encoding (HTTP 415) error: the
+ * request body is compressed with a {@code Content-Encoding} the service cannot decode.
+ * <p>
+ * The {@link GlobalExceptionHandler} converts it into an HTTP 415 Unsupported Media Type response
+ * that lists the supported encodings in {@code Accept-Encoding}.
+ *
+ * @see GlobalExceptionHandler
+ * @see RuntimeException
+ */
+public class UnsupportedContentEncodingException extends RuntimeException {
+
+    /**
+     * Creates a new UnsupportedContentEncodingException with the specified error message.
+     *
+     * @param message a descriptive error message naming the encoding
+     */
+    public UnsupportedContentEncodingException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,38 @@
+package com.matillion.techtest2025.model;
+
+import java.util.List;
+
+/**
+ * Comparison of a column present in two analyses, computed from the statistics stored at ingest.
+ * <p>
+ * Each measure is given for the first analysis and the {@code other} one.
+ *
+ * @param columnName        the name of the column (from the CSV header)
+ * @param inferredType      the inferred type in the first analysis
+ * @param otherInferredType the inferred type in the other analysis
+ * @param nullRatio         share of null values in the first analysis, 0 when it has no rows
+ * @param otherNullRatio    share of null values in the other analysis
+ * @param uniqueCount       the number of unique non-null values in the first analysis
+ * @param otherUniqueCount  the number of unique non-null values in the other analysis
+ * @param valueOverlap      estimated Jaccard similarity of the two sets of distinct values, between
+ *                          0 and 1; {@code null} if either analysis has no distinct sketch for
+ *                          the column
+ * @param distributionShift largest difference between the two cumulative distributions of numeric
+ *                          values (Kolmogorov-Smirnov statistic), estimated from the quantile
+ *                          sketches; {@code null} unless both columns have numeric values
+ * @param changes           the differences that exceed the configured thresholds; empty if the
+ *                          column has not drifted
+ */
+public record ColumnDrift(
+        String columnName,
+        InferredType inferredType,
+        InferredType otherInferredType,
+        double nullRatio,
+        double otherNullRatio,
+        int uniqueCount,
+        int otherUniqueCount,
+        Double valueOverlap,
+        Double distributionShift,
+        List<DriftKind> changes
+) {
+}
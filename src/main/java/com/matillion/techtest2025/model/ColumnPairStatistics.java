@@ -0,0 +1,29 @@
+package com.matillion.techtest2025.model;
+
+import java.util.List;
+
+/**
+ * Statistics of one pair of columns, computed in a single pass over the stored rows.
+ * <p>
+ * Pairs of numeric columns ({@code INTEGER} or {@code DECIMAL}) report their correlation and
+ * covariance over the rows where both values are numbers; any other pair reports its most frequent
+ * combinations of values over the rows where neither value is null.
+ *
+ * @param column      the first column
+ * @param otherColumn the second column
+ * @param rows        the number of rows the statistics cover
+ * @param correlation Pearson correlation between -1 and 1; {@code null} for non-numeric pairs, or
+ *                    when a column has fewer than two values or no variance
+ * @param covariance  sample covariance; {@code null} for non-numeric pairs or fewer than two rows
+ * @param topPairs    the most frequent combinations of values, most frequent first; {@code null}
+ *                    for numeric pairs
+ */
+public record ColumnPairStatistics(
+        String column,
+        String otherColumn,
+        long rows,
+        Double correlation,
+        Double covariance,
+        List<ValuePairFrequency> topPairs
+) {
+}
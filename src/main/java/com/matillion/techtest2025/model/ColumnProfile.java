@@ -1,14 +1,46 @@
 package com.matillion.techtest2025.model;
 
+import java.util.List;
+
+/**
+ * Profile of a single column: inferred type, counts and numeric summaries.
+ * <p>
+ * Numeric fields are {@code null} when the column has no numeric values. Quantiles and the
+ * histogram are approximations read from a KLL sketch that is built during ingest and persisted
+ * with the column, so they are available without re-reading the original data.
+ *
+ * @param columnName   the name of the column (from the CSV header)
+ * @param inferredType the inferred data type of the column
+ * @param typeConfidence share of the non-null values that match {@code inferredType}, between 0
+ *                     and 1; {@code null} for analyses stored before it was recorded
+ * @param nullCount    the number of null/empty values
+ * @param uniqueCount  the number of unique non-null values
+ * @param min          the smallest numeric value
+ * @param max          the largest numeric value
+ * @param mean         the mean of the numeric values
+ * @param median       the approximate 50th percentile
+ * @param p95          the approximate 95th percentile
+ * @param p99          the approximate 99th percentile
+ * @param histogram    approximate equal-width histogram between {@code min} and {@code max}
+ * @param topValues    the most frequent non-null values, most frequent first; {@code null} when
+ *                     top-value tracking is disabled
+ * @param sampleSize   the number of rows the profile was computed from; the analysis row count
+ *                     unless sampling was requested
+ */
 public record ColumnProfile(
         String columnName,
         InferredType inferredType,
+        Double typeConfidence,
         int nullCount,
         int uniqueCount,
         Double min,
         Double max,
-        Double mean
+        Double mean,
+        Double median,
+        Double p95,
+        Double p99,
+        List<HistogramBucket> histogram,
+        List<ValueFrequency> topValues,
+        int sampleSize
 ) {
 }
-
-
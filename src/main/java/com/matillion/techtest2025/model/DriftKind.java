@@ -0,0 +1,24 @@
+package com.matillion.techtest2025.model;
+
+/**
+ * A way in which a column of one analysis differs from the same column of another. Thresholds are
+ * set by {@code analysis.drift.*}.
+ */
+public enum DriftKind {
+    /**
+     * The inferred type changed.
+     */
+    TYPE,
+    /**
+     * The share of null values moved by more than {@code null-ratio-change}.
+     */
+    NULL_RATIO,
+    /**
+     * The unique count changed by more than {@code cardinality-change} of its first value.
+     */
+    CARDINALITY,
+    /**
+     * The distribution of the numeric values moved by more than {@code distribution-shift}.
+     */
+    DISTRIBUTION
+}
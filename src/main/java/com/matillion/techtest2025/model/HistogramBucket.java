@@ -0,0 +1,18 @@
+package com.matillion.techtest2025.model;
+
+/**
+ * One equal-width bucket of a numeric column's histogram, estimated from the column's quantile
+ * sketch.
+ * <p>
+ * The first bucket includes its lower bound; every bucket includes its upper bound.
+ *
+ * @param lowerBound the lower edge of the bucket
+ * @param upperBound the upper edge of the bucket
+ * @param count      the estimated number of values in the bucket
+ */
+public record HistogramBucket(
+        double lowerBound,
+        double upperBound,
+        long count
+) {
+}
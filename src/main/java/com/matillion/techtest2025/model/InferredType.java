@@ -4,7 +4,13 @@ public enum InferredType {
     STRING,
     INTEGER,
     DECIMAL,
-    BOOLEAN
+    BOOLEAN,
+    /** ISO-8601 calendar date, {@code yyyy-MM-dd} */
+    DATE,
+    /** ISO-8601 date and time, with an optional offset */
+    TIMESTAMP,
+    UUID,
+    EMAIL,
+    /** Free text drawn from a small set of repeating values */
+    CATEGORICAL
 }
-
-
@@ -0,0 +1,23 @@
+package com.matillion.techtest2025.model;
+
+/**
+ * Stages of a CSV ingest, in the order they run.
+ */
+public enum IngestPhase {
+    /**
+     * Hashing the upload to recognise content that was analysed before.
+     */
+    HASHING,
+    /**
+     * Tokenizing the rows and profiling their values.
+     */
+    PARSING,
+    /**
+     * Taking the exact unique counts, which merges any distinct values spilled to disk.
+     */
+    COUNTING,
+    /**
+     * Persisting the analysis and its column statistics.
+     */
+    STORING
+}
@@ -0,0 +1,23 @@
+package com.matillion.techtest2025.model;
+
+import java.util.List;
+
+/**
+ * A snapshot of a running ingest, sent to clients that asked to follow its progress.
+ *
+ * @param phase          the stage the ingest is in
+ * @param bytesProcessed bytes of the upload parsed so far
+ * @param totalBytes     size of the upload in bytes
+ * @param rows           data rows parsed so far (excluding header)
+ * @param columns        the header's column names; empty until the header has been parsed
+ * @param nullCounts     null/empty values seen so far in each column, in header order
+ */
+public record IngestProgress(
+        IngestPhase phase,
+        long bytesProcessed,
+        long totalBytes,
+        int rows,
+        List<String> columns,
+        int[] nullCounts
+) {
+}
@@ -0,0 +1,15 @@
+package com.matillion.techtest2025.model;
+
+/**
+ * How rows are sampled when a profile is computed from a subset of an analysis' data.
+ */
+public enum SamplingMode {
+    /**
+     * Uniform random sample of a fixed number of rows (reservoir sampling).
+     */
+    RESERVOIR,
+    /**
+     * Every Nth row, starting at an offset derived from the seed.
+     */
+    NTH
+}
@@ -0,0 +1,18 @@
+package com.matillion.techtest2025.model;
+
+/**
+ * An estimated frequency for one of a column's most common values.
+ * <p>
+ * Frequencies come from a bounded-memory Space-Saving sketch: {@code count} never underestimates
+ * the true number of occurrences, and overestimates it by at most {@code error}.
+ *
+ * @param value the column value
+ * @param count the estimated number of occurrences
+ * @param error the maximum amount by which {@code count} may exceed the true number of occurrences
+ */
+public record ValueFrequency(
+        String value,
+        long count,
+        long error
+) {
+}
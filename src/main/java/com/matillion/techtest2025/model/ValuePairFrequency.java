@@ -0,0 +1,20 @@
+package com.matillion.techtest2025.model;
+
+/**
+ * An estimated frequency for one of the most common combinations of values in a pair of columns.
+ * <p>
+ * Like {@link ValueFrequency}, frequencies come from a Space-Saving sketch: {@code count} never
+ * underestimates the true number of rows, and overestimates it by at most {@code error}.
+ *
+ * @param value      the value of the first column
+ * @param otherValue the value of the second column in the same rows
+ * @param count      the estimated number of rows with both values
+ * @param error      the maximum amount by which {@code count} may exceed the true number of rows
+ */
+public record ValuePairFrequency(
+        String value,
+        String otherValue,
+        long count,
+        long error
+) {
+}
@@ -0,0 +1,163 @@
+package com.matillion.techtest2025.parser;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash set of byte sequences, used to count distinct CSV values without
+ * decoding them.
+ * <p>
+ * Lookups hash and compare the slice in place; a copy of the bytes is only made when a value
+ * is seen for the first time. Two UTF-8 encodings are equal exactly when the decoded strings
+ * are, so the set size matches what a {@code HashSet<String>} of the decoded values would report.
+ * <p>
+ * {@link #memoryBytes()} estimates the heap the set holds, so that {@link ExactDistinctCounter}
+ * can move its contents to disk and {@link #clear()} it when a memory budget is exceeded. See
+ * {@link OffHeapSliceSet} for a variant that keeps the values off the heap.
+ */
+public final class ByteSliceSet implements SliceSet {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private byte[][] keys = new byte[INITIAL_CAPACITY][];
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    private int size;
+    private long valueBytes;
+
+    /**
+     * Adds the bytes {@code [start, end)} of {@code data} to the set.
+     *
+     * @return {@code true} if the value was not already present
+     */
+    @Override
+    public boolean add(byte[] data, int start, int end) {
+        int hash = hash(data, start, end);
+        int mask = keys.length - 1;
+        int slot = hash & mask;
+        while (keys[slot] != null) {
+            if (hashes[slot] == hash && Arrays.equals(keys[slot], 0, keys[slot].length, data, start, end)) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = Arrays.copyOfRange(data, start, end);
+        hashes[slot] = hash;
+        valueBytes += end - start;
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return an estimate of the heap held by the set: its tables plus one array per value
+     */
+    @Override
+    public long memoryBytes() {
+        return keys.length * 8L + size * 16L + valueBytes;
+    }
+
+    /**
+     * Removes every value and shrinks the tables back to their initial size.
+     */
+    @Override
+    public void clear() {
+        keys = new byte[INITIAL_CAPACITY][];
+        hashes = new int[INITIAL_CAPACITY];
+        size = 0;
+        valueBytes = 0;
+    }
+
+    /**
+     * Values in hash order, with values of equal hash in unsigned byte order. This is the order
+     * of {@link #compare}, which lets sorted sets be merged.
+     */
+    @Override
+    public byte[][] sortedValues() {
+        byte[][] values = new byte[size][];
+        int[] valueHashes = new int[size];
+        int n = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != null) {
+                values[n] = keys[slot];
+                valueHashes[n++] = hashes[slot];
+            }
+        }
+        return sort(values, valueHashes);
+    }
+
+    /**
+     * Nothing to release; the values are garbage collected with the set.
+     */
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Sorts distinct {@code values} with their {@link #hash}es into {@link #compare} order.
+     */
+    static byte[][] sort(byte[][] values, int[] valueHashes) {
+        int count = values.length;
+        long[] order = new long[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = (long) valueHashes[i] << 32 | i;
+        }
+        Arrays.sort(order);
+
+        byte[][] sorted = new byte[count][];
+        for (int i = 0; i < count; i++) {
+            sorted[i] = values[(int) order[i]];
+        }
+        // hash collisions are rare; order each group of equal hashes by its bytes
+        for (int from = 0; from < count; ) {
+            int to = from + 1;
+            while (to < count && order[to] >>> 32 == order[from] >>> 32) {
+                to++;
+            }
+            if (to - from > 1) {
+                Arrays.sort(sorted, from, to, Arrays::compareUnsigned);
+            }
+            from = to;
+        }
+        return sorted;
+    }
+
+    /**
+     * Orders values by {@link #hash} and then by unsigned bytes.
+     */
+    static int compare(int hash, byte[] value, int otherHash, byte[] otherValue) {
+        int byHash = Integer.compare(hash, otherHash);
+        return byHash != 0 ? byHash : Arrays.compareUnsigned(value, otherValue);
+    }
+
+    static int hash(byte[] data, int start, int end) {
+        int h = 1;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + data[i];
+        }
+        // spread the bits so that linear probing on the low bits behaves
+        return h ^ (h >>> 16);
+    }
+
+    private void grow() {
+        byte[][] oldKeys = keys;
+        int[] oldHashes = hashes;
+        keys = new byte[oldKeys.length * 2][];
+        hashes = new int[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int slot = oldHashes[i] & mask;
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                hashes[slot] = oldHashes[i];
+            }
+        }
+    }
+}
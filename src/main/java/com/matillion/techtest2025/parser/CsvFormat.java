@@ -0,0 +1,88 @@
+package com.matillion.techtest2025.parser;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * The dialect of delimited text a {@link CsvTokenizer} reads: which byte separates fields and
+ * which, if any, quotes them.
+ * <p>
+ * A field that starts with the quote byte is quoted: delimiters and line breaks up to the closing
+ * quote belong to the value, and a doubled quote stands for one quote. Quotes inside unquoted
+ * fields are ordinary characters. Both bytes must be ASCII, so that they can never occur inside a
+ * multi-byte UTF-8 character, and must not start a line break.
+ *
+ * @param delimiter the field separator
+ * @param quote     the quote byte, or {@link #NO_QUOTE} to read every byte literally
+ */
+public record CsvFormat(byte delimiter, byte quote) {
+
+    public static final byte NO_QUOTE = 0;
+
+    /**
+     * Comma-separated values with double quotes, as in RFC 4180.
+     */
+    public static final CsvFormat CSV = new CsvFormat((byte) ',', (byte) '"');
+
+    public CsvFormat {
+        if (!isAllowed(delimiter)) {
+            throw new IllegalArgumentException("Delimiter must be an ASCII character other than a line break, was 0x"
+                    + Integer.toHexString(delimiter & 0xff));
+        }
+        if (quote != NO_QUOTE && (!isAllowed(quote) || quote == delimiter)) {
+            throw new IllegalArgumentException("Quote must be an ASCII character other than a line break or the delimiter, was 0x"
+                    + Integer.toHexString(quote & 0xff));
+        }
+    }
+
+    /**
+     * @param quote the quote character, or {@code null} for none
+     * @throws IllegalArgumentException if either character is not allowed
+     */
+    public static CsvFormat of(char delimiter, Character quote) {
+        if (delimiter > 0x7F || quote != null && quote > 0x7F) {
+            throw new IllegalArgumentException("Delimiter and quote must be ASCII characters");
+        }
+        return new CsvFormat((byte) delimiter, quote != null ? (byte) quote.charValue() : NO_QUOTE);
+    }
+
+    public boolean isQuoted() {
+        return quote != NO_QUOTE;
+    }
+
+    /**
+     * Writes the bytes {@code [start, end)} as one field of this format, quoting them if they
+     * contain the delimiter, the quote or a line break. Without a quote byte they are written as
+     * they are.
+     */
+    public void writeField(ByteArrayOutputStream out, byte[] data, int start, int end) {
+        if (!isQuoted() || !needsQuotes(data, start, end)) {
+            out.write(data, start, end - start);
+            return;
+        }
+        out.write(quote);
+        int from = start;
+        for (int i = start; i < end; i++) {
+            if (data[i] == quote) {
+                // the quote is written twice: once with the preceding run, once here
+                out.write(data, from, i + 1 - from);
+                from = i;
+            }
+        }
+        out.write(data, from, end - from);
+        out.write(quote);
+    }
+
+    private boolean needsQuotes(byte[] data, int start, int end) {
+        for (int i = start; i < end; i++) {
+            byte b = data[i];
+            if (b == delimiter || b == quote || RowAssembler.lineBreakLength(data, i, end) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isAllowed(byte b) {
+        return b > 0 && b != RowAssembler.LF && b != RowAssembler.CR && b != RowAssembler.VT && b != RowAssembler.FF;
+    }
+}
@@ -0,0 +1,87 @@
+package com.matillion.techtest2025.parser;
+
+import java.util.Arrays;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A reusable view over a single line of UTF-8 encoded CSV data.
+ * <p>
+ * The tokenizer fills one instance per parse and hands it to the caller for every non-blank line,
+ * so no per-row or per-cell objects are allocated. Fields are exposed as {@code [start, end)} byte
+ * offsets into the shared input array, without their quotes; a {@code String} is only created when
+ * {@link #value(int)} is called for a value that actually has to be kept.
+ * <p>
+ * An instance is only valid for the duration of the callback it was passed to.
+ */
+public final class CsvRow {
+
+    private byte[] data;
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private int fieldCount;
+
+    CsvRow(byte[] data) {
+        this.data = data;
+    }
+
+    /**
+     * @return the underlying input bytes that field offsets refer to. Once a quoted value has had to
+     * be unescaped this is a private copy of the input, which holds the same bytes everywhere except
+     * in the unescaped values; it stays the same array for the rest of the parse.
+     */
+    public byte[] data() {
+        return data;
+    }
+
+    /**
+     * @return the number of fields on this line (delimiters + 1)
+     */
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    public int start(int field) {
+        return starts[field];
+    }
+
+    public int end(int field) {
+        return ends[field];
+    }
+
+    public int length(int field) {
+        return ends[field] - starts[field];
+    }
+
+    /**
+     * @return {@code true} if the field has no content (treated as a null value)
+     */
+    public boolean isEmpty(int field) {
+        return ends[field] == starts[field];
+    }
+
+    /**
+     * Decodes a single field to a {@code String}.
+     */
+    public String value(int field) {
+        return new String(data, starts[field], ends[field] - starts[field], UTF_8);
+    }
+
+    void data(byte[] data) {
+        this.data = data;
+    }
+
+    void reset() {
+        fieldCount = 0;
+    }
+
+    void addField(int start, int end) {
+        if (fieldCount == starts.length) {
+            starts = Arrays.copyOf(starts, fieldCount * 2);
+            ends = Arrays.copyOf(ends, fieldCount * 2);
+        }
+        starts[fieldCount] = start;
+        ends[fieldCount] = end;
+        fieldCount++;
+    }
+}
@@ -0,0 +1,61 @@
+package com.matillion.techtest2025.parser;
+
+/**
+ * Byte-level CSV tokenizer operating directly on UTF-8 input.
+ * <p>
+ * Delimiters and line breaks are all ASCII (or fixed multi-byte sequences), and UTF-8 never
+ * reuses ASCII byte values inside multi-byte characters, so fields can be located without
+ * decoding the payload. Line breaks follow the same rules as the {@code \R} regex construct
+ * (LF, CR, CRLF, VT, FF, U+0085, U+2028 and U+2029) and blank lines are skipped.
+ * <p>
+ * While scanning, the tokenizer also counts characters the way {@link String#length()} would
+ * for the decoded input: every non-continuation byte starts a character, and four-byte
+ * sequences (code points above the BMP) count twice because they decode to a surrogate pair.
+ * <p>
+ * Fields are separated and quoted as the {@link CsvFormat} says; quoted values are unescaped, and may
+ * span lines. Implementations differ only in how they scan for delimiters; they must produce
+ * identical rows and character counts. Use {@link CsvTokenizers} to obtain one.
+ */
+public interface CsvTokenizer {
+
+    /**
+     * Callback receiving each non-blank line of the input, in order.
+     */
+    @FunctionalInterface
+    interface RowHandler {
+        void onRow(CsvRow row);
+    }
+
+    /**
+     * Splits {@code data} into lines and {@linkplain CsvFormat#CSV comma-separated} fields, invoking {@code handler} for
+     * every non-blank line.
+     *
+     * @param data    UTF-8 encoded CSV data
+     * @param handler receives a reused {@link CsvRow} view per line
+     * @return the number of UTF-16 characters in {@code data}, identical to the decoded
+     * {@code String}'s length for well-formed UTF-8
+     */
+    default long tokenize(byte[] data, RowHandler handler) {
+        return tokenize(data, CsvFormat.CSV, Integer.MAX_VALUE, handler);
+    }
+
+    /**
+     * Like {@link #tokenize(byte[], RowHandler)}, for data in the given format.
+     */
+    default long tokenize(byte[] data, CsvFormat format, RowHandler handler) {
+        return tokenize(data, format, Integer.MAX_VALUE, handler);
+    }
+
+    /**
+     * Like {@link #tokenize(byte[], CsvFormat, RowHandler)}, but only records the first
+     * {@code maxFields} fields of each line. Delimiters after that are not turned into fields, which
+     * saves work when the caller only needs leading columns; {@link CsvRow#fieldCount()} then
+     * reports at most {@code maxFields}, so callers can no longer detect lines with too many fields.
+     */
+    long tokenize(byte[] data, CsvFormat format, int maxFields, RowHandler handler);
+
+    /**
+     * @return a short name for the backend, used in logs and benchmarks
+     */
+    String name();
+}
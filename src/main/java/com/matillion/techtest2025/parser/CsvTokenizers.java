@@ -0,0 +1,55 @@
+package com.matillion.techtest2025.parser;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Factory for {@link CsvTokenizer} backends.
+ * <p>
+ * The vector backend needs the incubating {@code jdk.incubator.vector} module, which the JVM only
+ * resolves when started with {@code --add-modules jdk.incubator.vector}. It is loaded
+ * reflectively so that running without the module never links against it, and
+ * {@link #auto()} falls back to the scalar backend whenever it is unavailable.
+ */
+@Slf4j
+public final class CsvTokenizers {
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final String VECTOR_CLASS = "com.matillion.techtest2025.parser.VectorCsvTokenizer";
+
+    private CsvTokenizers() {
+    }
+
+    /**
+     * @return the portable byte-at-a-time backend
+     */
+    public static CsvTokenizer scalar() {
+        return ScalarCsvTokenizer.INSTANCE;
+    }
+
+    /**
+     * @return the Vector API backend
+     * @throws IllegalStateException if {@code jdk.incubator.vector} is not available
+     */
+    public static CsvTokenizer vector() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            throw new IllegalStateException("Module " + VECTOR_MODULE + " is not enabled; start the JVM with --add-modules " + VECTOR_MODULE);
+        }
+        try {
+            return (CsvTokenizer) Class.forName(VECTOR_CLASS).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            throw new IllegalStateException("Vector tokenizer could not be loaded", e);
+        }
+    }
+
+    /**
+     * @return the vector backend if it can be used on this JVM, otherwise the scalar backend
+     */
+    public static CsvTokenizer auto() {
+        try {
+            return vector();
+        } catch (IllegalStateException e) {
+            log.info("Using scalar CSV tokenizer: {}", e.getMessage());
+            return scalar();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.matillion.techtest2025.parser;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Memory budget shared by the {@link ExactDistinctCounter}s of one parse.
+ * <p>
+ * Values are kept either on the heap or, with {@code offHeap}, in native memory (see
+ * {@link OffHeapSliceSet}); the budget covers both the same way.
+ * <p>
+ * Counters report every value they add. Once their sets together exceed the budget, the largest
+ * sets are spilled to disk until at most half the budget is in use, so spills stay rare however
+ * many columns share it. Closing the budget deletes every spill file written under it and frees
+ * any native memory.
+ * <p>
+ * Not thread-safe: a budget belongs to a single parse.
+ */
+public final class DistinctValueBudget implements AutoCloseable {
+
+    private final long maxBytes;
+    private final Path spillDirectory;
+    private final boolean offHeap;
+    private final List<ExactDistinctCounter> counters = new ArrayList<>();
+    private long usedBytes;
+
+    /**
+     * Creates a budget for values kept on the heap.
+     *
+     * @param maxBytes       memory allowed for the distinct values of all counters together
+     * @param spillDirectory directory for spill files, created when first needed
+     */
+    public DistinctValueBudget(long maxBytes, Path spillDirectory) {
+        this(maxBytes, spillDirectory, false);
+    }
+
+    /**
+     * @param maxBytes       memory allowed for the distinct values of all counters together
+     * @param spillDirectory directory for spill files, created when first needed
+     * @param offHeap        keep values in native memory
+     * @throws IllegalStateException if {@code offHeap} is set but {@link SliceSets#offHeapAvailable()}
+     *                               is not
+     */
+    public DistinctValueBudget(long maxBytes, Path spillDirectory, boolean offHeap) {
+        if (offHeap && !SliceSets.offHeapAvailable()) {
+            throw new IllegalStateException("Off-heap distinct values need the JVM to run with --enable-preview");
+        }
+        this.maxBytes = maxBytes;
+        this.spillDirectory = spillDirectory;
+        this.offHeap = offHeap;
+    }
+
+    /**
+     * @return a new counter accounted against this budget
+     */
+    public ExactDistinctCounter newCounter() {
+        ExactDistinctCounter counter = new ExactDistinctCounter(this);
+        counters.add(counter);
+        return counter;
+    }
+
+    SliceSet newSet() {
+        return offHeap ? SliceSets.offHeap() : SliceSets.heap();
+    }
+
+    Path spillDirectory() {
+        return spillDirectory;
+    }
+
+    void charge(long bytes) {
+        usedBytes += bytes;
+        if (usedBytes <= maxBytes) {
+            return;
+        }
+        List<ExactDistinctCounter> largestFirst = new ArrayList<>(counters);
+        largestFirst.sort(Comparator.comparingLong(ExactDistinctCounter::memoryBytes).reversed());
+        for (ExactDistinctCounter counter : largestFirst) {
+            if (usedBytes <= maxBytes / 2) {
+                break;
+            }
+            usedBytes -= counter.spill();
+        }
+    }
+
+    void release(long bytes) {
+        usedBytes -= bytes;
+    }
+
+    @Override
+    public void close() {
+        counters.forEach(ExactDistinctCounter::close);
+        counters.clear();
+        usedBytes = 0;
+    }
+}
@@ -0,0 +1,272 @@
+package com.matillion.techtest2025.parser;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Exact count of distinct byte sequences that is not limited by the heap.
+ * <p>
+ * Values go into a {@link SliceSet} (on or off the heap) until its {@link DistinctValueBudget} asks for memory
+ * back. The set is then written to a temporary file as a sorted run (hash, then bytes) and
+ * cleared. {@link #count()} merges the runs and the values still in memory, counting each value
+ * once where it appears in several runs; with many runs, it merges them in several passes so that
+ * only a bounded number of files is open at a time. Values are compared by their bytes, never by hash
+ * alone, so the count is exact. A counter that never spilled just reports the set size.
+ */
+public final class ExactDistinctCounter implements AutoCloseable {
+
+    /**
+     * Most runs read at once; beyond this, runs are merged in several passes.
+     */
+    private static final int MAX_MERGE_FAN_IN = 64;
+
+    private final DistinctValueBudget budget;
+    private final SliceSet values;
+    private final List<Path> runs = new ArrayList<>();
+    private int count = -1;
+
+    ExactDistinctCounter(DistinctValueBudget budget) {
+        this.budget = budget;
+        this.values = budget.newSet();
+    }
+
+    /**
+     * Adds the bytes {@code [start, end)} of {@code data}.
+     */
+    public void add(byte[] data, int start, int end) {
+        long before = values.memoryBytes();
+        if (values.add(data, start, end)) {
+            count = -1;
+            budget.charge(values.memoryBytes() - before);
+        }
+    }
+
+    /**
+     * @return the number of distinct values added, merging spilled runs on the first call
+     */
+    public int count() {
+        if (count < 0) {
+            count = runs.isEmpty() ? values.size() : mergeCount();
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of runs currently on disk
+     */
+    public int spilledRuns() {
+        return runs.size();
+    }
+
+    long memoryBytes() {
+        return values.memoryBytes();
+    }
+
+    /**
+     * Writes the in-memory values to a new run and clears them.
+     *
+     * @return the memory released
+     */
+    long spill() {
+        if (values.size() == 0) {
+            return 0;
+        }
+        long released = values.memoryBytes();
+        try {
+            Path run = newRun();
+            try (DataOutputStream out = openRun(run)) {
+                for (byte[] value : values.sortedValues()) {
+                    write(out, ByteSliceSet.hash(value, 0, value.length), value);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot spill distinct values to " + budget.spillDirectory(), e);
+        }
+        values.clear();
+        return released - values.memoryBytes();
+    }
+
+    /**
+     * Merges the runs and the in-memory values. While there are too many runs to open at once, the
+     * oldest are first merged into a single run, dropping duplicates on the way.
+     */
+    private int mergeCount() {
+        try {
+            while (runs.size() >= MAX_MERGE_FAN_IN) {
+                List<Path> group = new ArrayList<>(runs.subList(0, MAX_MERGE_FAN_IN));
+                Path merged = newRun();
+                try (DataOutputStream out = openRun(merged)) {
+                    mergeDistinct(group, new byte[0][], (hash, value) -> write(out, hash, value));
+                }
+                runs.removeAll(group);
+                group.forEach(ExactDistinctCounter::deleteQuietly);
+            }
+            int[] distinct = {0};
+            mergeDistinct(runs, values.sortedValues(), (hash, value) -> distinct[0]++);
+            return distinct[0];
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot merge spilled distinct values in " + budget.spillDirectory(), e);
+        }
+    }
+
+    /**
+     * K-way merge of runs and in-memory values that are all sorted in the same order, so equal
+     * values come out next to each other; each distinct value is passed to {@code sink} once.
+     */
+    private static void mergeDistinct(List<Path> runFiles, byte[][] sorted, DistinctSink sink) throws IOException {
+        List<Cursor> cursors = new ArrayList<>();
+        try {
+            for (Path run : runFiles) {
+                cursors.add(new RunCursor(run));
+            }
+            cursors.add(new MemoryCursor(sorted));
+
+            PriorityQueue<Cursor> queue = new PriorityQueue<>(
+                    (a, b) -> ByteSliceSet.compare(a.hash, a.value, b.hash, b.value));
+            for (Cursor cursor : cursors) {
+                if (cursor.advance()) {
+                    queue.add(cursor);
+                }
+            }
+            int previousHash = 0;
+            byte[] previous = null;
+            while (!queue.isEmpty()) {
+                Cursor cursor = queue.poll();
+                if (previous == null || previousHash != cursor.hash || !Arrays.equals(previous, cursor.value)) {
+                    sink.accept(cursor.hash, cursor.value);
+                    previousHash = cursor.hash;
+                    previous = cursor.value;
+                }
+                if (cursor.advance()) {
+                    queue.add(cursor);
+                }
+            }
+        } finally {
+            for (Cursor cursor : cursors) {
+                cursor.close();
+            }
+        }
+    }
+
+    /**
+     * Creates an empty run file, tracked so that {@link #close()} deletes it.
+     */
+    private Path newRun() throws IOException {
+        Files.createDirectories(budget.spillDirectory());
+        Path run = Files.createTempFile(budget.spillDirectory(), "distinct-", ".run");
+        runs.add(run);
+        return run;
+    }
+
+    private static DataOutputStream openRun(Path run) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run), 1 << 16));
+    }
+
+    private static void write(DataOutputStream out, int hash, byte[] value) throws IOException {
+        out.writeInt(hash);
+        out.writeInt(value.length);
+        out.write(value);
+    }
+
+    private static void deleteQuietly(Path run) {
+        try {
+            Files.deleteIfExists(run);
+        } catch (IOException e) {
+            // a leftover file in the temporary directory is not worth failing the ingest for
+        }
+    }
+
+    /**
+     * Deletes the spill files and releases the in-memory values. A count already taken stays
+     * available, and so does the count of a counter that never spilled.
+     */
+    @Override
+    public void close() {
+        if (count < 0 && runs.isEmpty()) {
+            count = values.size();
+        }
+        runs.forEach(ExactDistinctCounter::deleteQuietly);
+        runs.clear();
+        budget.release(values.memoryBytes());
+        values.close();
+    }
+
+    @FunctionalInterface
+    private interface DistinctSink {
+        void accept(int hash, byte[] value) throws IOException;
+    }
+
+    private abstract static class Cursor {
+        int hash;
+        byte[] value;
+
+        /**
+         * Moves to the next value.
+         *
+         * @return {@code false} at the end
+         */
+        abstract boolean advance() throws IOException;
+
+        void close() {
+        }
+    }
+
+    private static final class MemoryCursor extends Cursor {
+        private final byte[][] sorted;
+        private int next;
+
+        MemoryCursor(byte[][] sorted) {
+            this.sorted = sorted;
+        }
+
+        @Override
+        boolean advance() {
+            if (next == sorted.length) {
+                return false;
+            }
+            value = sorted[next++];
+            hash = ByteSliceSet.hash(value, 0, value.length);
+            return true;
+        }
+    }
+
+    private static final class RunCursor extends Cursor {
+        private final DataInputStream in;
+
+        RunCursor(Path run) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run), 1 << 16));
+        }
+
+        @Override
+        boolean advance() throws IOException {
+            try {
+                hash = in.readInt();
+            } catch (EOFException e) {
+                return false;
+            }
+            value = new byte[in.readInt()];
+            in.readFully(value);
+            return true;
+        }
+
+        @Override
+        void close() {
+            try {
+                in.close();
+            } catch (IOException e) {
+                // read-only; nothing is lost
+            }
+        }
+    }
+}
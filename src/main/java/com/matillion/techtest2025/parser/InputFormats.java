@@ -0,0 +1,40 @@
+package com.matillion.techtest2025.parser;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * The {@link CsvFormat}s uploads can be read in, by name, such as {@code csv} or {@code tsv}.
+ * <p>
+ * Formats are only dialects of delimited text, so every one of them is read by the same
+ * {@link CsvTokenizer}; adding a format needs configuration, not code.
+ */
+public final class InputFormats {
+
+    private final Map<String, CsvFormat> formats;
+    private final String defaultName;
+
+    /**
+     * @throws IllegalArgumentException if {@code defaultName} is not one of {@code formats}
+     */
+    public InputFormats(Map<String, CsvFormat> formats, String defaultName) {
+        if (!formats.containsKey(defaultName)) {
+            throw new IllegalArgumentException("Default input format '" + defaultName + "' is not one of " + formats.keySet());
+        }
+        this.formats = new TreeMap<>(formats);
+        this.defaultName = defaultName;
+    }
+
+    /**
+     * @param name a format name, or {@code null} for the default format
+     */
+    public Optional<CsvFormat> find(String name) {
+        return Optional.ofNullable(formats.get(name != null ? name : defaultName));
+    }
+
+    public Set<String> names() {
+        return formats.keySet();
+    }
+}
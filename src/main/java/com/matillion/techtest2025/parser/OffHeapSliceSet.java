@@ -0,0 +1,197 @@
+package com.matillion.techtest2025.parser;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+
+/**
+ * {@link ByteSliceSet} equivalent that keeps its hash table and values in native memory, so that
+ * a high-cardinality column adds no objects for the garbage collector to trace or copy.
+ * <p>
+ * Values are appended to chunks of up to a megabyte and slots refer to them by chunk and offset. Everything is
+ * allocated from one confined {@link Arena}, which {@link #clear()} and {@link #close()} close, so
+ * the memory is returned the moment a set is spilled or its parse finishes rather than at some
+ * later collection. The set must therefore only be used by the thread that created it.
+ * <p>
+ * Uses the Foreign Function & Memory API, a preview API in Java 21: the class only loads when the
+ * JVM runs with {@code --enable-preview}. {@link SliceSets} loads it reflectively and falls back
+ * to the heap set otherwise.
+ */
+final class OffHeapSliceSet implements SliceSet {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final long FIRST_CHUNK_BYTES = 4 << 10;
+    private static final long MAX_CHUNK_BYTES = 1 << 20;
+
+    // slot layout: hash, value length + 1 (0 marks an empty slot), chunk index, offset in chunk
+    private static final long SLOT_BYTES = 16;
+    private static final long HASH = 0;
+    private static final long LENGTH = 4;
+    private static final long CHUNK = 8;
+    private static final long OFFSET = 12;
+
+    private final List<MemorySegment> chunks = new ArrayList<>();
+    private Arena arena;
+    private MemorySegment table;
+    private int capacity;
+    private int size;
+    private long allocatedBytes;
+    private int currentChunk;
+    private long chunkUsed;
+    private long chunkSize;
+
+    // the tokenizer passes the same input array for every value, so its segment view is kept
+    private byte[] input;
+    private MemorySegment inputSegment;
+
+    OffHeapSliceSet() {
+        reset();
+    }
+
+    @Override
+    public boolean add(byte[] data, int start, int end) {
+        if (data != input) {
+            input = data;
+            inputSegment = MemorySegment.ofArray(data);
+        }
+        int hash = ByteSliceSet.hash(data, start, end);
+        int length = end - start;
+        long mask = capacity - 1;
+        long slot = hash & mask;
+        int stored;
+        while ((stored = table.get(JAVA_INT, slot * SLOT_BYTES + LENGTH)) != 0) {
+            long at = slot * SLOT_BYTES;
+            if (table.get(JAVA_INT, at + HASH) == hash && stored - 1 == length) {
+                MemorySegment chunk = chunks.get(table.get(JAVA_INT, at + CHUNK));
+                long offset = table.get(JAVA_INT, at + OFFSET);
+                if (MemorySegment.mismatch(chunk, offset, offset + length, inputSegment, start, end) == -1) {
+                    return false;
+                }
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        long offset = append(start, length);
+        long at = slot * SLOT_BYTES;
+        table.set(JAVA_INT, at + HASH, hash);
+        table.set(JAVA_INT, at + LENGTH, length + 1);
+        table.set(JAVA_INT, at + CHUNK, currentChunk);
+        table.set(JAVA_INT, at + OFFSET, (int) offset);
+        if (++size * 2 > capacity) {
+            grow();
+        }
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long memoryBytes() {
+        return allocatedBytes;
+    }
+
+    @Override
+    public void clear() {
+        arena.close();
+        reset();
+    }
+
+    @Override
+    public byte[][] sortedValues() {
+        byte[][] values = new byte[size][];
+        int[] hashes = new int[size];
+        int n = 0;
+        for (long slot = 0; slot < capacity; slot++) {
+            long at = slot * SLOT_BYTES;
+            int stored = table.get(JAVA_INT, at + LENGTH);
+            if (stored != 0) {
+                long offset = table.get(JAVA_INT, at + OFFSET);
+                values[n] = chunks.get(table.get(JAVA_INT, at + CHUNK)).asSlice(offset, stored - 1).toArray(JAVA_BYTE);
+                hashes[n++] = table.get(JAVA_INT, at + HASH);
+            }
+        }
+        return ByteSliceSet.sort(values, hashes);
+    }
+
+    @Override
+    public void close() {
+        if (table == null) {
+            return;
+        }
+        arena.close();
+        chunks.clear();
+        table = null;
+        input = null;
+        inputSegment = null;
+        size = 0;
+        allocatedBytes = 0;
+    }
+
+    private void reset() {
+        arena = Arena.ofConfined();
+        chunks.clear();
+        allocatedBytes = 0;
+        capacity = INITIAL_CAPACITY;
+        table = allocate(capacity * SLOT_BYTES);
+        size = 0;
+        currentChunk = -1;
+        chunkUsed = 0;
+        chunkSize = 0;
+    }
+
+    /**
+     * Copies a value into the current chunk, starting a new one when it does not fit. Chunks double
+     * in size up to a limit, so small sets stay small; values larger than a chunk get a chunk of
+     * their own.
+     *
+     * @return the offset of the copy in chunk {@link #currentChunk}
+     */
+    private long append(int start, int length) {
+        if (chunkUsed + length > chunkSize) {
+            long nextSize = chunkSize == 0 ? FIRST_CHUNK_BYTES : Math.min(chunkSize * 2, MAX_CHUNK_BYTES);
+            chunkSize = Math.max(nextSize, length);
+            chunks.add(allocate(chunkSize));
+            currentChunk = chunks.size() - 1;
+            chunkUsed = 0;
+        }
+        long offset = chunkUsed;
+        MemorySegment.copy(inputSegment, start, chunks.get(currentChunk), offset, length);
+        chunkUsed += length;
+        return offset;
+    }
+
+    /**
+     * Doubles the table. The old table stays allocated until the arena closes; the tables of all
+     * previous sizes together are smaller than the current one.
+     */
+    private void grow() {
+        MemorySegment old = table;
+        int oldCapacity = capacity;
+        capacity *= 2;
+        table = allocate(capacity * SLOT_BYTES);
+        long mask = capacity - 1;
+        for (long slot = 0; slot < oldCapacity; slot++) {
+            long at = slot * SLOT_BYTES;
+            if (old.get(JAVA_INT, at + LENGTH) != 0) {
+                long target = old.get(JAVA_INT, at + HASH) & mask;
+                while (table.get(JAVA_INT, target * SLOT_BYTES + LENGTH) != 0) {
+                    target = (target + 1) & mask;
+                }
+                MemorySegment.copy(old, at, table, target * SLOT_BYTES, SLOT_BYTES);
+            }
+        }
+    }
+
+    private MemorySegment allocate(long bytes) {
+        allocatedBytes += bytes;
+        // arena allocations are zeroed, so a new table starts with every slot empty
+        return arena.allocate(bytes, 8);
+    }
+}
@@ -0,0 +1,196 @@
+package com.matillion.techtest2025.parser;
+
+/**
+ * Shared row-building state machine used by every {@link CsvTokenizer} backend.
+ * <p>
+ * Backends only differ in how they find <em>candidate</em> bytes (delimiters, quotes and the first
+ * byte of a line break); each candidate is passed to {@link #boundary(int)}, which confirms it,
+ * records the field and emits completed rows. Keeping this logic in one place is what guarantees
+ * that all backends produce identical rows.
+ * <p>
+ * A quoted value is referenced in place, between its quotes, as long as its content is contiguous.
+ * Only a value with a doubled quote or text after its closing quote has to be unescaped; the first
+ * time that happens the input is copied, and from then on values are compacted in the copy, so the
+ * caller's array is never modified.
+ */
+final class RowAssembler {
+
+    static final byte LF = '\n';
+    static final byte CR = '\r';
+    static final byte VT = 0x0B;
+    static final byte FF = 0x0C;
+    /** Lead byte of U+0085 NEXT LINE. */
+    static final byte NEL_LEAD = (byte) 0xC2;
+    /** Lead byte of U+2028 LINE SEPARATOR and U+2029 PARAGRAPH SEPARATOR. */
+    static final byte LS_PS_LEAD = (byte) 0xE2;
+
+    private final byte[] input;
+    private final CsvRow row;
+    private final CsvTokenizer.RowHandler handler;
+    private final int maxFields;
+    private final byte delimiter;
+    /** The quote byte, or the delimiter again when the format has none, which never reaches quote handling. */
+    private final byte quote;
+    /** The input, or its copy once a value has been unescaped. */
+    private byte[] data;
+    private int lineStart;
+    private int fieldStart;
+
+    /** Whether the scan is between an opening and a closing quote. */
+    private boolean inQuotes;
+    /** Whether the current field started with a quote. */
+    private boolean quotedField;
+    /** First byte of the quoted field's content not yet appended to it. */
+    private int segmentStart;
+    /** End of the quoted field's content assembled so far; the content starts after the opening quote. */
+    private int contentEnd;
+
+    RowAssembler(byte[] data, CsvFormat format, int maxFields, CsvTokenizer.RowHandler handler) {
+        this.input = data;
+        this.data = data;
+        this.row = new CsvRow(data);
+        this.handler = handler;
+        this.maxFields = maxFields;
+        this.delimiter = format.delimiter();
+        this.quote = format.isQuoted() ? format.quote() : format.delimiter();
+    }
+
+    /**
+     * @return {@code true} if {@code b} may start a delimiter, a quote or a line break
+     */
+    boolean isCandidate(byte b) {
+        return b == delimiter || b == quote || b == LF || b == CR || b == VT || b == FF || b == NEL_LEAD || b == LS_PS_LEAD;
+    }
+
+    byte delimiter() {
+        return delimiter;
+    }
+
+    byte quote() {
+        return quote;
+    }
+
+    /**
+     * Processes a candidate byte at {@code i}.
+     *
+     * @return the index of the first byte not consumed: {@code i + 1} for a delimiter or a
+     * non-boundary candidate, past both bytes of a doubled quote, or the index just past a
+     * (possibly multi-byte) line break
+     */
+    int boundary(int i) {
+        byte b = data[i];
+        if (inQuotes) {
+            // delimiters and line breaks are part of a quoted value
+            if (b != quote) {
+                return i + 1;
+            }
+            if (i + 1 < data.length && data[i + 1] == quote) {
+                // keep the first quote of the pair as content
+                append(i + 1);
+                segmentStart = i + 2;
+                return i + 2;
+            }
+            append(i);
+            segmentStart = i + 1;
+            inQuotes = false;
+            return i + 1;
+        }
+        if (b == delimiter) {
+            endField(i);
+            fieldStart = i + 1;
+            return i + 1;
+        }
+        if (b == quote) {
+            // only a quote that starts a field opens a quoted value; others are content
+            if (i == fieldStart) {
+                inQuotes = true;
+                quotedField = true;
+                segmentStart = i + 1;
+                contentEnd = i + 1;
+            }
+            return i + 1;
+        }
+        int breakLength = lineBreakLength(data, i, data.length);
+        if (breakLength == 0) {
+            return i + 1;
+        }
+        if (i > lineStart) {
+            endLine(i);
+        }
+        row.reset();
+        lineStart = i + breakLength;
+        fieldStart = lineStart;
+        return lineStart;
+    }
+
+    /**
+     * Emits the final line if the input does not end with a line break. A quoted value that is
+     * never closed runs to the end of the input.
+     */
+    void finish() {
+        if (data.length > lineStart) {
+            endLine(data.length);
+        }
+    }
+
+    private void endLine(int end) {
+        endField(end);
+        handler.onRow(row);
+    }
+
+    private void endField(int end) {
+        if (row.fieldCount() < maxFields) {
+            if (quotedField) {
+                // text between the closing quote and the delimiter is kept, like the quoted part
+                append(end);
+                row.addField(fieldStart + 1, contentEnd);
+            } else {
+                row.addField(fieldStart, end);
+            }
+        }
+        quotedField = false;
+        inQuotes = false;
+    }
+
+    /**
+     * Appends {@code [segmentStart, end)} to the quoted field's content, moving it next to the
+     * content so far if there is a gap.
+     */
+    private void append(int end) {
+        int length = end - segmentStart;
+        if (length <= 0 || row.fieldCount() >= maxFields) {
+            return;
+        }
+        if (segmentStart != contentEnd) {
+            if (data == input) {
+                // earlier rows keep their offsets: the copy differs only in fields compacted from now on
+                data = input.clone();
+                row.data(data);
+            }
+            System.arraycopy(data, segmentStart, data, contentEnd, length);
+        }
+        contentEnd += length;
+    }
+
+    /**
+     * Returns the length in bytes of the line break starting at {@code i}, or {@code 0} if the
+     * byte at {@code i} does not start one.
+     */
+    static int lineBreakLength(byte[] data, int i, int length) {
+        byte b = data[i];
+        if (b == LF || b == VT || b == FF) {
+            return 1;
+        }
+        if (b == CR) {
+            return i + 1 < length && data[i + 1] == LF ? 2 : 1;
+        }
+        if (b == NEL_LEAD) {
+            return i + 1 < length && data[i + 1] == (byte) 0x85 ? 2 : 0;
+        }
+        if (b == LS_PS_LEAD) {
+            return i + 2 < length && data[i + 1] == (byte) 0x80
+                    && (data[i + 2] == (byte) 0xA8 || data[i + 2] == (byte) 0xA9) ? 3 : 0;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,48 @@
+package com.matillion.techtest2025.parser;
+
+/**
+ * Portable {@link CsvTokenizer} that inspects one byte at a time.
+ */
+final class ScalarCsvTokenizer implements CsvTokenizer {
+
+    static final ScalarCsvTokenizer INSTANCE = new ScalarCsvTokenizer();
+
+    private ScalarCsvTokenizer() {
+    }
+
+    @Override
+    public long tokenize(byte[] data, CsvFormat format, int maxFields, RowHandler handler) {
+        return tokenize(data, 0, new RowAssembler(data, format, maxFields, handler), 0);
+    }
+
+    /**
+     * Scans {@code [from, data.length)}; also used by the vector backend for the tail that does
+     * not fill a whole vector.
+     *
+     * @param next index of the first byte not yet consumed by a boundary, which may be past
+     *             {@code from} when a multi-byte line break or a doubled quote straddles it
+     * @return the number of UTF-16 characters in the scanned range
+     */
+    static long tokenize(byte[] data, int from, RowAssembler assembler, int next) {
+        long characters = 0;
+        for (int i = from; i < data.length; i++) {
+            byte b = data[i];
+            if ((b & 0xC0) != 0x80) {
+                characters++;
+                if ((b & 0xF8) == 0xF0) {
+                    characters++;
+                }
+            }
+            if (i >= next && assembler.isCandidate(b)) {
+                next = assembler.boundary(i);
+            }
+        }
+        assembler.finish();
+        return characters;
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,39 @@
+package com.matillion.techtest2025.parser;
+
+/**
+ * Set of byte sequences backing an {@link ExactDistinctCounter}. {@link ByteSliceSet} keeps the
+ * values on the heap; {@link OffHeapSliceSet} keeps them in native memory that is freed as soon as
+ * the set is cleared or closed.
+ */
+interface SliceSet extends AutoCloseable {
+
+    /**
+     * Adds the bytes {@code [start, end)} of {@code data} to the set.
+     *
+     * @return {@code true} if the value was not already present
+     */
+    boolean add(byte[] data, int start, int end);
+
+    int size();
+
+    /**
+     * @return an estimate of the memory held by the set
+     */
+    long memoryBytes();
+
+    /**
+     * Removes every value and releases the memory they used.
+     */
+    void clear();
+
+    /**
+     * @return the values in {@link ByteSliceSet#compare} order
+     */
+    byte[][] sortedValues();
+
+    /**
+     * Releases all memory; the set must not be used afterwards.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,59 @@
+package com.matillion.techtest2025.parser;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Constructor;
+
+/**
+ * Chooses the storage for distinct values.
+ * <p>
+ * {@link OffHeapSliceSet} is built against the Foreign Function & Memory preview API of Java 21,
+ * so it only loads when the JVM runs with {@code --enable-preview}. Like the vector tokenizer in
+ * {@link CsvTokenizers}, it is loaded reflectively so that running without the flag never links
+ * against it.
+ */
+@Slf4j
+public final class SliceSets {
+
+    private static final String OFF_HEAP_CLASS = "com.matillion.techtest2025.parser.OffHeapSliceSet";
+    private static final Constructor<?> OFF_HEAP = loadOffHeap();
+
+    private SliceSets() {
+    }
+
+    /**
+     * @return whether off-heap distinct-value storage can be used on this JVM
+     */
+    public static boolean offHeapAvailable() {
+        return OFF_HEAP != null;
+    }
+
+    static SliceSet heap() {
+        return new ByteSliceSet();
+    }
+
+    /**
+     * @throws IllegalStateException if off-heap storage is not available
+     */
+    static SliceSet offHeap() {
+        if (OFF_HEAP == null) {
+            throw new IllegalStateException("Off-heap distinct values need the JVM to run with --enable-preview");
+        }
+        try {
+            return (SliceSet) OFF_HEAP.newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Off-heap distinct values could not be created", e);
+        }
+    }
+
+    private static Constructor<?> loadOffHeap() {
+        try {
+            Constructor<?> constructor = Class.forName(OFF_HEAP_CLASS).getDeclaredConstructor();
+            ((SliceSet) constructor.newInstance()).close();
+            return constructor;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            log.info("Distinct values are kept on the heap: {}", e.toString());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.matillion.techtest2025.parser;
+
+/**
+ * Byte-level recognizers for common textual value formats, the non-numeric counterpart of
+ * {@link Utf8#numericShape}.
+ * <p>
+ * Each check looks at fixed positions first, so most values are rejected after a byte or two, and
+ * nothing is decoded or allocated. All recognized formats are ASCII.
+ */
+public final class TextShapes {
+
+    /** {@link #shape} result for a value in none of the formats below. */
+    public static final int OTHER = 0;
+    /** {@link #shape} result for an ISO-8601 calendar date, {@code yyyy-MM-dd}. */
+    public static final int DATE = 1;
+    /**
+     * {@link #shape} result for an ISO-8601 date and time, {@code yyyy-MM-dd} followed by
+     * {@code T} or a space, {@code HH:mm}, optional seconds with up to nine fraction digits, and
+     * an optional {@code Z} or {@code ±HH:mm} / {@code ±HHmm} offset.
+     */
+    public static final int TIMESTAMP = 2;
+    /** {@link #shape} result for a UUID in its canonical {@code 8-4-4-4-12} hex form. */
+    public static final int UUID = 3;
+    /** {@link #shape} result for a plausible e-mail address, {@code local@domain.tld}. */
+    public static final int EMAIL = 4;
+
+    private static final int DATE_LENGTH = 10;
+    private static final int UUID_LENGTH = 36;
+
+    private TextShapes() {
+    }
+
+    /**
+     * Classifies the non-empty range {@code [start, end)}.
+     *
+     * @return {@link #DATE}, {@link #TIMESTAMP}, {@link #UUID}, {@link #EMAIL} or {@link #OTHER}
+     */
+    public static int shape(byte[] bytes, int start, int end) {
+        int length = end - start;
+        if (length >= DATE_LENGTH && bytes[start + 4] == '-' && isDate(bytes, start)) {
+            if (length == DATE_LENGTH) {
+                return DATE;
+            }
+            return isTime(bytes, start + DATE_LENGTH, end) ? TIMESTAMP : OTHER;
+        }
+        if (length == UUID_LENGTH && bytes[start + 8] == '-' && isUuid(bytes, start)) {
+            return UUID;
+        }
+        return isEmail(bytes, start, end) ? EMAIL : OTHER;
+    }
+
+    /**
+     * {@code yyyy-MM-dd} at {@code start}, with a day that exists in that month.
+     */
+    private static boolean isDate(byte[] b, int start) {
+        if (b[start + 7] != '-') {
+            return false;
+        }
+        int year = digits(b, start, 4);
+        int month = digits(b, start + 5, 2);
+        int day = digits(b, start + 8, 2);
+        return year >= 0 && month >= 1 && month <= 12 && day >= 1 && day <= daysInMonth(year, month);
+    }
+
+    /**
+     * The part of a timestamp after the date: {@code [T ]HH:mm[:ss[.f{1,9}]][Z|±HH:mm|±HHmm]}.
+     */
+    private static boolean isTime(byte[] b, int i, int end) {
+        if (end - i < 6 || (b[i] != 'T' && b[i] != ' ') || b[i + 3] != ':') {
+            return false;
+        }
+        int hour = digits(b, i + 1, 2);
+        int minute = digits(b, i + 4, 2);
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+            return false;
+        }
+        i += 6;
+        if (i + 3 <= end && b[i] == ':') {
+            int second = digits(b, i + 1, 2);
+            if (second < 0 || second > 60) {
+                return false;
+            }
+            i += 3;
+            if (i < end && b[i] == '.') {
+                int fractionStart = ++i;
+                while (i < end && isDigit(b[i])) {
+                    i++;
+                }
+                int fractionDigits = i - fractionStart;
+                if (fractionDigits < 1 || fractionDigits > 9) {
+                    return false;
+                }
+            }
+        }
+        if (i == end) {
+            return true;
+        }
+        if (b[i] == 'Z') {
+            return i + 1 == end;
+        }
+        if (b[i] != '+' && b[i] != '-') {
+            return false;
+        }
+        int offsetLength = end - i - 1;
+        int offsetHours = offsetLength == 5 || offsetLength == 4 ? digits(b, i + 1, 2) : -1;
+        int offsetMinutes = offsetLength == 5
+                ? (b[i + 3] == ':' ? digits(b, i + 4, 2) : -1)
+                : offsetLength == 4 ? digits(b, i + 3, 2) : -1;
+        return offsetHours >= 0 && offsetHours <= 18 && offsetMinutes >= 0 && offsetMinutes <= 59;
+    }
+
+    private static boolean isUuid(byte[] b, int start) {
+        for (int i = 0; i < UUID_LENGTH; i++) {
+            byte c = b[start + i];
+            boolean dash = i == 8 || i == 13 || i == 18 || i == 23;
+            if (dash ? c != '-' : !isHex(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * One {@code @} between a non-empty local part and a domain of at least two dot-separated
+     * labels. Labels are letters, digits and hyphens, not starting or ending with a hyphen. This
+     * is deliberately narrower than RFC 5322: quoted local parts and IP literals are not accepted.
+     */
+    private static boolean isEmail(byte[] b, int start, int end) {
+        int at = -1;
+        for (int i = start; i < end; i++) {
+            byte c = b[i];
+            if (c == '@') {
+                at = i;
+                break;
+            }
+            if (!isLocalPartChar(c)) {
+                return false;
+            }
+        }
+        if (at <= start || at + 1 >= end) {
+            return false;
+        }
+        int labels = 0;
+        int labelStart = at + 1;
+        for (int i = at + 1; i <= end; i++) {
+            if (i == end || b[i] == '.') {
+                int labelLength = i - labelStart;
+                if (labelLength == 0 || b[labelStart] == '-' || b[i - 1] == '-') {
+                    return false;
+                }
+                labels++;
+                labelStart = i + 1;
+            } else if (!isLetterOrDigit(b[i]) && b[i] != '-') {
+                return false;
+            }
+        }
+        return labels >= 2;
+    }
+
+    /**
+     * @return the value of {@code count} decimal digits at {@code from}, or {@code -1} if any byte
+     * is not a digit
+     */
+    private static int digits(byte[] b, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            if (!isDigit(b[i])) {
+                return -1;
+            }
+            value = value * 10 + (b[i] - '0');
+        }
+        return value;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    private static boolean isDigit(byte c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isHex(byte c) {
+        return isDigit(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+    private static boolean isLetterOrDigit(byte c) {
+        return isDigit(c) || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isLocalPartChar(byte c) {
+        return isLetterOrDigit(c) || (c > ' ' && c < 0x7F && "!#$%&'*+-/=?^_`{|}~.".indexOf(c) >= 0);
+    }
+}
@@ -0,0 +1,163 @@
+package com.matillion.techtest2025.parser;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Small helpers for working with UTF-8 encoded bytes without decoding them.
+ */
+public final class Utf8 {
+
+    /** {@link #numericShape} result for a value that is not a plain number. */
+    public static final int NOT_NUMERIC = 0;
+    /** {@link #numericShape} result for {@code [-+]?[0-9]+}. */
+    public static final int INTEGER_SHAPE = 1;
+    /** {@link #numericShape} result for {@code [-+]?[0-9]*\.[0-9]+}. */
+    public static final int DECIMAL_SHAPE = 2;
+
+    private Utf8() {
+    }
+
+    /**
+     * Finds the first occurrence of {@code needle} in {@code data}.
+     * <p>
+     * Because UTF-8 is self-synchronising, a byte match of a well-formed needle is always a match
+     * of the corresponding characters.
+     *
+     * @return the byte offset of the match, or {@code -1} if there is none
+     */
+    public static int indexOf(byte[] data, byte[] needle) {
+        if (needle.length == 0) {
+            return 0;
+        }
+        byte first = needle[0];
+        int last = data.length - needle.length;
+        outer:
+        for (int i = 0; i <= last; i++) {
+            if (data[i] != first) {
+                continue;
+            }
+            for (int j = 1; j < needle.length; j++) {
+                if (data[i + j] != needle[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the first byte that does not start a well-formed UTF-8 sequence: a stray continuation
+     * byte, a truncated sequence, an overlong encoding, a surrogate or a code point above
+     * {@code U+10FFFF}. These are the sequences a UTF-8 decoder would replace with {@code U+FFFD}.
+     *
+     * @return the byte offset of the first malformed sequence, or {@code -1} if there is none
+     */
+    public static int indexOfMalformed(byte[] data) {
+        int i = 0;
+        while (i < data.length) {
+            if (data[i] >= 0) {
+                i++;
+                continue;
+            }
+            int lead = data[i] & 0xFF;
+            int length;
+            // the second byte of some sequences is restricted further, ruling out overlong
+            // encodings, surrogates and code points above U+10FFFF
+            int min = 0x80;
+            int max = 0xBF;
+            if (lead >= 0xC2 && lead <= 0xDF) {
+                length = 2;
+            } else if (lead >= 0xE0 && lead <= 0xEF) {
+                length = 3;
+                if (lead == 0xE0) {
+                    min = 0xA0;
+                } else if (lead == 0xED) {
+                    max = 0x9F;
+                }
+            } else if (lead >= 0xF0 && lead <= 0xF4) {
+                length = 4;
+                if (lead == 0xF0) {
+                    min = 0x90;
+                } else if (lead == 0xF4) {
+                    max = 0x8F;
+                }
+            } else {
+                return i;
+            }
+            if (i + length > data.length) {
+                return i;
+            }
+            int second = data[i + 1] & 0xFF;
+            if (second < min || second > max) {
+                return i;
+            }
+            for (int j = 2; j < length; j++) {
+                if ((data[i + j] & 0xC0) != 0x80) {
+                    return i;
+                }
+            }
+            i += length;
+        }
+        return -1;
+    }
+
+    /**
+     * Compares {@code [start, end)} of {@code data} with an ASCII lower-case literal, ignoring
+     * the case of ASCII letters.
+     */
+    public static boolean equalsIgnoreAsciiCase(byte[] data, int start, int end, String lowerCaseLiteral) {
+        if (end - start != lowerCaseLiteral.length()) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            int b = data[i];
+            if (b >= 'A' && b <= 'Z') {
+                b += 'a' - 'A';
+            }
+            if (b != lowerCaseLiteral.charAt(i - start)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Byte-level equivalent of matching {@code [-+]?[0-9]+} (integer) or
+     * {@code [-+]?[0-9]*\.[0-9]+} (decimal) against the non-empty range {@code [start, end)}.
+     *
+     * @return {@link #INTEGER_SHAPE}, {@link #DECIMAL_SHAPE} or {@link #NOT_NUMERIC}
+     */
+    public static int numericShape(byte[] bytes, int start, int end) {
+        int i = start;
+        if (bytes[i] == '-' || bytes[i] == '+') {
+            i++;
+        }
+        int integerDigits = 0;
+        while (i < end && bytes[i] >= '0' && bytes[i] <= '9') {
+            i++;
+            integerDigits++;
+        }
+        if (i == end) {
+            return integerDigits > 0 ? INTEGER_SHAPE : NOT_NUMERIC;
+        }
+        if (bytes[i] != '.') {
+            return NOT_NUMERIC;
+        }
+        i++;
+        int fractionDigits = 0;
+        while (i < end && bytes[i] >= '0' && bytes[i] <= '9') {
+            i++;
+            fractionDigits++;
+        }
+        return i == end && fractionDigits > 0 ? DECIMAL_SHAPE : NOT_NUMERIC;
+    }
+
+    /**
+     * Parses a range already known to have a numeric shape, with the same result as
+     * {@link Double#parseDouble} on the decoded text.
+     */
+    public static double parseDouble(byte[] bytes, int start, int end) {
+        return Double.parseDouble(new String(bytes, start, end - start, US_ASCII));
+    }
+}
@@ -0,0 +1,72 @@
+package com.matillion.techtest2025.parser;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+import static jdk.incubator.vector.VectorOperators.EQ;
+import static jdk.incubator.vector.VectorOperators.NE;
+
+/**
+ * {@link CsvTokenizer} that uses the incubating Vector API to examine a whole vector of input
+ * at once: 32 bytes per step on AVX2 hardware, 64 on AVX-512.
+ * <p>
+ * Each step compares the block against every candidate byte and combines the results into a
+ * {@code long} bitmask of field and line boundaries; only the set bits are then visited. The
+ * character count is computed from two lane masks per block (non-continuation bytes and
+ * four-byte lead bytes). Boundary confirmation is delegated to the same {@link RowAssembler}
+ * the scalar backend uses, so both produce identical rows.
+ * <p>
+ * This class links against {@code jdk.incubator.vector} and must only be loaded through
+ * {@link CsvTokenizers}, which checks that the module has been added to the boot layer.
+ */
+final class VectorCsvTokenizer implements CsvTokenizer {
+
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+
+    @Override
+    public long tokenize(byte[] data, CsvFormat format, int maxFields, RowHandler handler) {
+        RowAssembler assembler = new RowAssembler(data, format, maxFields, handler);
+        byte delimiter = assembler.delimiter();
+        byte quote = assembler.quote();
+        int lanes = SPECIES.length();
+        int bound = SPECIES.loopBound(data.length);
+        long characters = 0;
+        int next = 0;
+
+        int i = 0;
+        for (; i < bound; i += lanes) {
+            ByteVector block = ByteVector.fromArray(SPECIES, data, i);
+
+            ByteVector leadBits = block.and((byte) 0xC0);
+            characters += leadBits.compare(NE, (byte) 0x80).trueCount();
+            characters += block.and((byte) 0xF8).compare(EQ, (byte) 0xF0).trueCount();
+
+            VectorMask<Byte> candidates = block.eq(delimiter)
+                    .or(block.eq(quote))
+                    .or(block.eq(RowAssembler.LF))
+                    .or(block.eq(RowAssembler.CR))
+                    .or(block.eq(RowAssembler.VT))
+                    .or(block.eq(RowAssembler.FF))
+                    .or(block.eq(RowAssembler.NEL_LEAD))
+                    .or(block.eq(RowAssembler.LS_PS_LEAD));
+
+            long bits = candidates.toLong();
+            while (bits != 0) {
+                int position = i + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                if (position >= next) {
+                    next = assembler.boundary(position);
+                }
+            }
+        }
+
+        // A multi-byte break or a doubled quote confirmed in the last block may extend into the tail
+        return characters + ScalarCsvTokenizer.tokenize(data, i, assembler, next);
+    }
+
+    @Override
+    public String name() {
+        return "vector-" + SPECIES.vectorBitSize();
+    }
+}
@@ -0,0 +1,10 @@
+package com.matillion.techtest2025.repository;
+
+/**
+ * The content hash of an analysis, as read by deletion to find its columnar file.
+ *
+ * @param analysisId  the analysis id
+ * @param contentHash SHA-256 of the ingested content
+ */
+public record AnalysisContentHash(Long analysisId, String contentHash) {
+}
@@ -0,0 +1,10 @@
+package com.matillion.techtest2025.repository;
+
+/**
+ * What conditional requests for an analysis are validated against, read without loading the data.
+ *
+ * @param contentHash SHA-256 of the ingested content
+ * @param dataStored  whether the stored CSV data is still held, i.e. not removed by retention
+ */
+public record CacheValidators(String contentHash, boolean dataStored) {
+}
@@ -1,9 +1,15 @@
 package com.matillion.techtest2025.repository;
 
+import com.matillion.techtest2025.model.ColumnStatistics;
 import com.matillion.techtest2025.repository.entity.ColumnStatisticsEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * Repository interface for database operations on {@link ColumnStatisticsEntity}.
  * <p>
@@ -14,4 +20,26 @@ import org.springframework.stereotype.Repository;
  */
 @Repository
 public interface ColumnStatisticsRepository extends JpaRepository<ColumnStatisticsEntity, Long> {
+
+    /**
+     * The column statistics of one analysis in header order, without loading the analysis itself
+     * or its data.
+     */
+    @Query("select c from ColumnStatisticsEntity c where c.dataAnalysis.id = :analysisId order by c.id")
+    List<ColumnStatisticsEntity> findByAnalysisId(Long analysisId);
+
+    /**
+     * The response statistics of one analysis in header order, without loading the entities, the
+     * analysis or its data.
+     */
+    @Query("select new com.matillion.techtest2025.model.ColumnStatistics(c.columnName, c.nullCount, c.uniqueCount) "
+            + "from ColumnStatisticsEntity c where c.dataAnalysis.id = :analysisId order by c.id")
+    List<ColumnStatistics> findStatisticsByAnalysisId(Long analysisId);
+
+    /**
+     * Deletes the column statistics of the given analyses in one statement, without loading them.
+     */
+    @Modifying
+    @Query("delete from ColumnStatisticsEntity c where c.dataAnalysis.id in :analysisIds")
+    int deleteByAnalysisIdIn(Collection<Long> analysisIds);
 }
@@ -1,9 +1,18 @@
 package com.matillion.techtest2025.repository;
 
+import com.matillion.techtest2025.controller.response.DataAnalysisSummary;
 import com.matillion.techtest2025.repository.entity.DataAnalysisEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 /**
  * Repository interface for database operations on {@link DataAnalysisEntity}.
  * <p>
@@ -14,4 +23,103 @@ import org.springframework.stereotype.Repository;
  */
 @Repository
 public interface DataAnalysisRepository extends JpaRepository<DataAnalysisEntity, Long> {
+
+    /**
+     * Looks up only the content hash of an analysis and whether it still holds its data, without
+     * loading the data or its column statistics. Used to answer conditional requests cheaply.
+     */
+    @Query("select new com.matillion.techtest2025.repository.CacheValidators(a.contentHash, "
+            + "case when a.originalBytes is not null then true else false end) "
+            + "from DataAnalysisEntity a where a.id = :id")
+    Optional<CacheValidators> findCacheValidatorsById(Long id);
+
+    /**
+     * Looks up only the row count of an analysis, without loading the data or its column statistics.
+     */
+    @Query("select a.numberOfRows from DataAnalysisEntity a where a.id = :id")
+    Optional<Integer> findNumberOfRowsById(Long id);
+
+    /**
+     * Finds the canonical analysis of the content with the given hash read in the same format,
+     * using the unique index that guarantees there is at most one.
+     */
+    @Query("select a.id from DataAnalysisEntity a where a.contentHash = :contentHash "
+            + "and a.delimiter = :delimiter and a.quoteChar = :quoteChar and a.canonical = true")
+    Optional<Long> findCanonicalIdByContentHash(String contentHash, byte delimiter, byte quoteChar);
+
+    /**
+     * Looks up the scalar results of an analysis without loading its data or column statistics.
+     */
+    @Query("select new com.matillion.techtest2025.controller.response.DataAnalysisSummary("
+            + "a.numberOfRows, a.numberOfColumns, a.totalCharacters, a.createdAt) "
+            + "from DataAnalysisEntity a where a.id = :id")
+    Optional<DataAnalysisSummary> findSummaryById(Long id);
+
+    /**
+     * Looks up what is needed to read the stored rows of an analysis, without loading the data
+     * itself or its column statistics.
+     */
+    @Query("select new com.matillion.techtest2025.repository.StoredAnalysis(a.numberOfRows, a.numberOfColumns, "
+            + "a.createdAt, a.delimiter, a.quoteChar, a.contentHash, case when a.originalBytes is not null then true else false end) "
+            + "from DataAnalysisEntity a where a.id = :id")
+    Optional<StoredAnalysis> findStoredAnalysisById(Long id);
+
+    /**
+     * Loads only the stored CSV data of an analysis; empty if the analysis does not exist or its
+     * data has been removed by retention.
+     */
+    @Query("select a.originalBytes from DataAnalysisEntity a where a.id = :id")
+    Optional<byte[]> findOriginalBytesById(Long id);
+
+    // Retention and bulk deletion: ids are selected in batches of page size, always from the first
+    // page because every processed batch drops out of the result
+
+    /**
+     * Ids of analyses created in {@code [from, to)}; either bound may be {@code null}.
+     */
+    @Query("select a.id from DataAnalysisEntity a where (:from is null or a.createdAt >= :from) "
+            + "and (:to is null or a.createdAt < :to) order by a.id")
+    List<Long> findIdsCreatedBetween(OffsetDateTime from, OffsetDateTime to, Pageable page);
+
+    @Query("select a.id from DataAnalysisEntity a where a.createdAt < :cutoff and a.originalBytes is not null order by a.id")
+    List<Long> findIdsWithDataCreatedBefore(OffsetDateTime cutoff, Pageable page);
+
+    /**
+     * Content hashes of the given analyses, which name their columnar files.
+     */
+    @Query("select new com.matillion.techtest2025.repository.AnalysisContentHash(a.id, a.contentHash) "
+            + "from DataAnalysisEntity a where a.id in :ids")
+    List<AnalysisContentHash> findContentHashesByIdIn(Collection<Long> ids);
+
+    @Query("select new com.matillion.techtest2025.repository.StoredDataSize(a.id, a.originalSize) "
+            + "from DataAnalysisEntity a where a.originalBytes is not null order by a.id")
+    List<StoredDataSize> findOldestWithData(Pageable page);
+
+    /**
+     * @return total size of the raw data still held by all analyses
+     */
+    @Query("select coalesce(sum(a.originalSize), 0) from DataAnalysisEntity a where a.originalBytes is not null")
+    long sumStoredDataSize();
+
+    /**
+     * @return total size of the raw data still held by the given analyses
+     */
+    @Query("select coalesce(sum(a.originalSize), 0) from DataAnalysisEntity a "
+            + "where a.originalBytes is not null and a.id in :ids")
+    long sumStoredDataSizeByIdIn(Collection<Long> ids);
+
+    /**
+     * Removes the raw data of the given analyses in one statement, keeping their statistics. They
+     * stop being canonical, so the next upload of the same content is analysed and stored again.
+     */
+    @Modifying
+    @Query("update DataAnalysisEntity a set a.originalBytes = null, a.canonical = null where a.id in :ids")
+    int clearDataByIdIn(Collection<Long> ids);
+
+    /**
+     * Deletes the given analyses in one statement. Their column statistics must be deleted first.
+     */
+    @Modifying
+    @Query("delete from DataAnalysisEntity a where a.id in :ids")
+    int deleteByIdIn(Collection<Long> ids);
 }
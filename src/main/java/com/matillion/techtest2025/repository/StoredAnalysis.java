@@ -0,0 +1,26 @@
+package com.matillion.techtest2025.repository;
+
+import java.time.OffsetDateTime;
+
+/**
+ * The shape of an analysis and how to read its stored rows again, read without loading the data
+ * or its column statistics.
+ *
+ * @param numberOfRows    data rows, excluding the header
+ * @param numberOfColumns columns in the header
+ * @param createdAt       when the analysis was stored
+ * @param delimiter       field delimiter the data was read with
+ * @param quoteChar       quote character the data was read with, {@code 0} if none
+ * @param contentHash     SHA-256 of the ingested content, which also names its columnar file
+ * @param dataStored      whether the stored CSV data is still held, i.e. not removed by retention
+ */
+public record StoredAnalysis(
+        int numberOfRows,
+        int numberOfColumns,
+        OffsetDateTime createdAt,
+        byte delimiter,
+        byte quoteChar,
+        String contentHash,
+        boolean dataStored
+) {
+}
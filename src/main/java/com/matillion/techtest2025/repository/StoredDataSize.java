@@ -0,0 +1,10 @@
+package com.matillion.techtest2025.repository;
+
+/**
+ * Size of the raw data an analysis still holds, as read by retention without loading the data.
+ *
+ * @param analysisId the analysis id
+ * @param size       size of the stored CSV data in bytes
+ */
+public record StoredDataSize(Long analysisId, long size) {
+}
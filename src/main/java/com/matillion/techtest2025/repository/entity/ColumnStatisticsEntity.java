@@ -1,8 +1,10 @@
 package com.matillion.techtest2025.repository.entity;
 
+import com.matillion.techtest2025.model.InferredType;
 import jakarta.persistence.*;
 import lombok.*;
 
+import static jakarta.persistence.EnumType.STRING;
 import static jakarta.persistence.FetchType.LAZY;
 import static jakarta.persistence.GenerationType.IDENTITY;
 
@@ -22,7 +24,7 @@ import static jakarta.persistence.GenerationType.IDENTITY;
  * </pre>
  */
 @Entity
-@Table(name = "column_statistics")
+@Table(name = "column_statistics", indexes = @Index(name = "idx_column_statistics_data_analysis_id", columnList = "data_analysis_id"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -58,6 +60,63 @@ public class ColumnStatisticsEntity {
     @Column(name = "unique_count")
     private int uniqueCount;
 
+    /**
+     * The type inferred for the column's values during ingest.
+     */
+    @Enumerated(STRING)
+    @Column(name = "inferred_type")
+    private InferredType inferredType;
+
+    /**
+     * Share of the column's non-null values that match {@link #inferredType}, or {@code null} for
+     * analyses stored before it was recorded.
+     */
+    @Column(name = "type_confidence")
+    private Double typeConfidence;
+
+    /**
+     * Smallest numeric value in the column, or {@code null} if it has none.
+     */
+    @Column(name = "min_value")
+    private Double minValue;
+
+    /**
+     * Largest numeric value in the column, or {@code null} if it has none.
+     */
+    @Column(name = "max_value")
+    private Double maxValue;
+
+    /**
+     * Mean of the numeric values in the column, or {@code null} if it has none.
+     */
+    @Column(name = "mean_value")
+    private Double meanValue;
+
+    /**
+     * Serialised {@link com.matillion.techtest2025.sketch.KllSketch} of the column's numeric values,
+     * used to answer quantile and histogram queries without re-reading the original data.
+     */
+    @Lob
+    @Column(name = "quantile_sketch")
+    private byte[] quantileSketch;
+
+    /**
+     * Serialised {@link com.matillion.techtest2025.sketch.SpaceSavingSketch} of the column's values,
+     * used to report its most frequent values. {@code null} when top-value tracking is disabled.
+     */
+    @Lob
+    @Column(name = "top_values_sketch")
+    private byte[] topValuesSketch;
+
+    /**
+     * Serialised {@link com.matillion.techtest2025.sketch.HyperLogLogSketch} of the column's values,
+     * used to estimate the value overlap with columns of other analyses. {@code null} for analyses
+     * stored before it was recorded.
+     */
+    @Lob
+    @Column(name = "distinct_sketch")
+    private byte[] distinctSketch;
+
     /**
      * Many-to-one relationship with the parent data analysis.
      * <p>
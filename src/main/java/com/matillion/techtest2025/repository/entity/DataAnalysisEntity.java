@@ -8,6 +8,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static jakarta.persistence.CascadeType.ALL;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static jakarta.persistence.FetchType.EAGER;
 import static jakarta.persistence.GenerationType.IDENTITY;
 
@@ -17,16 +18,22 @@ import static jakarta.persistence.GenerationType.IDENTITY;
  * Uses Lombok's {@code @Builder} for convenient object creation:
  * <pre>
  * DataAnalysisEntity entity = DataAnalysisEntity.builder()
- *     .originalData(csvData)
+ *     .originalBytes(csvBytes)
  *     .numberOfRows(10)
  *     .numberOfColumns(5)
  *     .totalCharacters(150)
  *     .createdAt(LocalDateTime.now())
  *     .build();
  * </pre>
+ * The table is created by the Flyway migrations in {@code db/migration}; the indexes declared here
+ * mirror them.
  */
 @Entity
-@Table(name = "data_analysis")
+@Table(name = "data_analysis", indexes = {
+        @Index(name = "idx_data_analysis_content_hash", columnList = "content_hash"),
+        @Index(name = "idx_data_analysis_canonical", columnList = "content_hash, delimiter, quote_char, canonical", unique = true),
+        @Index(name = "idx_data_analysis_created_at", columnList = "created_at")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -42,11 +49,53 @@ public class DataAnalysisEntity {
     private Long id;
 
     /**
-     * Original CSV data. {@code @Lob} allows storing large text.
+     * Original CSV data, kept as the UTF-8 bytes it was uploaded as. {@code @Lob} allows storing
+     * large payloads; storing bytes means ingest never has to decode the whole body to a string.
+     * <p>
+     * {@code null} once retention has removed the raw data; the statistics are kept.
      */
     @Lob
-    @Column(name = "original_data", nullable = false, columnDefinition = "TEXT")
-    private String originalData;
+    @Column(name = "original_data")
+    private byte[] originalBytes;
+
+    /**
+     * Size of the uploaded data in bytes. Kept after the data itself is removed, and lets
+     * retention measure stored data without reading it.
+     */
+    @Column(name = "original_size", nullable = false)
+    private long originalSize;
+
+    /**
+     * SHA-256 of {@link #originalBytes} as lower-case hex. An analysis never changes once stored,
+     * so this identifies its content, e.g. for HTTP entity tags and for recognising repeated
+     * uploads. Not unique on its own: a forced re-analysis stores the same content again (see
+     * {@link #canonical}).
+     */
+    @Column(name = "content_hash", nullable = false, length = 64, updatable = false)
+    private String contentHash;
+
+    /**
+     * Field delimiter the data was read with, as an ASCII byte; it is read the same way again when
+     * the stored data is re-profiled or queried.
+     */
+    @Column(name = "delimiter", nullable = false, updatable = false)
+    private byte delimiter;
+
+    /**
+     * Quote character the data was read with, as an ASCII byte, or {@code 0} if fields were not
+     * quoted. Analyses stored before quoting was supported have {@code 0}.
+     */
+    @Column(name = "quote_char", nullable = false, updatable = false)
+    private byte quoteChar;
+
+    /**
+     * {@code true} for the analysis that repeated uploads of the same content and format are
+     * answered with, {@code null} for any other. Unique together with the content hash and format,
+     * so two concurrent uploads of the same content cannot both be stored. Forced re-analyses are
+     * never canonical, and an analysis stops being canonical when retention removes its data.
+     */
+    @Column(name = "canonical")
+    private Boolean canonical;
 
     /**
      * Number of data rows in the CSV (excluding header).
@@ -83,8 +132,20 @@ public class DataAnalysisEntity {
      * <p>
      * {@code orphanRemoval = true} ensures that if a column statistic is removed from this list,
      * it will be deleted from the database.
+     * <p>
+     * {@code @OrderBy("id")} keeps the statistics in header order when they are read back.
      */
     @OneToMany(mappedBy = "dataAnalysis", cascade = ALL, orphanRemoval = true, fetch = EAGER)
+    @OrderBy("id")
     @Builder.Default
     private List<ColumnStatisticsEntity> columnStatistics = new ArrayList<>();
+
+    /**
+     * Decodes the original CSV data to text, for callers that need it as a {@code String}.
+     *
+     * @return the data, or {@code null} if it has been removed by retention
+     */
+    public String getOriginalData() {
+        return originalBytes != null ? new String(originalBytes, UTF_8) : null;
+    }
 }
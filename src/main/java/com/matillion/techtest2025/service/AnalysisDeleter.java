@@ -0,0 +1,59 @@
+package com.matillion.techtest2025.service;
+
+import com.matillion.techtest2025.repository.AnalysisContentHash;
+import com.matillion.techtest2025.repository.ColumnStatisticsRepository;
+import com.matillion.techtest2025.repository.DataAnalysisRepository;
+import com.matillion.techtest2025.storage.ColumnarStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Deletes analyses with set-based statements instead of loading them: one {@code DELETE} on
+ * {@code column_statistics} and one on {@code data_analysis} per batch, in a transaction of their
+ * own, followed by removing the columnar files.
+ * <p>
+ * Callers split large deletions into batches so that no transaction holds locks for long.
+ */
+@Component
+@RequiredArgsConstructor
+public class AnalysisDeleter {
+
+    private final DataAnalysisRepository dataAnalysisRepository;
+    private final ColumnStatisticsRepository columnStatisticsRepository;
+    private final ColumnarStore columnarStore;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * What one batch removed.
+     *
+     * @param analyses         analyses deleted
+     * @param columnStatistics column statistics deleted
+     * @param databaseBytes    stored CSV data deleted, in bytes
+     * @param columnarBytes    columnar files deleted, in bytes
+     */
+    public record Deleted(int analyses, int columnStatistics, long databaseBytes, long columnarBytes) {
+    }
+
+    /**
+     * Deletes one batch of analyses; ids that do not exist are ignored.
+     */
+    public Deleted delete(Collection<Long> ids) {
+        // the columnar files are named by content hash, which is gone once the rows are deleted
+        List<AnalysisContentHash> files = dataAnalysisRepository.findContentHashesByIdIn(ids);
+        Deleted deleted = transactionTemplate.execute(status -> {
+            long databaseBytes = dataAnalysisRepository.sumStoredDataSizeByIdIn(ids);
+            int columnStatistics = columnStatisticsRepository.deleteByAnalysisIdIn(ids);
+            int analyses = dataAnalysisRepository.deleteByIdIn(ids);
+            return new Deleted(analyses, columnStatistics, databaseBytes, 0);
+        });
+        long columnarBytes = 0;
+        for (AnalysisContentHash file : files) {
+            columnarBytes += columnarStore.delete(file.analysisId(), file.contentHash());
+        }
+        return new Deleted(deleted.analyses(), deleted.columnStatistics(), deleted.databaseBytes(), columnarBytes);
+    }
+}
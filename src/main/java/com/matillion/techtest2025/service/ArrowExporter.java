@@ -0,0 +1,77 @@
+package com.matillion.techtest2025.service;
+
+import com.matillion.techtest2025.arrow.ArrowStreamWriter;
+import com.matillion.techtest2025.parser.CsvFormat;
+import com.matillion.techtest2025.parser.CsvRow;
+import com.matillion.techtest2025.parser.CsvTokenizer;
+import com.matillion.techtest2025.storage.ColumnChunk;
+import com.matillion.techtest2025.storage.ColumnarReader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Feeds the rows of a stored analysis to an {@link ArrowStreamWriter}, reading only the exported
+ * columns.
+ * <p>
+ * From a columnar copy, typed chunks pass their decoded numbers along with the text, so numeric
+ * columns are not parsed again. Without one, the stored CSV is tokenized up to the last exported
+ * column.
+ */
+final class ArrowExporter {
+
+    /** Header index of each exported column, in export order. */
+    private final int[] columns;
+
+    ArrowExporter(int[] columns) {
+        this.columns = columns;
+    }
+
+    void export(ColumnarReader reader, ArrowStreamWriter writer) throws IOException {
+        ColumnChunk[] values = new ColumnChunk[columns.length];
+        for (int chunk = 0; chunk < reader.chunkCount(); chunk++) {
+            for (int c = 0; c < columns.length; c++) {
+                values[c] = reader.read(chunk, columns[c]);
+            }
+            int rows = reader.chunkRowCount(chunk);
+            for (int row = 0; row < rows; row++) {
+                for (int c = 0; c < columns.length; c++) {
+                    values[c].visit(row, writer.column(c));
+                }
+                writer.endRow();
+            }
+        }
+        writer.finish();
+    }
+
+    /**
+     * Tokenizes {@code data} up to the last exported column. The stored data was validated at
+     * ingest, so every line is known to have the full set of fields.
+     */
+    void export(CsvTokenizer tokenizer, CsvFormat format, byte[] data, ArrowStreamWriter writer) throws IOException {
+        int maxField = 0;
+        for (int column : columns) {
+            maxField = Math.max(maxField, column);
+        }
+        boolean[] header = {true};
+        try {
+            tokenizer.tokenize(data, format, maxField + 1, (CsvRow row) -> {
+                if (header[0]) {
+                    header[0] = false;
+                    return;
+                }
+                for (int c = 0; c < columns.length; c++) {
+                    writer.column(c).accept(row.data(), row.start(columns[c]), row.end(columns[c]));
+                }
+                try {
+                    writer.endRow();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.finish();
+    }
+}
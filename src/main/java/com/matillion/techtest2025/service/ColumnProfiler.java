@@ -0,0 +1,202 @@
+package com.matillion.techtest2025.service;
+
+import com.matillion.techtest2025.model.InferredType;
+import com.matillion.techtest2025.parser.ExactDistinctCounter;
+import com.matillion.techtest2025.parser.TextShapes;
+import com.matillion.techtest2025.parser.Utf8;
+import com.matillion.techtest2025.sketch.HyperLogLogSketch;
+import com.matillion.techtest2025.sketch.KllSketch;
+import com.matillion.techtest2025.sketch.SpaceSavingSketch;
+import com.matillion.techtest2025.storage.CellVisitor;
+
+import java.util.Arrays;
+
+/**
+ * Single-pass accumulator for one column's statistics.
+ * <p>
+ * Values are passed in as UTF-8 byte ranges straight from the tokenizer. Null and distinct counts,
+ * per-type match counts for type inference (see {@link #inferType}), numeric min/max/mean, a
+ * {@link KllSketch} of the numeric values and (optionally) a {@link SpaceSavingSketch} of the most
+ * frequent values are all maintained in the same visit, so a column never has to be read twice.
+ * Distinct values are counted exactly by an {@link ExactDistinctCounter}, which spills to disk when
+ * its memory budget runs out, and (optionally) summarised in a {@link HyperLogLogSketch} that is
+ * small enough to store and compare across analyses.
+ * <p>
+ * As a {@link CellVisitor} it can also be fed from columnar storage, where typed chunks hand over
+ * values that are already parsed.
+ */
+final class ColumnProfiler implements CellVisitor {
+
+    private static final InferredType[] SHAPE_TYPES = new InferredType[TextShapes.EMAIL + 1];
+
+    static {
+        SHAPE_TYPES[TextShapes.DATE] = InferredType.DATE;
+        SHAPE_TYPES[TextShapes.TIMESTAMP] = InferredType.TIMESTAMP;
+        SHAPE_TYPES[TextShapes.UUID] = InferredType.UUID;
+        SHAPE_TYPES[TextShapes.EMAIL] = InferredType.EMAIL;
+    }
+
+    private final ExactDistinctCounter uniqueValues;
+    private final KllSketch quantiles;
+    private final SpaceSavingSketch topValues;
+    private final HyperLogLogSketch distinctSketch;
+    private int nullCount;
+    private double sum;
+    private int numericCount;
+    private double min;
+    private double max;
+    private boolean anyDecimal;
+    private int booleanCount;
+    private final int[] shapeCounts = new int[TextShapes.EMAIL + 1];
+
+    /**
+     * @param sketchK                 accuracy parameter of the quantile sketch
+     * @param topValueCapacity        number of heavy-hitter counters, or {@code 0} to disable top values
+     * @param distinctSketchPrecision precision of the distinct-value sketch, or {@code 0} to disable it
+     * @param uniqueValues            counter for the column's distinct values
+     */
+    ColumnProfiler(int sketchK, int topValueCapacity, int distinctSketchPrecision, ExactDistinctCounter uniqueValues) {
+        this.uniqueValues = uniqueValues;
+        this.quantiles = new KllSketch(sketchK);
+        this.topValues = topValueCapacity > 0 ? new SpaceSavingSketch(topValueCapacity) : null;
+        this.distinctSketch = distinctSketchPrecision > 0 ? new HyperLogLogSketch(distinctSketchPrecision) : null;
+    }
+
+    /**
+     * Records the value {@code [start, end)} of {@code bytes}; an empty range is a null.
+     */
+    @Override
+    public void accept(byte[] bytes, int start, int end) {
+        if (start == end) {
+            nullCount++;
+            return;
+        }
+        uniqueValues.add(bytes, start, end);
+        if (topValues != null) {
+            topValues.offer(bytes, start, end);
+        }
+        if (distinctSketch != null) {
+            distinctSketch.offer(bytes, start, end);
+        }
+
+        int shape = Utf8.numericShape(bytes, start, end);
+        if (shape != Utf8.NOT_NUMERIC) {
+            recordNumber(Utf8.parseDouble(bytes, start, end), shape == Utf8.DECIMAL_SHAPE);
+        } else if (Utf8.equalsIgnoreAsciiCase(bytes, start, end, "true")
+                || Utf8.equalsIgnoreAsciiCase(bytes, start, end, "false")) {
+            booleanCount++;
+        } else {
+            shapeCounts[TextShapes.shape(bytes, start, end)]++;
+        }
+    }
+
+    /**
+     * Records a numeric value whose text is {@code [start, end)} of {@code bytes}, skipping the
+     * shape check and parse.
+     */
+    @Override
+    public void acceptNumber(byte[] bytes, int start, int end, double value, boolean decimal) {
+        uniqueValues.add(bytes, start, end);
+        if (topValues != null) {
+            topValues.offer(bytes, start, end);
+        }
+        if (distinctSketch != null) {
+            distinctSketch.offer(bytes, start, end);
+        }
+        recordNumber(value, decimal);
+    }
+
+    private void recordNumber(double d, boolean decimal) {
+        anyDecimal = anyDecimal || decimal;
+        sum += d;
+        if (numericCount == 0 || d < min) min = d;
+        if (numericCount == 0 || d > max) max = d;
+        numericCount++;
+        quantiles.update(d);
+    }
+
+    int nullCount() {
+        return nullCount;
+    }
+
+    int uniqueCount() {
+        return uniqueValues.count();
+    }
+
+    /**
+     * Picks the type that the most non-null values match. A specific type (boolean, numeric, date,
+     * timestamp, UUID or e-mail) is reported when at least {@code minConfidence} of the values match
+     * it, so a few malformed cells no longer turn a column into a string column. Otherwise the
+     * column is {@link InferredType#CATEGORICAL} if it has at most {@code maxCategories} distinct
+     * values that each repeat on average, and {@link InferredType#STRING} if not.
+     * <p>
+     * The confidence is the share of non-null values matching the type. Every value is a string, so
+     * {@code STRING} has confidence 1; for {@code CATEGORICAL} it is the share of values that repeat
+     * an earlier one. A column without values is a {@code BOOLEAN}, as it always has been, with
+     * confidence 0 since no value supports it.
+     */
+    TypeGuess inferType(double minConfidence, int maxCategories) {
+        int values = booleanCount + numericCount + Arrays.stream(shapeCounts).sum();
+        if (values == 0) {
+            return new TypeGuess(InferredType.BOOLEAN, 0);
+        }
+
+        InferredType best = InferredType.BOOLEAN;
+        int bestCount = booleanCount;
+        if (numericCount > bestCount) {
+            best = anyDecimal ? InferredType.DECIMAL : InferredType.INTEGER;
+            bestCount = numericCount;
+        }
+        for (int shape = TextShapes.DATE; shape <= TextShapes.EMAIL; shape++) {
+            if (shapeCounts[shape] > bestCount) {
+                best = SHAPE_TYPES[shape];
+                bestCount = shapeCounts[shape];
+            }
+        }
+        double confidence = (double) bestCount / values;
+        if (bestCount > 0 && confidence >= minConfidence) {
+            return new TypeGuess(best, confidence);
+        }
+
+        int distinct = uniqueCount();
+        if (distinct <= maxCategories && distinct * 2 <= values) {
+            return new TypeGuess(InferredType.CATEGORICAL, 1 - (double) distinct / values);
+        }
+        return new TypeGuess(InferredType.STRING, 1);
+    }
+
+    // Numeric summaries cover every numeric value in the column, and are null when there are none
+
+    Double min() {
+        return numericCount > 0 ? min : null;
+    }
+
+    Double max() {
+        return numericCount > 0 ? max : null;
+    }
+
+    Double mean() {
+        return numericCount > 0 ? sum / numericCount : null;
+    }
+
+    /**
+     * @return the quantile sketch of the column's numeric values, or {@code null} if there are none
+     */
+    KllSketch quantiles() {
+        return numericCount > 0 ? quantiles : null;
+    }
+
+    /**
+     * @return the heavy-hitters sketch of the column's non-null values, or {@code null} if disabled
+     */
+    SpaceSavingSketch topValues() {
+        return topValues;
+    }
+
+    /**
+     * @return the distinct-value sketch of the column's non-null values, or {@code null} if disabled
+     */
+    HyperLogLogSketch distinctSketch() {
+        return distinctSketch;
+    }
+}
@@ -1,23 +1,69 @@
 package com.matillion.techtest2025.service;
 
+import com.matillion.techtest2025.arrow.ArrowColumnType;
+import com.matillion.techtest2025.arrow.ArrowStreamWriter;
+import com.matillion.techtest2025.config.AnalysisProperties;
+import com.matillion.techtest2025.controller.request.BulkDeleteRequest;
+import com.matillion.techtest2025.controller.response.BulkDeleteResponse;
 import com.matillion.techtest2025.controller.response.DataAnalysisResponse;
+import com.matillion.techtest2025.controller.response.DataAnalysisStream;
+import com.matillion.techtest2025.controller.response.DataAnalysisSummary;
 import com.matillion.techtest2025.model.ColumnStatistics;
 import com.matillion.techtest2025.repository.ColumnStatisticsRepository;
 import com.matillion.techtest2025.repository.DataAnalysisRepository;
+import com.matillion.techtest2025.repository.StoredAnalysis;
 import com.matillion.techtest2025.repository.entity.ColumnStatisticsEntity;
 import com.matillion.techtest2025.repository.entity.DataAnalysisEntity;
 import com.matillion.techtest2025.exception.BadRequestException;
+import com.matillion.techtest2025.exception.GoneException;
 import com.matillion.techtest2025.exception.NotFoundException;
+import com.matillion.techtest2025.model.ColumnPairStatistics;
 import com.matillion.techtest2025.model.ColumnProfile;
+import com.matillion.techtest2025.model.HistogramBucket;
 import com.matillion.techtest2025.model.InferredType;
+import com.matillion.techtest2025.model.IngestPhase;
+import com.matillion.techtest2025.model.IngestProgress;
+import com.matillion.techtest2025.model.SamplingMode;
+import com.matillion.techtest2025.model.ValueFrequency;
+import com.matillion.techtest2025.model.ValuePairFrequency;
+import com.matillion.techtest2025.parser.CsvFormat;
+import com.matillion.techtest2025.parser.CsvRow;
+import com.matillion.techtest2025.parser.CsvTokenizer;
+import com.matillion.techtest2025.parser.DistinctValueBudget;
+import com.matillion.techtest2025.parser.InputFormats;
+import com.matillion.techtest2025.parser.SliceSets;
+import com.matillion.techtest2025.parser.Utf8;
+import com.matillion.techtest2025.sketch.HyperLogLogSketch;
+import com.matillion.techtest2025.sketch.KllSketch;
+import com.matillion.techtest2025.sketch.SpaceSavingSketch;
+import com.matillion.techtest2025.storage.ColumnarReader;
+import com.matillion.techtest2025.storage.ColumnarStore;
+import com.matillion.techtest2025.storage.ColumnarWriter;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 /**
  * Service layer containing business logic for data analysis.
@@ -25,11 +71,17 @@ import java.util.Set;
  * Responsible for parsing data, calculating statistics, and persisting results.
  */
 @Service
+@Slf4j
 @RequiredArgsConstructor
 public class DataAnalysisService {
 
     private final DataAnalysisRepository dataAnalysisRepository;
     private final ColumnStatisticsRepository columnStatisticsRepository;
+    private final CsvTokenizer csvTokenizer;
+    private final InputFormats inputFormats;
+    private final ColumnarStore columnarStore;
+    private final AnalysisDeleter analysisDeleter;
+    private final AnalysisProperties properties;
 
     /**
      * Analyzes CSV data and returns statistics.
@@ -37,73 +89,117 @@ public class DataAnalysisService {
      * Parses the CSV, calculates statistics (row count, column count, character count,
      * null counts per column), persists the results to the database, and returns the analysis.
      * <p>
-     * <b>Note:</b> Current implementation is incomplete. Part 1 of the tech test
-     * requires implementing the CSV parsing and analysis logic.
+     * The data is tokenized directly as UTF-8 bytes by {@link CsvTokenizer}; only the header names
+     * are decoded to strings, and distinct values are tracked as bytes, spilling to disk when they
+     * exceed {@code analysis.profile.distinct-values.memory-budget} so that unique counts stay exact.
+     * Column profiles (inferred type, numeric summaries and a quantile sketch) are built in the same
+     * pass and persisted with the column statistics, and the rows are written to a columnar file for
+     * later re-profiling.
+     * <p>
+     * Uploads are identified by the SHA-256 of their bytes. Unless {@code force} is set, content
+     * that has already been analysed in the same format is not parsed or stored again; the
+     * existing analysis is returned instead, read without its data. Of two concurrent uploads of
+     * the same content, the database lets only one be stored, and the other returns it.
+     *
+     * @param data  raw UTF-8 encoded CSV data (rows separated by newlines, columns by commas)
+     * @param force analyse and store the data even if the same content was analysed before
+     * @return analysis results, with the id of the analysis they belong to
+     */
+    public IngestResult analyzeCsvData(byte[] data, boolean force) {
+        return analyzeCsvData(data, null, force, IngestProgressListener.NONE);
+    }
+
+    /**
+     * Same as {@link #analyzeCsvData(byte[], boolean)}, for data in the named input format,
+     * reporting progress to {@code progress} on the calling thread: once when each
+     * {@link IngestPhase} starts and, while parsing, at most once per
+     * {@code analysis.http.progress.interval}.
+     * <p>
+     * The format's delimiter and quote are stored with the analysis, so that its data is read the
+     * same way whenever it is re-profiled or queried.
      *
-     * @param data raw CSV data (rows separated by newlines, columns by commas)
-     * @return analysis results
+     * @param format one of {@code analysis.parser.formats}, or {@code null} for the default format
+     * @throws BadRequestException if the format is unknown, or the data is empty or not valid UTF-8
      */
-    public DataAnalysisResponse analyzeCsvData(String data) {
-        if (data == null || data.isEmpty()) {
+    public IngestResult analyzeCsvData(byte[] data, String format, boolean force, IngestProgressListener progress) {
+        CsvFormat csvFormat = inputFormats.find(format)
+                .orElseThrow(() -> new BadRequestException("Unknown input format '" + format + "', expected one of "
+                        + inputFormats.names()));
+        if (data == null || data.length == 0) {
             throw new BadRequestException("CSV data must not be empty");
         }
-
-        // Split into non-empty lines, preserving order; ignore fully blank lines
-        String[] rawLines = data.split("\\R");
-        List<String> lines = new ArrayList<>();
-        for (String line : rawLines) {
-            if (line != null && !line.isEmpty()) {
-                lines.add(line);
-            }
+        // characters and distinct values are counted on the raw bytes, which only matches the
+        // decoded text when it is well-formed
+        int malformed = Utf8.indexOfMalformed(data);
+        if (malformed >= 0) {
+            throw new BadRequestException("CSV data must be UTF-8 encoded; byte " + malformed + " is not valid UTF-8");
         }
 
-        if (lines.isEmpty()) {
-            throw new BadRequestException("CSV data must contain a header row");
+        progress.onProgress(new IngestProgress(IngestPhase.HASHING, 0, data.length, 0, List.of(), new int[0]));
+        String contentHash = sha256Hex(data);
+        if (!force) {
+            Optional<IngestResult> existing = findCanonicalAnalysis(contentHash, csvFormat);
+            if (existing.isPresent()) {
+                log.debug("Upload matches analysis {}, not analysing it again", existing.get().analysisId());
+                return existing.get();
+            }
         }
 
-        // Header parsing
-        String header = lines.get(0);
-        String[] headerColumns = header.split(",", -1);
-        int numberOfColumns = headerColumns.length;
-
-        // Prepare null counters and unique value sets per column
-        int[] nullCounts = new int[numberOfColumns];
-        @SuppressWarnings("unchecked")
-        Set<String>[] uniqueSets = new Set[numberOfColumns];
-        for (int i = 0; i < numberOfColumns; i++) {
-            uniqueSets[i] = new HashSet<>();
+        AnalysisProperties.Profile profile = properties.getProfile();
+        IngestState state = new IngestState(profile.getQuantileSketchK(), topValueCapacity(),
+                profile.getDistinctSketchPrecision(), distinctValueBudget(), columnarStore,
+                progress, properties.getHttp().getProgress().getInterval().toNanos(), data.length);
+        try {
+            return analyzeCsvData(data, csvFormat, contentHash, force, state);
+        } catch (RuntimeException e) {
+            columnarStore.discard(state.columnar);
+            throw e;
+        } finally {
+            state.distinctValues.close();
         }
+    }
 
-        // Validate and process data rows
-        int numberOfRows = 0;
-        for (int i = 1; i < lines.size(); i++) {
-            String row = lines.get(i);
-            if (row.isEmpty()) {
-                continue; // already filtered, but keep guard
-            }
+    /**
+     * Returns the canonical analysis of the same content in the same format, read without its data
+     * or column entities.
+     */
+    private Optional<IngestResult> findCanonicalAnalysis(String contentHash, CsvFormat format) {
+        return dataAnalysisRepository.findCanonicalIdByContentHash(contentHash, format.delimiter(), format.quote())
+                .flatMap(id -> dataAnalysisRepository.findSummaryById(id).map(summary -> new IngestResult(id, true,
+                        new DataAnalysisResponse(
+                                summary.numberOfRows(),
+                                summary.numberOfColumns(),
+                                summary.totalCharacters(),
+                                columnStatisticsRepository.findStatisticsByAnalysisId(id),
+                                summary.createdAt()
+                        ))));
+    }
 
-            String[] values = row.split(",", -1); // keep empty strings
-            if (values.length != numberOfColumns) {
-                throw new BadRequestException("Malformed CSV: inconsistent column counts");
-            }
+    private IngestResult analyzeCsvData(byte[] data, CsvFormat format, String contentHash, boolean force, IngestState state) {
+        state.report(IngestPhase.PARSING, 0);
+        long totalCharacters = csvTokenizer.tokenize(data, format, state::accept);
 
-            numberOfRows++;
-            for (int c = 0; c < numberOfColumns; c++) {
-                String value = values[c];
-                if (value.isEmpty()) {
-                    nullCounts[c]++;
-                } else {
-                    uniqueSets[c].add(value);
-                }
-            }
+        if (state.headerColumns == null) {
+            throw new BadRequestException("CSV data must contain a header row");
         }
+        // unique counts are taken below, which is where spilled distinct values get merged
+        state.report(IngestPhase.COUNTING, data.length);
+
+        String[] headerColumns = state.headerColumns;
+        int numberOfColumns = headerColumns.length;
+        int numberOfRows = state.numberOfRows;
+        ColumnProfiler[] profilers = state.profilers;
 
-        long totalCharacters = data.length();
         OffsetDateTime creationTimestamp = OffsetDateTime.now();
 
         // Build parent entity
         DataAnalysisEntity dataAnalysisEntity = DataAnalysisEntity.builder()
-                .originalData(data)
+                .originalBytes(data)
+                .originalSize(data.length)
+                .contentHash(contentHash)
+                .delimiter(format.delimiter())
+                .quoteChar(format.quote())
+                .canonical(force ? null : true)
                 .numberOfRows(numberOfRows)
                 .numberOfColumns(numberOfColumns)
                 .totalCharacters(totalCharacters)
@@ -113,33 +209,58 @@ public class DataAnalysisService {
         // Build child column statistics and set bidirectional relationship
         List<ColumnStatisticsEntity> columnStatisticsEntities = new ArrayList<>();
         for (int c = 0; c < numberOfColumns; c++) {
+            ColumnProfiler profiler = profilers[c];
+            TypeGuess type = inferType(profiler);
+            KllSketch quantiles = profiler.quantiles();
+            SpaceSavingSketch topValues = profiler.topValues();
+            HyperLogLogSketch distinctSketch = profiler.distinctSketch();
             ColumnStatisticsEntity stat = ColumnStatisticsEntity.builder()
                     .dataAnalysis(dataAnalysisEntity)
                     .columnName(headerColumns[c])
-                    .nullCount(nullCounts[c])
-                    .uniqueCount(uniqueSets[c].size())
+                    .nullCount(profiler.nullCount())
+                    .uniqueCount(profiler.uniqueCount())
+                    .inferredType(type.type())
+                    .typeConfidence(type.confidence())
+                    .minValue(profiler.min())
+                    .maxValue(profiler.max())
+                    .meanValue(profiler.mean())
+                    .quantileSketch(quantiles != null ? quantiles.toBytes() : null)
+                    .topValuesSketch(topValues != null ? topValues.toBytes() : null)
+                    .distinctSketch(distinctSketch != null ? distinctSketch.toBytes() : null)
                     .build();
             columnStatisticsEntities.add(stat);
         }
 
         // Attach children to parent so cascade operations work (persist/delete)
         dataAnalysisEntity.getColumnStatistics().addAll(columnStatisticsEntities);
+        state.report(IngestPhase.STORING, data.length);
 
         // Persist parent; children will be cascaded
-        dataAnalysisRepository.save(dataAnalysisEntity);
+        try {
+            dataAnalysisRepository.save(dataAnalysisEntity);
+        } catch (DataIntegrityViolationException e) {
+            // a concurrent upload of the same content was stored first, and is returned instead
+            Optional<IngestResult> existing = force ? Optional.empty() : findCanonicalAnalysis(contentHash, format);
+            if (existing.isEmpty()) {
+                throw e;
+            }
+            columnarStore.discard(state.columnar);
+            return existing.get();
+        }
+        columnarStore.commit(state.columnar, dataAnalysisEntity.getId(), dataAnalysisEntity.getContentHash());
 
         // Map to response model
         List<ColumnStatistics> responseStats = columnStatisticsEntities.stream()
                 .map(e -> new ColumnStatistics(e.getColumnName(), e.getNullCount(), e.getUniqueCount()))
                 .toList();
 
-        return new DataAnalysisResponse(
+        return new IngestResult(dataAnalysisEntity.getId(), false, new DataAnalysisResponse(
                 numberOfRows,
                 numberOfColumns,
                 totalCharacters,
                 responseStats,
                 creationTimestamp
-        );
+        ));
     }
 
     /**
@@ -148,7 +269,10 @@ public class DataAnalysisService {
     public DataAnalysisResponse getAnalysisById(Long id) {
         DataAnalysisEntity entity = dataAnalysisRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Analysis not found with id: " + id));
+        return toResponse(entity);
+    }
 
+    private static DataAnalysisResponse toResponse(DataAnalysisEntity entity) {
         List<ColumnStatistics> stats = entity.getColumnStatistics().stream()
                 .map(e -> new ColumnStatistics(e.getColumnName(), e.getNullCount(), e.getUniqueCount()))
                 .toList();
@@ -163,111 +287,699 @@ public class DataAnalysisService {
     }
 
     /**
-     * Deletes an analysis by id; throws if not found.
+     * Like {@link #getAnalysisById}, for responses that are streamed column by column. Only the
+     * summary and the response statistics are read, never the stored data or column entities.
      */
-    public void deleteAnalysisById(Long id) {
-        DataAnalysisEntity entity = dataAnalysisRepository.findById(id)
+    public DataAnalysisStream streamAnalysisById(Long id) {
+        DataAnalysisSummary summary = dataAnalysisRepository.findSummaryById(id)
                 .orElseThrow(() -> new NotFoundException("Analysis not found with id: " + id));
-        dataAnalysisRepository.delete(entity);
+        return new DataAnalysisStream(summary, columnStatisticsRepository.findStatisticsByAnalysisId(id).stream());
     }
 
     /**
-     * Builds per-column profiles (type inference and numeric summaries) for a persisted analysis.
+     * Deletes an analysis by id; throws if not found. The analysis is not loaded; see
+     * {@link AnalysisDeleter}.
      */
-    public List<ColumnProfile> getColumnProfiles(Long id) {
-        DataAnalysisEntity entity = dataAnalysisRepository.findById(id)
-                .orElseThrow(() -> new NotFoundException("Analysis not found with id: " + id));
+    public void deleteAnalysisById(Long id) {
+        if (analysisDeleter.delete(List.of(id)).analyses() == 0) {
+            throw new NotFoundException("Analysis not found with id: " + id);
+        }
+    }
 
-        String data = entity.getOriginalData();
-        String[] rawLines = data.split("\\R");
-        List<String> lines = new ArrayList<>();
-        for (String line : rawLines) {
-            if (line != null && !line.isEmpty()) {
-                lines.add(line);
+    /**
+     * Deletes the analyses selected by {@code request}: either the listed ids (unknown ids are
+     * ignored) or those created in {@code [createdAfter, createdBefore)}, where one bound may be
+     * omitted. Deletion runs in batches of {@code analysis.storage.delete-batch-size}, each
+     * committed separately, so an interrupted bulk delete leaves whole analyses behind.
+     *
+     * @return the number of analyses and column statistics deleted
+     */
+    public BulkDeleteResponse deleteAnalyses(BulkDeleteRequest request) {
+        boolean byIds = request.ids() != null;
+        boolean byDate = request.createdAfter() != null || request.createdBefore() != null;
+        if (byIds == byDate) {
+            throw new BadRequestException("Specify either ids or a createdAfter/createdBefore range");
+        }
+
+        int batchSize = properties.getStorage().getDeleteBatchSize();
+        int analyses = 0;
+        int columnStatistics = 0;
+        if (byIds) {
+            List<Long> ids = request.ids().stream().filter(Objects::nonNull).distinct().toList();
+            for (int from = 0; from < ids.size(); from += batchSize) {
+                List<Long> batch = ids.subList(from, Math.min(from + batchSize, ids.size()));
+                AnalysisDeleter.Deleted deleted = analysisDeleter.delete(batch);
+                analyses += deleted.analyses();
+                columnStatistics += deleted.columnStatistics();
+            }
+        } else {
+            Pageable batch = PageRequest.ofSize(batchSize);
+            List<Long> ids;
+            while (!(ids = dataAnalysisRepository.findIdsCreatedBetween(
+                    request.createdAfter(), request.createdBefore(), batch)).isEmpty()) {
+                AnalysisDeleter.Deleted deleted = analysisDeleter.delete(ids);
+                analyses += deleted.analyses();
+                columnStatistics += deleted.columnStatistics();
             }
         }
-        if (lines.isEmpty()) {
-            throw new BadRequestException("CSV data must contain a header row");
+        log.debug("Bulk delete removed {} analyses and {} column statistics", analyses, columnStatistics);
+        return new BulkDeleteResponse(analyses, columnStatistics);
+    }
+
+    /**
+     * Returns per-column profiles (type inference, numeric summaries, quantiles, histogram and most
+     * frequent values) for a persisted analysis.
+     * <p>
+     * Without sampling, everything is read from the statistics persisted at ingest and the original
+     * data is not parsed. With sampling, the requested columns are re-profiled from a sample of the
+     * stored rows, read from the analysis' columnar file when there is one (only the requested
+     * columns are read) and otherwise by tokenizing the CSV up to the last requested column.
+     * Sampling fails with {@link GoneException} if retention has removed the CSV and there is no
+     * columnar copy.
+     *
+     * @param id      the analysis id
+     * @param options column projection, sampling and top-K options
+     */
+    public List<ColumnProfile> getColumnProfiles(Long id, ProfileOptions options) {
+        return streamColumnProfiles(id, options).toList();
+    }
+
+    /**
+     * Like {@link #getColumnProfiles}, but builds each profile (deserialising its sketches) only
+     * when the stream reaches it, so a streamed response holds one profile at a time.
+     * <p>
+     * Options and the analysis are validated, and any sampling is done, before this returns.
+     */
+    public Stream<ColumnProfile> streamColumnProfiles(Long id, ProfileOptions options) {
+        int topK = resolveTopK(options.topK());
+        validateSampling(options);
+
+        StoredAnalysis analysis = findStoredAnalysis(id);
+        List<ColumnStatisticsEntity> stats = columnStatisticsRepository.findByAnalysisId(id);
+        int[] projection = resolveColumns(stats, options.columns());
+
+        if (options.sampling() == null) {
+            return Arrays.stream(projection)
+                    .mapToObj(column -> toColumnProfile(stats.get(column), topK, analysis.numberOfRows()));
         }
 
-        String header = lines.get(0);
-        String[] headerColumns = header.split(",", -1);
-        int numberOfColumns = headerColumns.length;
+        AnalysisProperties.Profile profile = properties.getProfile();
+        ColumnProfiler[] profilers = new ColumnProfiler[projection.length];
+        int sampleSize;
+        try (DistinctValueBudget distinctValues = distinctValueBudget();
+             ColumnarReader columnar = openColumnar(id, analysis)) {
+            // sampled profiles are never stored or compared, so they need no distinct sketch
+            for (int p = 0; p < projection.length; p++) {
+                profilers[p] = new ColumnProfiler(profile.getQuantileSketchK(), topValueCapacity(), 0, distinctValues.newCounter());
+            }
+            SampledProfiler sampler = new SampledProfiler(projection, profilers, options, analysis.numberOfRows());
+            sampleSize = columnar != null
+                    ? sampler.profile(columnar)
+                    : sampler.profile(csvTokenizer, storedFormat(analysis), findOriginalBytes(id));
+            // take the counts while any spilled runs still exist
+            for (ColumnProfiler profiler : profilers) {
+                profiler.uniqueCount();
+            }
+        }
+
+        return IntStream.range(0, projection.length)
+                .mapToObj(p -> toColumnProfile(stats.get(projection[p]).getColumnName(), profilers[p], topK, sampleSize));
+    }
+
+    /**
+     * Prepares a query for the rows of a persisted analysis that match {@code where}, for example
+     * {@code podiums>100}; see {@link RowPredicate} for the filter syntax and comparison rules.
+     * <p>
+     * The filter, column and analysis are validated up front so that errors can still be reported
+     * with a proper status; the returned body then streams the header and matching rows as CSV.
+     * Rows are read from the analysis' columnar file, skipping chunks whose min/max rule out the
+     * filter, or from the stored CSV if there is no columnar copy.
+     *
+     * @param limit maximum number of rows to return, or {@code null} for no limit
+     */
+    public StreamingResponseBody queryRows(Long id, String where, Integer limit) {
+        RowPredicate predicate = RowPredicate.parse(where);
+        if (limit != null && limit < 0) {
+            throw new BadRequestException("limit must not be negative");
+        }
+
+        StoredAnalysis analysis = findStoredAnalysis(id);
+        List<ColumnStatisticsEntity> stats = columnStatisticsRepository.findByAnalysisId(id);
+        int column = resolveColumns(stats, List.of(predicate.column()))[0];
+        if (!analysis.dataStored() && !columnarStore.exists(id, analysis.contentHash())) {
+            throw storedRowsGone(id);
+        }
+
+        RowScanner scanner = new RowScanner(predicate, column, limit != null ? limit : Long.MAX_VALUE);
+        return out -> {
+            try (ColumnarReader columnar = openColumnar(id, analysis)) {
+                if (columnar != null) {
+                    scanner.scan(columnar, out);
+                } else {
+                    scanner.scan(csvTokenizer, storedFormat(analysis), findOriginalBytes(id), out);
+                }
+            }
+            log.debug("Row query '{}' on analysis {} matched {} rows; read {} chunks, skipped {}",
+                    where, id, scanner.matches(), scanner.chunksRead(), scanner.chunksSkipped());
+        };
+    }
+
+    /**
+     * Prepares an export of a persisted analysis as an Apache Arrow IPC stream, so that downstream
+     * jobs can read typed columns instead of parsing the CSV and inferring types again.
+     * <p>
+     * Each column is written as the Arrow type of its inferred type if every value matched that
+     * type, and as text otherwise (see {@link #arrowType}), so no value is lost in the export. The statistics recorded at ingest go into
+     * each field's metadata under the names of {@link ColumnProfile}'s properties, and the
+     * analysis id, row count and creation time into the schema's. The columns, analysis and stored
+     * rows are checked up front; the returned body then reads the rows from the columnar copy, or
+     * else the stored CSV, and writes a record batch per {@code analysis.export.batch-rows} rows.
+     *
+     * @param columns optional columns to export, in header order (all columns if omitted)
+     */
+    public StreamingResponseBody exportArrow(Long id, List<String> columns) {
+        StoredAnalysis analysis = findStoredAnalysis(id);
+        List<ColumnStatisticsEntity> stats = columnStatisticsRepository.findByAnalysisId(id);
+        int[] projection = resolveColumns(stats, columns);
+        if (!analysis.dataStored() && !columnarStore.exists(id, analysis.contentHash())) {
+            throw storedRowsGone(id);
+        }
 
-        int[] nullCounts = new int[numberOfColumns];
-        @SuppressWarnings("unchecked")
-        Set<String>[] uniqueSets = new Set[numberOfColumns];
-        for (int i = 0; i < numberOfColumns; i++) {
-            uniqueSets[i] = new HashSet<>();
-        }
-
-        // For numeric summaries
-        double[] sums = new double[numberOfColumns];
-        int[] numericCounts = new int[numberOfColumns];
-        Double[] mins = new Double[numberOfColumns];
-        Double[] maxs = new Double[numberOfColumns];
-        boolean[] anyDecimal = new boolean[numberOfColumns];
-        boolean[] allNumeric = new boolean[numberOfColumns];
-        for (int i = 0; i < numberOfColumns; i++) allNumeric[i] = true;
-        boolean[] allBoolean = new boolean[numberOfColumns];
-        for (int i = 0; i < numberOfColumns; i++) allBoolean[i] = true;
-
-        for (int i = 1; i < lines.size(); i++) {
-            String[] values = lines.get(i).split(",", -1);
-            if (values.length != numberOfColumns) continue; // skip malformed rows here
-            for (int c = 0; c < numberOfColumns; c++) {
-                String v = values[c];
-                if (v.isEmpty()) {
-                    nullCounts[c]++;
+        List<ArrowStreamWriter.Column> fields = Arrays.stream(projection)
+                .mapToObj(column -> {
+                    ColumnStatisticsEntity stat = stats.get(column);
+                    return new ArrowStreamWriter.Column(
+                            stat.getColumnName(),
+                            arrowType(stat.getInferredType(), stat.getTypeConfidence()),
+                            exportMetadata(toColumnProfile(stat, 0, analysis.numberOfRows()))
+                    );
+                })
+                .toList();
+        Map<String, String> metadata = new LinkedHashMap<>();
+        metadata.put("analysisId", id.toString());
+        metadata.put("numberOfRows", Integer.toString(analysis.numberOfRows()));
+        metadata.put("createdAt", analysis.createdAt().toString());
+        ArrowExporter exporter = new ArrowExporter(projection);
+        int batchRows = properties.getExport().getBatchRows();
+
+        return out -> {
+            ArrowStreamWriter writer = new ArrowStreamWriter(out, fields, metadata, batchRows);
+            try (ColumnarReader columnar = openColumnar(id, analysis)) {
+                if (columnar != null) {
+                    exporter.export(columnar, writer);
                 } else {
-                    uniqueSets[c].add(v);
-
-                    // boolean inference
-                    String lv = v.toLowerCase();
-                    boolean isBoolean = lv.equals("true") || lv.equals("false");
-                    allBoolean[c] = allBoolean[c] && isBoolean;
-
-                    // numeric inference
-                    boolean isInteger = v.matches("[-+]?[0-9]+");
-                    boolean isDecimal = v.matches("[-+]?[0-9]*\\.[0-9]+") || isInteger;
-                    if (!isDecimal) {
-                        allNumeric[c] = false;
-                    } else {
-                        double d = Double.parseDouble(v);
-                        anyDecimal[c] = anyDecimal[c] || v.contains(".");
-                        sums[c] += d;
-                        numericCounts[c]++;
-                        if (mins[c] == null || d < mins[c]) mins[c] = d;
-                        if (maxs[c] == null || d > maxs[c]) maxs[c] = d;
-                    }
+                    exporter.export(csvTokenizer, storedFormat(analysis), findOriginalBytes(id), writer);
                 }
             }
+            log.debug("Exported {} columns of analysis {} in {} record batches", fields.size(), id, writer.batchCount());
+        };
+    }
+
+    /**
+     * The Arrow type a column of {@code type} is exported as. E-mail addresses, categorical and
+     * free text are exported as text; {@code null}, for analyses stored before types were
+     * recorded, also exports as text.
+     * <p>
+     * A specific type only needs {@code min-confidence} of the values to match it, and a cell that
+     * does not convert would be written as null, so a column is only exported typed when every
+     * value matched ({@code confidence} 1). Analyses stored before the confidence was recorded
+     * ({@code null}) only inferred a specific type when every value matched.
+     */
+    private static ArrowColumnType arrowType(InferredType type, Double confidence) {
+        if (type == null || confidence != null && confidence < 1) {
+            return ArrowColumnType.UTF8;
         }
+        return switch (type) {
+            case INTEGER -> ArrowColumnType.INT64;
+            case DECIMAL -> ArrowColumnType.FLOAT64;
+            case BOOLEAN -> ArrowColumnType.BOOL;
+            case DATE -> ArrowColumnType.DATE;
+            case TIMESTAMP -> ArrowColumnType.TIMESTAMP;
+            case UUID -> ArrowColumnType.UUID;
+            case EMAIL, CATEGORICAL, STRING -> ArrowColumnType.UTF8;
+        };
+    }
 
-        List<ColumnProfile> profiles = new ArrayList<>();
-        for (int c = 0; c < numberOfColumns; c++) {
-            InferredType type;
-            if (allBoolean[c]) {
-                type = InferredType.BOOLEAN;
-            } else if (allNumeric[c] && numericCounts[c] > 0) {
-                type = anyDecimal[c] ? InferredType.DECIMAL : InferredType.INTEGER;
+    /**
+     * The statistics of a profile as Arrow field metadata, leaving out those that are {@code null}.
+     */
+    private static Map<String, String> exportMetadata(ColumnProfile profile) {
+        Map<String, String> metadata = new LinkedHashMap<>();
+        metadata.put("inferredType", String.valueOf(profile.inferredType()));
+        putIfPresent(metadata, "typeConfidence", profile.typeConfidence());
+        metadata.put("nullCount", Integer.toString(profile.nullCount()));
+        metadata.put("uniqueCount", Integer.toString(profile.uniqueCount()));
+        putIfPresent(metadata, "min", profile.min());
+        putIfPresent(metadata, "max", profile.max());
+        putIfPresent(metadata, "mean", profile.mean());
+        putIfPresent(metadata, "median", profile.median());
+        putIfPresent(metadata, "p95", profile.p95());
+        putIfPresent(metadata, "p99", profile.p99());
+        return metadata;
+    }
+
+    private static void putIfPresent(Map<String, String> metadata, String key, Double value) {
+        if (value != null) {
+            metadata.put(key, value.toString());
+        }
+    }
+
+    /**
+     * Computes statistics for pairs of columns of a persisted analysis: Pearson correlation and
+     * covariance for pairs of numeric columns, and the most frequent combinations of values for any
+     * other pair.
+     * <p>
+     * Pairs are chosen explicitly, so the work only grows quadratically when asked to: without
+     * {@code with}, every pair of the listed {@code columns}; with it, every column of
+     * {@code columns} paired with every column of {@code with}. All pairs are computed in one pass
+     * over the stored rows, reading only the columns involved, from the columnar copy (in parallel
+     * by row chunks, see {@link PairwiseScanner}) or else from the stored CSV.
+     *
+     * @param columns columns to pair, in any order
+     * @param with    optional columns to pair each of {@code columns} with
+     * @param topK    optional number of value combinations to return per non-numeric pair
+     */
+    public List<ColumnPairStatistics> getPairwiseStatistics(Long id, List<String> columns, List<String> with, Integer topK) {
+        int k = resolveTopK(topK);
+        if (columns == null || columns.isEmpty()) {
+            throw new BadRequestException("Specify the columns to pair");
+        }
+
+        StoredAnalysis analysis = findStoredAnalysis(id);
+        List<ColumnStatisticsEntity> stats = columnStatisticsRepository.findByAnalysisId(id);
+        int[][] pairs = columnPairs(resolveColumns(stats, columns), with != null ? resolveColumns(stats, with) : null);
+        int maxPairs = properties.getProfile().getPairwise().getMaxPairs();
+        if (pairs.length > maxPairs) {
+            throw new BadRequestException("Too many column pairs: " + pairs.length + ", at most " + maxPairs + " are allowed");
+        }
+        if (!analysis.dataStored() && !columnarStore.exists(id, analysis.contentHash())) {
+            throw storedRowsGone(id);
+        }
+
+        // positions of the paired columns in the row view, in header order
+        int[] projection = Arrays.stream(pairs).flatMapToInt(Arrays::stream).distinct().sorted().toArray();
+        int[] numericPairs = IntStream.range(0, pairs.length)
+                .filter(p -> isNumeric(stats.get(pairs[p][0])) && isNumeric(stats.get(pairs[p][1])))
+                .toArray();
+        int[] otherPairs = IntStream.range(0, pairs.length)
+                .filter(p -> Arrays.binarySearch(numericPairs, p) < 0)
+                .toArray();
+        PairwiseStatistics empty = new PairwiseStatistics(
+                positions(projection, pairs, numericPairs, 0),
+                positions(projection, pairs, numericPairs, 1),
+                positions(projection, pairs, otherPairs, 0),
+                positions(projection, pairs, otherPairs, 1),
+                properties.getProfile().getTopValues().getCapacity()
+        );
+        PairwiseScanner scanner = new PairwiseScanner(projection, empty, properties.getProfile().getPairwise().getParallelism());
+
+        PairwiseStatistics result;
+        try (ColumnarReader columnar = openColumnar(id, analysis)) {
+            if (columnar != null) {
+                result = scanner.scan(columnar);
             } else {
-                type = InferredType.STRING;
+                result = scanner.scan(csvTokenizer, storedFormat(analysis), findOriginalBytes(id));
+            }
+        }
+
+        ColumnPairStatistics[] response = new ColumnPairStatistics[pairs.length];
+        for (int n = 0; n < numericPairs.length; n++) {
+            int[] pair = pairs[numericPairs[n]];
+            response[numericPairs[n]] = new ColumnPairStatistics(
+                    stats.get(pair[0]).getColumnName(),
+                    stats.get(pair[1]).getColumnName(),
+                    result.count(n),
+                    result.correlation(n),
+                    result.covariance(n),
+                    null
+            );
+        }
+        for (int o = 0; o < otherPairs.length; o++) {
+            int[] pair = pairs[otherPairs[o]];
+            SpaceSavingSketch coOccurrences = result.coOccurrences(o);
+            List<ValuePairFrequency> topPairs = coOccurrences.top(k).stream()
+                    .map(e -> {
+                        byte[][] values = PairwiseStatistics.splitKey(e.value());
+                        return new ValuePairFrequency(new String(values[0], UTF_8), new String(values[1], UTF_8), e.count(), e.error());
+                    })
+                    .toList();
+            response[otherPairs[o]] = new ColumnPairStatistics(
+                    stats.get(pair[0]).getColumnName(),
+                    stats.get(pair[1]).getColumnName(),
+                    coOccurrences.getTotal(),
+                    null,
+                    null,
+                    topPairs
+            );
+        }
+        return List.of(response);
+    }
+
+    /**
+     * Header index pairs to compute: every pair of {@code columns} when {@code with} is
+     * {@code null}, else every column of {@code columns} with every column of {@code with}. A
+     * column is never paired with itself, and each unordered pair is computed once.
+     */
+    private static int[][] columnPairs(int[] columns, int[] with) {
+        List<int[]> pairs = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        int[] others = with != null ? with : columns;
+        for (int column : columns) {
+            for (int other : others) {
+                if (column != other && seen.add((long) Math.min(column, other) << 32 | Math.max(column, other))) {
+                    pairs.add(new int[]{column, other});
+                }
+            }
+        }
+        return pairs.toArray(int[][]::new);
+    }
+
+    /**
+     * Positions in {@code projection} of one side of the selected pairs.
+     */
+    private static int[] positions(int[] projection, int[][] pairs, int[] selected, int side) {
+        return Arrays.stream(selected).map(p -> Arrays.binarySearch(projection, pairs[p][side])).toArray();
+    }
+
+    private static boolean isNumeric(ColumnStatisticsEntity stat) {
+        return stat.getInferredType() == InferredType.INTEGER || stat.getInferredType() == InferredType.DECIMAL;
+    }
+
+    private StoredAnalysis findStoredAnalysis(Long id) {
+        return dataAnalysisRepository.findStoredAnalysisById(id)
+                .orElseThrow(() -> new NotFoundException("Analysis not found with id: " + id));
+    }
+
+    /**
+     * @return a reader of the analysis' columnar copy, or {@code null} if there is none to read
+     */
+    private ColumnarReader openColumnar(Long id, StoredAnalysis analysis) {
+        return columnarStore.open(id, analysis.contentHash(), analysis.numberOfRows(), analysis.numberOfColumns());
+    }
+
+    /**
+     * Loads the stored CSV of an analysis, for reading its rows when there is no columnar copy.
+     * This is the only place the data is loaded after ingest.
+     */
+    private byte[] findOriginalBytes(Long id) {
+        return dataAnalysisRepository.findOriginalBytesById(id).orElseThrow(() -> storedRowsGone(id));
+    }
+
+    private static GoneException storedRowsGone(Long id) {
+        return new GoneException("The stored rows of analysis " + id
+                + " have been removed by retention; only the statistics recorded at ingest are available");
+    }
+
+    private int resolveTopK(Integer requested) {
+        AnalysisProperties.TopValues topValues = properties.getProfile().getTopValues();
+        int k = requested != null ? requested : topValues.getDefaultK();
+        if (k < 0 || k > topValues.getCapacity()) {
+            throw new BadRequestException("topK must be between 0 and " + topValues.getCapacity());
+        }
+        return k;
+    }
+
+    private TypeGuess inferType(ColumnProfiler profiler) {
+        AnalysisProperties.TypeInference typeInference = properties.getProfile().getTypeInference();
+        return profiler.inferType(typeInference.getMinConfidence(), typeInference.getMaxCategories());
+    }
+
+    private DistinctValueBudget distinctValueBudget() {
+        AnalysisProperties.DistinctValues distinctValues = properties.getProfile().getDistinctValues();
+        boolean offHeap = switch (distinctValues.getStorage()) {
+            case AUTO -> SliceSets.offHeapAvailable();
+            case HEAP -> false;
+            case OFF_HEAP -> true;
+        };
+        return new DistinctValueBudget(distinctValues.getMemoryBudget().toBytes(), distinctValues.getSpillDirectory(), offHeap);
+    }
+
+    private int topValueCapacity() {
+        AnalysisProperties.TopValues topValues = properties.getProfile().getTopValues();
+        return topValues.isEnabled() ? topValues.getCapacity() : 0;
+    }
+
+    private static void validateSampling(ProfileOptions options) {
+        if (options.sampling() == SamplingMode.RESERVOIR && (options.sampleSize() == null || options.sampleSize() < 1)) {
+            throw new BadRequestException("Reservoir sampling requires a positive sampleSize");
+        }
+        if (options.sampling() == SamplingMode.NTH && (options.sampleEvery() == null || options.sampleEvery() < 1)) {
+            throw new BadRequestException("Every-Nth-row sampling requires a positive sampleEvery");
+        }
+    }
+
+    /**
+     * Maps requested column names to their positions in the header, preserving header order.
+     * Column statistics are stored in header order, so no data has to be read.
+     */
+    private static int[] resolveColumns(List<ColumnStatisticsEntity> stats, List<String> columns) {
+        if (columns == null || columns.isEmpty()) {
+            int[] all = new int[stats.size()];
+            for (int c = 0; c < all.length; c++) {
+                all[c] = c;
+            }
+            return all;
+        }
+
+        List<String> unknown = new ArrayList<>(columns);
+        List<Integer> projection = new ArrayList<>();
+        for (int c = 0; c < stats.size(); c++) {
+            if (unknown.remove(stats.get(c).getColumnName())) {
+                projection.add(c);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            throw new BadRequestException("Unknown column(s): " + String.join(", ", unknown));
+        }
+        return projection.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private ColumnProfile toColumnProfile(ColumnStatisticsEntity stat, int topK, int sampleSize) {
+        return toColumnProfile(
+                stat.getColumnName(),
+                stat.getInferredType(),
+                stat.getTypeConfidence(),
+                stat.getNullCount(),
+                stat.getUniqueCount(),
+                stat.getMinValue(),
+                stat.getMaxValue(),
+                stat.getMeanValue(),
+                stat.getQuantileSketch() != null ? KllSketch.fromBytes(stat.getQuantileSketch()) : null,
+                stat.getTopValuesSketch() != null ? SpaceSavingSketch.fromBytes(stat.getTopValuesSketch()) : null,
+                topK,
+                sampleSize
+        );
+    }
+
+    private ColumnProfile toColumnProfile(String columnName, ColumnProfiler profiler, int topK, int sampleSize) {
+        TypeGuess type = inferType(profiler);
+        return toColumnProfile(
+                columnName,
+                type.type(),
+                type.confidence(),
+                profiler.nullCount(),
+                profiler.uniqueCount(),
+                profiler.min(),
+                profiler.max(),
+                profiler.mean(),
+                profiler.quantiles(),
+                profiler.topValues(),
+                topK,
+                sampleSize
+        );
+    }
+
+    private ColumnProfile toColumnProfile(
+            String columnName,
+            InferredType inferredType,
+            Double typeConfidence,
+            int nullCount,
+            int uniqueCount,
+            Double min,
+            Double max,
+            Double mean,
+            KllSketch quantiles,
+            SpaceSavingSketch topValueSketch,
+            int topK,
+            int sampleSize
+    ) {
+        Double median = null;
+        Double p95 = null;
+        Double p99 = null;
+        List<HistogramBucket> histogram = null;
+        if (quantiles != null) {
+            median = quantiles.getQuantile(0.5);
+            p95 = quantiles.getQuantile(0.95);
+            p99 = quantiles.getQuantile(0.99);
+            histogram = histogram(quantiles, properties.getProfile().getHistogramBuckets());
+        }
+
+        List<ValueFrequency> topValues = null;
+        if (topValueSketch != null) {
+            topValues = topValueSketch.top(topK).stream()
+                    .map(e -> new ValueFrequency(new String(e.value(), UTF_8), e.count(), e.error()))
+                    .toList();
+        }
+
+        return new ColumnProfile(
+                columnName,
+                inferredType,
+                typeConfidence,
+                nullCount,
+                uniqueCount,
+                min,
+                max,
+                mean,
+                median,
+                p95,
+                p99,
+                histogram,
+                topValues,
+                sampleSize
+        );
+    }
+
+    /**
+     * Splits {@code [min, max]} into equal-width buckets and estimates each bucket's count from the
+     * sketch's CDF. Counts are derived from rounded cumulative counts so they always sum to the
+     * number of values.
+     */
+    private static List<HistogramBucket> histogram(KllSketch sketch, int buckets) {
+        double min = sketch.getMin();
+        double max = sketch.getMax();
+        long count = sketch.getCount();
+        if (min == max) {
+            return List.of(new HistogramBucket(min, max, count));
+        }
+
+        double width = (max - min) / buckets;
+        double[] upperBounds = new double[buckets];
+        for (int i = 0; i < buckets; i++) {
+            upperBounds[i] = i == buckets - 1 ? max : min + width * (i + 1);
+        }
+        double[] cdf = sketch.getCdf(upperBounds);
+
+        List<HistogramBucket> histogram = new ArrayList<>(buckets);
+        long previous = 0;
+        for (int i = 0; i < buckets; i++) {
+            long cumulative = Math.round(cdf[i] * count);
+            double lower = i == 0 ? min : upperBounds[i - 1];
+            histogram.add(new HistogramBucket(lower, upperBounds[i], cumulative - previous));
+            previous = cumulative;
+        }
+        return histogram;
+    }
+
+    /**
+     * Per-parse accumulator for {@link #analyzeCsvData}: the first line is the header, every
+     * following line must have the same number of fields. Rows are also passed to the columnar
+     * writer, if one could be created.
+     * <p>
+     * Progress is only reported from the parsing thread. The clock is read once every
+     * {@link #PROGRESS_CHECK_ROWS} rows, and a snapshot copies the counters, so the listener never
+     * sees state that is still being updated.
+     */
+    private static final class IngestState {
+        private static final int PROGRESS_CHECK_ROWS = 1024;
+
+        private final int sketchK;
+        private final int topValueCapacity;
+        private final int distinctSketchPrecision;
+        private final ColumnarStore columnarStore;
+        private final IngestProgressListener progress;
+        private final long progressIntervalNanos;
+        private final long totalBytes;
+        private long nextProgress;
+        final DistinctValueBudget distinctValues;
+        String[] headerColumns;
+        ColumnProfiler[] profilers;
+        ColumnarWriter columnar;
+        int numberOfRows;
+
+        IngestState(int sketchK, int topValueCapacity, int distinctSketchPrecision,
+                    DistinctValueBudget distinctValues, ColumnarStore columnarStore,
+                    IngestProgressListener progress, long progressIntervalNanos, long totalBytes) {
+            this.sketchK = sketchK;
+            this.topValueCapacity = topValueCapacity;
+            this.distinctSketchPrecision = distinctSketchPrecision;
+            this.distinctValues = distinctValues;
+            this.columnarStore = columnarStore;
+            this.progress = progress;
+            this.progressIntervalNanos = progressIntervalNanos;
+            this.totalBytes = totalBytes;
+            this.nextProgress = System.nanoTime() + progressIntervalNanos;
+        }
+
+        void accept(CsvRow row) {
+            if (headerColumns == null) {
+                headerColumns = readHeader(row);
+                profilers = new ColumnProfiler[headerColumns.length];
+                for (int c = 0; c < profilers.length; c++) {
+                    profilers[c] = new ColumnProfiler(sketchK, topValueCapacity, distinctSketchPrecision,
+                            distinctValues.newCounter());
+                }
+                columnar = columnarStore.createWriter(headerColumns);
+                return;
+            }
+            if (row.fieldCount() != headerColumns.length) {
+                throw new BadRequestException("Malformed CSV: inconsistent column counts");
             }
 
-            Double mean = numericCounts[c] > 0 ? (sums[c] / numericCounts[c]) : null;
-            profiles.add(new ColumnProfile(
-                    headerColumns[c],
-                    type,
-                    nullCounts[c],
-                    uniqueSets[c].size(),
-                    mins[c],
-                    maxs[c],
-                    mean
-            ));
+            numberOfRows++;
+            byte[] bytes = row.data();
+            for (int c = 0; c < headerColumns.length; c++) {
+                profilers[c].accept(bytes, row.start(c), row.end(c));
+            }
+            if (columnar != null) {
+                columnar.addRow(row);
+            }
+            if (numberOfRows % PROGRESS_CHECK_ROWS == 0 && progress != IngestProgressListener.NONE) {
+                long now = System.nanoTime();
+                if (now - nextProgress >= 0) {
+                    nextProgress = now + progressIntervalNanos;
+                    // a closing quote or line break may follow the last field; close enough for progress
+                    report(IngestPhase.PARSING, row.end(row.fieldCount() - 1));
+                }
+            }
         }
 
-        return profiles;
+        void report(IngestPhase phase, long bytesProcessed) {
+            if (progress == IngestProgressListener.NONE) {
+                return;
+            }
+            int[] nullCounts = new int[profilers != null ? profilers.length : 0];
+            for (int c = 0; c < nullCounts.length; c++) {
+                nullCounts[c] = profilers[c].nullCount();
+            }
+            List<String> columns = headerColumns != null ? List.of(headerColumns) : List.of();
+            progress.onProgress(new IngestProgress(phase, bytesProcessed, totalBytes, numberOfRows, columns, nullCounts));
+        }
     }
 
+    /**
+     * @return the format an analysis' stored data was read in at ingest
+     */
+    private static CsvFormat storedFormat(StoredAnalysis analysis) {
+        return new CsvFormat(analysis.delimiter(), analysis.quoteChar());
+    }
+
+    private static String[] readHeader(CsvRow row) {
+        String[] header = new String[row.fieldCount()];
+        for (int c = 0; c < header.length; c++) {
+            header[c] = row.value(c);
+        }
+        return header;
+    }
+
+    /**
+     * SHA-256 of the uploaded bytes as lower-case hex.
+     */
+    private static String sha256Hex(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
 }
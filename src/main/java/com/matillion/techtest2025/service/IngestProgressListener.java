@@ -0,0 +1,23 @@
+package com.matillion.techtest2025.service;
+
+import com.matillion.techtest2025.model.IngestProgress;
+
+/**
+ * Receives progress snapshots of an ingest, on the thread that runs it.
+ * <p>
+ * A snapshot is sent whenever the ingest enters a new phase and, while parsing, at most once per
+ * {@code analysis.http.progress.interval}. The parse loop only looks at the clock every few
+ * thousand rows and shares nothing with other threads, so following an ingest costs it no
+ * per-row synchronisation.
+ */
+@FunctionalInterface
+public interface IngestProgressListener {
+
+    /**
+     * A listener for ingests nobody follows; the ingest skips building snapshots for it.
+     */
+    IngestProgressListener NONE = progress -> {
+    };
+
+    void onProgress(IngestProgress progress);
+}
@@ -0,0 +1,18 @@
+package com.matillion.techtest2025.service;
+
+import com.matillion.techtest2025.controller.response.DataAnalysisResponse;
+
+/**
+ * Outcome of ingesting a CSV upload.
+ *
+ * @param analysisId id of the stored analysis the response describes
+ * @param duplicate  {@code true} if the same content had already been analysed and that analysis
+ *                   was returned instead of storing a new one
+ * @param analysis   the analysis results
+ */
+public record IngestResult(
+        Long analysisId,
+        boolean duplicate,
+        DataAnalysisResponse analysis
+) {
+}
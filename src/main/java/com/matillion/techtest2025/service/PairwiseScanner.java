@@ -0,0 +1,111 @@
+package com.matillion.techtest2025.service;
+
+import com.matillion.techtest2025.parser.CsvFormat;
+import com.matillion.techtest2025.parser.CsvRow;
+import com.matillion.techtest2025.parser.CsvTokenizer;
+import com.matillion.techtest2025.storage.ColumnChunk;
+import com.matillion.techtest2025.storage.ColumnEncoding;
+import com.matillion.techtest2025.storage.ColumnarReader;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Feeds the rows of a stored analysis to {@link PairwiseStatistics}, reading only the columns the
+ * selected pairs use, in a single pass for all pairs.
+ * <p>
+ * From a columnar copy, the chunks are split into up to {@code parallelism} contiguous ranges that
+ * are scanned concurrently, each into its own accumulator; the accumulators are then merged in
+ * row order. Typed chunks of columns used only by numeric pairs are read as numbers, without
+ * rendering their text. Without a columnar copy, the stored CSV is tokenized once, up to the last
+ * selected column.
+ */
+final class PairwiseScanner {
+
+    /** Header index of each column of the row view. */
+    private final int[] columns;
+    private final PairwiseStatistics empty;
+    private final int parallelism;
+
+    /**
+     * @param columns     header index of each column position used by {@code empty}'s pairs
+     * @param empty       an accumulator without rows, copied for every range of chunks
+     * @param parallelism most ranges of chunks scanned at the same time
+     */
+    PairwiseScanner(int[] columns, PairwiseStatistics empty, int parallelism) {
+        this.columns = columns;
+        this.empty = empty;
+        this.parallelism = parallelism;
+    }
+
+    PairwiseStatistics scan(ColumnarReader reader) {
+        int chunks = reader.chunkCount();
+        int ranges = Math.max(1, Math.min(parallelism, chunks));
+        List<PairwiseStatistics> partials = IntStream.range(0, ranges)
+                .parallel()
+                .mapToObj(range -> scan(reader, chunks * range / ranges, chunks * (range + 1) / ranges))
+                .toList();
+
+        PairwiseStatistics total = partials.getFirst();
+        for (int i = 1; i < partials.size(); i++) {
+            total.merge(partials.get(i));
+        }
+        return total;
+    }
+
+    private PairwiseStatistics scan(ColumnarReader reader, int fromChunk, int toChunk) {
+        PairwiseStatistics statistics = empty.emptyCopy();
+        PairwiseStatistics.Cells cells = statistics.newCells(columns.length);
+        boolean[] textNeeded = new boolean[columns.length];
+        for (int c = 0; c < columns.length; c++) {
+            textNeeded[c] = statistics.needsText(c);
+        }
+
+        ColumnChunk[] values = new ColumnChunk[columns.length];
+        boolean[] numbersOnly = new boolean[columns.length];
+        for (int chunk = fromChunk; chunk < toChunk; chunk++) {
+            for (int c = 0; c < columns.length; c++) {
+                values[c] = reader.read(chunk, columns[c]);
+                ColumnEncoding encoding = values[c].encoding();
+                numbersOnly[c] = !textNeeded[c] && (encoding == ColumnEncoding.INT64 || encoding == ColumnEncoding.FLOAT64);
+            }
+            int rows = reader.chunkRowCount(chunk);
+            for (int row = 0; row < rows; row++) {
+                for (int c = 0; c < columns.length; c++) {
+                    if (numbersOnly[c]) {
+                        cells.setNumber(c, values[c].isNull(row) ? Double.NaN : values[c].number(row));
+                    } else {
+                        values[c].visit(row, cells.column(c));
+                    }
+                }
+                statistics.accept(cells);
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * Tokenizes {@code data} up to the last selected column. The stored data was validated at
+     * ingest, so every line is known to have the full set of fields.
+     */
+    PairwiseStatistics scan(CsvTokenizer tokenizer, CsvFormat format, byte[] data) {
+        PairwiseStatistics statistics = empty.emptyCopy();
+        PairwiseStatistics.Cells cells = statistics.newCells(columns.length);
+        int maxField = 0;
+        for (int column : columns) {
+            maxField = Math.max(maxField, column);
+        }
+        boolean[] header = {true};
+        tokenizer.tokenize(data, format, maxField + 1, (CsvRow row) -> {
+            if (header[0]) {
+                header[0] = false;
+                return;
+            }
+            for (int c = 0; c < columns.length; c++) {
+                cells.set(c, row.data(), row.start(columns[c]), row.end(columns[c]));
+            }
+            statistics.accept(cells);
+        });
+        return statistics;
+    }
+}
@@ -0,0 +1,298 @@
+package com.matillion.techtest2025.service;
+
+import com.matillion.techtest2025.parser.Utf8;
+import com.matillion.techtest2025.sketch.SpaceSavingSketch;
+import com.matillion.techtest2025.storage.CellVisitor;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Accumulator for statistics of selected column pairs, filled one row at a time.
+ * <p>
+ * Numeric pairs keep the entries of the covariance matrix they need in primitive arrays, one slot
+ * per pair: the count of rows where both values are numeric, both means, both sums of squared
+ * deviations and the co-moment, updated with Welford's method so that large values do not lose
+ * precision. Other pairs count co-occurring values in a {@link SpaceSavingSketch} keyed by both
+ * values, so memory per pair is fixed however many combinations occur.
+ * <p>
+ * Accumulators of disjoint row ranges can be {@linkplain #merge merged}, which lets row chunks be
+ * processed in parallel. Columns are addressed by their position in the {@link Cells} row view.
+ */
+final class PairwiseStatistics {
+
+    private final int[] numericFirst;
+    private final int[] numericSecond;
+    private final long[] counts;
+    private final double[] firstMeans;
+    private final double[] secondMeans;
+    private final double[] firstSquares;
+    private final double[] secondSquares;
+    private final double[] coMoments;
+
+    private final int[] categoricalFirst;
+    private final int[] categoricalSecond;
+    private final int capacity;
+    private final SpaceSavingSketch[] coOccurrences;
+    private byte[] key = new byte[64];
+
+    /**
+     * @param numericFirst      first column of each numeric pair
+     * @param numericSecond     second column of each numeric pair
+     * @param categoricalFirst  first column of each co-occurrence pair
+     * @param categoricalSecond second column of each co-occurrence pair
+     * @param capacity          counters per co-occurrence sketch
+     */
+    PairwiseStatistics(int[] numericFirst, int[] numericSecond, int[] categoricalFirst, int[] categoricalSecond, int capacity) {
+        this.numericFirst = numericFirst;
+        this.numericSecond = numericSecond;
+        int pairs = numericFirst.length;
+        this.counts = new long[pairs];
+        this.firstMeans = new double[pairs];
+        this.secondMeans = new double[pairs];
+        this.firstSquares = new double[pairs];
+        this.secondSquares = new double[pairs];
+        this.coMoments = new double[pairs];
+
+        this.categoricalFirst = categoricalFirst;
+        this.categoricalSecond = categoricalSecond;
+        this.capacity = capacity;
+        this.coOccurrences = new SpaceSavingSketch[categoricalFirst.length];
+        for (int p = 0; p < coOccurrences.length; p++) {
+            coOccurrences[p] = new SpaceSavingSketch(capacity);
+        }
+    }
+
+    /**
+     * @return an empty accumulator for the same pairs, e.g. for another range of rows
+     */
+    PairwiseStatistics emptyCopy() {
+        return new PairwiseStatistics(numericFirst, numericSecond, categoricalFirst, categoricalSecond, capacity);
+    }
+
+    /**
+     * @param columns number of columns in the row view
+     * @return a row view that parses numbers only for the columns of numeric pairs
+     */
+    Cells newCells(int columns) {
+        boolean[] numeric = new boolean[columns];
+        for (int p = 0; p < numericFirst.length; p++) {
+            numeric[numericFirst[p]] = true;
+            numeric[numericSecond[p]] = true;
+        }
+        return new Cells(numeric);
+    }
+
+    /**
+     * @return whether a column's text is needed, i.e. it belongs to a co-occurrence pair; other
+     * columns only need their numeric value
+     */
+    boolean needsText(int column) {
+        for (int p = 0; p < categoricalFirst.length; p++) {
+            if (categoricalFirst[p] == column || categoricalSecond[p] == column) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds one row. A numeric pair counts the row when both values are numbers; a co-occurrence pair
+     * when neither value is null.
+     */
+    void accept(Cells row) {
+        for (int p = 0; p < numericFirst.length; p++) {
+            double x = row.numbers[numericFirst[p]];
+            double y = row.numbers[numericSecond[p]];
+            if (Double.isNaN(x) || Double.isNaN(y)) {
+                continue;
+            }
+            long n = ++counts[p];
+            double dx = x - firstMeans[p];
+            double dy = y - secondMeans[p];
+            firstMeans[p] += dx / n;
+            secondMeans[p] += dy / n;
+            double dyAfter = y - secondMeans[p];
+            firstSquares[p] += dx * (x - firstMeans[p]);
+            secondSquares[p] += dy * dyAfter;
+            coMoments[p] += dx * dyAfter;
+        }
+        for (int p = 0; p < categoricalFirst.length; p++) {
+            int first = categoricalFirst[p];
+            int second = categoricalSecond[p];
+            if (row.starts[first] == row.ends[first] || row.starts[second] == row.ends[second]) {
+                continue;
+            }
+            int length = writeKey(row, first, second);
+            coOccurrences[p].offer(key, 0, length);
+        }
+    }
+
+    /**
+     * Folds in the statistics of a disjoint set of rows, combining the moments with the pairwise
+     * update of Chan, Golub and LeVeque.
+     */
+    void merge(PairwiseStatistics other) {
+        for (int p = 0; p < counts.length; p++) {
+            long n = counts[p];
+            long m = other.counts[p];
+            if (m == 0) {
+                continue;
+            }
+            long total = n + m;
+            double dx = other.firstMeans[p] - firstMeans[p];
+            double dy = other.secondMeans[p] - secondMeans[p];
+            double weight = (double) n * m / total;
+            firstSquares[p] += other.firstSquares[p] + dx * dx * weight;
+            secondSquares[p] += other.secondSquares[p] + dy * dy * weight;
+            coMoments[p] += other.coMoments[p] + dx * dy * weight;
+            firstMeans[p] += dx * m / total;
+            secondMeans[p] += dy * m / total;
+            counts[p] = total;
+        }
+        for (int p = 0; p < coOccurrences.length; p++) {
+            coOccurrences[p].merge(other.coOccurrences[p]);
+        }
+    }
+
+    /**
+     * @return the number of rows where both values of numeric pair {@code p} are numbers
+     */
+    long count(int p) {
+        return counts[p];
+    }
+
+    /**
+     * @return the Pearson correlation of numeric pair {@code p}, or {@code null} when it is
+     * undefined because a column has fewer than two values or no variance
+     */
+    Double correlation(int p) {
+        if (counts[p] < 2 || firstSquares[p] == 0 || secondSquares[p] == 0) {
+            return null;
+        }
+        double r = coMoments[p] / Math.sqrt(firstSquares[p] * secondSquares[p]);
+        // rounding can push perfectly correlated columns just past 1
+        return Math.clamp(r, -1.0, 1.0);
+    }
+
+    /**
+     * @return the sample covariance of numeric pair {@code p}, or {@code null} with fewer than two rows
+     */
+    Double covariance(int p) {
+        return counts[p] < 2 ? null : coMoments[p] / (counts[p] - 1);
+    }
+
+    /**
+     * @return the co-occurrence sketch of pair {@code p}; its keys are read back with {@link #splitKey}
+     */
+    SpaceSavingSketch coOccurrences(int p) {
+        return coOccurrences[p];
+    }
+
+    /**
+     * Splits a co-occurrence key into the values of the first and second column.
+     */
+    static byte[][] splitKey(byte[] key) {
+        int firstLength = ByteBuffer.wrap(key).getInt();
+        return new byte[][]{
+                Arrays.copyOfRange(key, Integer.BYTES, Integer.BYTES + firstLength),
+                Arrays.copyOfRange(key, Integer.BYTES + firstLength, key.length)
+        };
+    }
+
+    /**
+     * Writes {@code <length of first value><first value><second value>} to {@link #key}, which is
+     * unambiguous whatever bytes the values contain.
+     *
+     * @return the key length
+     */
+    private int writeKey(Cells row, int first, int second) {
+        int firstLength = row.ends[first] - row.starts[first];
+        int secondLength = row.ends[second] - row.starts[second];
+        int length = Integer.BYTES + firstLength + secondLength;
+        if (length > key.length) {
+            key = new byte[Math.max(length, key.length * 2)];
+        }
+        key[0] = (byte) (firstLength >>> 24);
+        key[1] = (byte) (firstLength >>> 16);
+        key[2] = (byte) (firstLength >>> 8);
+        key[3] = (byte) firstLength;
+        System.arraycopy(row.data[first], row.starts[first], key, Integer.BYTES, firstLength);
+        System.arraycopy(row.data[second], row.starts[second], key, Integer.BYTES + firstLength, secondLength);
+        return length;
+    }
+
+    /**
+     * A reusable view of one row's values of the selected columns, filled column by column before
+     * each {@link #accept}. Values are referenced in place, so they are only valid until the next row.
+     */
+    static final class Cells {
+
+        private static final byte[] EMPTY = new byte[0];
+
+        private final boolean[] numeric;
+        private final double[] numbers;
+        private final byte[][] data;
+        private final int[] starts;
+        private final int[] ends;
+        private final CellVisitor[] visitors;
+
+        private Cells(boolean[] numeric) {
+            int columns = numeric.length;
+            this.numeric = numeric;
+            this.numbers = new double[columns];
+            this.data = new byte[columns][];
+            this.starts = new int[columns];
+            this.ends = new int[columns];
+            this.visitors = new CellVisitor[columns];
+            for (int c = 0; c < columns; c++) {
+                int column = c;
+                visitors[c] = new CellVisitor() {
+                    @Override
+                    public void accept(byte[] bytes, int start, int end) {
+                        set(column, bytes, start, end);
+                    }
+
+                    @Override
+                    public void acceptNumber(byte[] bytes, int start, int end, double value, boolean decimal) {
+                        data[column] = bytes;
+                        starts[column] = start;
+                        ends[column] = end;
+                        numbers[column] = value;
+                    }
+                };
+            }
+        }
+
+        /**
+         * Sets a column's value from its text; an empty range is a null.
+         */
+        void set(int column, byte[] bytes, int start, int end) {
+            data[column] = bytes;
+            starts[column] = start;
+            ends[column] = end;
+            numbers[column] = numeric[column] && start < end && Utf8.numericShape(bytes, start, end) != Utf8.NOT_NUMERIC
+                    ? Utf8.parseDouble(bytes, start, end)
+                    : Double.NaN;
+        }
+
+        /**
+         * Sets the value of a column that is only used by numeric pairs, without its text.
+         *
+         * @param value the number, or {@code NaN} for a null
+         */
+        void setNumber(int column, double value) {
+            data[column] = EMPTY;
+            starts[column] = 0;
+            ends[column] = 0;
+            numbers[column] = value;
+        }
+
+        /**
+         * @return a visitor that stores the value it receives as the column's value
+         */
+        CellVisitor column(int column) {
+            return visitors[column];
+        }
+    }
+}
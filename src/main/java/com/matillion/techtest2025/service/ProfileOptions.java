@@ -0,0 +1,32 @@
+package com.matillion.techtest2025.service;
+
+import com.matillion.techtest2025.model.SamplingMode;
+
+import java.util.List;
+
+/**
+ * Options for a column profile request.
+ *
+ * @param columns     names of the columns to profile, or {@code null}/empty for all columns
+ * @param sampling    sampling mode, or {@code null} to use the statistics computed over all rows
+ * @param sampleSize  number of rows to sample ({@link SamplingMode#RESERVOIR})
+ * @param sampleEvery take every Nth row ({@link SamplingMode#NTH})
+ * @param seed        seed for the sampler; the same seed always selects the same rows
+ * @param topK        number of most frequent values to report, or {@code null} for the default
+ */
+public record ProfileOptions(
+        List<String> columns,
+        SamplingMode sampling,
+        Integer sampleSize,
+        Integer sampleEvery,
+        long seed,
+        Integer topK
+) {
+
+    /**
+     * @return options for an unsampled profile of every column with the default {@code topK}
+     */
+    public static ProfileOptions allColumns() {
+        return new ProfileOptions(null, null, null, null, 0, null);
+    }
+}
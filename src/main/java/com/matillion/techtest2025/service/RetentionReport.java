@@ -0,0 +1,15 @@
+package com.matillion.techtest2025.service;
+
+/**
+ * Outcome of one retention run.
+ *
+ * @param stripped       analyses whose stored CSV data was removed
+ * @param deleted        analyses deleted entirely
+ * @param reclaimedBytes CSV data and columnar files removed, in bytes
+ */
+public record RetentionReport(
+        int stripped,
+        int deleted,
+        long reclaimedBytes
+) {
+}
@@ -0,0 +1,164 @@
+package com.matillion.techtest2025.service;
+
+import com.matillion.techtest2025.config.AnalysisProperties;
+import com.matillion.techtest2025.repository.DataAnalysisRepository;
+import com.matillion.techtest2025.repository.StoredDataSize;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Applies the retention policies in {@code analysis.storage.retention}, oldest analyses first:
+ * <ol>
+ *   <li>analyses older than {@code delete-after} are deleted;</li>
+ *   <li>analyses older than {@code strip-data-after} lose their stored CSV data;</li>
+ *   <li>while the CSV data held in the database exceeds {@code max-stored-data}, the oldest
+ *       analyses lose theirs.</li>
+ * </ol>
+ * Work is done in batches of {@code batch-size} analyses with one set-based statement per table
+ * and a transaction per batch (deletion goes through {@link AnalysisDeleter}), so entities are
+ * never loaded and locks are held briefly. Reclaimed
+ * bytes are counted in the {@code analysis.retention.reclaimed} metric.
+ */
+@Service
+@Slf4j
+public class RetentionService {
+
+    private final DataAnalysisRepository dataAnalysisRepository;
+    private final AnalysisDeleter analysisDeleter;
+    private final AnalysisProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter strippedAnalyses;
+    private final Counter deletedAnalyses;
+    private final Counter reclaimedDatabaseBytes;
+    private final Counter reclaimedColumnarBytes;
+
+    public RetentionService(
+            DataAnalysisRepository dataAnalysisRepository,
+            AnalysisDeleter analysisDeleter,
+            AnalysisProperties properties,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry
+    ) {
+        this.dataAnalysisRepository = dataAnalysisRepository;
+        this.analysisDeleter = analysisDeleter;
+        this.properties = properties;
+        this.transactionTemplate = transactionTemplate;
+        this.strippedAnalyses = analysesCounter(meterRegistry, "stripped");
+        this.deletedAnalyses = analysesCounter(meterRegistry, "deleted");
+        this.reclaimedDatabaseBytes = reclaimedCounter(meterRegistry, "database");
+        this.reclaimedColumnarBytes = reclaimedCounter(meterRegistry, "columnar");
+    }
+
+    /**
+     * Runs every configured policy once.
+     */
+    public RetentionReport applyPolicies() {
+        AnalysisProperties.Retention retention = properties.getStorage().getRetention();
+        Pageable batch = PageRequest.ofSize(retention.getBatchSize());
+        OffsetDateTime now = OffsetDateTime.now();
+        int stripped = 0;
+        int deleted = 0;
+        long reclaimed = 0;
+
+        Duration deleteAfter = retention.getDeleteAfter();
+        if (deleteAfter != null) {
+            OffsetDateTime cutoff = now.minus(deleteAfter);
+            List<Long> ids;
+            while (!(ids = dataAnalysisRepository.findIdsCreatedBetween(null, cutoff, batch)).isEmpty()) {
+                reclaimed += delete(ids);
+                deleted += ids.size();
+            }
+        }
+
+        Duration stripDataAfter = retention.getStripDataAfter();
+        if (stripDataAfter != null) {
+            OffsetDateTime cutoff = now.minus(stripDataAfter);
+            List<Long> ids;
+            while (!(ids = dataAnalysisRepository.findIdsWithDataCreatedBefore(cutoff, batch)).isEmpty()) {
+                reclaimed += strip(ids);
+                stripped += ids.size();
+            }
+        }
+
+        DataSize maxStoredData = retention.getMaxStoredData();
+        if (maxStoredData != null) {
+            long excess = dataAnalysisRepository.sumStoredDataSize() - maxStoredData.toBytes();
+            while (excess > 0) {
+                List<StoredDataSize> oldest = dataAnalysisRepository.findOldestWithData(batch);
+                if (oldest.isEmpty()) {
+                    break;
+                }
+                List<Long> ids = new ArrayList<>();
+                for (StoredDataSize data : oldest) {
+                    if (excess <= 0) {
+                        break;
+                    }
+                    ids.add(data.analysisId());
+                    excess -= data.size();
+                }
+                reclaimed += strip(ids);
+                stripped += ids.size();
+            }
+        }
+
+        if (stripped > 0 || deleted > 0) {
+            log.info("Retention stripped {} and deleted {} analyses, reclaiming {} bytes", stripped, deleted, reclaimed);
+        }
+        return new RetentionReport(stripped, deleted, reclaimed);
+    }
+
+    /**
+     * Removes the stored CSV data of one batch of analyses.
+     *
+     * @return bytes reclaimed
+     */
+    private long strip(List<Long> ids) {
+        long bytes = transactionTemplate.execute(status -> {
+            long size = dataAnalysisRepository.sumStoredDataSizeByIdIn(ids);
+            dataAnalysisRepository.clearDataByIdIn(ids);
+            return size;
+        });
+        strippedAnalyses.increment(ids.size());
+        reclaimedDatabaseBytes.increment(bytes);
+        return bytes;
+    }
+
+    /**
+     * Deletes one batch of analyses with their column statistics and columnar files.
+     *
+     * @return bytes reclaimed
+     */
+    private long delete(List<Long> ids) {
+        AnalysisDeleter.Deleted deleted = analysisDeleter.delete(ids);
+        deletedAnalyses.increment(deleted.analyses());
+        reclaimedDatabaseBytes.increment(deleted.databaseBytes());
+        reclaimedColumnarBytes.increment(deleted.columnarBytes());
+        return deleted.databaseBytes() + deleted.columnarBytes();
+    }
+
+    private static Counter analysesCounter(MeterRegistry registry, String action) {
+        return Counter.builder("analysis.retention.analyses")
+                .description("Analyses stripped of their data or deleted by retention")
+                .tag("action", action)
+                .register(registry);
+    }
+
+    private static Counter reclaimedCounter(MeterRegistry registry, String storage) {
+        return Counter.builder("analysis.retention.reclaimed")
+                .description("Stored data removed by retention")
+                .baseUnit("bytes")
+                .tag("storage", storage)
+                .register(registry);
+    }
+}
@@ -0,0 +1,167 @@
+package com.matillion.techtest2025.service;
+
+import com.matillion.techtest2025.exception.BadRequestException;
+import com.matillion.techtest2025.parser.Utf8;
+import com.matillion.techtest2025.storage.CellVisitor;
+import com.matillion.techtest2025.storage.ChunkStats;
+
+import java.util.Arrays;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A single-column filter of the form {@code <column><operator><value>}, e.g. {@code podiums>100}.
+ * <p>
+ * When the value is a number, the comparison is numeric and only numeric cells can match. Any
+ * other value is compared with the cell's text byte by byte (which for UTF-8 is code point order),
+ * so {@code team=} selects empty cells and {@code team!=} non-empty ones.
+ * <p>
+ * As a {@link CellVisitor} it evaluates cells read from columnar storage; the result of the last
+ * visit is kept in a field, so an instance must not be shared between concurrent scans.
+ */
+final class RowPredicate implements CellVisitor {
+
+    enum Operator {
+        EQ, NE, LT, LE, GT, GE
+    }
+
+    private final String column;
+    private final Operator operator;
+    private final byte[] literal;
+    private final boolean numeric;
+    private final double number;
+    private boolean matched;
+
+    private RowPredicate(String column, Operator operator, String literal) {
+        this.column = column;
+        this.operator = operator;
+        this.literal = literal.getBytes(UTF_8);
+        this.numeric = !literal.isEmpty() && Utf8.numericShape(this.literal, 0, this.literal.length) != Utf8.NOT_NUMERIC;
+        this.number = numeric ? Utf8.parseDouble(this.literal, 0, this.literal.length) : Double.NaN;
+    }
+
+    /**
+     * Parses {@code <column><operator><value>}, where the operator is one of {@code =}, {@code !=},
+     * {@code <}, {@code <=}, {@code >} or {@code >=}. Whitespace around the column and value is ignored.
+     */
+    static RowPredicate parse(String where) {
+        int i = 0;
+        while (where != null && i < where.length() && "<>=!".indexOf(where.charAt(i)) < 0) {
+            i++;
+        }
+        if (where == null || i == where.length() || where.substring(0, i).isBlank()) {
+            throw invalid(where);
+        }
+        char next = i + 1 < where.length() ? where.charAt(i + 1) : 0;
+        Operator operator = switch (where.charAt(i)) {
+            case '<' -> next == '=' ? Operator.LE : Operator.LT;
+            case '>' -> next == '=' ? Operator.GE : Operator.GT;
+            case '!' -> {
+                if (next != '=') {
+                    throw invalid(where);
+                }
+                yield Operator.NE;
+            }
+            default -> Operator.EQ;
+        };
+        int valueStart = i + (operator == Operator.LE || operator == Operator.GE || operator == Operator.NE ? 2 : 1);
+        return new RowPredicate(where.substring(0, i).strip(), operator, where.substring(valueStart).strip());
+    }
+
+    String column() {
+        return column;
+    }
+
+    boolean isNumeric() {
+        return numeric;
+    }
+
+    /**
+     * Uses a chunk's recorded min/max to decide whether any of its rows can match. Text predicates
+     * cannot be decided from numeric statistics, so they always return {@code true}.
+     */
+    boolean mayMatch(ChunkStats stats) {
+        if (!numeric) {
+            return true;
+        }
+        if (!stats.hasNumericValues()) {
+            return false;
+        }
+        double min = stats.min();
+        double max = stats.max();
+        return switch (operator) {
+            case EQ -> min <= number && number <= max;
+            case NE -> !(min == number && max == number);
+            case LT -> min < number;
+            case LE -> min <= number;
+            case GT -> max > number;
+            case GE -> max >= number;
+        };
+    }
+
+    /**
+     * Evaluates the cell {@code [start, end)} of {@code bytes}.
+     */
+    boolean matches(byte[] bytes, int start, int end) {
+        accept(bytes, start, end);
+        return matched;
+    }
+
+    /**
+     * Evaluates a cell whose numeric value is already known.
+     */
+    boolean matches(double value) {
+        return numeric && compare(value);
+    }
+
+    /**
+     * @return the result of the last {@link #accept} or {@link #acceptNumber} call
+     */
+    boolean matched() {
+        return matched;
+    }
+
+    @Override
+    public void accept(byte[] bytes, int start, int end) {
+        if (!numeric) {
+            matched = compareText(bytes, start, end);
+            return;
+        }
+        matched = start != end
+                && Utf8.numericShape(bytes, start, end) != Utf8.NOT_NUMERIC
+                && compare(Utf8.parseDouble(bytes, start, end));
+    }
+
+    @Override
+    public void acceptNumber(byte[] bytes, int start, int end, double value, boolean decimal) {
+        matched = numeric ? compare(value) : compareText(bytes, start, end);
+    }
+
+    private boolean compare(double value) {
+        return switch (operator) {
+            case EQ -> value == number;
+            case NE -> value != number;
+            case LT -> value < number;
+            case LE -> value <= number;
+            case GT -> value > number;
+            case GE -> value >= number;
+        };
+    }
+
+    private boolean compareText(byte[] bytes, int start, int end) {
+        int order = Arrays.compareUnsigned(bytes, start, end, literal, 0, literal.length);
+        return switch (operator) {
+            case EQ -> order == 0;
+            case NE -> order != 0;
+            case LT -> order < 0;
+            case LE -> order <= 0;
+            case GT -> order > 0;
+            case GE -> order >= 0;
+        };
+    }
+
+    private static BadRequestException invalid(String where) {
+        return new BadRequestException("Invalid filter '" + where
+                + "': expected <column><operator><value> with an operator of =, !=, <, <=, > or >=");
+    }
+}
@@ -0,0 +1,193 @@
+package com.matillion.techtest2025.service;
+
+import com.matillion.techtest2025.parser.CsvFormat;
+import com.matillion.techtest2025.parser.CsvRow;
+import com.matillion.techtest2025.parser.CsvTokenizer;
+import com.matillion.techtest2025.storage.CellVisitor;
+import com.matillion.techtest2025.storage.ColumnChunk;
+import com.matillion.techtest2025.storage.ColumnEncoding;
+import com.matillion.techtest2025.storage.ColumnarReader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Streams the rows of a stored analysis that match a {@link RowPredicate}, as CSV with a header.
+ * Whatever format the data was uploaded in, the output is comma-separated, with values quoted
+ * where {@link CsvFormat#CSV} needs it.
+ * <p>
+ * From columnar storage, each chunk's min/max is checked first and chunks that cannot match are
+ * never read, so the work done grows with the number of candidate chunks rather than the size of
+ * the data. Only the filtered column is decoded for a candidate chunk; the other columns are read
+ * once the chunk turns out to contain a match. Without a columnar copy the stored CSV is tokenized
+ * in full. Either way, output is flushed as matching rows are found.
+ */
+final class RowScanner {
+
+    private static final int FLUSH_BYTES = 64 * 1024;
+
+    private final RowPredicate predicate;
+    private final int column;
+    private final long limit;
+    private final ByteArrayOutputStream batch = new ByteArrayOutputStream();
+    private final CellVisitor cellWriter = (bytes, start, end) -> CsvFormat.CSV.writeField(batch, bytes, start, end);
+
+    private long matches;
+    private int chunksRead;
+    private int chunksSkipped;
+    private boolean headerWritten;
+
+    /**
+     * @param column header index of the predicate's column
+     * @param limit  maximum number of rows to return
+     */
+    RowScanner(RowPredicate predicate, int column, long limit) {
+        this.predicate = predicate;
+        this.column = column;
+        this.limit = limit;
+    }
+
+    void scan(ColumnarReader reader, OutputStream out) throws IOException {
+        int columns = reader.columnCount();
+        for (int c = 0; c < columns; c++) {
+            if (c > 0) {
+                batch.write(',');
+            }
+            byte[] name = reader.columnName(c).getBytes(UTF_8);
+            CsvFormat.CSV.writeField(batch, name, 0, name.length);
+        }
+        batch.write('\n');
+        flush(out);
+
+        for (int chunk = 0; chunk < reader.chunkCount() && matches < limit; chunk++) {
+            if (!predicate.mayMatch(reader.stats(chunk, column))) {
+                chunksSkipped++;
+                continue;
+            }
+            chunksRead++;
+            ColumnChunk values = reader.read(chunk, column);
+            boolean[] entryMatches = dictionaryMatches(values);
+            boolean nullMatches = predicate.matches(new byte[0], 0, 0);
+            ColumnChunk[] row = new ColumnChunk[columns];
+            row[column] = values;
+
+            for (int r = 0; r < values.rowCount() && matches < limit; r++) {
+                if (!matches(values, r, entryMatches, nullMatches)) {
+                    continue;
+                }
+                matches++;
+                for (int c = 0; c < columns; c++) {
+                    if (row[c] == null) {
+                        row[c] = reader.read(chunk, c);
+                    }
+                    if (c > 0) {
+                        batch.write(',');
+                    }
+                    row[c].visit(r, cellWriter);
+                }
+                batch.write('\n');
+            }
+            flush(out);
+        }
+    }
+
+    /**
+     * Tokenizes the stored data and writes each matching line.
+     */
+    void scan(CsvTokenizer tokenizer, CsvFormat format, byte[] data, OutputStream out) throws IOException {
+        try {
+            tokenizer.tokenize(data, format, row -> {
+                if (!headerWritten) {
+                    headerWritten = true;
+                    writeLine(row);
+                    return;
+                }
+                if (matches < limit && predicate.matches(row.data(), row.start(column), row.end(column))) {
+                    matches++;
+                    writeLine(row);
+                    if (batch.size() >= FLUSH_BYTES) {
+                        flushUnchecked(out);
+                    }
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        flush(out);
+    }
+
+    long matches() {
+        return matches;
+    }
+
+    int chunksRead() {
+        return chunksRead;
+    }
+
+    int chunksSkipped() {
+        return chunksSkipped;
+    }
+
+    private boolean matches(ColumnChunk values, int row, boolean[] entryMatches, boolean nullMatches) {
+        if (values.isNull(row)) {
+            return nullMatches;
+        }
+        if (entryMatches != null) {
+            return entryMatches[values.code(row)];
+        }
+        ColumnEncoding encoding = values.encoding();
+        if (predicate.isNumeric() && (encoding == ColumnEncoding.INT64 || encoding == ColumnEncoding.FLOAT64)) {
+            return predicate.matches(values.number(row));
+        }
+        values.visit(row, predicate);
+        return predicate.matched();
+    }
+
+    /**
+     * Evaluates the predicate once per dictionary entry of a dictionary-encoded chunk.
+     *
+     * @return per-code results, or {@code null} if the chunk is not dictionary encoded
+     */
+    private boolean[] dictionaryMatches(ColumnChunk values) {
+        ColumnEncoding encoding = values.encoding();
+        if (encoding != ColumnEncoding.DICTIONARY && encoding != ColumnEncoding.DICTIONARY_RLE) {
+            return null;
+        }
+        boolean[] entryMatches = new boolean[values.dictionarySize()];
+        for (int code = 0; code < entryMatches.length; code++) {
+            values.visitEntry(code, predicate);
+            entryMatches[code] = predicate.matched();
+        }
+        return entryMatches;
+    }
+
+    private void writeLine(CsvRow row) {
+        for (int c = 0; c < row.fieldCount(); c++) {
+            if (c > 0) {
+                batch.write(',');
+            }
+            CsvFormat.CSV.writeField(batch, row.data(), row.start(c), row.end(c));
+        }
+        batch.write('\n');
+    }
+
+    private void flushUnchecked(OutputStream out) {
+        try {
+            flush(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void flush(OutputStream out) throws IOException {
+        if (batch.size() > 0) {
+            batch.writeTo(out);
+            batch.reset();
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.matillion.techtest2025.service;
+
+import com.matillion.techtest2025.model.SamplingMode;
+import com.matillion.techtest2025.parser.CsvFormat;
+import com.matillion.techtest2025.parser.CsvRow;
+import com.matillion.techtest2025.parser.CsvTokenizer;
+import com.matillion.techtest2025.storage.ColumnChunk;
+import com.matillion.techtest2025.storage.ColumnarReader;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Re-profiles a projection of a stored analysis from a sample of its rows.
+ * <p>
+ * Which rows are sampled depends only on the options and the row count, so the sample is chosen
+ * up front as a sorted list of row indexes. The rows can then be read either from the columnar
+ * copy, touching only the projected columns, or by tokenizing the stored CSV; both feed the
+ * profilers the same values in the same (row) order and so produce identical profiles.
+ */
+final class SampledProfiler {
+
+    private final int[] projection;
+    private final ColumnProfiler[] profilers;
+    /** Sampled row indexes, ascending. */
+    private final int[] rows;
+
+    private boolean headerSeen;
+    private int rowIndex;
+    private int next;
+
+    /**
+     * @param projection header indexes of the columns to profile
+     * @param profilers  one empty profiler per projected column
+     * @param rowCount   number of data rows in the stored analysis
+     */
+    SampledProfiler(int[] projection, ColumnProfiler[] profilers, ProfileOptions options, int rowCount) {
+        this.projection = projection;
+        this.profilers = profilers;
+        this.rows = options.sampling() == SamplingMode.RESERVOIR
+                ? reservoir(options.sampleSize(), options.seed(), rowCount)
+                : everyNth(options.sampleEvery(), options.seed(), rowCount);
+    }
+
+    /**
+     * Reads the sampled rows of the projected columns from columnar storage, skipping chunks that
+     * contain no sampled rows.
+     *
+     * @return the number of rows in the sample
+     */
+    int profile(ColumnarReader reader) {
+        for (int p = 0; p < projection.length; p++) {
+            int sampled = 0;
+            for (int chunk = 0; chunk < reader.chunkCount() && sampled < rows.length; chunk++) {
+                int first = reader.chunkFirstRow(chunk);
+                int end = first + reader.chunkRowCount(chunk);
+                if (rows[sampled] >= end) {
+                    continue;
+                }
+                ColumnChunk values = reader.read(chunk, projection[p]);
+                for (; sampled < rows.length && rows[sampled] < end; sampled++) {
+                    values.visit(rows[sampled] - first, profilers[p]);
+                }
+            }
+        }
+        return rows.length;
+    }
+
+    /**
+     * Tokenizes {@code data} up to the last projected column and feeds the sampled rows to the
+     * profilers. The stored data was validated at ingest, so every line is known to have the full
+     * set of fields.
+     *
+     * @return the number of rows in the sample
+     */
+    int profile(CsvTokenizer tokenizer, CsvFormat format, byte[] data) {
+        int maxField = 0;
+        for (int column : projection) {
+            maxField = Math.max(maxField, column);
+        }
+        tokenizer.tokenize(data, format, maxField + 1, this::accept);
+        return rows.length;
+    }
+
+    private void accept(CsvRow row) {
+        if (!headerSeen) {
+            headerSeen = true;
+            return;
+        }
+        if (next < rows.length && rows[next] == rowIndex) {
+            next++;
+            for (int p = 0; p < projection.length; p++) {
+                profilers[p].accept(row.data(), row.start(projection[p]), row.end(projection[p]));
+            }
+        }
+        rowIndex++;
+    }
+
+    /**
+     * Algorithm R over row indexes: the first {@code k} rows fill the reservoir, and row {@code i}
+     * then replaces a random entry with probability {@code k / (i + 1)}.
+     */
+    private static int[] reservoir(int sampleSize, long seed, int rowCount) {
+        int[] reservoir = new int[Math.min(sampleSize, rowCount)];
+        for (int i = 0; i < reservoir.length; i++) {
+            reservoir[i] = i;
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int index = reservoir.length; index < rowCount; index++) {
+            long candidate = random.nextLong(index + 1L);
+            if (candidate < reservoir.length) {
+                reservoir[(int) candidate] = index;
+            }
+        }
+        Arrays.sort(reservoir);
+        return reservoir;
+    }
+
+    /**
+     * Every {@code every}-th row, starting at an offset derived from the seed.
+     */
+    private static int[] everyNth(int every, long seed, int rowCount) {
+        int offset = (int) Math.floorMod(seed, (long) every);
+        int[] rows = new int[offset < rowCount ? (rowCount - offset - 1) / every + 1 : 0];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = offset + i * every;
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,173 @@
+package com.matillion.techtest2025.service;
+
+import com.matillion.techtest2025.config.AnalysisProperties;
+import com.matillion.techtest2025.controller.response.AnalysisDiffResponse;
+import com.matillion.techtest2025.exception.NotFoundException;
+import com.matillion.techtest2025.model.ColumnDrift;
+import com.matillion.techtest2025.model.DriftKind;
+import com.matillion.techtest2025.repository.ColumnStatisticsRepository;
+import com.matillion.techtest2025.repository.DataAnalysisRepository;
+import com.matillion.techtest2025.repository.entity.ColumnStatisticsEntity;
+import com.matillion.techtest2025.sketch.HyperLogLogSketch;
+import com.matillion.techtest2025.sketch.KllSketch;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares two analyses column by column, to detect schema drift between uploads of the same feed.
+ * <p>
+ * Only the statistics stored at ingest are read: row counts, and per column the inferred type,
+ * null and unique counts, the quantile sketch and the distinct-value sketch. Neither the CSV nor the
+ * columnar copy is touched, so analyses whose data retention has removed can still be compared.
+ * Columns are matched by name; when a header repeats a name, its first occurrence is used.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class SchemaDriftService {
+
+    /**
+     * Ranks at which both quantile sketches are evaluated; the distribution shift is measured at the
+     * values found there.
+     */
+    private static final int DISTRIBUTION_POINTS = 100;
+
+    private final DataAnalysisRepository dataAnalysisRepository;
+    private final ColumnStatisticsRepository columnStatisticsRepository;
+    private final AnalysisProperties properties;
+
+    /**
+     * @param id      the first analysis
+     * @param otherId the analysis to compare it with, typically a later upload of the same feed
+     * @throws NotFoundException if either analysis does not exist
+     */
+    public AnalysisDiffResponse diff(Long id, Long otherId) {
+        int rows = dataAnalysisRepository.findNumberOfRowsById(id)
+                .orElseThrow(() -> new NotFoundException("Analysis not found with id: " + id));
+        int otherRows = dataAnalysisRepository.findNumberOfRowsById(otherId)
+                .orElseThrow(() -> new NotFoundException("Analysis not found with id: " + otherId));
+        Map<String, ColumnStatisticsEntity> columns = byName(columnStatisticsRepository.findByAnalysisId(id));
+        Map<String, ColumnStatisticsEntity> otherColumns = byName(columnStatisticsRepository.findByAnalysisId(otherId));
+
+        List<String> added = otherColumns.keySet().stream().filter(name -> !columns.containsKey(name)).toList();
+        List<String> removed = columns.keySet().stream().filter(name -> !otherColumns.containsKey(name)).toList();
+        List<ColumnDrift> drift = new ArrayList<>();
+        columns.forEach((name, stat) -> {
+            ColumnStatisticsEntity other = otherColumns.get(name);
+            if (other != null) {
+                drift.add(compare(stat, rows, other, otherRows));
+            }
+        });
+
+        boolean drifted = !added.isEmpty() || !removed.isEmpty()
+                || drift.stream().anyMatch(column -> !column.changes().isEmpty());
+        if (drifted) {
+            log.debug("Analysis {} drifted from {}: {} added, {} removed, {} changed column(s)", otherId, id,
+                    added.size(), removed.size(), drift.stream().filter(column -> !column.changes().isEmpty()).count());
+        }
+        return new AnalysisDiffResponse(id, otherId, rows, otherRows, added, removed, drift, drifted);
+    }
+
+    private ColumnDrift compare(ColumnStatisticsEntity stat, int rows, ColumnStatisticsEntity other, int otherRows) {
+        AnalysisProperties.Drift thresholds = properties.getDrift();
+        double nullRatio = rows > 0 ? (double) stat.getNullCount() / rows : 0;
+        double otherNullRatio = otherRows > 0 ? (double) other.getNullCount() / otherRows : 0;
+        Double valueOverlap = valueOverlap(stat.getDistinctSketch(), other.getDistinctSketch());
+        Double distributionShift = distributionShift(stat.getQuantileSketch(), other.getQuantileSketch());
+
+        List<DriftKind> changes = new ArrayList<>();
+        if (stat.getInferredType() != other.getInferredType()) {
+            changes.add(DriftKind.TYPE);
+        }
+        if (Math.abs(otherNullRatio - nullRatio) > thresholds.getNullRatioChange()) {
+            changes.add(DriftKind.NULL_RATIO);
+        }
+        int uniqueChange = Math.abs(other.getUniqueCount() - stat.getUniqueCount());
+        if (uniqueChange > thresholds.getCardinalityChange() * Math.max(stat.getUniqueCount(), 1)) {
+            changes.add(DriftKind.CARDINALITY);
+        }
+        if (distributionShift != null && distributionShift > thresholds.getDistributionShift()) {
+            changes.add(DriftKind.DISTRIBUTION);
+        }
+
+        return new ColumnDrift(
+                stat.getColumnName(),
+                stat.getInferredType(),
+                other.getInferredType(),
+                nullRatio,
+                otherNullRatio,
+                stat.getUniqueCount(),
+                other.getUniqueCount(),
+                valueOverlap,
+                distributionShift,
+                changes
+        );
+    }
+
+    private static Map<String, ColumnStatisticsEntity> byName(List<ColumnStatisticsEntity> stats) {
+        Map<String, ColumnStatisticsEntity> byName = new LinkedHashMap<>();
+        for (ColumnStatisticsEntity stat : stats) {
+            byName.putIfAbsent(stat.getColumnName(), stat);
+        }
+        return byName;
+    }
+
+    /**
+     * Estimates {@code |A ∩ B| / |A ∪ B|} by inclusion-exclusion over the two sketches and their
+     * union. All three sizes are estimates, so the result is clamped to {@code [0, 1]}.
+     */
+    private static Double valueOverlap(byte[] sketch, byte[] otherSketch) {
+        if (sketch == null || otherSketch == null) {
+            return null;
+        }
+        HyperLogLogSketch values = HyperLogLogSketch.fromBytes(sketch);
+        HyperLogLogSketch otherValues = HyperLogLogSketch.fromBytes(otherSketch);
+        if (values.getPrecision() != otherValues.getPrecision()) {
+            // recorded with different settings; the registers cannot be combined
+            return null;
+        }
+        double size = values.estimate();
+        double otherSize = otherValues.estimate();
+        values.merge(otherValues);
+        double union = values.estimate();
+        if (union == 0) {
+            // two columns without values
+            return 1.0;
+        }
+        return Math.clamp((size + otherSize - union) / union, 0.0, 1.0);
+    }
+
+    /**
+     * Kolmogorov-Smirnov statistic of the two numeric distributions: the largest difference
+     * between their cumulative distribution functions, evaluated at the quantiles of both.
+     */
+    private static Double distributionShift(byte[] sketch, byte[] otherSketch) {
+        if (sketch == null || otherSketch == null) {
+            return null;
+        }
+        KllSketch values = KllSketch.fromBytes(sketch);
+        KllSketch otherValues = KllSketch.fromBytes(otherSketch);
+
+        double[] points = new double[2 * (DISTRIBUTION_POINTS + 1)];
+        for (int i = 0; i <= DISTRIBUTION_POINTS; i++) {
+            double rank = (double) i / DISTRIBUTION_POINTS;
+            points[2 * i] = values.getQuantile(rank);
+            points[2 * i + 1] = otherValues.getQuantile(rank);
+        }
+        Arrays.sort(points);
+        double[] cdf = values.getCdf(points);
+        double[] otherCdf = otherValues.getCdf(points);
+        double shift = 0;
+        for (int i = 0; i < points.length; i++) {
+            shift = Math.max(shift, Math.abs(cdf[i] - otherCdf[i]));
+        }
+        return shift;
+    }
+}
@@ -0,0 +1,12 @@
+package com.matillion.techtest2025.service;
+
+import com.matillion.techtest2025.model.InferredType;
+
+/**
+ * The type inferred for a column and the share of its non-null values that support it.
+ *
+ * @param type       the inferred type
+ * @param confidence between 0 and 1; see {@link ColumnProfiler#inferType}
+ */
+record TypeGuess(InferredType type, double confidence) {
+}
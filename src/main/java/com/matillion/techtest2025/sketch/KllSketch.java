@@ -0,0 +1,317 @@
+package com.matillion.techtest2025.sketch;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * KLL quantile sketch (Karnin, Lang and Liberty) over {@code double} values.
+ * <p>
+ * The sketch keeps a stack of "compactors". Level {@code h} holds items that each stand for
+ * {@code 2^h} inputs; when a level exceeds its capacity it is sorted and every other item is
+ * promoted to the level above, halving its size. Capacities shrink geometrically (by a factor of
+ * 2/3) towards the lower levels, so memory stays at roughly {@code 3k} values regardless of how many
+ * values are added, with a normalised rank error of about {@code 1.65 / k} (about 0.8% for the default
+ * {@code k = 200}).
+ * <p>
+ * Two sketches built with the same {@code k} can be {@linkplain #merge merged}, and a sketch can be
+ * {@linkplain #toBytes() serialised} so it can be persisted and queried later without the raw
+ * data. Compaction alternates which half it keeps instead of flipping a random coin, so a given
+ * input sequence always produces the same sketch.
+ */
+public final class KllSketch {
+
+    public static final int DEFAULT_K = 200;
+
+    private static final int MIN_LEVEL_CAPACITY = 8;
+    private static final byte SERIAL_VERSION = 1;
+
+    private final int k;
+    private double[][] levels;
+    private int[] levelSizes;
+    private int numLevels;
+    /**
+     * Capacity of each level and their sum, for the current number of levels.
+     */
+    private int[] capacities;
+    private int totalCapacity;
+    private int retained;
+    private long count;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+    private boolean keepOdd;
+
+    public KllSketch() {
+        this(DEFAULT_K);
+    }
+
+    public KllSketch(int k) {
+        if (k < MIN_LEVEL_CAPACITY) {
+            throw new IllegalArgumentException("k must be at least " + MIN_LEVEL_CAPACITY);
+        }
+        this.k = k;
+        this.levels = new double[1][];
+        this.levelSizes = new int[1];
+        this.numLevels = 1;
+        updateCapacities();
+        this.levels[0] = new double[capacities[0]];
+    }
+
+    public void update(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        if (count == 0) {
+            min = value;
+            max = value;
+        } else {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        count++;
+        append(0, value);
+        // values only land on level 0, so most updates just append; compaction is deferred until
+        // it is full, which holds at most one level 0's worth of values above the total capacity
+        if (levelSizes[0] >= capacities[0]) {
+            compress();
+        }
+    }
+
+    /**
+     * Folds {@code other} into this sketch. Both sketches must use the same {@code k}.
+     */
+    public void merge(KllSketch other) {
+        if (other.k != k) {
+            throw new IllegalArgumentException("Cannot merge sketches with different k (" + k + " vs " + other.k + ")");
+        }
+        if (other.count == 0) {
+            return;
+        }
+        for (int h = 0; h < other.numLevels; h++) {
+            for (int i = 0; i < other.levelSizes[h]; i++) {
+                append(h, other.levels[h][i]);
+            }
+        }
+        min = count == 0 ? other.min : Math.min(min, other.min);
+        max = count == 0 ? other.max : Math.max(max, other.max);
+        count += other.count;
+        compress();
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * Returns an approximation of the value at normalised rank {@code fraction}, e.g. {@code 0.5}
+     * for the median. The exact minimum and maximum are returned for ranks 0 and 1.
+     *
+     * @return the estimated quantile, or {@code NaN} if the sketch is empty
+     */
+    public double getQuantile(double fraction) {
+        if (fraction < 0 || fraction > 1) {
+            throw new IllegalArgumentException("fraction must be in [0, 1]");
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (fraction == 0) {
+            return min;
+        }
+        if (fraction == 1) {
+            return max;
+        }
+
+        SortedView view = sortedView();
+        long target = (long) Math.ceil(fraction * count);
+        long cumulative = 0;
+        for (int i = 0; i < view.values.length; i++) {
+            cumulative += view.weights[i];
+            if (cumulative >= target) {
+                return view.values[i];
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Returns the estimated fraction of values less than or equal to each of {@code splitPoints}.
+     *
+     * @param splitPoints values in ascending order
+     */
+    public double[] getCdf(double[] splitPoints) {
+        double[] result = new double[splitPoints.length];
+        if (count == 0) {
+            return result;
+        }
+        SortedView view = sortedView();
+        long cumulative = 0;
+        int item = 0;
+        for (int s = 0; s < splitPoints.length; s++) {
+            while (item < view.values.length && view.values[item] <= splitPoints[s]) {
+                cumulative += view.weights[item];
+                item++;
+            }
+            result[s] = (double) cumulative / count;
+        }
+        return result;
+    }
+
+    /**
+     * Serialises the sketch into a compact byte array readable by {@link #fromBytes(byte[])}.
+     */
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 4 + 8 + 8 + 8 + 1 + 4 + 4 * numLevels + 8 * retained);
+        buffer.put(SERIAL_VERSION)
+                .putInt(k)
+                .putLong(count)
+                .putDouble(min)
+                .putDouble(max)
+                .put((byte) (keepOdd ? 1 : 0))
+                .putInt(numLevels);
+        for (int h = 0; h < numLevels; h++) {
+            buffer.putInt(levelSizes[h]);
+            for (int i = 0; i < levelSizes[h]; i++) {
+                buffer.putDouble(levels[h][i]);
+            }
+        }
+        return buffer.array();
+    }
+
+    public static KllSketch fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        byte version = buffer.get();
+        if (version != SERIAL_VERSION) {
+            throw new IllegalArgumentException("Unsupported KLL sketch version: " + version);
+        }
+        KllSketch sketch = new KllSketch(buffer.getInt());
+        sketch.count = buffer.getLong();
+        sketch.min = buffer.getDouble();
+        sketch.max = buffer.getDouble();
+        sketch.keepOdd = buffer.get() == 1;
+        int numLevels = buffer.getInt();
+        sketch.ensureLevels(numLevels);
+        for (int h = 0; h < numLevels; h++) {
+            int size = buffer.getInt();
+            for (int i = 0; i < size; i++) {
+                sketch.append(h, buffer.getDouble());
+            }
+        }
+        return sketch;
+    }
+
+    private void append(int level, double value) {
+        ensureLevels(level + 1);
+        if (levelSizes[level] == levels[level].length) {
+            levels[level] = Arrays.copyOf(levels[level], Math.max(MIN_LEVEL_CAPACITY, levels[level].length * 2));
+        }
+        levels[level][levelSizes[level]++] = value;
+        retained++;
+    }
+
+    private void ensureLevels(int required) {
+        if (required <= numLevels) {
+            return;
+        }
+        if (required > levels.length) {
+            levels = Arrays.copyOf(levels, required);
+            levelSizes = Arrays.copyOf(levelSizes, required);
+        }
+        for (int h = numLevels; h < required; h++) {
+            levels[h] = new double[MIN_LEVEL_CAPACITY];
+        }
+        numLevels = required;
+        updateCapacities();
+    }
+
+    /**
+     * Recomputes the level capacities, which depend on a level's distance from the top level and so
+     * only change when a level is added.
+     */
+    private void updateCapacities() {
+        capacities = new int[numLevels];
+        totalCapacity = 0;
+        for (int h = 0; h < numLevels; h++) {
+            int depth = numLevels - h - 1;
+            capacities[h] = Math.max(MIN_LEVEL_CAPACITY, (int) Math.ceil(k * Math.pow(2.0 / 3.0, depth)));
+            totalCapacity += capacities[h];
+        }
+    }
+
+    private void compress() {
+        while (retained > totalCapacity) {
+            for (int h = 0; h < numLevels; h++) {
+                if (levelSizes[h] >= capacities[h]) {
+                    compact(h);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Sorts level {@code h} and promotes every other item to level {@code h + 1}. With an odd
+     * number of items the largest one stays behind so that total weight is preserved.
+     */
+    private void compact(int h) {
+        ensureLevels(h + 2);
+        double[] items = levels[h];
+        int size = levelSizes[h];
+        Arrays.sort(items, 0, size);
+
+        int pairs = size / 2;
+        int offset = keepOdd ? 1 : 0;
+        keepOdd = !keepOdd;
+        for (int i = 0; i < pairs; i++) {
+            append(h + 1, items[2 * i + offset]);
+        }
+
+        if (size % 2 == 1) {
+            items[0] = items[size - 1];
+            levelSizes[h] = 1;
+        } else {
+            levelSizes[h] = 0;
+        }
+        retained -= 2 * pairs;
+    }
+
+    private SortedView sortedView() {
+        double[] values = new double[retained];
+        long[] weights = new long[retained];
+
+        // Index sort so that each value keeps the weight of the level it came from
+        Integer[] order = new Integer[retained];
+        int[] levelOf = new int[retained];
+        int n = 0;
+        for (int h = 0; h < numLevels; h++) {
+            for (int i = 0; i < levelSizes[h]; i++) {
+                values[n] = levels[h][i];
+                levelOf[n] = h;
+                order[n] = n;
+                n++;
+            }
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+
+        double[] sortedValues = new double[retained];
+        for (int i = 0; i < retained; i++) {
+            sortedValues[i] = values[order[i]];
+            weights[i] = 1L << levelOf[order[i]];
+        }
+        return new SortedView(sortedValues, weights);
+    }
+
+    private record SortedView(double[] values, long[] weights) {
+    }
+}
@@ -0,0 +1,299 @@
+package com.matillion.techtest2025.sketch;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Space-Saving heavy-hitters sketch (Metwally, Agrawal and El Abbadi) over byte-string values.
+ * <p>
+ * The sketch monitors at most {@code capacity} distinct values. A value that is already monitored
+ * has its counter incremented; a new value takes over the counter with the smallest count,
+ * inheriting that count as its maximum overestimation error. Any value that occurs more than
+ * {@code n / capacity} times is guaranteed to be monitored, and each reported count is an upper
+ * bound that exceeds the true count by at most the reported error.
+ * <p>
+ * Counters live in parallel arrays arranged as an indexed min-heap, with a fixed-size
+ * open-addressing table for lookups, so the number of counters never grows with the number of
+ * distinct values. Values are hashed and compared in place; bytes are only copied when a value
+ * takes over a counter.
+ */
+public final class SpaceSavingSketch {
+
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private static final byte SERIAL_VERSION = 1;
+    private static final int EMPTY = -1;
+
+    private final int capacity;
+    private final byte[][] keys;
+    private final int[] keyHashes;
+    private final long[] counts;
+    private final long[] errors;
+    /** heap[i] is a counter slot; position[slot] is its index in the heap. */
+    private final int[] heap;
+    private final int[] position;
+    /** Open-addressing table of counter slots, at most half full. */
+    private final int[] table;
+    private int size;
+    private long total;
+
+    public SpaceSavingSketch() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public SpaceSavingSketch(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.keys = new byte[capacity][];
+        this.keyHashes = new int[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+        this.heap = new int[capacity];
+        this.position = new int[capacity];
+        this.table = new int[Integer.highestOneBit(capacity * 2 - 1) << 1];
+        Arrays.fill(table, EMPTY);
+    }
+
+    /**
+     * Counts one occurrence of the value {@code [start, end)} of {@code data}.
+     */
+    public void offer(byte[] data, int start, int end) {
+        total++;
+        int hash = hash(data, start, end);
+        int slot = find(data, start, end, hash);
+        if (slot != EMPTY) {
+            counts[slot]++;
+            siftDown(position[slot]);
+        } else if (size < capacity) {
+            insert(data, start, end, hash, 1, 0);
+        } else {
+            // Take over the counter with the smallest count
+            slot = heap[0];
+            errors[slot] = counts[slot];
+            counts[slot]++;
+            removeFromTable(slot);
+            assign(slot, data, start, end, hash);
+            siftDown(0);
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the total number of occurrences offered
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Returns up to {@code k} monitored values with the highest counts, most frequent first.
+     */
+    public List<Entry> top(int k) {
+        Integer[] slots = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = i;
+        }
+        Arrays.sort(slots, Comparator.<Integer>comparingLong(s -> counts[s]).reversed()
+                .thenComparing(s -> keys[s], Arrays::compare));
+
+        List<Entry> entries = new ArrayList<>(Math.min(k, size));
+        for (int i = 0; i < Math.min(k, size); i++) {
+            int slot = slots[i];
+            entries.add(new Entry(keys[slot], counts[slot], errors[slot]));
+        }
+        return entries;
+    }
+
+    /**
+     * Folds {@code other} into this sketch. A value monitored by only one of the sketches may have
+     * occurred up to the other sketch's smallest count there, so that count is added to both its
+     * estimate and its error; the {@code capacity} largest combined estimates are kept.
+     */
+    public void merge(SpaceSavingSketch other) {
+        long thisFloor = size == capacity ? counts[heap[0]] : 0;
+        long otherFloor = other.size == other.capacity ? other.counts[other.heap[0]] : 0;
+
+        List<Entry> combined = new ArrayList<>(size + other.size);
+        boolean[] matched = new boolean[other.size];
+        for (int slot = 0; slot < size; slot++) {
+            int otherSlot = other.find(keys[slot], 0, keys[slot].length, keyHashes[slot]);
+            if (otherSlot != EMPTY) {
+                matched[otherSlot] = true;
+                combined.add(new Entry(keys[slot], counts[slot] + other.counts[otherSlot], errors[slot] + other.errors[otherSlot]));
+            } else {
+                combined.add(new Entry(keys[slot], counts[slot] + otherFloor, errors[slot] + otherFloor));
+            }
+        }
+        for (int otherSlot = 0; otherSlot < other.size; otherSlot++) {
+            if (!matched[otherSlot]) {
+                combined.add(new Entry(other.keys[otherSlot], other.counts[otherSlot] + thisFloor, other.errors[otherSlot] + thisFloor));
+            }
+        }
+        combined.sort(Comparator.comparingLong(Entry::count).reversed());
+
+        long mergedTotal = total + other.total;
+        clear();
+        for (int i = 0; i < Math.min(capacity, combined.size()); i++) {
+            Entry entry = combined.get(i);
+            insert(entry.value(), 0, entry.value().length, hash(entry.value(), 0, entry.value().length), entry.count(), entry.error());
+        }
+        total = mergedTotal;
+    }
+
+    public byte[] toBytes() {
+        int keyBytes = 0;
+        for (int i = 0; i < size; i++) {
+            keyBytes += keys[i].length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 4 + 8 + 4 + size * (8 + 8 + 4) + keyBytes);
+        buffer.put(SERIAL_VERSION).putInt(capacity).putLong(total).putInt(size);
+        for (int i = 0; i < size; i++) {
+            buffer.putLong(counts[i]).putLong(errors[i]).putInt(keys[i].length).put(keys[i]);
+        }
+        return buffer.array();
+    }
+
+    public static SpaceSavingSketch fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        byte version = buffer.get();
+        if (version != SERIAL_VERSION) {
+            throw new IllegalArgumentException("Unsupported Space-Saving sketch version: " + version);
+        }
+        SpaceSavingSketch sketch = new SpaceSavingSketch(buffer.getInt());
+        long total = buffer.getLong();
+        int size = buffer.getInt();
+        for (int i = 0; i < size; i++) {
+            long count = buffer.getLong();
+            long error = buffer.getLong();
+            byte[] key = new byte[buffer.getInt()];
+            buffer.get(key);
+            sketch.insert(key, 0, key.length, hash(key, 0, key.length), count, error);
+        }
+        sketch.total = total;
+        return sketch;
+    }
+
+    private void insert(byte[] data, int start, int end, int hash, long count, long error) {
+        int slot = size++;
+        counts[slot] = count;
+        errors[slot] = error;
+        heap[slot] = slot;
+        position[slot] = slot;
+        assign(slot, data, start, end, hash);
+        siftUp(slot);
+    }
+
+    private void clear() {
+        Arrays.fill(keys, null);
+        Arrays.fill(table, EMPTY);
+        size = 0;
+        total = 0;
+    }
+
+    private void assign(int slot, byte[] data, int start, int end, int hash) {
+        keys[slot] = Arrays.copyOfRange(data, start, end);
+        keyHashes[slot] = hash;
+        int mask = table.length - 1;
+        int index = hash & mask;
+        while (table[index] != EMPTY) {
+            index = (index + 1) & mask;
+        }
+        table[index] = slot;
+    }
+
+    private int find(byte[] data, int start, int end, int hash) {
+        int mask = table.length - 1;
+        int index = hash & mask;
+        while (table[index] != EMPTY) {
+            int slot = table[index];
+            if (keyHashes[slot] == hash && Arrays.equals(keys[slot], 0, keys[slot].length, data, start, end)) {
+                return slot;
+            }
+            index = (index + 1) & mask;
+        }
+        return EMPTY;
+    }
+
+    /**
+     * Removes {@code slot} from the lookup table using backward-shift deletion, so no tombstones
+     * accumulate as counters are taken over.
+     */
+    private void removeFromTable(int slot) {
+        int mask = table.length - 1;
+        int index = keyHashes[slot] & mask;
+        while (table[index] != slot) {
+            index = (index + 1) & mask;
+        }
+        int hole = index;
+        int next = (hole + 1) & mask;
+        while (table[next] != EMPTY) {
+            int home = keyHashes[table[next]] & mask;
+            // Move the entry back if its home position is not within (hole, next]
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                table[hole] = table[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        table[hole] = EMPTY;
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (counts[heap[parent]] <= counts[heap[index]]) {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= size) {
+                return;
+            }
+            int right = left + 1;
+            int smallest = right < size && counts[heap[right]] < counts[heap[left]] ? right : left;
+            if (counts[heap[index]] <= counts[heap[smallest]]) {
+                return;
+            }
+            swap(index, smallest);
+            index = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int slotA = heap[a];
+        int slotB = heap[b];
+        heap[a] = slotB;
+        heap[b] = slotA;
+        position[slotB] = a;
+        position[slotA] = b;
+    }
+
+    private static int hash(byte[] data, int start, int end) {
+        int h = 1;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + data[i];
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * A monitored value with its estimated count and the maximum amount by which the estimate may
+     * exceed the true count.
+     */
+    public record Entry(byte[] value, long count, long error) {
+    }
+}
@@ -0,0 +1,24 @@
+package com.matillion.techtest2025.storage;
+
+/**
+ * Receives cell values read back from a {@link ColumnChunk}.
+ * <p>
+ * Every cell arrives as its original UTF-8 text; cells stored in a typed encoding also pass their
+ * already-decoded numeric value, so consumers do not have to parse the text again.
+ */
+public interface CellVisitor {
+
+    /**
+     * Receives the value {@code [start, end)} of {@code bytes}; an empty range is a null.
+     */
+    void accept(byte[] bytes, int start, int end);
+
+    /**
+     * Receives a numeric cell together with its parsed value.
+     *
+     * @param decimal whether the text has a decimal point
+     */
+    default void acceptNumber(byte[] bytes, int start, int end, double value, boolean decimal) {
+        accept(bytes, start, end);
+    }
+}
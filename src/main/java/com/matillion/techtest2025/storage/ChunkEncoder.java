@@ -0,0 +1,302 @@
+package com.matillion.techtest2025.storage;
+
+import com.matillion.techtest2025.parser.Utf8;
+
+import java.nio.ByteBuffer;
+
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+
+/**
+ * Encodes one column of a chunk of rows into the on-disk layout read by {@link ColumnChunk}.
+ * <p>
+ * A chunk body starts with a null bitmap (only when the chunk has nulls, one bit per row), followed
+ * by the values in the chosen {@link ColumnEncoding}:
+ * <ul>
+ *     <li>{@code INT64} / {@code FLOAT64}: one 8-byte value per row, {@code 0} for nulls</li>
+ *     <li>{@code DICTIONARY}: the dictionary, a code width (1, 2 or 4 bytes) and one code per row</li>
+ *     <li>{@code DICTIONARY_RLE}: the dictionary, a run count and {@code (code, length)} pairs</li>
+ *     <li>{@code PLAIN}: {@code rows + 1} value offsets followed by the value bytes</li>
+ * </ul>
+ * A dictionary is its entry count, {@code count + 1} offsets and the entry bytes. Text chunks use
+ * whichever of the last three layouts is smallest.
+ */
+final class ChunkEncoder {
+
+    /** Longest integer (in digits) stored as {@code INT64}; anything shorter always fits in a long. */
+    private static final int MAX_LONG_DIGITS = 18;
+
+    private final SliceDictionary dictionary = new SliceDictionary();
+    private ByteBuffer buffer = ByteBuffer.allocate(64 * 1024).order(LITTLE_ENDIAN);
+    private long[] longs = new long[0];
+    private double[] doubles = new double[0];
+    private int[] codes = new int[0];
+
+    /**
+     * Encodes {@code column} of the first {@code rows} rows described by {@code offsets}: row
+     * {@code r}'s field {@code c} is {@code [offsets[r * stride + 2c], offsets[r * stride + 2c + 1])}
+     * of {@code data}.
+     *
+     * @return the chunk's metadata; the encoded bytes are then available from {@link #encoded()}
+     */
+    ChunkStats encode(byte[] data, int[] offsets, int stride, int rows, int column) {
+        buffer.clear();
+        if (longs.length < rows) {
+            longs = new long[rows];
+            doubles = new double[rows];
+            codes = new int[rows];
+        }
+
+        int base = 2 * column;
+        int nullCount = 0;
+        boolean allLongs = true;
+        boolean allNumeric = true;
+        for (int r = 0, i = base; r < rows; r++, i += stride) {
+            int start = offsets[i];
+            int end = offsets[i + 1];
+            if (start == end) {
+                nullCount++;
+                continue;
+            }
+            int shape = Utf8.numericShape(data, start, end);
+            if (shape == Utf8.NOT_NUMERIC) {
+                allNumeric = false;
+                allLongs = false;
+                break;
+            }
+            allLongs = allLongs && shape == Utf8.INTEGER_SHAPE && isCanonicalLong(data, start, end);
+        }
+        if (nullCount > 0 || !allNumeric) {
+            // the scan above may have stopped early; nulls have to be counted in full for the bitmap
+            nullCount = writeNullBitmap(offsets, stride, rows, base);
+        }
+
+        if (nullCount < rows && allLongs) {
+            return encodeLongs(data, offsets, stride, rows, base, nullCount);
+        }
+        if (nullCount < rows && allNumeric && parseCanonicalDoubles(data, offsets, stride, rows, base)) {
+            return encodeDoubles(rows, nullCount);
+        }
+        return encodeText(data, offsets, stride, rows, base, nullCount);
+    }
+
+    /**
+     * @return the bytes written by the last {@link #encode} call
+     */
+    ByteBuffer encoded() {
+        return buffer.duplicate().flip();
+    }
+
+    private int writeNullBitmap(int[] offsets, int stride, int rows, int base) {
+        int words = (rows + 63) >>> 6;
+        long[] bitmap = new long[words];
+        int nullCount = 0;
+        for (int r = 0, i = base; r < rows; r++, i += stride) {
+            if (offsets[i] == offsets[i + 1]) {
+                bitmap[r >>> 6] |= 1L << r;
+                nullCount++;
+            }
+        }
+        if (nullCount > 0) {
+            ensureCapacity(words * Long.BYTES);
+            for (long word : bitmap) {
+                buffer.putLong(word);
+            }
+        }
+        return nullCount;
+    }
+
+    private ChunkStats encodeLongs(byte[] data, int[] offsets, int stride, int rows, int base, int nullCount) {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int r = 0, i = base; r < rows; r++, i += stride) {
+            if (offsets[i] == offsets[i + 1]) {
+                longs[r] = 0;
+                continue;
+            }
+            long value = parseLong(data, offsets[i], offsets[i + 1]);
+            longs[r] = value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        ensureCapacity(rows * Long.BYTES);
+        buffer.asLongBuffer().put(longs, 0, rows);
+        buffer.position(buffer.position() + rows * Long.BYTES);
+        return new ChunkStats(ColumnEncoding.INT64, rows, nullCount, min, max);
+    }
+
+    private ChunkStats encodeDoubles(int rows, int nullCount) {
+        double min = Double.NaN;
+        double max = Double.NaN;
+        for (int r = 0; r < rows; r++) {
+            double value = doubles[r];
+            if (Double.isNaN(value)) {
+                // parseCanonicalDoubles marks nulls with NaN, which canonical text can never produce
+                doubles[r] = 0;
+                continue;
+            }
+            if (Double.isNaN(min) || value < min) min = value;
+            if (Double.isNaN(max) || value > max) max = value;
+        }
+        ensureCapacity(rows * Double.BYTES);
+        buffer.asDoubleBuffer().put(doubles, 0, rows);
+        buffer.position(buffer.position() + rows * Double.BYTES);
+        return new ChunkStats(ColumnEncoding.FLOAT64, rows, nullCount, min, max);
+    }
+
+    private ChunkStats encodeText(byte[] data, int[] offsets, int stride, int rows, int base, int nullCount) {
+        dictionary.reset(data);
+        long valueBytes = 0;
+        int runs = 0;
+        int previous = -1;
+        for (int r = 0, i = base; r < rows; r++, i += stride) {
+            int start = offsets[i];
+            int end = offsets[i + 1];
+            // nulls repeat the previous code so they do not break runs; the bitmap tells them apart
+            int code = start == end ? Math.max(previous, 0) : dictionary.add(start, end);
+            valueBytes += end - start;
+            if (code != previous) {
+                runs++;
+                previous = code;
+            }
+            codes[r] = code;
+        }
+
+        int entries = dictionary.size();
+        long entryBytes = 0;
+        for (int code = 0; code < entries; code++) {
+            entryBytes += dictionary.end(code) - dictionary.start(code);
+        }
+        int width = entries <= 0x100 ? 1 : entries <= 0x10000 ? 2 : 4;
+        long dictionaryBytes = Integer.BYTES * (entries + 2L) + entryBytes;
+        long fixedWidthBytes = dictionaryBytes + 1 + (long) width * rows;
+        long runLengthBytes = dictionaryBytes + Integer.BYTES + 2L * Integer.BYTES * runs;
+        long plainBytes = Integer.BYTES * (rows + 1L) + valueBytes;
+
+        double[] minMax = {Double.NaN, Double.NaN};
+        if (plainBytes < Math.min(fixedWidthBytes, runLengthBytes)) {
+            ensureCapacity(plainBytes);
+            int offset = 0;
+            buffer.putInt(offset);
+            for (int r = 0, i = base; r < rows; r++, i += stride) {
+                offset += offsets[i + 1] - offsets[i];
+                buffer.putInt(offset);
+            }
+            for (int r = 0, i = base; r < rows; r++, i += stride) {
+                buffer.put(data, offsets[i], offsets[i + 1] - offsets[i]);
+                updateMinMax(data, offsets[i], offsets[i + 1], minMax);
+            }
+            return new ChunkStats(ColumnEncoding.PLAIN, rows, nullCount, minMax[0], minMax[1]);
+        }
+
+        ensureCapacity(Math.min(fixedWidthBytes, runLengthBytes));
+        buffer.putInt(entries);
+        int offset = 0;
+        buffer.putInt(offset);
+        for (int code = 0; code < entries; code++) {
+            offset += dictionary.end(code) - dictionary.start(code);
+            buffer.putInt(offset);
+        }
+        for (int code = 0; code < entries; code++) {
+            buffer.put(data, dictionary.start(code), dictionary.end(code) - dictionary.start(code));
+            updateMinMax(data, dictionary.start(code), dictionary.end(code), minMax);
+        }
+
+        if (runLengthBytes <= fixedWidthBytes) {
+            buffer.putInt(runs);
+            int runStart = 0;
+            for (int r = 1; r <= rows; r++) {
+                if (r == rows || codes[r] != codes[runStart]) {
+                    buffer.putInt(codes[runStart]);
+                    buffer.putInt(r - runStart);
+                    runStart = r;
+                }
+            }
+            return new ChunkStats(ColumnEncoding.DICTIONARY_RLE, rows, nullCount, minMax[0], minMax[1]);
+        }
+
+        buffer.put((byte) width);
+        for (int r = 0; r < rows; r++) {
+            switch (width) {
+                case 1 -> buffer.put((byte) codes[r]);
+                case 2 -> buffer.putShort((short) codes[r]);
+                default -> buffer.putInt(codes[r]);
+            }
+        }
+        return new ChunkStats(ColumnEncoding.DICTIONARY, rows, nullCount, minMax[0], minMax[1]);
+    }
+
+    /**
+     * Parses every non-null value into {@link #doubles} (nulls become {@code NaN}).
+     *
+     * @return {@code false} if any value's text is not what {@link Double#toString(double)} prints
+     */
+    private boolean parseCanonicalDoubles(byte[] data, int[] offsets, int stride, int rows, int base) {
+        for (int r = 0, i = base; r < rows; r++, i += stride) {
+            int start = offsets[i];
+            int end = offsets[i + 1];
+            if (start == end) {
+                doubles[r] = Double.NaN;
+                continue;
+            }
+            double value = Utf8.parseDouble(data, start, end);
+            String canonical = Double.toString(value);
+            if (canonical.length() != end - start) {
+                return false;
+            }
+            for (int k = 0; k < canonical.length(); k++) {
+                if (canonical.charAt(k) != data[start + k]) {
+                    return false;
+                }
+            }
+            doubles[r] = value;
+        }
+        return true;
+    }
+
+    private static void updateMinMax(byte[] data, int start, int end, double[] minMax) {
+        if (start == end || Utf8.numericShape(data, start, end) == Utf8.NOT_NUMERIC) {
+            return;
+        }
+        double value = Utf8.parseDouble(data, start, end);
+        if (Double.isNaN(minMax[0]) || value < minMax[0]) minMax[0] = value;
+        if (Double.isNaN(minMax[1]) || value > minMax[1]) minMax[1] = value;
+    }
+
+    /**
+     * Whether an integer-shaped value is exactly what {@link Long#toString(long)} would print: no
+     * plus sign, no leading zeros, no negative zero, and short enough to fit.
+     */
+    private static boolean isCanonicalLong(byte[] data, int start, int end) {
+        int digitsStart = data[start] == '-' ? start + 1 : start;
+        if (data[start] == '+' || end - digitsStart > MAX_LONG_DIGITS) {
+            return false;
+        }
+        if (data[digitsStart] == '0') {
+            return end - start == 1;
+        }
+        return true;
+    }
+
+    private static long parseLong(byte[] data, int start, int end) {
+        boolean negative = data[start] == '-';
+        long value = 0;
+        for (int i = negative ? start + 1 : start; i < end; i++) {
+            value = value * 10 + (data[i] - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    private void ensureCapacity(long bytes) {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        long required = buffer.position() + bytes;
+        if (required > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Column chunk too large: " + required + " bytes");
+        }
+        int capacity = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(required, buffer.capacity() * 2L));
+        ByteBuffer grown = ByteBuffer.allocate(capacity).order(LITTLE_ENDIAN);
+        grown.put(buffer.flip());
+        buffer = grown;
+    }
+}
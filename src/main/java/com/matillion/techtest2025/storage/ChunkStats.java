@@ -0,0 +1,20 @@
+package com.matillion.techtest2025.storage;
+
+/**
+ * Footer metadata of one column chunk, available without reading the chunk itself.
+ *
+ * @param encoding  how the chunk's values are stored
+ * @param rowCount  number of rows in the chunk
+ * @param nullCount number of empty values in the chunk
+ * @param min       smallest numeric value in the chunk, or {@code NaN} if it has none
+ * @param max       largest numeric value in the chunk, or {@code NaN} if it has none
+ */
+public record ChunkStats(ColumnEncoding encoding, int rowCount, int nullCount, double min, double max) {
+
+    /**
+     * @return whether the chunk holds at least one numeric value
+     */
+    public boolean hasNumericValues() {
+        return !Double.isNaN(min);
+    }
+}
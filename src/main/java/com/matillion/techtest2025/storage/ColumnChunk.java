@@ -0,0 +1,234 @@
+package com.matillion.techtest2025.storage;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+
+/**
+ * One decoded column chunk, held in primitive arrays.
+ * <p>
+ * Typed chunks keep their values as a {@code long[]} or {@code double[]}; text chunks keep their
+ * value bytes in a single array with an offset table, plus an {@code int[]} of dictionary codes.
+ * {@link #visit} hands a row's value to a {@link CellVisitor} without allocating for text values.
+ */
+public final class ColumnChunk {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final ColumnEncoding encoding;
+    private final int rowCount;
+    /** Bit {@code r} is set when row {@code r} is null; {@code null} when the chunk has no nulls. */
+    private final long[] nulls;
+    private final long[] longs;
+    private final double[] doubles;
+    /** Dictionary entries or, for {@code PLAIN}, row values; entry {@code i} is {@code [offsets[i], offsets[i + 1])}. */
+    private final byte[] bytes;
+    private final int[] offsets;
+    private final int[] codes;
+    private final byte[] scratch = new byte[32];
+
+    private ColumnChunk(
+            ColumnEncoding encoding,
+            int rowCount,
+            long[] nulls,
+            long[] longs,
+            double[] doubles,
+            byte[] bytes,
+            int[] offsets,
+            int[] codes
+    ) {
+        this.encoding = encoding;
+        this.rowCount = rowCount;
+        this.nulls = nulls;
+        this.longs = longs;
+        this.doubles = doubles;
+        this.bytes = bytes;
+        this.offsets = offsets;
+        this.codes = codes;
+    }
+
+    /**
+     * Decodes a chunk body written by {@link ChunkEncoder}.
+     */
+    static ColumnChunk decode(ByteBuffer body, ChunkStats stats) {
+        ByteBuffer in = body.order(LITTLE_ENDIAN);
+        int rows = stats.rowCount();
+        long[] nulls = null;
+        if (stats.nullCount() > 0) {
+            nulls = new long[(rows + 63) >>> 6];
+            in.asLongBuffer().get(nulls);
+            in.position(in.position() + nulls.length * Long.BYTES);
+        }
+
+        return switch (stats.encoding()) {
+            case INT64 -> {
+                long[] longs = new long[rows];
+                in.asLongBuffer().get(longs);
+                yield new ColumnChunk(stats.encoding(), rows, nulls, longs, null, null, null, null);
+            }
+            case FLOAT64 -> {
+                double[] doubles = new double[rows];
+                in.asDoubleBuffer().get(doubles);
+                yield new ColumnChunk(stats.encoding(), rows, nulls, null, doubles, null, null, null);
+            }
+            case PLAIN -> {
+                int[] offsets = readOffsets(in, rows);
+                byte[] bytes = readBytes(in, offsets[rows]);
+                yield new ColumnChunk(stats.encoding(), rows, nulls, null, null, bytes, offsets, null);
+            }
+            case DICTIONARY, DICTIONARY_RLE -> {
+                int entries = in.getInt();
+                int[] offsets = readOffsets(in, entries);
+                byte[] bytes = readBytes(in, offsets[entries]);
+                int[] codes = stats.encoding() == ColumnEncoding.DICTIONARY ? readCodes(in, rows) : readRuns(in, rows);
+                yield new ColumnChunk(stats.encoding(), rows, nulls, null, null, bytes, offsets, codes);
+            }
+        };
+    }
+
+    public ColumnEncoding encoding() {
+        return encoding;
+    }
+
+    public int rowCount() {
+        return rowCount;
+    }
+
+    public boolean isNull(int row) {
+        return nulls != null && (nulls[row >>> 6] & (1L << row)) != 0;
+    }
+
+    /**
+     * @return the numeric value of a non-null row of an {@code INT64} or {@code FLOAT64} chunk
+     */
+    public double number(int row) {
+        return switch (encoding) {
+            case INT64 -> longs[row];
+            case FLOAT64 -> doubles[row];
+            default -> throw new IllegalStateException("Not a typed chunk: " + encoding);
+        };
+    }
+
+    /**
+     * @return the number of dictionary entries of a {@code DICTIONARY} or {@code DICTIONARY_RLE} chunk
+     */
+    public int dictionarySize() {
+        if (codes == null) {
+            throw new IllegalStateException("Not a dictionary chunk: " + encoding);
+        }
+        return offsets.length - 1;
+    }
+
+    /**
+     * @return the dictionary code of a non-null row of a dictionary chunk
+     */
+    public int code(int row) {
+        return codes[row];
+    }
+
+    /**
+     * Passes dictionary entry {@code code} to {@code visitor}, so that work per distinct value only
+     * has to be done once per chunk.
+     */
+    public void visitEntry(int code, CellVisitor visitor) {
+        visitor.accept(bytes, offsets[code], offsets[code + 1]);
+    }
+
+    /**
+     * Passes the value of {@code row} (an index within this chunk) to {@code visitor}. Typed values
+     * are rendered into a scratch buffer that is reused by the next call.
+     */
+    public void visit(int row, CellVisitor visitor) {
+        if (isNull(row)) {
+            visitor.accept(EMPTY, 0, 0);
+            return;
+        }
+        switch (encoding) {
+            case INT64 -> {
+                long value = longs[row];
+                visitor.acceptNumber(scratch, 0, formatLong(value), value, false);
+            }
+            case FLOAT64 -> {
+                double value = doubles[row];
+                String text = Double.toString(value);
+                for (int i = 0; i < text.length(); i++) {
+                    scratch[i] = (byte) text.charAt(i);
+                }
+                visitor.acceptNumber(scratch, 0, text.length(), value, true);
+            }
+            case PLAIN -> visitor.accept(bytes, offsets[row], offsets[row + 1]);
+            case DICTIONARY, DICTIONARY_RLE -> {
+                int code = codes[row];
+                visitor.accept(bytes, offsets[code], offsets[code + 1]);
+            }
+        }
+    }
+
+    /**
+     * Writes the decimal form of {@code value} to the start of {@link #scratch}.
+     *
+     * @return the number of bytes written
+     */
+    private int formatLong(long value) {
+        if (value == 0) {
+            scratch[0] = '0';
+            return 1;
+        }
+        int length = 0;
+        // work with the negative magnitude so that Long.MIN_VALUE does not overflow
+        long remaining = value < 0 ? value : -value;
+        while (remaining != 0) {
+            scratch[length++] = (byte) ('0' - remaining % 10);
+            remaining /= 10;
+        }
+        if (value < 0) {
+            scratch[length++] = '-';
+        }
+        for (int i = 0, j = length - 1; i < j; i++, j--) {
+            byte b = scratch[i];
+            scratch[i] = scratch[j];
+            scratch[j] = b;
+        }
+        return length;
+    }
+
+    private static int[] readOffsets(ByteBuffer in, int entries) {
+        int[] offsets = new int[entries + 1];
+        in.asIntBuffer().get(offsets);
+        in.position(in.position() + offsets.length * Integer.BYTES);
+        return offsets;
+    }
+
+    private static byte[] readBytes(ByteBuffer in, int length) {
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return bytes;
+    }
+
+    private static int[] readCodes(ByteBuffer in, int rows) {
+        int width = in.get();
+        int[] codes = new int[rows];
+        for (int r = 0; r < rows; r++) {
+            codes[r] = switch (width) {
+                case 1 -> in.get() & 0xFF;
+                case 2 -> in.getShort() & 0xFFFF;
+                default -> in.getInt();
+            };
+        }
+        return codes;
+    }
+
+    private static int[] readRuns(ByteBuffer in, int rows) {
+        int runs = in.getInt();
+        int[] codes = new int[rows];
+        int row = 0;
+        for (int i = 0; i < runs; i++) {
+            int code = in.getInt();
+            int length = in.getInt();
+            Arrays.fill(codes, row, row + length, code);
+            row += length;
+        }
+        return codes;
+    }
+}
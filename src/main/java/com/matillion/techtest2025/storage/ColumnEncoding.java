@@ -0,0 +1,41 @@
+package com.matillion.techtest2025.storage;
+
+/**
+ * Physical encoding of one column chunk in a columnar file. The encoding is chosen per chunk from
+ * the values it holds, so a column can mix encodings.
+ * <p>
+ * Typed encodings are only used when they are lossless: every value's text must be exactly what
+ * {@link Long#toString(long)} or {@link Double#toString(double)} would print, so reading a chunk
+ * back always reproduces the original bytes.
+ */
+public enum ColumnEncoding {
+    /**
+     * Canonical integers as a {@code long[]}.
+     */
+    INT64,
+    /**
+     * Canonical decimals as a {@code double[]}.
+     */
+    FLOAT64,
+    /**
+     * Distinct values once, plus a fixed-width code per row.
+     */
+    DICTIONARY,
+    /**
+     * Distinct values once, plus runs of repeated codes.
+     */
+    DICTIONARY_RLE,
+    /**
+     * Every value's bytes, for chunks where a dictionary would not be smaller.
+     */
+    PLAIN;
+
+    private static final ColumnEncoding[] VALUES = values();
+
+    static ColumnEncoding fromId(int id) {
+        if (id < 0 || id >= VALUES.length) {
+            throw new IllegalStateException("Unknown column encoding: " + id);
+        }
+        return VALUES[id];
+    }
+}
@@ -0,0 +1,25 @@
+package com.matillion.techtest2025.storage;
+
+/**
+ * Layout constants of the columnar file format.
+ * <p>
+ * A file is the magic number, the encoded column chunks back to back, a footer, the footer's
+ * offset (8 bytes) and the magic number again; all values are little-endian. The footer holds the
+ * total row count, the column names and, per chunk, its row count and for every column the chunk
+ * body's position, length, {@link ColumnEncoding} and {@link ChunkStats}. Readers only need the
+ * footer to locate any one column chunk.
+ */
+final class ColumnarFormat {
+
+    /** {@code "COL1"} as a little-endian int. */
+    static final int MAGIC = 0x314C4F43;
+
+    /** Size of the trailer: footer offset plus magic number. */
+    static final int TRAILER_BYTES = Long.BYTES + Integer.BYTES;
+
+    /** Footer bytes per column chunk: position, length, encoding, null count, min, max. */
+    static final int CHUNK_ENTRY_BYTES = Long.BYTES + Integer.BYTES + 1 + Integer.BYTES + 2 * Double.BYTES;
+
+    private ColumnarFormat() {
+    }
+}
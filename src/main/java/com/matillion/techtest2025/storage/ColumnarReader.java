@@ -0,0 +1,171 @@
+package com.matillion.techtest2025.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * Reads a columnar file written by {@link ColumnarWriter}.
+ * <p>
+ * Opening a file reads only its footer; {@link #read(int, int)} then reads and decodes a single
+ * column chunk, so callers touch only the columns (and, using {@link #stats(int, int)}, only the
+ * chunks) they need.
+ */
+public final class ColumnarReader implements Closeable {
+
+    private final Path file;
+    private final FileChannel channel;
+    private final int rowCount;
+    private final String[] columnNames;
+    private final int[] chunkFirstRows;
+    private final long[][] positions;
+    private final int[][] lengths;
+    private final ChunkStats[][] stats;
+
+    private ColumnarReader(
+            Path file,
+            FileChannel channel,
+            int rowCount,
+            String[] columnNames,
+            int[] chunkFirstRows,
+            long[][] positions,
+            int[][] lengths,
+            ChunkStats[][] stats
+    ) {
+        this.file = file;
+        this.channel = channel;
+        this.rowCount = rowCount;
+        this.columnNames = columnNames;
+        this.chunkFirstRows = chunkFirstRows;
+        this.positions = positions;
+        this.lengths = lengths;
+        this.stats = stats;
+    }
+
+    /**
+     * Opens {@code file} and reads its footer.
+     *
+     * @throws IOException if the file cannot be read or is not a complete columnar file
+     */
+    public static ColumnarReader open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, READ);
+        try {
+            long size = channel.size();
+            if (size < Integer.BYTES + ColumnarFormat.TRAILER_BYTES
+                    || readAt(channel, 0, Integer.BYTES).getInt() != ColumnarFormat.MAGIC) {
+                throw new IOException("Not a columnar file: " + file);
+            }
+            ByteBuffer trailer = readAt(channel, size - ColumnarFormat.TRAILER_BYTES, ColumnarFormat.TRAILER_BYTES);
+            long footerPosition = trailer.getLong();
+            if (trailer.getInt() != ColumnarFormat.MAGIC || footerPosition < Integer.BYTES || footerPosition > size) {
+                throw new IOException("Incomplete columnar file: " + file);
+            }
+            ByteBuffer footer = readAt(channel, footerPosition, (int) (size - ColumnarFormat.TRAILER_BYTES - footerPosition));
+
+            int rowCount = footer.getInt();
+            String[] columnNames = new String[footer.getInt()];
+            for (int c = 0; c < columnNames.length; c++) {
+                byte[] name = new byte[footer.getInt()];
+                footer.get(name);
+                columnNames[c] = new String(name, UTF_8);
+            }
+            int chunks = footer.getInt();
+            int[] chunkFirstRows = new int[chunks + 1];
+            long[][] positions = new long[chunks][columnNames.length];
+            int[][] lengths = new int[chunks][columnNames.length];
+            ChunkStats[][] stats = new ChunkStats[chunks][columnNames.length];
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                int rows = footer.getInt();
+                chunkFirstRows[chunk + 1] = chunkFirstRows[chunk] + rows;
+                for (int c = 0; c < columnNames.length; c++) {
+                    positions[chunk][c] = footer.getLong();
+                    lengths[chunk][c] = footer.getInt();
+                    ColumnEncoding encoding = ColumnEncoding.fromId(footer.get());
+                    stats[chunk][c] = new ChunkStats(encoding, rows, footer.getInt(), footer.getDouble(), footer.getDouble());
+                }
+            }
+            if (chunkFirstRows[chunks] != rowCount) {
+                throw new IOException("Corrupt columnar file: " + file);
+            }
+            return new ColumnarReader(file, channel, rowCount, columnNames, chunkFirstRows, positions, lengths, stats);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        } catch (RuntimeException e) {
+            // a truncated or garbled footer shows up as buffer underflows and bad lengths
+            channel.close();
+            throw new IOException("Corrupt columnar file: " + file, e);
+        }
+    }
+
+    public int rowCount() {
+        return rowCount;
+    }
+
+    public int columnCount() {
+        return columnNames.length;
+    }
+
+    public String columnName(int column) {
+        return columnNames[column];
+    }
+
+    public int chunkCount() {
+        return positions.length;
+    }
+
+    /**
+     * @return the index of the chunk's first row among all rows of the file
+     */
+    public int chunkFirstRow(int chunk) {
+        return chunkFirstRows[chunk];
+    }
+
+    public int chunkRowCount(int chunk) {
+        return chunkFirstRows[chunk + 1] - chunkFirstRows[chunk];
+    }
+
+    /**
+     * @return footer metadata for a column chunk, without reading the chunk
+     */
+    public ChunkStats stats(int chunk, int column) {
+        return stats[chunk][column];
+    }
+
+    /**
+     * Reads and decodes one column chunk.
+     */
+    public ColumnChunk read(int chunk, int column) {
+        try {
+            return ColumnChunk.decode(readAt(channel, positions[chunk][column], lengths[chunk][column]), stats[chunk][column]);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read columnar file " + file, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ByteBuffer readAt(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of columnar file");
+            }
+        }
+        return buffer.flip();
+    }
+}
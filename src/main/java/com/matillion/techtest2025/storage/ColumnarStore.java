@@ -0,0 +1,142 @@
+package com.matillion.techtest2025.storage;
+
+import com.matillion.techtest2025.config.AnalysisProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Keeps one columnar file per analysis in {@code analysis.storage.columnar.directory}.
+ * <p>
+ * Files are written to a temporary name during ingest and moved to {@code <id>-<contentHash>.col}
+ * once the analysis has been saved and its id is known. Ids alone are not unique to the directory:
+ * another instance sharing it, or a restarted in-memory database, hands out the same ids for other
+ * data, and the content hash keeps their files apart. The columnar copy is optional: when it is
+ * disabled, missing or does not match the analysis, callers fall back to the stored CSV data.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ColumnarStore {
+
+    private static final String SUFFIX = ".col";
+
+    private final AnalysisProperties properties;
+
+    /**
+     * Starts a columnar file for a new ingest.
+     *
+     * @return a writer, or {@code null} if columnar storage is disabled or the file cannot be created
+     */
+    public ColumnarWriter createWriter(String[] columnNames) {
+        AnalysisProperties.Columnar settings = properties.getStorage().getColumnar();
+        if (!settings.isEnabled()) {
+            return null;
+        }
+        try {
+            Files.createDirectories(settings.getDirectory());
+            Path file = Files.createTempFile(settings.getDirectory(), "ingest-", ".tmp");
+            return new ColumnarWriter(file, columnNames, settings.getChunkRows());
+        } catch (IOException e) {
+            log.warn("Cannot create columnar file in {}; re-profiling will use the CSV data", settings.getDirectory(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Completes {@code writer} and stores it as the columnar file of {@code analysisId}. Any
+     * previous file of that analysis is replaced, or removed if there is nothing to store.
+     *
+     * @param writer      the ingest's writer, or {@code null} if none was created
+     * @param contentHash the analysis' content hash
+     */
+    public void commit(ColumnarWriter writer, long analysisId, String contentHash) {
+        Path target = path(analysisId, contentHash);
+        try {
+            if (writer != null && writer.finish()) {
+                Files.move(writer.file(), target, REPLACE_EXISTING, ATOMIC_MOVE);
+                return;
+            }
+            Files.deleteIfExists(target);
+        } catch (IOException e) {
+            log.warn("Cannot store columnar file {}", target, e);
+        }
+        discard(writer);
+    }
+
+    /**
+     * Abandons {@code writer} (for example when ingest fails) and deletes its file.
+     */
+    public void discard(ColumnarWriter writer) {
+        if (writer == null) {
+            return;
+        }
+        writer.close();
+        deleteQuietly(writer.file());
+    }
+
+    /**
+     * Opens the columnar file of an analysis.
+     *
+     * @return a reader, or {@code null} if there is no usable file with the expected shape
+     */
+    public ColumnarReader open(long analysisId, String contentHash, int rowCount, int columnCount) {
+        if (!properties.getStorage().getColumnar().isEnabled()) {
+            return null;
+        }
+        Path file = path(analysisId, contentHash);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        ColumnarReader reader;
+        try {
+            reader = ColumnarReader.open(file);
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable columnar file {}", file, e);
+            return null;
+        }
+        if (reader.rowCount() != rowCount || reader.columnCount() != columnCount) {
+            log.warn("Ignoring columnar file {} that does not match analysis {}", file, analysisId);
+            reader.close();
+            return null;
+        }
+        return reader;
+    }
+
+    /**
+     * @return whether the analysis has a columnar file that {@link #open} may be able to read
+     */
+    public boolean exists(long analysisId, String contentHash) {
+        return properties.getStorage().getColumnar().isEnabled() && Files.isRegularFile(path(analysisId, contentHash));
+    }
+
+    /**
+     * Removes the columnar file of an analysis, if there is one.
+     *
+     * @return the size of the removed file in bytes, or {@code 0} if nothing was removed
+     */
+    public long delete(long analysisId, String contentHash) {
+        return deleteQuietly(path(analysisId, contentHash));
+    }
+
+    private Path path(long analysisId, String contentHash) {
+        return properties.getStorage().getColumnar().getDirectory().resolve(analysisId + "-" + contentHash + SUFFIX);
+    }
+
+    private static long deleteQuietly(Path file) {
+        try {
+            long size = Files.isRegularFile(file) ? Files.size(file) : 0;
+            return Files.deleteIfExists(file) ? size : 0;
+        } catch (IOException e) {
+            log.warn("Cannot delete columnar file {}", file, e);
+            return 0;
+        }
+    }
+}
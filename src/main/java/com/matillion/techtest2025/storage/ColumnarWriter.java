@@ -0,0 +1,196 @@
+package com.matillion.techtest2025.storage;
+
+import com.matillion.techtest2025.parser.CsvRow;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Writes rows to a columnar file as they are tokenized.
+ * <p>
+ * Rows are buffered as field offsets (the tokenizer's input array stays in memory for the whole
+ * parse, so nothing is copied) until a chunk is full; the chunk is then encoded column by column
+ * and appended to the file. The footer is written by {@link #finish()}.
+ * <p>
+ * The columnar copy is an optimisation, so write failures never propagate: the writer logs the
+ * first failure, stops writing and reports it from {@link #finish()}.
+ */
+@Slf4j
+public final class ColumnarWriter implements Closeable {
+
+    private final Path file;
+    private final FileChannel channel;
+    private final String[] columnNames;
+    private final int chunkRows;
+    private final int stride;
+    private final int[] offsets;
+    private final ChunkEncoder encoder = new ChunkEncoder();
+    private final List<Integer> chunkRowCounts = new ArrayList<>();
+    private final List<long[]> chunkPositions = new ArrayList<>();
+    private final List<int[]> chunkLengths = new ArrayList<>();
+    private final List<ChunkStats[]> chunkStats = new ArrayList<>();
+
+    private byte[] data;
+    private int bufferedRows;
+    private int rowCount;
+    private long position;
+    private boolean failed;
+    private boolean closed;
+
+    /**
+     * @param file        an existing, empty file to write to
+     * @param columnNames header of the data
+     * @param chunkRows   maximum number of rows per chunk
+     */
+    ColumnarWriter(Path file, String[] columnNames, int chunkRows) throws IOException {
+        this.file = file;
+        this.columnNames = columnNames;
+        this.chunkRows = chunkRows;
+        this.stride = 2 * columnNames.length;
+        this.offsets = new int[chunkRows * stride];
+        this.channel = FileChannel.open(file, WRITE, TRUNCATE_EXISTING);
+        write(ByteBuffer.allocate(Integer.BYTES).order(LITTLE_ENDIAN).putInt(ColumnarFormat.MAGIC).flip());
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    /**
+     * Adds a data row. Every row must come from the same parse and have one field per column. The
+     * offsets of buffered rows are resolved against the latest row's {@link CsvRow#data()}, which
+     * the tokenizer guarantees to hold the values of every earlier row of the parse too.
+     */
+    public void addRow(CsvRow row) {
+        if (failed) {
+            return;
+        }
+        data = row.data();
+        int base = bufferedRows * stride;
+        for (int c = 0; c < columnNames.length; c++) {
+            offsets[base + 2 * c] = row.start(c);
+            offsets[base + 2 * c + 1] = row.end(c);
+        }
+        if (++bufferedRows == chunkRows) {
+            flushChunk();
+        }
+    }
+
+    /**
+     * Writes the last chunk and the footer, and closes the file.
+     *
+     * @return {@code true} if the complete file was written
+     */
+    public boolean finish() {
+        if (!failed && bufferedRows > 0) {
+            flushChunk();
+        }
+        if (!failed) {
+            try {
+                writeFooter();
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+        close();
+        return !failed;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.debug("Failed to close columnar file {}", file, e);
+        }
+    }
+
+    private void flushChunk() {
+        int columns = columnNames.length;
+        long[] positions = new long[columns];
+        int[] lengths = new int[columns];
+        ChunkStats[] stats = new ChunkStats[columns];
+        try {
+            for (int c = 0; c < columns; c++) {
+                stats[c] = encoder.encode(data, offsets, stride, bufferedRows, c);
+                ByteBuffer body = encoder.encoded();
+                positions[c] = position;
+                lengths[c] = body.remaining();
+                write(body);
+            }
+        } catch (IOException e) {
+            fail(e);
+            return;
+        }
+        chunkRowCounts.add(bufferedRows);
+        chunkPositions.add(positions);
+        chunkLengths.add(lengths);
+        chunkStats.add(stats);
+        rowCount += bufferedRows;
+        bufferedRows = 0;
+    }
+
+    private void writeFooter() throws IOException {
+        byte[][] names = new byte[columnNames.length][];
+        long size = 3L * Integer.BYTES;
+        for (int c = 0; c < names.length; c++) {
+            names[c] = columnNames[c].getBytes(UTF_8);
+            size += Integer.BYTES + names[c].length;
+        }
+        size += chunkRowCounts.size() * (Integer.BYTES + (long) columnNames.length * ColumnarFormat.CHUNK_ENTRY_BYTES);
+        size += ColumnarFormat.TRAILER_BYTES;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Columnar footer too large: " + size + " bytes");
+        }
+
+        long footerPosition = position;
+        ByteBuffer footer = ByteBuffer.allocate((int) size).order(LITTLE_ENDIAN);
+        footer.putInt(rowCount);
+        footer.putInt(names.length);
+        for (byte[] name : names) {
+            footer.putInt(name.length).put(name);
+        }
+        footer.putInt(chunkRowCounts.size());
+        for (int chunk = 0; chunk < chunkRowCounts.size(); chunk++) {
+            footer.putInt(chunkRowCounts.get(chunk));
+            for (int c = 0; c < names.length; c++) {
+                ChunkStats stats = chunkStats.get(chunk)[c];
+                footer.putLong(chunkPositions.get(chunk)[c])
+                        .putInt(chunkLengths.get(chunk)[c])
+                        .put((byte) stats.encoding().ordinal())
+                        .putInt(stats.nullCount())
+                        .putDouble(stats.min())
+                        .putDouble(stats.max());
+            }
+        }
+        footer.putLong(footerPosition).putInt(ColumnarFormat.MAGIC);
+        write(footer.flip());
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer);
+        }
+    }
+
+    private void fail(IOException e) {
+        log.warn("Failed to write columnar file {}; re-profiling will fall back to the CSV data", file, e);
+        failed = true;
+        close();
+    }
+}
@@ -0,0 +1,88 @@
+package com.matillion.techtest2025.storage;
+
+import java.util.Arrays;
+
+/**
+ * Assigns dense codes to the distinct byte slices of one column chunk, in first-seen order.
+ * <p>
+ * Entries are kept as offsets into the input array rather than copies; the dictionary is reset
+ * and reused for every chunk.
+ */
+final class SliceDictionary {
+
+    private byte[] data;
+    /** Open-addressing table of {@code code + 1}, {@code 0} marks an empty slot. */
+    private int[] table = new int[1024];
+    private int[] hashes = new int[512];
+    private int[] starts = new int[512];
+    private int[] ends = new int[512];
+    private int size;
+
+    void reset(byte[] data) {
+        this.data = data;
+        Arrays.fill(table, 0);
+        size = 0;
+    }
+
+    /**
+     * @return the code of {@code [start, end)}, adding it to the dictionary if it is new
+     */
+    int add(int start, int end) {
+        int hash = hash(data, start, end);
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != 0) {
+            int code = table[slot] - 1;
+            if (hashes[code] == hash && Arrays.equals(data, starts[code], ends[code], data, start, end)) {
+                return code;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (size == starts.length) {
+            hashes = Arrays.copyOf(hashes, size * 2);
+            starts = Arrays.copyOf(starts, size * 2);
+            ends = Arrays.copyOf(ends, size * 2);
+        }
+        int code = size++;
+        hashes[code] = hash;
+        starts[code] = start;
+        ends[code] = end;
+        table[slot] = code + 1;
+        if (size * 2 > table.length) {
+            rehash();
+        }
+        return code;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int start(int code) {
+        return starts[code];
+    }
+
+    int end(int code) {
+        return ends[code];
+    }
+
+    private static int hash(byte[] data, int start, int end) {
+        int h = 1;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + data[i];
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private void rehash() {
+        table = new int[table.length * 2];
+        int mask = table.length - 1;
+        for (int code = 0; code < size; code++) {
+            int slot = hashes[code] & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = code + 1;
+        }
+    }
+}
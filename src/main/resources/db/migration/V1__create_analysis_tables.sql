@@ -0,0 +1,35 @@
+-- Schema for stored analyses. Hibernate no longer creates tables (spring.jpa.hibernate.ddl-auto
+-- is none); every schema change is a new migration in this directory.
+
+create table data_analysis (
+    id                bigint generated by default as identity primary key,
+    original_data     blob,
+    original_size     bigint                   not null,
+    content_hash      varchar(64)              not null,
+    number_of_rows    integer                  not null,
+    number_of_columns integer                  not null,
+    total_characters  bigint                   not null,
+    created_at        timestamp(6) with time zone not null
+);
+
+-- deduplication of uploads
+create index idx_data_analysis_content_hash on data_analysis (content_hash);
+-- retention and bulk deletion by creation time
+create index idx_data_analysis_created_at on data_analysis (created_at);
+
+create table column_statistics (
+    id                bigint generated by default as identity primary key,
+    data_analysis_id  bigint       references data_analysis (id),
+    column_name       varchar(255) not null,
+    null_count        integer      not null,
+    unique_count      integer      not null,
+    inferred_type     varchar(32),
+    min_value         double precision,
+    max_value         double precision,
+    mean_value        double precision,
+    quantile_sketch   blob,
+    top_values_sketch blob
+);
+
+-- loading the statistics of an analysis, and deleting them in bulk
+create index idx_column_statistics_data_analysis_id on column_statistics (data_analysis_id);
@@ -0,0 +1,3 @@
+-- Share of a column's non-null values that support its inferred type. Null for analyses stored
+-- before type inference reported a confidence.
+alter table column_statistics add column type_confidence double precision;
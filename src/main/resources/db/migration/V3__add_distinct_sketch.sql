@@ -0,0 +1,3 @@
+-- HyperLogLog sketch of a column's distinct values, used to compare columns across analyses. Null
+-- for analyses stored before it was recorded.
+alter table column_statistics add column distinct_sketch blob;
@@ -0,0 +1,5 @@
+-- Delimiter and quote byte each analysis was read with, so that its stored data is tokenized the
+-- same way later. Analyses stored before formats were configurable were comma-separated and read
+-- without quoting (quote_char 0).
+alter table data_analysis add column delimiter tinyint default 44 not null;
+alter table data_analysis add column quote_char tinyint default 0 not null;
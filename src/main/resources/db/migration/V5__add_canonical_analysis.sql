@@ -0,0 +1,14 @@
+-- Marks the analysis that repeated uploads of the same content and format are answered with. The
+-- unique index stops two concurrent uploads of the same content from both being stored; forced
+-- re-analyses and analyses stripped by retention are not canonical (null), and nulls never collide.
+alter table data_analysis add column canonical boolean;
+
+update data_analysis a set canonical = true
+where a.original_data is not null
+  and a.id = (select min(b.id) from data_analysis b
+              where b.content_hash = a.content_hash
+                and b.delimiter = a.delimiter
+                and b.quote_char = a.quote_char
+                and b.original_data is not null);
+
+create unique index idx_data_analysis_canonical on data_analysis (content_hash, delimiter, quote_char, canonical);
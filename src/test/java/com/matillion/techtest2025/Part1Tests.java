@@ -1,8 +1,12 @@
 package com.matillion.techtest2025;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.matillion.techtest2025.config.AnalysisProperties;
 import com.matillion.techtest2025.controller.response.DataAnalysisResponse;
 import com.matillion.techtest2025.repository.DataAnalysisRepository;
+import com.matillion.techtest2025.repository.entity.DataAnalysisEntity;
+import com.matillion.techtest2025.service.DataAnalysisService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,12 +14,35 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.core.io.Resource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
 import org.springframework.test.web.servlet.MockMvc;
-
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.zip.GZIPOutputStream;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.http.MediaType.TEXT_EVENT_STREAM;
+import static org.springframework.http.MediaType.TEXT_EVENT_STREAM_VALUE;
 import static org.springframework.http.MediaType.TEXT_PLAIN;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -31,6 +58,12 @@ class Part1Tests {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private AnalysisProperties analysisProperties;
+
+    @MockitoSpyBean
+    private DataAnalysisService dataAnalysisService;
+
     @BeforeEach
     void setUp() {
         dataAnalysisRepository.deleteAll();
@@ -429,6 +462,89 @@ class Part1Tests {
         assertThat(dataAnalysisRepository.count()).isEqualTo(2);
     }
 
+    /**
+     * Tests that re-uploading identical content returns the existing analysis instead of storing
+     * a new one, and that {@code force=true} analyses it again.
+     * <p>
+     * Expected behavior:
+     * - The second upload returns the same results and links to the same analysis
+     * - Only one record is stored until re-analysis is forced
+     */
+    @Test
+    void shouldReuseAnalysisOfIdenticalUpload(
+            @Value("classpath:test-data/simple.csv")
+            Resource simpleCsv
+    ) throws Exception {
+        String csvData = simpleCsv.getContentAsString(UTF_8);
+
+        var first = mockMvc.perform(post("/api/analysis/ingestCsv")
+                        .contentType(TEXT_PLAIN)
+                        .content(csvData))
+                .andExpect(status().isOk())
+                .andReturn();
+        Long analysisId = dataAnalysisRepository.findAll().getFirst().getId();
+        assertThat(first.getResponse().getHeader("Content-Location")).isEqualTo("/api/analysis/" + analysisId);
+
+        var second = mockMvc.perform(post("/api/analysis/ingestCsv")
+                        .contentType(TEXT_PLAIN)
+                        .content(csvData))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Location", "/api/analysis/" + analysisId))
+                .andReturn();
+        assertThat(objectMapper.readValue(second.getResponse().getContentAsString(), DataAnalysisResponse.class))
+                .isEqualTo(objectMapper.readValue(first.getResponse().getContentAsString(), DataAnalysisResponse.class));
+        assertThat(dataAnalysisRepository.count()).isEqualTo(1);
+
+        mockMvc.perform(post("/api/analysis/ingestCsv")
+                        .param("force", "true")
+                        .contentType(TEXT_PLAIN)
+                        .content(csvData))
+                .andExpect(status().isOk());
+        assertThat(dataAnalysisRepository.count()).isEqualTo(2);
+    }
+
+    /**
+     * Tests that only one analysis per content and format is the canonical one that repeated
+     * uploads are answered with, so that two concurrent uploads of the same content cannot both
+     * be stored.
+     * <p>
+     * Expected behavior:
+     * - A forced re-analysis is stored, but is not canonical
+     * - The database rejects a second canonical analysis of the same content
+     */
+    @Test
+    void shouldKeepOneCanonicalAnalysisPerContent(
+            @Value("classpath:test-data/simple.csv")
+            Resource simpleCsv
+    ) throws Exception {
+        String csvData = simpleCsv.getContentAsString(UTF_8);
+        mockMvc.perform(post("/api/analysis/ingestCsv")
+                        .contentType(TEXT_PLAIN)
+                        .content(csvData))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/analysis/ingestCsv")
+                        .param("force", "true")
+                        .contentType(TEXT_PLAIN)
+                        .content(csvData))
+                .andExpect(status().isOk());
+
+        List<DataAnalysisEntity> analyses = dataAnalysisRepository.findAll();
+        assertThat(analyses).extracting(DataAnalysisEntity::getCanonical).containsExactlyInAnyOrder(true, null);
+
+        DataAnalysisEntity canonical = analyses.stream().filter(a -> a.getCanonical() != null).findFirst().orElseThrow();
+        assertThatThrownBy(() -> dataAnalysisRepository.save(DataAnalysisEntity.builder()
+                .originalBytes(canonical.getOriginalBytes())
+                .originalSize(canonical.getOriginalSize())
+                .contentHash(canonical.getContentHash())
+                .delimiter(canonical.getDelimiter())
+                .quoteChar(canonical.getQuoteChar())
+                .canonical(true)
+                .createdAt(OffsetDateTime.now())
+                .build()))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(dataAnalysisRepository.count()).isEqualTo(2);
+    }
+
     /**
      * Tests error handling for malformed CSV input.
      * <p>
@@ -512,4 +628,322 @@ class Part1Tests {
                         .content(""))
                 .andExpect(status().isBadRequest());
     }
+
+    /**
+     * Tests uploads that are not valid UTF-8, such as Latin-1 text.
+     * <p>
+     * Expected behavior:
+     * - Return HTTP 400 Bad Request naming the first invalid byte, since characters and distinct
+     *   values are counted on the raw bytes and would not match the decoded text
+     * - Nothing is persisted
+     */
+    @Test
+    void shouldRejectInputThatIsNotUtf8() throws Exception {
+        byte[] latin1 = "driver,nationality\nKimi Räikkönen,Finnish\nSergio Pérez,Mexican\n".getBytes(ISO_8859_1);
+
+        var result = mockMvc.perform(post("/api/analysis/ingestCsv")
+                        .contentType(TEXT_PLAIN)
+                        .content(latin1))
+                .andExpect(status().isBadRequest())
+                .andReturn();
+
+        assertThat(objectMapper.readTree(result.getResponse().getContentAsString()).get("detail").asText())
+                .isEqualTo("CSV data must be UTF-8 encoded; byte 25 is not valid UTF-8");
+        assertThat(dataAnalysisRepository.count()).isEqualTo(0);
+    }
+
+    /**
+     * Tests following an ingest as server-sent events ({@code Accept: text/event-stream}).
+     * <p>
+     * Expected behavior:
+     * - A {@code progress} event as each phase starts, in order
+     * - Once parsing is done, the events carry every row and the final null counts per column
+     * - The stream ends with a {@code result} event holding the id of the stored analysis
+     */
+    @Test
+    void shouldStreamIngestProgressAsServerSentEvents(
+            @Value("classpath:test-data/with-nulls.csv")
+            Resource withNullsCsv
+    ) throws Exception {
+        String csvData = withNullsCsv.getContentAsString(UTF_8);
+
+        var result = mockMvc.perform(post("/api/analysis/ingestCsv")
+                        .contentType(TEXT_PLAIN)
+                        .accept(TEXT_EVENT_STREAM)
+                        .content(csvData))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult(10_000);
+
+        assertThat(result.getResponse().getContentType()).startsWith(TEXT_EVENT_STREAM_VALUE);
+        List<Map.Entry<String, JsonNode>> events = serverSentEvents(result.getResponse().getContentAsString());
+        List<Map.Entry<String, JsonNode>> progress = events.subList(0, events.size() - 1);
+        assertThat(progress).allMatch(event -> event.getKey().equals("progress"));
+        assertThat(progress.stream().map(event -> event.getValue().get("phase").asText()).distinct())
+                .containsExactly("HASHING", "PARSING", "COUNTING", "STORING");
+
+        JsonNode parsed = progress.getLast().getValue();
+        assertThat(parsed.get("bytesProcessed").asLong()).isEqualTo(csvData.getBytes(UTF_8).length);
+        assertThat(parsed.get("totalBytes").asLong()).isEqualTo(csvData.getBytes(UTF_8).length);
+        assertThat(parsed.get("rows").asInt()).isEqualTo(4);
+        assertThat(parsed.get("columns")).extracting(JsonNode::asText)
+                .containsExactly("driver", "number", "team", "nationality");
+        assertThat(parsed.get("nullCounts")).extracting(JsonNode::asInt)
+                .containsExactly(0, 2, 2, 0);
+
+        Map.Entry<String, JsonNode> last = events.getLast();
+        assertThat(last.getKey()).isEqualTo("result");
+        assertThat(last.getValue().get("analysisId").asLong())
+                .isEqualTo(dataAnalysisRepository.findAll().getFirst().getId());
+        assertThat(last.getValue().get("duplicate").asBoolean()).isFalse();
+        assertThat(last.getValue().get("analysis").get("numberOfRows").asInt()).isEqualTo(4);
+    }
+
+    /**
+     * Tests that an ingest failing while it streams its progress ends the stream with an
+     * {@code error} event rather than a {@code result}.
+     */
+    @Test
+    void shouldEndProgressStreamWithErrorForInvalidCsv(
+            @Value("classpath:test-data/invalid.csv")
+            Resource invalidCsv
+    ) throws Exception {
+        var result = mockMvc.perform(post("/api/analysis/ingestCsv")
+                        .contentType(TEXT_PLAIN)
+                        .accept(TEXT_EVENT_STREAM)
+                        .content(invalidCsv.getContentAsString(UTF_8)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult(10_000);
+
+        Map.Entry<String, JsonNode> last = serverSentEvents(result.getResponse().getContentAsString()).getLast();
+        assertThat(last.getKey()).isEqualTo("error");
+        assertThat(last.getValue().get("status").asInt()).isEqualTo(400);
+        assertThat(dataAnalysisRepository.count()).isEqualTo(0);
+    }
+
+    /**
+     * Tests that a streamed ingest keeps its admission permit until it has finished, not just until
+     * its handler has returned the stream.
+     * <p>
+     * Expected behavior:
+     * - With one concurrent ingest allowed per client, a second ingest is rejected with HTTP 429
+     *   while the streamed one is still running
+     * - Once the {@code result} event has been sent, the permit is released and ingests are admitted again
+     */
+    @Test
+    void shouldHoldAdmissionPermitUntilStreamedIngestHasFinished(
+            @Value("classpath:test-data/with-nulls.csv")
+            Resource withNullsCsv
+    ) throws Exception {
+        byte[] csv = withNullsCsv.getContentAsByteArray();
+        CountDownLatch ingesting = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            ingesting.countDown();
+            finish.await(10, SECONDS);
+            return invocation.callRealMethod();
+        }).when(dataAnalysisService).analyzeCsvData(any(), any(), anyBoolean(), any());
+
+        AnalysisProperties.Limits perClient = analysisProperties.getAdmission().getPerClient();
+        int maxConcurrentIngests = perClient.getMaxConcurrentIngests();
+        try {
+            perClient.setMaxConcurrentIngests(1);
+            var streamed = mockMvc.perform(post("/api/analysis/ingestCsv")
+                            .contentType(TEXT_PLAIN)
+                            .accept(TEXT_EVENT_STREAM)
+                            .content(csv))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            assertThat(ingesting.await(10, SECONDS)).isTrue();
+
+            mockMvc.perform(post("/api/analysis/ingestCsv")
+                            .param("force", "true")
+                            .contentType(TEXT_PLAIN)
+                            .content(csv))
+                    .andExpect(status().isTooManyRequests())
+                    .andExpect(header().exists("Retry-After"));
+
+            finish.countDown();
+            streamed.getAsyncResult(10_000);
+            assertThat(serverSentEvents(streamed.getResponse().getContentAsString()).getLast().getKey())
+                    .isEqualTo("result");
+
+            mockMvc.perform(post("/api/analysis/ingestCsv")
+                            .param("force", "true")
+                            .contentType(TEXT_PLAIN)
+                            .content(csv))
+                    .andExpect(status().isOk());
+        } finally {
+            finish.countDown();
+            perClient.setMaxConcurrentIngests(maxConcurrentIngests);
+        }
+    }
+
+    /**
+     * Tests reading other dialects of delimited text with {@code ?format=}.
+     * <p>
+     * Expected behavior:
+     * - Tab-separated data is split on tabs; commas are ordinary characters
+     * - Quoted values may contain delimiters and line breaks, and a doubled quote stands for one quote
+     * - An empty quoted value is a null like an empty unquoted one
+     * - Unknown formats are rejected with HTTP 400
+     */
+    @Test
+    void shouldAnalyzeTabSeparatedInputWithQuotedValues() throws Exception {
+        String tsv = "driver\tteam\tquote\n"
+                + "Lewis Hamilton\tMercedes, then Ferrari\t\"Still \"\"I rise\"\"\"\n"
+                + "Max Verstappen\t\"Red\tBull\"\t\"simply\nlovely\"\n"
+                + "Lando Norris\t\"\"\t\n";
+
+        var result = mockMvc.perform(post("/api/analysis/ingestCsv")
+                        .param("format", "tsv")
+                        .contentType(TEXT_PLAIN)
+                        .content(tsv))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        DataAnalysisResponse response = objectMapper.readValue(
+                result.getResponse().getContentAsString(),
+                DataAnalysisResponse.class
+        );
+        assertThat(response.numberOfRows()).isEqualTo(3);
+        assertThat(response.numberOfColumns()).isEqualTo(3);
+        assertThat(response.columnStatistics())
+                .anyMatch(stat -> stat.columnName().equals("team") && stat.nullCount() == 1 && stat.uniqueCount() == 2)
+                .anyMatch(stat -> stat.columnName().equals("quote") && stat.nullCount() == 1 && stat.uniqueCount() == 2);
+
+        mockMvc.perform(post("/api/analysis/ingestCsv")
+                        .param("format", "xlsx")
+                        .contentType(TEXT_PLAIN)
+                        .content(tsv))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Tests uploads compressed with {@code Content-Encoding: gzip}.
+     * <p>
+     * Expected behavior:
+     * - The body is decompressed and analysed exactly like the uncompressed upload
+     * - Encodings other than gzip are rejected with HTTP 415, listing gzip in {@code Accept-Encoding}
+     */
+    @Test
+    void shouldAnalyzeGzipEncodedUpload(
+            @Value("classpath:test-data/with-nulls.csv")
+            Resource withNullsCsv
+    ) throws Exception {
+        byte[] csv = withNullsCsv.getContentAsByteArray();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(csv);
+        }
+
+        var gzipped = mockMvc.perform(post("/api/analysis/ingestCsv")
+                        .contentType(TEXT_PLAIN)
+                        .header("Content-Encoding", "gzip")
+                        .content(compressed.toByteArray()))
+                .andExpect(status().isOk())
+                .andReturn();
+        var plain = mockMvc.perform(post("/api/analysis/ingestCsv")
+                        .param("force", "true")
+                        .contentType(TEXT_PLAIN)
+                        .content(csv))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        DataAnalysisResponse fromGzip = objectMapper.readValue(gzipped.getResponse().getContentAsString(), DataAnalysisResponse.class);
+        DataAnalysisResponse fromPlain = objectMapper.readValue(plain.getResponse().getContentAsString(), DataAnalysisResponse.class);
+        assertThat(fromGzip.numberOfRows()).isEqualTo(4);
+        assertThat(fromGzip.totalCharacters()).isEqualTo(fromPlain.totalCharacters());
+        assertThat(fromGzip.columnStatistics()).isEqualTo(fromPlain.columnStatistics());
+
+        mockMvc.perform(post("/api/analysis/ingestCsv")
+                        .contentType(TEXT_PLAIN)
+                        .header("Content-Encoding", "br")
+                        .content(csv))
+                .andExpect(status().isUnsupportedMediaType())
+                .andExpect(header().string("Accept-Encoding", "gzip"));
+    }
+
+    /**
+     * Tests chunked uploads, which carry no {@code Content-Length}.
+     * <p>
+     * Expected behavior:
+     * - Admission reserves the per-client byte limit for the upload
+     * - Reading more than that limit fails with HTTP 413 instead of buffering the whole body
+     */
+    @Test
+    void shouldRejectChunkedUploadLargerThanByteLimit() throws Exception {
+        StringBuilder csv = new StringBuilder("id,name\n");
+        for (int i = 0; csv.length() <= 2048; i++) {
+            csv.append(i).append(",name-").append(i).append('\n');
+        }
+        byte[] body = csv.toString().getBytes(UTF_8);
+
+        AnalysisProperties.Limits perClient = analysisProperties.getAdmission().getPerClient();
+        DataSize maxInFlightBytes = perClient.getMaxInFlightBytes();
+        try {
+            perClient.setMaxInFlightBytes(DataSize.ofKilobytes(1));
+            mockMvc.perform(post("/api/analysis/ingestCsv")
+                            .contentType(TEXT_PLAIN)
+                            .content(body)
+                            .with(chunked()))
+                    .andExpect(status().isPayloadTooLarge());
+
+            perClient.setMaxInFlightBytes(DataSize.ofKilobytes(4));
+            mockMvc.perform(post("/api/analysis/ingestCsv")
+                            .contentType(TEXT_PLAIN)
+                            .content(body)
+                            .with(chunked()))
+                    .andExpect(status().isOk());
+        } finally {
+            perClient.setMaxInFlightBytes(maxInFlightBytes);
+        }
+    }
+
+    /**
+     * Sends the request body as a chunked upload, without a {@code Content-Length}.
+     */
+    private static RequestPostProcessor chunked() {
+        return request -> {
+            MockHttpServletRequest chunked = new MockHttpServletRequest(
+                    request.getServletContext(), request.getMethod(), request.getRequestURI()) {
+                @Override
+                public int getContentLength() {
+                    return -1;
+                }
+
+                @Override
+                public long getContentLengthLong() {
+                    return -1;
+                }
+            };
+            chunked.setContentType(request.getContentType());
+            chunked.setContent(request.getContentAsByteArray());
+            chunked.addHeader("Transfer-Encoding", "chunked");
+            return chunked;
+        };
+    }
+
+    /**
+     * Splits a {@code text/event-stream} body into (event name, JSON data) pairs.
+     */
+    private List<Map.Entry<String, JsonNode>> serverSentEvents(String body) throws Exception {
+        List<Map.Entry<String, JsonNode>> events = new ArrayList<>();
+        for (String block : body.split("\n\n")) {
+            String name = null;
+            StringBuilder data = new StringBuilder();
+            for (String line : block.split("\n")) {
+                if (line.startsWith("event:")) {
+                    name = line.substring("event:".length());
+                } else if (line.startsWith("data:")) {
+                    data.append(line.substring("data:".length()));
+                }
+            }
+            if (name != null) {
+                events.add(Map.entry(name, objectMapper.readTree(data.toString())));
+            }
+        }
+        return events;
+    }
 }
@@ -1,9 +1,16 @@
 package com.matillion.techtest2025;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.matillion.techtest2025.config.AnalysisProperties;
+import com.matillion.techtest2025.controller.response.BulkDeleteResponse;
 import com.matillion.techtest2025.controller.response.DataAnalysisResponse;
+import com.matillion.techtest2025.model.ColumnStatistics;
+import com.matillion.techtest2025.repository.ColumnStatisticsRepository;
 import com.matillion.techtest2025.repository.DataAnalysisRepository;
 import com.matillion.techtest2025.repository.entity.DataAnalysisEntity;
+import com.matillion.techtest2025.service.RetentionReport;
+import com.matillion.techtest2025.service.RetentionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,11 +19,22 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.core.io.Resource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
 import static org.springframework.http.MediaType.TEXT_PLAIN;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
@@ -45,6 +63,15 @@ class Part2Tests {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private ColumnStatisticsRepository columnStatisticsRepository;
+
+    @Autowired
+    private RetentionService retentionService;
+
+    @Autowired
+    private AnalysisProperties analysisProperties;
+
     @BeforeEach
     void setUp() {
         dataAnalysisRepository.deleteAll();
@@ -341,6 +368,191 @@ class Part2Tests {
         assertThat(response2.numberOfRows()).isEqualTo(4);
     }
 
+    /**
+     * Tests that an analysis can be streamed as JSON ({@code ?stream=true}) with the same content
+     * as the regular response, and as NDJSON with a summary line followed by one line per column.
+     */
+    @Test
+    void shouldStreamAnalysisAsJsonAndNdjson(
+            @Value("classpath:test-data/large.csv")
+            Resource largeCsv
+    ) throws Exception {
+        mockMvc.perform(post("/api/analysis/ingestCsv")
+                        .contentType(TEXT_PLAIN)
+                        .content(largeCsv.getContentAsString(UTF_8)))
+                .andExpect(status().isOk());
+
+        Long analysisId = dataAnalysisRepository.findAll().getFirst().getId();
+        var regular = mockMvc.perform(get("/api/analysis/{id}", analysisId))
+                .andExpect(status().isOk())
+                .andReturn();
+        DataAnalysisResponse expected = objectMapper.readValue(
+                regular.getResponse().getContentAsString(),
+                DataAnalysisResponse.class
+        );
+
+        var streamed = mockMvc.perform(get("/api/analysis/{id}", analysisId).param("stream", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        var streamedResult = mockMvc.perform(asyncDispatch(streamed))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/json"))
+                .andReturn();
+        DataAnalysisResponse streamedResponse = objectMapper.readValue(
+                streamedResult.getResponse().getContentAsString(),
+                DataAnalysisResponse.class
+        );
+        assertThat(streamedResponse).isEqualTo(expected);
+
+        var ndjson = mockMvc.perform(get("/api/analysis/{id}", analysisId).accept("application/x-ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String[] lines = mockMvc.perform(asyncDispatch(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn()
+                .getResponse()
+                .getContentAsString(UTF_8)
+                .split("\n");
+        assertThat(lines).hasSize(1 + 6);
+        var summary = objectMapper.readTree(lines[0]);
+        assertThat(summary.get("numberOfRows").asInt()).isEqualTo(10);
+        assertThat(summary.get("numberOfColumns").asInt()).isEqualTo(6);
+        for (int c = 0; c < 6; c++) {
+            assertThat(objectMapper.readValue(lines[c + 1], ColumnStatistics.class))
+                    .isEqualTo(expected.columnStatistics().get(c));
+        }
+    }
+
+    /**
+     * Tests that the analysis is served as CBOR when a client asks for {@code application/cbor},
+     * with the same content as the JSON response.
+     */
+    @Test
+    void shouldServeAnalysisAsCborWhenRequested(
+            @Value("classpath:test-data/large.csv")
+            Resource largeCsv
+    ) throws Exception {
+        mockMvc.perform(post("/api/analysis/ingestCsv")
+                        .contentType(TEXT_PLAIN)
+                        .content(largeCsv.getContentAsString(UTF_8)))
+                .andExpect(status().isOk());
+
+        Long analysisId = dataAnalysisRepository.findAll().getFirst().getId();
+        var json = mockMvc.perform(get("/api/analysis/{id}", analysisId))
+                .andExpect(status().isOk())
+                .andReturn();
+        DataAnalysisResponse expected = objectMapper.readValue(
+                json.getResponse().getContentAsString(),
+                DataAnalysisResponse.class
+        );
+
+        var cbor = mockMvc.perform(get("/api/analysis/{id}", analysisId).accept("application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/cbor"))
+                .andReturn();
+        byte[] body = cbor.getResponse().getContentAsByteArray();
+        DataAnalysisResponse decoded = CBORMapper.builder().findAndAddModules().build()
+                .readValue(body, DataAnalysisResponse.class);
+
+        assertThat(decoded).isEqualTo(expected);
+        assertThat(body.length).isLessThan(json.getResponse().getContentAsByteArray().length);
+    }
+
+    /**
+     * Tests conditional retrieval: stored analyses carry a strong ETag per representation, a
+     * matching {@code If-None-Match} gets {@code 304 Not Modified} with no body, and a deleted
+     * analysis is reported as missing rather than not modified.
+     */
+    @Test
+    void shouldAnswerConditionalGetWithNotModified(
+            @Value("classpath:test-data/large.csv")
+            Resource largeCsv
+    ) throws Exception {
+        mockMvc.perform(post("/api/analysis/ingestCsv")
+                        .contentType(TEXT_PLAIN)
+                        .content(largeCsv.getContentAsString(UTF_8)))
+                .andExpect(status().isOk());
+
+        Long analysisId = dataAnalysisRepository.findAll().getFirst().getId();
+        var first = mockMvc.perform(get("/api/analysis/{id}", analysisId))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", containsString("immutable")))
+                .andExpect(header().string("Vary", containsString("Accept")))
+                .andReturn();
+        String etag = first.getResponse().getHeader("ETag");
+        assertThat(etag).startsWith("\"" + analysisId + "-");
+
+        var notModified = mockMvc.perform(get("/api/analysis/{id}", analysisId).header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andReturn();
+        assertThat(notModified.getResponse().getContentAsByteArray()).isEmpty();
+
+        // other representations of the same analysis have their own tags
+        String cborEtag = mockMvc.perform(get("/api/analysis/{id}", analysisId).accept("application/cbor"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        String profileEtag = mockMvc.perform(get("/api/analysis/{id}/profile", analysisId)
+                        .header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertThat(cborEtag).isNotEqualTo(etag);
+        assertThat(profileEtag).isNotEqualTo(etag);
+
+        mockMvc.perform(delete("/api/analysis/{id}", analysisId))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/api/analysis/{id}", analysisId).header("If-None-Match", etag))
+                .andExpect(status().isNotFound());
+    }
+
+    /**
+     * Tests that only successful responses carry caching headers: a rejected request gets neither
+     * a tag nor {@code Cache-Control}, responses read from the stored rows are not marked
+     * {@code immutable} because retention can remove the rows, and a diff's tag changes with
+     * either analysis.
+     */
+    @Test
+    void shouldOnlyCacheSuccessfulResponses(
+            @Value("classpath:test-data/simple.csv")
+            Resource simpleCsv,
+            @Value("classpath:test-data/large.csv")
+            Resource largeCsv
+    ) throws Exception {
+        for (Resource csv : List.of(largeCsv, largeCsv, simpleCsv)) {
+            mockMvc.perform(post("/api/analysis/ingestCsv")
+                            .param("force", "true")
+                            .contentType(TEXT_PLAIN)
+                            .content(csv.getContentAsString(UTF_8)))
+                    .andExpect(status().isOk());
+        }
+        List<Long> ids = dataAnalysisRepository.findAll().stream().map(DataAnalysisEntity::getId).sorted().toList();
+
+        mockMvc.perform(get("/api/analysis/{id}/profile", ids.get(0)).param("columns", "unknown"))
+                .andExpect(status().isBadRequest())
+                .andExpect(header().doesNotExist("ETag"))
+                .andExpect(header().doesNotExist("Cache-Control"));
+        mockMvc.perform(get("/api/analysis/{id}/profile", ids.get(0)).param("columns", "unknown")
+                        .header("If-None-Match", "*"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/analysis/{id}/rows", ids.get(0)).param("where", "podiums>100"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(header().string("Cache-Control", not(containsString("immutable"))));
+
+        String sameContent = mockMvc.perform(get("/api/analysis/{id}/diff/{otherId}", ids.get(0), ids.get(1)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        String otherContent = mockMvc.perform(get("/api/analysis/{id}/diff/{otherId}", ids.get(0), ids.get(2)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertThat(sameContent).isNotNull().isNotEqualTo(otherContent);
+        mockMvc.perform(get("/api/analysis/{id}/diff/{otherId}", ids.get(0), ids.get(2))
+                        .header("If-None-Match", sameContent))
+                .andExpect(status().isOk());
+    }
+
     // ==================== DELETE ENDPOINT TESTS ====================
 
     /**
@@ -499,4 +711,126 @@ class Part2Tests {
         // Column statistics should also be deleted due to cascade
         // (This is verified implicitly by the relationship configuration)
     }
+
+    /**
+     * Tests bulk deletion by id list and by creation time range.
+     * <p>
+     * Expected behavior:
+     * - Listed analyses (and their column statistics) are deleted; unknown ids are ignored
+     * - A creation time range deletes the analyses created in it
+     * - Giving both or neither selection is rejected with HTTP 400
+     */
+    @Test
+    void shouldBulkDeleteByIdsAndDateRange(
+            @Value("classpath:test-data/simple.csv")
+            Resource simpleCsv,
+            @Value("classpath:test-data/with-nulls.csv")
+            Resource withNullsCsv,
+            @Value("classpath:test-data/single-row.csv")
+            Resource singleRowCsv
+    ) throws Exception {
+        for (Resource csv : List.of(simpleCsv, withNullsCsv, singleRowCsv)) {
+            mockMvc.perform(post("/api/analysis/ingestCsv")
+                            .contentType(TEXT_PLAIN)
+                            .content(csv.getContentAsByteArray()))
+                    .andExpect(status().isOk());
+        }
+        var entities = dataAnalysisRepository.findAll();
+        Long first = entities.get(0).getId();
+        Long second = entities.get(1).getId();
+        int statsOfFirstTwo = entities.get(0).getColumnStatistics().size() + entities.get(1).getColumnStatistics().size();
+
+        var byIds = mockMvc.perform(post("/api/analysis/bulkDelete")
+                        .contentType(APPLICATION_JSON)
+                        .content("{\"ids\": [" + first + ", " + second + ", 999999]}"))
+                .andExpect(status().isOk())
+                .andReturn();
+        BulkDeleteResponse deleted = objectMapper.readValue(byIds.getResponse().getContentAsString(), BulkDeleteResponse.class);
+        assertThat(deleted.deletedAnalyses()).isEqualTo(2);
+        assertThat(deleted.deletedColumnStatistics()).isEqualTo(statsOfFirstTwo);
+        assertThat(dataAnalysisRepository.count()).isEqualTo(1);
+
+        mockMvc.perform(post("/api/analysis/bulkDelete")
+                        .contentType(APPLICATION_JSON)
+                        .content("{\"createdBefore\": \"2000-01-01T00:00:00Z\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deletedAnalyses").value(0));
+        mockMvc.perform(post("/api/analysis/bulkDelete")
+                        .contentType(APPLICATION_JSON)
+                        .content("{\"createdAfter\": \"2000-01-01T00:00:00Z\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deletedAnalyses").value(1));
+        assertThat(dataAnalysisRepository.count()).isZero();
+        assertThat(columnStatisticsRepository.count()).isZero();
+
+        mockMvc.perform(post("/api/analysis/bulkDelete")
+                        .contentType(APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    // ==================== RETENTION TESTS ====================
+
+    /**
+     * Tests the retention policies: the size limit strips the oldest analysis' data but keeps its
+     * statistics, sampling it without a columnar copy reports {@code 410 Gone}, and the age limit
+     * deletes analyses with their column statistics.
+     */
+    @Test
+    void shouldStripThenDeleteAnalysesUnderRetention(
+            @Value("classpath:test-data/simple.csv")
+            Resource simpleCsv,
+            @Value("classpath:test-data/with-nulls.csv")
+            Resource withNullsCsv
+    ) throws Exception {
+        byte[] csvData1 = simpleCsv.getContentAsByteArray();
+        byte[] csvData2 = withNullsCsv.getContentAsByteArray();
+        mockMvc.perform(post("/api/analysis/ingestCsv").contentType(TEXT_PLAIN).content(csvData1))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/analysis/ingestCsv").contentType(TEXT_PLAIN).content(csvData2))
+                .andExpect(status().isOk());
+        var entities = dataAnalysisRepository.findAll();
+        Long oldestId = entities.get(0).getId();
+        Long newestId = entities.get(1).getId();
+        String before = mockMvc.perform(get("/api/analysis/{id}", oldestId))
+                .andReturn().getResponse().getContentAsString();
+
+        AnalysisProperties.Retention retention = analysisProperties.getStorage().getRetention();
+        AnalysisProperties.Columnar columnar = analysisProperties.getStorage().getColumnar();
+        try {
+            retention.setMaxStoredData(DataSize.ofBytes(csvData2.length));
+            RetentionReport report = retentionService.applyPolicies();
+
+            assertThat(report.stripped()).isEqualTo(1);
+            assertThat(report.reclaimedBytes()).isEqualTo(csvData1.length);
+            assertThat(dataAnalysisRepository.findById(oldestId).orElseThrow().getOriginalBytes()).isNull();
+            assertThat(dataAnalysisRepository.findById(newestId).orElseThrow().getOriginalBytes()).isEqualTo(csvData2);
+            assertThat(mockMvc.perform(get("/api/analysis/{id}", oldestId))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString())
+                    .isEqualTo(before);
+
+            columnar.setEnabled(false);
+            mockMvc.perform(get("/api/analysis/{id}/profile", oldestId)
+                            .param("sample", "NTH")
+                            .param("sampleEvery", "2"))
+                    .andExpect(status().isGone());
+            mockMvc.perform(get("/api/analysis/{id}/profile", newestId)
+                            .param("sample", "NTH")
+                            .param("sampleEvery", "2"))
+                    .andExpect(status().isOk());
+
+            retention.setMaxStoredData(null);
+            retention.setDeleteAfter(Duration.ZERO);
+            report = retentionService.applyPolicies();
+
+            assertThat(report.deleted()).isEqualTo(2);
+            assertThat(dataAnalysisRepository.count()).isZero();
+            assertThat(columnStatisticsRepository.count()).isZero();
+        } finally {
+            retention.setMaxStoredData(null);
+            retention.setDeleteAfter(null);
+            columnar.setEnabled(true);
+        }
+    }
 }
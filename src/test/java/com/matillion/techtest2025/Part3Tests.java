@@ -2,7 +2,15 @@ package com.matillion.techtest2025;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.matillion.techtest2025.controller.response.AnalysisDiffResponse;
+import com.matillion.techtest2025.model.ColumnDrift;
+import com.matillion.techtest2025.model.ColumnPairStatistics;
 import com.matillion.techtest2025.model.ColumnProfile;
+import com.matillion.techtest2025.model.DriftKind;
+import com.matillion.techtest2025.model.HistogramBucket;
+import com.matillion.techtest2025.model.InferredType;
+import com.matillion.techtest2025.model.ValuePairFrequency;
 import com.matillion.techtest2025.repository.DataAnalysisRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,13 +21,22 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.core.io.Resource;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
 
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.assertj.core.api.Assertions.within;
 import static org.springframework.http.MediaType.TEXT_PLAIN;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -67,6 +84,498 @@ class Part3Tests {
         assertThat(profiles.stream().anyMatch(p -> p.columnName().equals("number") && p.min() != null && p.max() != null && p.mean() != null)).isTrue();
         assertThat(profiles.stream().anyMatch(p -> p.columnName().equals("driver") && p.min() == null && p.max() == null && p.mean() == null)).isTrue();
     }
-}
 
+    @Test
+    void shouldInferRichTypesWithConfidence() throws Exception {
+        StringBuilder csv = new StringBuilder("id,email,joined,last_seen,plan,note\n");
+        for (int i = 0; i < 20; i++) {
+            csv.append(String.format("%08x-0000-4000-8000-%012x", i, i)).append(',')
+                    .append(i == 0 ? "not an address" : "driver" + i + "@example.com").append(',')
+                    .append(i == 1 ? "2024-02-30" : LocalDate.of(2024, 1, 1).plusDays(i)).append(',')
+                    .append("2024-03-0").append(i % 9 + 1).append(i % 2 == 0 ? "T10:15:30Z" : " 10:15:30.125+01:00").append(',')
+                    .append(List.of("free", "pro", "team").get(i % 3)).append(',')
+                    .append("note ").append(i).append('\n');
+        }
+
+        mockMvc.perform(post("/api/analysis/ingestCsv")
+                        .contentType(TEXT_PLAIN)
+                        .content(csv.toString()))
+                .andExpect(status().isOk());
+
+        Long id = dataAnalysisRepository.findAll().getFirst().getId();
+        var result = mockMvc.perform(get("/api/analysis/{id}/profile", id))
+                .andExpect(status().isOk())
+                .andReturn();
+        List<ColumnProfile> profiles = objectMapper.readValue(
+                result.getResponse().getContentAsString(),
+                new TypeReference<List<ColumnProfile>>() {}
+        );
+
+        assertThat(profiles).extracting(ColumnProfile::inferredType).containsExactly(
+                InferredType.UUID, InferredType.EMAIL, InferredType.DATE, InferredType.TIMESTAMP,
+                InferredType.CATEGORICAL, InferredType.STRING);
+        // one malformed cell in 20 no longer turns the column into a string column
+        assertThat(profiles).extracting(ColumnProfile::typeConfidence).containsExactly(
+                1.0, 0.95, 0.95, 1.0, 0.85, 1.0);
+    }
+
+    @Test
+    void shouldReturnQuantilesAndHistogramForNumericColumns(
+            @Value("classpath:test-data/large.csv") Resource largeCsv
+    ) throws Exception {
+        String csv = largeCsv.getContentAsString(UTF_8);
+
+        mockMvc.perform(post("/api/analysis/ingestCsv")
+                        .contentType(TEXT_PLAIN)
+                        .content(csv))
+                .andExpect(status().isOk());
+
+        Long id = dataAnalysisRepository.findAll().getFirst().getId();
+
+        var result = mockMvc.perform(get("/api/analysis/{id}/profile", id))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        List<ColumnProfile> profiles = objectMapper.readValue(
+                result.getResponse().getContentAsString(),
+                new TypeReference<List<ColumnProfile>>() {}
+        );
+
+        ColumnProfile podiums = profiles.stream().filter(p -> p.columnName().equals("podiums")).findFirst().orElseThrow();
+        assertThat(podiums.median()).isBetween(podiums.min(), podiums.max());
+        assertThat(podiums.p95()).isGreaterThanOrEqualTo(podiums.median());
+        assertThat(podiums.p99()).isGreaterThanOrEqualTo(podiums.p95());
+        assertThat(podiums.histogram()).isNotEmpty();
+        long nonNullRows = csv.lines().skip(1).filter(line -> !line.isEmpty()).count() - podiums.nullCount();
+        assertThat(podiums.histogram().stream().mapToLong(HistogramBucket::count).sum()).isEqualTo(nonNullRows);
+
+        ColumnProfile driver = profiles.stream().filter(p -> p.columnName().equals("driver")).findFirst().orElseThrow();
+        assertThat(driver.median()).isNull();
+        assertThat(driver.histogram()).isNull();
+    }
+
+    @Test
+    void shouldReturnMostFrequentValuesWithRequestedTopK(
+            @Value("classpath:test-data/large.csv") Resource largeCsv
+    ) throws Exception {
+        mockMvc.perform(post("/api/analysis/ingestCsv")
+                        .contentType(TEXT_PLAIN)
+                        .content(largeCsv.getContentAsString(UTF_8)))
+                .andExpect(status().isOk());
+
+        Long id = dataAnalysisRepository.findAll().getFirst().getId();
+
+        var result = mockMvc.perform(get("/api/analysis/{id}/profile", id).param("topK", "2"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        List<ColumnProfile> profiles = objectMapper.readValue(
+                result.getResponse().getContentAsString(),
+                new TypeReference<List<ColumnProfile>>() {}
+        );
+
+        ColumnProfile team = profiles.stream().filter(p -> p.columnName().equals("team")).findFirst().orElseThrow();
+        assertThat(team.topValues()).hasSize(2);
+        assertThat(team.topValues().getFirst().count()).isGreaterThanOrEqualTo(team.topValues().get(1).count());
+        assertThat(team.topValues()).allMatch(v -> v.error() == 0);
+
+        mockMvc.perform(get("/api/analysis/{id}/profile", id).param("topK", "100000"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldRestrictProfilesToRequestedColumnsAndReportSampleSize(
+            @Value("classpath:test-data/large.csv") Resource largeCsv
+    ) throws Exception {
+        mockMvc.perform(post("/api/analysis/ingestCsv")
+                        .contentType(TEXT_PLAIN)
+                        .content(largeCsv.getContentAsString(UTF_8)))
+                .andExpect(status().isOk());
+
+        Long id = dataAnalysisRepository.findAll().getFirst().getId();
+
+        var full = mockMvc.perform(get("/api/analysis/{id}/profile", id).param("columns", "podiums", "driver"))
+                .andExpect(status().isOk())
+                .andReturn();
+        List<ColumnProfile> fullProfiles = objectMapper.readValue(
+                full.getResponse().getContentAsString(),
+                new TypeReference<List<ColumnProfile>>() {}
+        );
+        assertThat(fullProfiles).extracting(ColumnProfile::columnName).containsExactly("driver", "podiums");
+        assertThat(fullProfiles).allMatch(p -> p.sampleSize() == 10);
+
+        var everySecond = mockMvc.perform(get("/api/analysis/{id}/profile", id)
+                        .param("columns", "podiums")
+                        .param("sample", "NTH")
+                        .param("sampleEvery", "2"))
+                .andExpect(status().isOk())
+                .andReturn();
+        List<ColumnProfile> everySecondProfiles = objectMapper.readValue(
+                everySecond.getResponse().getContentAsString(),
+                new TypeReference<List<ColumnProfile>>() {}
+        );
+        assertThat(everySecondProfiles).hasSize(1);
+        assertThat(everySecondProfiles.getFirst().sampleSize()).isEqualTo(5);
+
+        var reservoir = mockMvc.perform(get("/api/analysis/{id}/profile", id)
+                        .param("columns", "team")
+                        .param("sample", "RESERVOIR")
+                        .param("sampleSize", "3")
+                        .param("seed", "42"))
+                .andExpect(status().isOk())
+                .andReturn();
+        List<ColumnProfile> reservoirProfiles = objectMapper.readValue(
+                reservoir.getResponse().getContentAsString(),
+                new TypeReference<List<ColumnProfile>>() {}
+        );
+        assertThat(reservoirProfiles.getFirst().sampleSize()).isEqualTo(3);
+        assertThat(reservoirProfiles.getFirst().uniqueCount()).isLessThanOrEqualTo(3);
+
+        mockMvc.perform(get("/api/analysis/{id}/profile", id).param("columns", "no_such_column"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldStreamRowsMatchingFilter(
+            @Value("classpath:test-data/large.csv") Resource largeCsv
+    ) throws Exception {
+        mockMvc.perform(post("/api/analysis/ingestCsv")
+                        .contentType(TEXT_PLAIN)
+                        .content(largeCsv.getContentAsString(UTF_8)))
+                .andExpect(status().isOk());
+
+        Long id = dataAnalysisRepository.findAll().getFirst().getId();
+        String header = "driver,number,team,nationality,podiums,championships\n";
+
+        assertThat(queryRows(id, "podiums>100", null)).isEqualTo(header
+                + "Max Verstappen,1,Red Bull Racing,Dutch,104,3\n"
+                + "Lewis Hamilton,44,Mercedes,British,199,7\n"
+                + "Fernando Alonso,14,Aston Martin,Spanish,106,2\n");
+        assertThat(queryRows(id, "nationality = Monégasque", null)).isEqualTo(header
+                + "Charles Leclerc,16,Ferrari,Monégasque,36,0\n");
+        assertThat(queryRows(id, "championships<=0", "2")).isEqualTo(header
+                + "Charles Leclerc,16,Ferrari,Monégasque,36,0\n"
+                + "Lando Norris,4,McLaren,British,23,0\n");
+        assertThat(queryRows(id, "podiums>1000", null)).isEqualTo(header);
+
+        mockMvc.perform(get("/api/analysis/{id}/rows", id).param("where", "podiums"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/analysis/{id}/rows", id).param("where", "wins>1"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/analysis/{id}/rows", id + 1).param("where", "podiums>1"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldStreamRowsOfOtherFormatsAsQuotedCsv() throws Exception {
+        long id = ingest("team|principal|note\n"
+                + "Ferrari|Vasseur|\"Red, \"\"fast\"\"\"\n"
+                + "McLaren|Stella|orange\n", "psv");
+
+        assertThat(queryRows(id, "team = Ferrari", null)).isEqualTo("team,principal,note\n"
+                + "Ferrari,Vasseur,\"Red, \"\"fast\"\"\"\n");
+        assertThat(queryRows(id, "note = orange", null)).isEqualTo("team,principal,note\n"
+                + "McLaren,Stella,orange\n");
+    }
+
+    private String queryRows(Long id, String where, String limit) throws Exception {
+        var rows = get("/api/analysis/{id}/rows", id).param("where", where);
+        if (limit != null) {
+            rows.param("limit", limit);
+        }
+        var started = mockMvc.perform(rows)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andReturn()
+                .getResponse()
+                .getContentAsString(UTF_8);
+    }
+
+    @Test
+    void shouldExportTypedColumnsAsArrowStream() throws Exception {
+        long id = ingest("""
+                driver,wins,points,champion,debut
+                Hamilton,105,4862.5,true,2007-03-18
+                Verstappen,63,3023.5,true,2015-03-15
+                Norris,,1005,false,2019-03-17
+                """);
+
+        byte[] all = exportArrow(id, null);
+        // a schema and a record batch, each after the continuation marker, then the end-of-stream marker
+        assertThat(Arrays.copyOfRange(all, 0, 4)).containsOnly((byte) -1);
+        assertThat(Arrays.copyOfRange(all, all.length - 8, all.length)).containsExactly(-1, -1, -1, -1, 0, 0, 0, 0);
+        assertThat(all.length % 8).isZero();
+        String text = new String(all, ISO_8859_1);
+        assertThat(text).contains("driver", "wins", "debut", "Verstappen", "analysisId", "inferredType", "DECIMAL", "nullCount");
+        // integers are stored as little-endian longs, not text
+        assertThat(text).contains(new String(new byte[]{105, 0, 0, 0, 0, 0, 0, 0}, ISO_8859_1));
+
+        String drivers = new String(exportArrow(id, "driver"), ISO_8859_1);
+        assertThat(drivers).contains("driver", "Norris").doesNotContain("wins", "debut");
+
+        mockMvc.perform(get("/api/analysis/{id}/export", id).param("columns", "team"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/analysis/{id}/export", id + 1000))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldExportColumnsWithUnmatchedValuesAsText() throws Exception {
+        long id = ingest("""
+                driver,laps
+                Hamilton,58
+                Verstappen,58
+                Norris,58
+                Leclerc,57
+                Piastri,57
+                Russell,57
+                Sainz,56
+                Alonso,56
+                Gasly,55
+                Stroll,DNF
+                """);
 
+        String text = new String(exportArrow(id, "laps"), ISO_8859_1);
+        // INTEGER with confidence 0.9: typed, the DNF would have been written as null
+        assertThat(text).contains("INTEGER", "0.9", "DNF");
+        assertThat(text).doesNotContain(new String(new byte[]{58, 0, 0, 0, 0, 0, 0, 0}, ISO_8859_1));
+    }
+
+    private byte[] exportArrow(long id, String columns) throws Exception {
+        var export = get("/api/analysis/{id}/export", id);
+        if (columns != null) {
+            export.param("columns", columns);
+        }
+        var started = mockMvc.perform(export)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/vnd.apache.arrow.stream"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"analysis-" + id + ".arrows\""))
+                .andReturn()
+                .getResponse()
+                .getContentAsByteArray();
+    }
+
+    @Test
+    void shouldStreamColumnProfilesAsJsonAndNdjson(
+            @Value("classpath:test-data/large.csv") Resource largeCsv
+    ) throws Exception {
+        mockMvc.perform(post("/api/analysis/ingestCsv")
+                        .contentType(TEXT_PLAIN)
+                        .content(largeCsv.getContentAsString(UTF_8)))
+                .andExpect(status().isOk());
+
+        Long id = dataAnalysisRepository.findAll().getFirst().getId();
+        var regular = mockMvc.perform(get("/api/analysis/{id}/profile", id).param("topK", "3"))
+                .andExpect(status().isOk())
+                .andReturn();
+        List<ColumnProfile> expected = objectMapper.readValue(
+                regular.getResponse().getContentAsString(),
+                new TypeReference<List<ColumnProfile>>() {}
+        );
+
+        var streamed = mockMvc.perform(get("/api/analysis/{id}/profile", id).param("topK", "3").param("stream", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String streamedJson = mockMvc.perform(asyncDispatch(streamed))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/json"))
+                .andReturn()
+                .getResponse()
+                .getContentAsString(UTF_8);
+        assertThat(objectMapper.readValue(streamedJson, new TypeReference<List<ColumnProfile>>() {}))
+                .isEqualTo(expected);
+
+        var ndjson = mockMvc.perform(get("/api/analysis/{id}/profile", id).param("topK", "3").accept("application/x-ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String[] lines = mockMvc.perform(asyncDispatch(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn()
+                .getResponse()
+                .getContentAsString(UTF_8)
+                .split("\n");
+        assertThat(lines).hasSize(expected.size());
+        for (int c = 0; c < lines.length; c++) {
+            assertThat(objectMapper.readValue(lines[c], ColumnProfile.class)).isEqualTo(expected.get(c));
+        }
+    }
+
+    @Test
+    void shouldServeColumnProfilesAsSmileWhenRequested(
+            @Value("classpath:test-data/large.csv") Resource largeCsv
+    ) throws Exception {
+        mockMvc.perform(post("/api/analysis/ingestCsv")
+                        .contentType(TEXT_PLAIN)
+                        .content(largeCsv.getContentAsString(UTF_8)))
+                .andExpect(status().isOk());
+
+        Long id = dataAnalysisRepository.findAll().getFirst().getId();
+        var json = mockMvc.perform(get("/api/analysis/{id}/profile", id))
+                .andExpect(status().isOk())
+                .andReturn();
+        List<ColumnProfile> expected = objectMapper.readValue(
+                json.getResponse().getContentAsString(),
+                new TypeReference<List<ColumnProfile>>() {}
+        );
+
+        var smile = mockMvc.perform(get("/api/analysis/{id}/profile", id).accept("application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-jackson-smile"))
+                .andReturn();
+        List<ColumnProfile> decoded = SmileMapper.builder().build().readValue(
+                smile.getResponse().getContentAsByteArray(),
+                new TypeReference<List<ColumnProfile>>() {}
+        );
+
+        assertThat(decoded).isEqualTo(expected);
+    }
+
+    @Test
+    void shouldComputeCorrelationsAndCoOccurrencesForRequestedPairs(
+            @Value("classpath:test-data/large.csv") Resource largeCsv
+    ) throws Exception {
+        long id = ingest(largeCsv.getContentAsString(UTF_8));
+
+        var result = mockMvc.perform(get("/api/analysis/{id}/correlations", id)
+                        .param("columns", "championships", "podiums", "team", "nationality"))
+                .andExpect(status().isOk())
+                .andReturn();
+        List<ColumnPairStatistics> pairs = objectMapper.readValue(
+                result.getResponse().getContentAsString(),
+                new TypeReference<List<ColumnPairStatistics>>() {}
+        );
+
+        // every pair of the four columns, in header order
+        assertThat(pairs).extracting(ColumnPairStatistics::column, ColumnPairStatistics::otherColumn).containsExactly(
+                tuple("team", "nationality"), tuple("team", "podiums"), tuple("team", "championships"),
+                tuple("nationality", "podiums"), tuple("nationality", "championships"),
+                tuple("podiums", "championships"));
+
+        double[] podiums = {104, 199, 36, 23, 26, 13, 39, 106, 6, 4};
+        double[] championships = {3, 7, 0, 0, 0, 0, 0, 2, 0, 0};
+        ColumnPairStatistics numeric = pairs.getLast();
+        assertThat(numeric.rows()).isEqualTo(10);
+        assertThat(numeric.correlation()).isCloseTo(pearson(podiums, championships), within(1e-12));
+        assertThat(numeric.correlation()).isGreaterThan(0.9);
+        assertThat(numeric.topPairs()).isNull();
+
+        ColumnPairStatistics teamNationality = pairs.getFirst();
+        assertThat(teamNationality.rows()).isEqualTo(10);
+        assertThat(teamNationality.correlation()).isNull();
+        assertThat(teamNationality.topPairs().getFirst()).isEqualTo(new ValuePairFrequency("Mercedes", "British", 2, 0));
+
+        // pairing with a second list grows linearly
+        var paired = mockMvc.perform(get("/api/analysis/{id}/correlations", id)
+                        .param("columns", "podiums")
+                        .param("with", "championships", "number", "podiums"))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertThat(objectMapper.readValue(paired.getResponse().getContentAsString(),
+                new TypeReference<List<ColumnPairStatistics>>() {}))
+                .extracting(ColumnPairStatistics::otherColumn)
+                .containsExactly("number", "championships");
+
+        mockMvc.perform(get("/api/analysis/{id}/correlations", id))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/analysis/{id}/correlations", id).param("columns", "podiums", "laps"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private static double pearson(double[] x, double[] y) {
+        double meanX = Arrays.stream(x).average().orElseThrow();
+        double meanY = Arrays.stream(y).average().orElseThrow();
+        double xy = 0;
+        double xx = 0;
+        double yy = 0;
+        for (int i = 0; i < x.length; i++) {
+            xy += (x[i] - meanX) * (y[i] - meanY);
+            xx += (x[i] - meanX) * (x[i] - meanX);
+            yy += (y[i] - meanY) * (y[i] - meanY);
+        }
+        return xy / Math.sqrt(xx * yy);
+    }
+
+    @Test
+    void shouldReportSchemaDriftBetweenAnalyses() throws Exception {
+        StringBuilder monday = new StringBuilder("id,team,score,comment\n");
+        StringBuilder tuesday = new StringBuilder("id,team,score,region\n");
+        List<String> teams = List.of("Ferrari", "McLaren", "Mercedes", "Red Bull", "Williams");
+        for (int i = 0; i < 100; i++) {
+            monday.append(i).append(',').append(teams.get(i % 5)).append(',')
+                    .append(i % 50).append(',').append(i % 10 == 0 ? "" : "ok").append('\n');
+            // half of the ids carry over, a fifth of the teams are missing and every score is 100 higher
+            tuesday.append(i + 50).append(',').append(i % 5 == 0 ? "" : teams.get(i % 5)).append(',')
+                    .append(i % 50 + 100).append(',').append("EU").append('\n');
+        }
+        long mondayId = ingest(monday.toString());
+        long tuesdayId = ingest(tuesday.toString());
+
+        var result = mockMvc.perform(get("/api/analysis/{id}/diff/{otherId}", mondayId, tuesdayId))
+                .andExpect(status().isOk())
+                .andReturn();
+        AnalysisDiffResponse diff = objectMapper.readValue(
+                result.getResponse().getContentAsString(), AnalysisDiffResponse.class);
+
+        assertThat(diff.drifted()).isTrue();
+        assertThat(diff.addedColumns()).containsExactly("region");
+        assertThat(diff.removedColumns()).containsExactly("comment");
+        assertThat(diff.columns()).extracting(ColumnDrift::columnName).containsExactly("id", "team", "score");
+
+        ColumnDrift id = diff.columns().get(0);
+        assertThat(id.otherInferredType()).isEqualTo(InferredType.INTEGER);
+        assertThat(id.valueOverlap()).isCloseTo(50.0 / 150, within(0.05));
+        assertThat(id.distributionShift()).isCloseTo(0.5, within(0.02));
+        assertThat(id.changes()).containsExactly(DriftKind.DISTRIBUTION);
+
+        ColumnDrift team = diff.columns().get(1);
+        assertThat(team.nullRatio()).isZero();
+        assertThat(team.otherNullRatio()).isEqualTo(0.2);
+        assertThat(team.valueOverlap()).isCloseTo(0.8, within(0.02));
+        assertThat(team.distributionShift()).isNull();
+        // Ferrari was only on the rows that lost their team: 4 of 5 teams is within the cardinality threshold
+        assertThat(team.otherUniqueCount()).isEqualTo(4);
+        assertThat(team.changes()).containsExactly(DriftKind.NULL_RATIO);
+
+        ColumnDrift score = diff.columns().get(2);
+        assertThat(score.valueOverlap()).isCloseTo(0.0, within(0.05));
+        assertThat(score.distributionShift()).isEqualTo(1.0);
+        assertThat(score.changes()).containsExactly(DriftKind.DISTRIBUTION);
+
+        // comparing an analysis with itself finds nothing
+        var same = mockMvc.perform(get("/api/analysis/{id}/diff/{otherId}", mondayId, mondayId))
+                .andExpect(status().isOk())
+                .andReturn();
+        AnalysisDiffResponse unchanged = objectMapper.readValue(
+                same.getResponse().getContentAsString(), AnalysisDiffResponse.class);
+        assertThat(unchanged.drifted()).isFalse();
+        assertThat(unchanged.columns()).allSatisfy(column -> {
+            assertThat(column.changes()).isEmpty();
+            assertThat(column.valueOverlap()).isEqualTo(1.0);
+        });
+
+        mockMvc.perform(get("/api/analysis/{id}/diff/{otherId}", mondayId, tuesdayId + 1))
+                .andExpect(status().isNotFound());
+    }
+
+    private long ingest(String csv) throws Exception {
+        return ingest(csv, "csv");
+    }
+
+    private long ingest(String data, String format) throws Exception {
+        var result = mockMvc.perform(post("/api/analysis/ingestCsv")
+                        .param("format", format)
+                        .contentType(TEXT_PLAIN)
+                        .content(data))
+                .andExpect(status().isOk())
+                .andReturn();
+        String location = result.getResponse().getHeader("Content-Location");
+        return Long.parseLong(location.substring(location.lastIndexOf('/') + 1));
+    }
+}
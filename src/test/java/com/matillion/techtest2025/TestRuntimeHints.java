@@ -0,0 +1,16 @@
+package com.matillion.techtest2025;
+
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * Makes the CSV fixtures in {@code test-data} available when the test suite runs as a native
+ * image ({@code ./gradlew nativeTest}). Registered in {@code META-INF/spring/aot.factories}.
+ */
+class TestRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        hints.resources().registerPattern("test-data/*.csv");
+    }
+}
@@ -0,0 +1,142 @@
+package com.matillion.techtest2025.admission;
+
+import com.matillion.techtest2025.config.AnalysisProperties;
+import com.matillion.techtest2025.exception.PayloadTooLargeException;
+import com.matillion.techtest2025.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Verifies each admission limit on a fake clock: concurrency, in-flight bytes and token bucket
+ * rates, per client and globally.
+ */
+class AdmissionControllerTests {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AnalysisProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new AnalysisProperties();
+        AnalysisProperties.Admission admission = properties.getAdmission();
+        admission.setPerClient(new AnalysisProperties.Limits(2, DataSize.ofBytes(1_000), 1, 3));
+        admission.setGlobal(new AnalysisProperties.Limits(3, DataSize.ofBytes(1_500), 1, 10));
+        admission.setRetryAfter(Duration.ofSeconds(2));
+    }
+
+    private AdmissionController controller() {
+        return new AdmissionController(properties, meterRegistry, clock::get);
+    }
+
+    private double rejected(String reason, String scope) {
+        var counter = meterRegistry.find("analysis.admission.rejected").tag("reason", reason).tag("scope", scope).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    @Test
+    void shouldLimitConcurrentIngestsPerClientAndGlobally() {
+        AdmissionController controller = controller();
+        var first = controller.admit("a", 10);
+        controller.admit("a", 10);
+
+        assertThatThrownBy(() -> controller.admit("a", 10))
+                .isInstanceOf(TooManyRequestsException.class)
+                .extracting(e -> ((TooManyRequestsException) e).getRetryAfter())
+                .isEqualTo(Duration.ofSeconds(2));
+        assertThat(rejected("concurrency", "client")).isEqualTo(1);
+
+        controller.admit("b", 10);
+        assertThatThrownBy(() -> controller.admit("c", 10)).isInstanceOf(TooManyRequestsException.class);
+        assertThat(rejected("concurrency", "global")).isEqualTo(1);
+
+        first.close();
+        first.close();
+        controller.admit("c", 10);
+        assertThatThrownBy(() -> controller.admit("c", 10)).isInstanceOf(TooManyRequestsException.class);
+        assertThat(meterRegistry.get("analysis.admission.in.flight").gauge().value()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldLimitBytesInFlightAndRejectOversizedBodies() {
+        AdmissionController controller = controller();
+        var large = controller.admit("a", 800);
+
+        assertThatThrownBy(() -> controller.admit("a", 300)).isInstanceOf(TooManyRequestsException.class);
+        assertThat(rejected("bytes", "client")).isEqualTo(1);
+        assertThatThrownBy(() -> controller.admit("b", 800)).isInstanceOf(TooManyRequestsException.class);
+        assertThat(rejected("bytes", "global")).isEqualTo(1);
+        assertThatThrownBy(() -> controller.admit("b", 1_001)).isInstanceOf(PayloadTooLargeException.class);
+        assertThat(rejected("size", "client")).isEqualTo(1);
+
+        large.close();
+        controller.admit("b", 800);
+        assertThat(meterRegistry.get("analysis.admission.in.flight.bytes").gauge().value()).isEqualTo(800);
+
+        // an unknown length reserves the whole per-client limit
+        assertThatThrownBy(() -> controller.admit("c", -1)).isInstanceOf(TooManyRequestsException.class);
+    }
+
+    @Test
+    void shouldRateLimitWithTokenBuckets() {
+        AdmissionController controller = controller();
+        for (int i = 0; i < 3; i++) {
+            controller.admit("a", 1).close();
+        }
+
+        assertThatThrownBy(() -> controller.admit("a", 1))
+                .isInstanceOf(TooManyRequestsException.class)
+                .extracting(e -> ((TooManyRequestsException) e).getRetryAfter())
+                .isEqualTo(Duration.ofSeconds(1));
+        assertThat(rejected("rate", "client")).isEqualTo(1);
+
+        clock.addAndGet(Duration.ofMillis(500).toNanos());
+        assertThatThrownBy(() -> controller.admit("a", 1))
+                .extracting(e -> ((TooManyRequestsException) e).getRetryAfter())
+                .isEqualTo(Duration.ofMillis(500));
+
+        clock.addAndGet(Duration.ofMillis(500).toNanos());
+        controller.admit("a", 1).close();
+
+        // the global bucket has refilled by one token while "a" waited, so 7 are left
+        for (int i = 0; i < 7; i++) {
+            controller.admit("client-" + i, 1).close();
+        }
+        assertThatThrownBy(() -> controller.admit("b", 1)).isInstanceOf(TooManyRequestsException.class);
+        assertThat(rejected("rate", "global")).isEqualTo(1);
+        assertThat(meterRegistry.get("analysis.admission.admitted").counter().count()).isEqualTo(11);
+    }
+
+    @Test
+    void shouldForgetLeastRecentlyUsedIdleClientsOnceTooManyAreTracked() {
+        properties.getAdmission().setMaxTrackedClients(2);
+        AdmissionController controller = controller();
+        var busy = controller.admit("a", 1);
+        controller.admit("b", 1).close();
+
+        // "a" is the least recently used, but busy, so "b" makes way
+        controller.admit("c", 1).close();
+        assertThat(controller.trackedClients()).isEqualTo(2);
+
+        var alsoBusy = controller.admit("b", 1);
+        assertThat(controller.trackedClients()).isEqualTo(2);
+
+        // every tracked client has an ingest running, so a new one cannot be tracked
+        assertThatThrownBy(() -> controller.admit("d", 1)).isInstanceOf(TooManyRequestsException.class);
+        assertThat(rejected("clients", "global")).isEqualTo(1);
+        assertThat(controller.trackedClients()).isEqualTo(2);
+
+        busy.close();
+        alsoBusy.close();
+        controller.admit("d", 1).close();
+        assertThat(controller.trackedClients()).isEqualTo(2);
+    }
+}
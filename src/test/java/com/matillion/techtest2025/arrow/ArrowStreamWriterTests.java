@@ -0,0 +1,330 @@
+package com.matillion.techtest2025.arrow;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+/**
+ * Verifies the Arrow IPC stream layout by reading it back with a minimal FlatBuffers reader that
+ * follows the Arrow schema files, independently of the writer.
+ */
+class ArrowStreamWriterTests {
+
+    private static final List<ArrowStreamWriter.Column> COLUMNS = List.of(
+            new ArrowStreamWriter.Column("id", ArrowColumnType.INT64, Map.of("nullCount", "1")),
+            new ArrowStreamWriter.Column("price", ArrowColumnType.FLOAT64, Map.of()),
+            new ArrowStreamWriter.Column("active", ArrowColumnType.BOOL, Map.of()),
+            new ArrowStreamWriter.Column("born", ArrowColumnType.DATE, Map.of()),
+            new ArrowStreamWriter.Column("seen", ArrowColumnType.TIMESTAMP, Map.of()),
+            new ArrowStreamWriter.Column("key", ArrowColumnType.UUID, Map.of()),
+            new ArrowStreamWriter.Column("name", ArrowColumnType.UTF8, Map.of())
+    );
+
+    private static final String[][] ROWS = {
+            {"1", "1.5", "true", "2024-02-29", "2024-02-29T12:34:56.123456789Z", "123e4567-e89b-12d3-a456-426614174000", "Kimi"},
+            {"", "", "", "", "", "", ""},
+            {"-9223372036854775808", "3", "FALSE", "1969-12-31", "1970-01-01 00:00+01:00", "ABCDEF01-2345-6789-ABCD-EF0123456789", "Räikkönen"},
+            {"99999999999999999999", "n/a", "maybe", "2024-13-01", "2024-01-01T00:00:00.5-0130", "not-a-uuid", "with,comma"},
+    };
+
+    @Test
+    void shouldWriteSchemaWithArrowTypesAndMetadata() throws Exception {
+        List<Message> messages = read(write(COLUMNS, ROWS, 100));
+
+        Table schema = messages.getFirst().header();
+        assertThat(messages.getFirst().headerType()).isEqualTo(1);
+        assertThat(schema.scalarShort(0)).isZero();
+        assertThat(keyValues(schema, 2)).containsExactly(entry("analysisId", "7"));
+
+        List<Table> fields = schema.tables(1);
+        assertThat(fields).extracting(field -> field.string(0))
+                .containsExactly("id", "price", "active", "born", "seen", "key", "name");
+        // Type union: Int, FloatingPoint, Bool, Date, Timestamp, FixedSizeBinary, Utf8
+        assertThat(fields).extracting(field -> (int) field.scalarByte(2)).containsExactly(2, 3, 6, 8, 10, 15, 5);
+        assertThat(fields).allSatisfy(field -> {
+            assertThat(field.scalarByte(1)).isEqualTo((byte) 1);
+            assertThat(field.tables(5)).isEmpty();
+        });
+
+        Table int64 = fields.get(0).table(3);
+        assertThat(int64.scalarInt(0)).isEqualTo(64);
+        assertThat(int64.scalarByte(1)).isEqualTo((byte) 1);
+        assertThat(fields.get(1).table(3).scalarShort(0)).isEqualTo((short) 2);
+        assertThat(fields.get(3).table(3).scalarShort(0)).isZero();
+        assertThat(fields.get(4).table(3).scalarShort(0)).isEqualTo((short) 2);
+        assertThat(fields.get(4).table(3).string(1)).isEqualTo("UTC");
+        assertThat(fields.get(5).table(3).scalarInt(0)).isEqualTo(16);
+
+        assertThat(keyValues(fields.get(0), 6)).containsExactly(entry("nullCount", "1"));
+        assertThat(keyValues(fields.get(5), 6)).containsEntry("ARROW:extension:name", "arrow.uuid");
+    }
+
+    @Test
+    void shouldConvertCellsToColumnTypesAndNullTheRest() throws Exception {
+        List<Message> messages = read(write(COLUMNS, ROWS, 100));
+        assertThat(messages).hasSize(2);
+        Message batch = messages.get(1);
+        assertThat(batch.headerType()).isEqualTo(3);
+        assertThat(batch.header().scalarLong(0)).isEqualTo(4);
+
+        assertThat(batch.longs(0)).containsExactly(1L, null, Long.MIN_VALUE, null);
+        assertThat(batch.doubles(1)).containsExactly(1.5, null, 3.0, null);
+        assertThat(batch.booleans(2)).containsExactly(true, null, false, null);
+        assertThat(batch.ints(3)).containsExactly(19_782, null, -1, null);
+        assertThat(batch.longs(4)).containsExactly(
+                1_709_210_096_123_456L,
+                null,
+                -3_600_000_000L,
+                1_704_072_600_500_000L
+        );
+        assertThat(batch.fixed(5, 16)).containsExactly(
+                "123e4567e89b12d3a456426614174000", null, "abcdef0123456789abcdef0123456789", null);
+        assertThat(batch.strings(6)).containsExactly("Kimi", null, "Räikkönen", "with,comma");
+        assertThat(batch.nullCounts()).containsExactly(2L, 2L, 2L, 2L, 1L, 2L, 1L);
+    }
+
+    @Test
+    void shouldSplitRowsIntoBatchesAndEndTheStream() throws Exception {
+        byte[] stream = write(COLUMNS, ROWS, 3);
+        assertThat(Arrays.copyOfRange(stream, stream.length - 8, stream.length))
+                .containsExactly(-1, -1, -1, -1, 0, 0, 0, 0);
+
+        List<Message> messages = read(stream);
+        assertThat(messages).extracting(Message::headerType).containsExactly(1, 3, 3);
+        assertThat(messages.get(1).strings(6)).containsExactly("Kimi", null, "Räikkönen");
+        assertThat(messages.get(2).strings(6)).containsExactly("with,comma");
+        // the validity bitmap of the second batch starts afresh
+        assertThat(messages.get(2).longs(4)).containsExactly(1_704_072_600_500_000L);
+        assertThat(messages.get(2).nullCounts()).containsExactly(1L, 1L, 1L, 1L, 0L, 1L, 0L);
+
+        List<Message> empty = read(write(COLUMNS, new String[0][], 3));
+        assertThat(empty).extracting(Message::headerType).containsExactly(1);
+    }
+
+    private static byte[] write(List<ArrowStreamWriter.Column> columns, String[][] rows, int batchRows) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ArrowStreamWriter writer = new ArrowStreamWriter(out, columns, Map.of("analysisId", "7"), batchRows);
+        for (String[] row : rows) {
+            for (int c = 0; c < row.length; c++) {
+                byte[] value = row[c].getBytes(UTF_8);
+                writer.column(c).accept(value, 0, value.length);
+            }
+            writer.endRow();
+        }
+        writer.finish();
+        return out.toByteArray();
+    }
+
+    /**
+     * Reads encapsulated messages up to the end-of-stream marker, checking the framing and the
+     * 8-byte alignment of metadata and bodies on the way.
+     */
+    private static List<Message> read(byte[] stream) {
+        ByteBuffer in = ByteBuffer.wrap(stream).order(LITTLE_ENDIAN);
+        List<Message> messages = new ArrayList<>();
+        while (true) {
+            assertThat(in.getInt()).isEqualTo(-1);
+            int metadataLength = in.getInt();
+            if (metadataLength == 0) {
+                break;
+            }
+            assertThat((in.position() + metadataLength) % 8).isZero();
+            ByteBuffer metadata = in.slice(in.position(), metadataLength).order(LITTLE_ENDIAN);
+            in.position(in.position() + metadataLength);
+            Table message = Table.root(metadata);
+            assertThat(message.scalarShort(0)).isEqualTo((short) 4);
+            long bodyLength = message.scalarLong(3);
+            assertThat(bodyLength % 8).isZero();
+            ByteBuffer body = in.slice(in.position(), (int) bodyLength).order(LITTLE_ENDIAN);
+            in.position(in.position() + (int) bodyLength);
+            messages.add(new Message(message.scalarByte(1), message.table(2), body));
+        }
+        assertThat(in.hasRemaining()).isFalse();
+        return messages;
+    }
+
+    private static Map<String, String> keyValues(Table table, int field) {
+        Map<String, String> entries = new LinkedHashMap<>();
+        for (Table keyValue : table.tables(field)) {
+            entries.put(keyValue.string(0), keyValue.string(1));
+        }
+        return entries;
+    }
+
+    /**
+     * A record batch or schema message. Column {@code c} of a batch of these tests' columns uses
+     * buffers from {@code 2 * c} on, text columns having a third buffer.
+     */
+    private record Message(int headerType, Table header, ByteBuffer body) {
+
+        List<Long> nullCounts() {
+            List<Long> counts = new ArrayList<>();
+            for (long[] node : header.structs(1)) {
+                counts.add(node[1]);
+            }
+            return counts;
+        }
+
+        List<Long> longs(int column) {
+            ByteBuffer values = buffer(2 * column + 1);
+            return values(column, row -> values.getLong(row * 8));
+        }
+
+        List<Double> doubles(int column) {
+            ByteBuffer values = buffer(2 * column + 1);
+            return values(column, row -> values.getDouble(row * 8));
+        }
+
+        List<Integer> ints(int column) {
+            ByteBuffer values = buffer(2 * column + 1);
+            return values(column, row -> values.getInt(row * 4));
+        }
+
+        List<Boolean> booleans(int column) {
+            ByteBuffer values = buffer(2 * column + 1);
+            return values(column, row -> isSet(values, row));
+        }
+
+        List<String> fixed(int column, int width) {
+            ByteBuffer values = buffer(2 * column + 1);
+            return values(column, row -> {
+                byte[] bytes = new byte[width];
+                values.get(row * width, bytes);
+                return HexFormat.of().formatHex(bytes);
+            });
+        }
+
+        /**
+         * Reads the column's offsets and character data, the text column being the last one.
+         */
+        List<String> strings(int column) {
+            ByteBuffer offsets = buffer(2 * column + 1);
+            ByteBuffer data = buffer(2 * column + 2);
+            return values(column, row -> {
+                int start = offsets.getInt(row * 4);
+                byte[] bytes = new byte[offsets.getInt(row * 4 + 4) - start];
+                data.get(start, bytes);
+                return new String(bytes, UTF_8);
+            });
+        }
+
+        private <T> List<T> values(int column, IntFunction<T> value) {
+            long[] node = header.structs(1).get(column);
+            ByteBuffer validity = buffer(2 * column);
+            List<T> values = new ArrayList<>();
+            for (int row = 0; row < node[0]; row++) {
+                boolean valid = validity.limit() == 0 || isSet(validity, row);
+                values.add(valid ? value.apply(row) : null);
+            }
+            if (validity.limit() == 0) {
+                assertThat(node[1]).isZero();
+            }
+            return values;
+        }
+
+        private ByteBuffer buffer(int index) {
+            long[] buffer = header.structs(2).get(index);
+            assertThat(buffer[0] % 8).isZero();
+            return body.slice((int) buffer[0], (int) buffer[1]).order(LITTLE_ENDIAN);
+        }
+
+        private static boolean isSet(ByteBuffer bitmap, int row) {
+            return (bitmap.get(row >>> 3) >> (row & 7) & 1) != 0;
+        }
+    }
+
+    /**
+     * A FlatBuffers table: a signed offset back to its vtable, whose entries give each field's
+     * position in the table, or 0 when absent.
+     */
+    private record Table(ByteBuffer buf, int position) {
+
+        static Table root(ByteBuffer buf) {
+            return new Table(buf, buf.getInt(0));
+        }
+
+        private int field(int field) {
+            int vtable = position - buf.getInt(position);
+            int vtableSize = buf.getShort(vtable);
+            int entry = 4 + 2 * field;
+            int offset = entry < vtableSize ? buf.getShort(vtable + entry) : 0;
+            assertThat(offset).as("field %d", field).isPositive();
+            return position + offset;
+        }
+
+        private int deref(int field) {
+            int at = field(field);
+            assertThat(at % 4).isZero();
+            return at + buf.getInt(at);
+        }
+
+        byte scalarByte(int field) {
+            return buf.get(field(field));
+        }
+
+        short scalarShort(int field) {
+            int at = field(field);
+            assertThat(at % 2).isZero();
+            return buf.getShort(at);
+        }
+
+        int scalarInt(int field) {
+            int at = field(field);
+            assertThat(at % 4).isZero();
+            return buf.getInt(at);
+        }
+
+        long scalarLong(int field) {
+            int at = field(field);
+            assertThat(at % 8).isZero();
+            return buf.getLong(at);
+        }
+
+        Table table(int field) {
+            return new Table(buf, deref(field));
+        }
+
+        String string(int field) {
+            int at = deref(field);
+            int length = buf.getInt(at);
+            assertThat(buf.get(at + 4 + length)).isZero();
+            byte[] bytes = new byte[length];
+            buf.get(at + 4, bytes);
+            return new String(bytes, UTF_8);
+        }
+
+        List<Table> tables(int field) {
+            int vector = deref(field);
+            List<Table> tables = new ArrayList<>();
+            for (int i = 0; i < buf.getInt(vector); i++) {
+                int element = vector + 4 + 4 * i;
+                tables.add(new Table(buf, element + buf.getInt(element)));
+            }
+            return tables;
+        }
+
+        List<long[]> structs(int field) {
+            int vector = deref(field);
+            assertThat((vector + 4) % 8).isZero();
+            List<long[]> structs = new ArrayList<>();
+            for (int i = 0; i < buf.getInt(vector); i++) {
+                int element = vector + 4 + 16 * i;
+                structs.add(new long[]{buf.getLong(element), buf.getLong(element + 8)});
+            }
+            return structs;
+        }
+    }
+}
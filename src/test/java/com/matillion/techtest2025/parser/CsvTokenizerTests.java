@@ -0,0 +1,165 @@
+package com.matillion.techtest2025.parser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Verifies that every tokenizer backend splits unquoted input exactly like the original
+ * {@code split("\\R")} / {@code split(",", -1)} parsing and counts characters like
+ * {@link String#length()}, and that quoted values and other delimiters are read the same way by
+ * every backend.
+ */
+class CsvTokenizerTests {
+
+    private static final String[] FRAGMENTS = {
+            ",", "\n", "\r", "\r\n", "\u000B", "\u000C", "\u0085", "\u2028", "\u2029", "\u2027",
+            "a", "xyz", "é", "Â", "€", "😀", " "
+    };
+
+    private static final String[] QUOTED_FRAGMENTS = {
+            ",", "\t", "|", "\"", "\"\"", "\n", "\r\n", "\u2028", "a", "é", "😀", "xxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxx"
+    };
+
+    private static final CsvFormat[] FORMATS = {
+            CsvFormat.CSV, CsvFormat.of('\t', '"'), CsvFormat.of('|', null)
+    };
+
+    @ParameterizedTest
+    @ValueSource(strings = {"simple.csv", "large.csv", "with-nulls.csv", "mixed-nulls.csv", "invalid.csv", "empty.csv"})
+    void shouldMatchStringSplittingForTestData(String file) throws Exception {
+        String csv = new ClassPathResource("test-data/" + file).getContentAsString(UTF_8);
+
+        assertMatchesStringSplitting(CsvTokenizers.scalar(), csv);
+        if (vectorAvailable()) {
+            assertMatchesStringSplitting(CsvTokenizers.vector(), csv);
+        }
+    }
+
+    @Test
+    void scalarAndVectorBackendsShouldAgreeOnRandomInput() {
+        assumeTrue(vectorAvailable(), "jdk.incubator.vector is not enabled");
+        CsvTokenizer vector = CsvTokenizers.vector();
+
+        SplittableRandom random = new SplittableRandom(7);
+        for (int run = 0; run < 5_000; run++) {
+            StringBuilder csv = new StringBuilder();
+            int length = random.nextInt(300);
+            for (int i = 0; i < length; i++) {
+                csv.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+            }
+            assertMatchesStringSplitting(CsvTokenizers.scalar(), csv.toString());
+            assertMatchesStringSplitting(vector, csv.toString());
+        }
+    }
+
+    @Test
+    void shouldUnescapeQuotedFieldsWithoutModifyingInput() {
+        byte[] csv = "a,\"b,c\",\"x\"\"y\"\n\"multi\nline\",\"\",\"ab\"cd\n\"unterminated,\n".getBytes(UTF_8);
+        byte[] original = csv.clone();
+
+        assertThat(rows(CsvTokenizers.scalar(), csv, CsvFormat.CSV)).containsExactly(
+                List.of("a", "b,c", "x\"y"),
+                List.of("multi\nline", "", "abcd"),
+                List.of("unterminated,\n")
+        );
+        assertThat(csv).isEqualTo(original);
+    }
+
+    @Test
+    void shouldSplitOnConfiguredDelimiter() {
+        assertThat(rows(CsvTokenizers.scalar(), "a\tb,c\t\"d\te\"\n".getBytes(UTF_8), CsvFormat.of('\t', '"')))
+                .containsExactly(List.of("a", "b,c", "d\te"));
+        assertThat(rows(CsvTokenizers.scalar(), "a|\"b\"|c,d".getBytes(UTF_8), CsvFormat.of('|', null)))
+                .containsExactly(List.of("a", "\"b\"", "c,d"));
+    }
+
+    @Test
+    void fieldsWrittenAsCsvShouldReadBackUnchanged() {
+        List<String> values = List.of("plain", "with,comma", "with \"quotes\"", "two\nlines", "next\u2028line", "\"", "");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            byte[] value = values.get(i).getBytes(UTF_8);
+            CsvFormat.CSV.writeField(out, value, 0, value.length);
+        }
+
+        assertThat(rows(CsvTokenizers.scalar(), out.toByteArray(), CsvFormat.CSV)).containsExactly(values);
+    }
+
+    @Test
+    void scalarAndVectorBackendsShouldAgreeOnQuotedInput() {
+        assumeTrue(vectorAvailable(), "jdk.incubator.vector is not enabled");
+        CsvTokenizer vector = CsvTokenizers.vector();
+
+        SplittableRandom random = new SplittableRandom(11);
+        for (int run = 0; run < 5_000; run++) {
+            StringBuilder csv = new StringBuilder();
+            int length = random.nextInt(100);
+            for (int i = 0; i < length; i++) {
+                csv.append(QUOTED_FRAGMENTS[random.nextInt(QUOTED_FRAGMENTS.length)]);
+            }
+            byte[] data = csv.toString().getBytes(UTF_8);
+            for (CsvFormat format : FORMATS) {
+                assertThat(rows(vector, data, format)).as(csv + " as " + format)
+                        .isEqualTo(rows(CsvTokenizers.scalar(), data, format));
+            }
+        }
+    }
+
+    @Test
+    void autoShouldFallBackToScalarWithoutVectorModule() {
+        assumeTrue(!vectorAvailable(), "jdk.incubator.vector is enabled");
+
+        assertThat(CsvTokenizers.auto().name()).isEqualTo("scalar");
+    }
+
+    private static void assertMatchesStringSplitting(CsvTokenizer tokenizer, String csv) {
+        List<List<String>> expected = new ArrayList<>();
+        for (String line : csv.split("\\R")) {
+            if (!line.isEmpty()) {
+                expected.add(List.of(line.split(",", -1)));
+            }
+        }
+
+        List<List<String>> actual = new ArrayList<>();
+        long characters = tokenizer.tokenize(csv.getBytes(UTF_8), row -> {
+            List<String> values = new ArrayList<>();
+            for (int i = 0; i < row.fieldCount(); i++) {
+                values.add(row.value(i));
+            }
+            actual.add(values);
+        });
+
+        assertThat(actual).as(tokenizer.name()).isEqualTo(expected);
+        assertThat(characters).as(tokenizer.name()).isEqualTo(csv.length());
+    }
+
+    private static List<List<String>> rows(CsvTokenizer tokenizer, byte[] data, CsvFormat format) {
+        List<List<String>> rows = new ArrayList<>();
+        tokenizer.tokenize(data, format, row -> {
+            List<String> values = new ArrayList<>();
+            for (int i = 0; i < row.fieldCount(); i++) {
+                values.add(row.value(i));
+            }
+            rows.add(values);
+        });
+        return rows;
+    }
+
+    private static boolean vectorAvailable() {
+        return ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+    }
+}
@@ -0,0 +1,112 @@
+package com.matillion.techtest2025.parser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Verifies that distinct counts stay exact when values are spilled to disk, including values that
+ * recur across runs and values whose hashes collide, with values kept on or off the heap.
+ */
+class ExactDistinctCounterTests {
+
+    @TempDir
+    Path directory;
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void shouldCountExactlyAcrossSpilledRuns(boolean offHeap) throws IOException {
+        assumeTrue(!offHeap || SliceSets.offHeapAvailable(), "off-heap storage needs --enable-preview");
+        SplittableRandom random = new SplittableRandom(7);
+        Set<String> expected = new HashSet<>();
+        try (DistinctValueBudget budget = new DistinctValueBudget(16 * 1024, directory, offHeap)) {
+            ExactDistinctCounter wide = budget.newCounter();
+            ExactDistinctCounter narrow = budget.newCounter();
+            for (int i = 0; i < 50_000; i++) {
+                String value = "v" + random.nextInt(20_000) + "é";
+                expected.add(value);
+                byte[] bytes = ("," + value + ",").getBytes(UTF_8);
+                wide.add(bytes, 1, bytes.length - 1);
+                narrow.add(bytes, 1, 2);
+            }
+
+            assertThat(wide.spilledRuns()).isGreaterThan(1);
+            assertThat(wide.count()).isEqualTo(expected.size());
+            assertThat(narrow.count()).isEqualTo(1);
+            assertThat(listFiles()).isNotEmpty();
+        }
+        assertThat(listFiles()).isEmpty();
+    }
+
+    @Test
+    void shouldKeepCollidingValuesApart() {
+        // "Aa" and "BB" have the same hash, so do all concatenations of them
+        String[] blocks = {"Aa", "BB"};
+        try (DistinctValueBudget budget = new DistinctValueBudget(512, directory)) {
+            ExactDistinctCounter counter = budget.newCounter();
+            for (int repeat = 0; repeat < 3; repeat++) {
+                for (int bits = 0; bits < 64; bits++) {
+                    StringBuilder value = new StringBuilder();
+                    for (int b = 0; b < 6; b++) {
+                        value.append(blocks[bits >> b & 1]);
+                    }
+                    byte[] bytes = value.toString().getBytes(UTF_8);
+                    counter.add(bytes, 0, bytes.length);
+                }
+            }
+
+            assertThat(counter.spilledRuns()).isGreaterThan(0);
+            assertThat(counter.count()).isEqualTo(64);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void shouldNotSpillWithinBudget(boolean offHeap) {
+        assumeTrue(!offHeap || SliceSets.offHeapAvailable(), "off-heap storage needs --enable-preview");
+        try (DistinctValueBudget budget = new DistinctValueBudget(1 << 20, directory, offHeap)) {
+            ExactDistinctCounter counter = budget.newCounter();
+            byte[] bytes = "a,b,a,c".getBytes(UTF_8);
+            for (int i = 0; i < bytes.length; i += 2) {
+                counter.add(bytes, i, i + 1);
+            }
+
+            assertThat(counter.count()).isEqualTo(3);
+            assertThat(counter.spilledRuns()).isZero();
+        }
+    }
+
+    @Test
+    void shouldMergeManyRunsInSeveralPasses() {
+        try (DistinctValueBudget budget = new DistinctValueBudget(1, directory)) {
+            ExactDistinctCounter counter = budget.newCounter();
+            for (int i = 0; i < 300; i++) {
+                byte[] bytes = Integer.toString(i % 150).getBytes(UTF_8);
+                counter.add(bytes, 0, bytes.length);
+            }
+
+            assertThat(counter.spilledRuns()).isEqualTo(300);
+            assertThat(counter.count()).isEqualTo(150);
+            assertThat(counter.spilledRuns()).isLessThan(300);
+        }
+    }
+
+    private Set<Path> listFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return Set.copyOf(files.toList());
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.matillion.techtest2025.parser;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifies the byte-level format recognizers on valid values and near misses, including values
+ * embedded in a larger buffer.
+ */
+class TextShapesTests {
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "2024-02-29|DATE",
+            "2023-02-29|OTHER",
+            "2024-13-01|OTHER",
+            "2024-1-01|OTHER",
+            "2024-06-30T23:59|TIMESTAMP",
+            "2024-06-30 23:59:60|TIMESTAMP",
+            "2024-06-30T23:59:59.123456789Z|TIMESTAMP",
+            "2024-06-30T23:59:59.1234567890Z|OTHER",
+            "2024-06-30T23:59:59+05:30|TIMESTAMP",
+            "2024-06-30T23:59:59-0800|TIMESTAMP",
+            "2024-06-30T24:00|OTHER",
+            "2024-06-30T12:00+5|OTHER",
+            "2024-06-30x|OTHER",
+            "123e4567-e89b-12d3-a456-426614174000|UUID",
+            "123E4567-E89B-12D3-A456-426614174000|UUID",
+            "123e4567-e89b-12d3-a456-42661417400g|OTHER",
+            "123e4567e89b-12d3-a456-4266141740000|OTHER",
+            "max.verstappen+f1@red-bull.example.com|EMAIL",
+            "max@localhost|OTHER",
+            "@example.com|OTHER",
+            "max@-example.com|OTHER",
+            "max@example..com|OTHER",
+            "max verstappen@example.com|OTHER",
+            "Red Bull Racing|OTHER"
+    })
+    void shouldRecognizeFormats(String value, String expected) {
+        byte[] bytes = ("," + value + ",").getBytes(UTF_8);
+
+        int shape = TextShapes.shape(bytes, 1, bytes.length - 1);
+
+        assertThat(name(shape)).isEqualTo(expected);
+    }
+
+    private static String name(int shape) {
+        return switch (shape) {
+            case TextShapes.DATE -> "DATE";
+            case TextShapes.TIMESTAMP -> "TIMESTAMP";
+            case TextShapes.UUID -> "UUID";
+            case TextShapes.EMAIL -> "EMAIL";
+            default -> "OTHER";
+        };
+    }
+}
@@ -0,0 +1,70 @@
+package com.matillion.techtest2025.parser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.util.HexFormat;
+import java.util.SplittableRandom;
+
+import static java.nio.charset.CodingErrorAction.REPORT;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifies that malformed UTF-8 is found exactly where a strict decoder rejects the input.
+ */
+class Utf8Tests {
+
+    @ParameterizedTest
+    @CsvSource({
+            "'', -1",
+            "616263, -1",
+            "61c3a962, -1",             // é
+            "e282ac, -1",               // €
+            "f09f9880, -1",             // 😀
+            "f48fbfbf, -1",             // U+10FFFF
+            "61e962, 1",                // Latin-1 é
+            "6180, 1",                  // stray continuation byte
+            "61c0af, 1",                // overlong '/'
+            "e080af, 0",                // overlong '/' in three bytes
+            "eda080, 0",                // surrogate U+D800
+            "f4908080, 0",              // above U+10FFFF
+            "f5808080, 0",              // invalid lead byte
+            "6162f09f98, 2",            // truncated four-byte sequence
+            "c3a9e282, 2"               // truncated three-byte sequence
+    })
+    void shouldFindFirstMalformedSequence(String hex, int expected) {
+        assertThat(Utf8.indexOfMalformed(HexFormat.of().parseHex(hex))).isEqualTo(expected);
+    }
+
+    @Test
+    void shouldAgreeWithStrictDecoder() {
+        SplittableRandom random = new SplittableRandom(26);
+        for (int n = 0; n < 200_000; n++) {
+            byte[] data = new byte[1 + random.nextInt(6)];
+            for (int i = 0; i < data.length; i++) {
+                // ASCII, continuation and lead bytes equally often, so most inputs are short sequences
+                data[i] = (byte) switch (random.nextInt(3)) {
+                    case 0 -> random.nextInt(0x80);
+                    case 1 -> 0x80 + random.nextInt(0x40);
+                    default -> 0xC0 + random.nextInt(0x40);
+                };
+            }
+            assertThat(Utf8.indexOfMalformed(data) < 0)
+                    .as(HexFormat.of().formatHex(data))
+                    .isEqualTo(decodes(data));
+        }
+    }
+
+    private static boolean decodes(byte[] data) {
+        try {
+            UTF_8.newDecoder().onMalformedInput(REPORT).onUnmappableCharacter(REPORT).decode(ByteBuffer.wrap(data));
+            return true;
+        } catch (CharacterCodingException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.matillion.techtest2025.service;
+
+import com.matillion.techtest2025.sketch.SpaceSavingSketch;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Verifies that accumulators of row ranges merge to the statistics of a single pass, as the
+ * parallel columnar scan relies on.
+ */
+class PairwiseStatisticsTests {
+
+    private static final int ROWS = 10_000;
+
+    @Test
+    void shouldMergeRowRangesToTheSameStatisticsAsOnePass() {
+        // columns: x, y = 3x + noise around a large offset, a category derived from x, and a flag
+        PairwiseStatistics empty = new PairwiseStatistics(
+                new int[]{0, 0}, new int[]{1, 3}, new int[]{2}, new int[]{3}, 64);
+        String[][] rows = rows();
+
+        PairwiseStatistics whole = empty.emptyCopy();
+        feed(whole, rows, 0, ROWS);
+        PairwiseStatistics merged = empty.emptyCopy();
+        int[] bounds = {0, 1, 2_500, 2_501, 7_000, ROWS};
+        for (int i = 0; i + 1 < bounds.length; i++) {
+            PairwiseStatistics range = empty.emptyCopy();
+            feed(range, rows, bounds[i], bounds[i + 1]);
+            merged.merge(range);
+        }
+
+        for (int p = 0; p < 2; p++) {
+            assertThat(merged.count(p)).isEqualTo(whole.count(p));
+            assertThat(merged.correlation(p)).isCloseTo(whole.correlation(p), within(1e-9));
+            assertThat(merged.covariance(p)).isCloseTo(whole.covariance(p), within(1e-6 * Math.abs(whole.covariance(p))));
+        }
+        // every tenth x is missing, and the flag column is not numeric
+        assertThat(whole.count(0)).isEqualTo(ROWS - ROWS / 10);
+        assertThat(whole.correlation(0)).isGreaterThan(0.99);
+        assertThat(whole.count(1)).isZero();
+        assertThat(whole.correlation(1)).isNull();
+
+        SpaceSavingSketch coOccurrences = merged.coOccurrences(0);
+        assertThat(coOccurrences.getTotal()).isEqualTo(ROWS);
+        // 4 categories x 2 flags fit the sketch, so the counts are exact
+        assertThat(coOccurrences.top(8)).hasSize(8).allSatisfy(entry -> {
+            assertThat(entry.error()).isZero();
+            assertThat(entry.count()).isEqualTo(ROWS / 8);
+        });
+        byte[][] values = PairwiseStatistics.splitKey(coOccurrences.top(1).getFirst().value());
+        assertThat(new String(values[0], UTF_8)).startsWith("category-");
+        assertThat(new String(values[1], UTF_8)).isIn("yes", "no");
+    }
+
+    private static String[][] rows() {
+        SplittableRandom random = new SplittableRandom(7);
+        String[][] rows = new String[ROWS][];
+        for (int i = 0; i < ROWS; i++) {
+            double x = random.nextDouble(1_000);
+            rows[i] = new String[]{
+                    i % 10 == 0 ? "" : Double.toString(x),
+                    Double.toString(1e6 + 3 * x + random.nextDouble(10)),
+                    "category-" + i % 4,
+                    i / 4 % 2 == 0 ? "yes" : "no"
+            };
+        }
+        return rows;
+    }
+
+    private static void feed(PairwiseStatistics statistics, String[][] rows, int from, int to) {
+        PairwiseStatistics.Cells cells = statistics.newCells(4);
+        for (int i = from; i < to; i++) {
+            for (int c = 0; c < 4; c++) {
+                // each value in the middle of a larger buffer, as the tokenizer hands them over
+                byte[] bytes = ("|" + rows[i][c] + "|").getBytes(UTF_8);
+                cells.set(c, bytes, 1, bytes.length - 1);
+            }
+            statistics.accept(cells);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.matillion.techtest2025.sketch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Verifies distinct-count estimates across the linear-counting and HyperLogLog ranges, merging,
+ * and that both serialised forms restore the same sketch.
+ */
+class HyperLogLogSketchTests {
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 10, 1_000, 10_000, 100_000, 1_000_000})
+    void shouldEstimateDistinctCountWithinFourStandardErrors(int distinct) {
+        HyperLogLogSketch sketch = new HyperLogLogSketch();
+        // every value twice, as part of a larger buffer
+        for (int repeat = 0; repeat < 2; repeat++) {
+            for (int i = 0; i < distinct; i++) {
+                byte[] value = ("[value-" + i + "]").getBytes(UTF_8);
+                sketch.offer(value, 1, value.length - 1);
+            }
+        }
+
+        // 1.04 / sqrt(4096) is about 1.6%
+        assertThat(sketch.estimate()).isCloseTo(distinct, within(Math.max(0.065 * distinct, 0.5)));
+    }
+
+    @Test
+    void shouldEstimateUnionWhenMerged() {
+        HyperLogLogSketch first = sketchOf(0, 60_000);
+        HyperLogLogSketch second = sketchOf(40_000, 100_000);
+
+        first.merge(second);
+
+        assertThat(first.estimate()).isCloseTo(100_000, within(6_500.0));
+        assertThatThrownBy(() -> first.merge(new HyperLogLogSketch(10)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 100, 100_000})
+    void shouldRestoreSketchFromSparseAndDenseBytes(int distinct) {
+        HyperLogLogSketch sketch = sketchOf(0, distinct);
+
+        byte[] bytes = sketch.toBytes();
+        HyperLogLogSketch restored = HyperLogLogSketch.fromBytes(bytes);
+
+        assertThat(restored.getPrecision()).isEqualTo(sketch.getPrecision());
+        assertThat(restored.estimate()).isEqualTo(sketch.estimate());
+        assertThat(restored.toBytes()).isEqualTo(bytes);
+        if (distinct <= 100) {
+            // a handful of occupied registers is stored as pairs rather than all 4096
+            assertThat(bytes.length).isLessThan(1 + 1 + 1 + 4 + 3 * 100 + 1);
+        }
+    }
+
+    private static HyperLogLogSketch sketchOf(int from, int to) {
+        HyperLogLogSketch sketch = new HyperLogLogSketch();
+        for (int i = from; i < to; i++) {
+            byte[] value = Integer.toString(i).getBytes(UTF_8);
+            sketch.offer(value, 0, value.length);
+        }
+        return sketch;
+    }
+}
@@ -0,0 +1,96 @@
+package com.matillion.techtest2025.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Verifies quantile estimates against exact ranks, merging, and that the serialised form restores
+ * the same sketch.
+ */
+class KllSketchTests {
+
+    private static final int VALUES = 1_000_000;
+
+    @Test
+    void shouldEstimateQuantilesWithinRankErrorBound() {
+        double[] values = values(VALUES, 1);
+        KllSketch sketch = new KllSketch();
+        for (double value : values) {
+            sketch.update(value);
+        }
+
+        assertThat(sketch.getCount()).isEqualTo(VALUES);
+        assertRankErrorAtMost(sketch, values, 0.02);
+        // memory stays around 3k values however many were added
+        assertThat(sketch.toBytes().length).isLessThan(8 * 4 * KllSketch.DEFAULT_K);
+    }
+
+    @Test
+    void shouldEstimateQuantilesOfUnionWhenMerged() {
+        double[] values = values(VALUES, 2);
+        KllSketch first = new KllSketch();
+        KllSketch second = new KllSketch();
+        for (int i = 0; i < values.length; i++) {
+            (i % 3 == 0 ? first : second).update(values[i]);
+        }
+
+        first.merge(second);
+
+        assertThat(first.getCount()).isEqualTo(VALUES);
+        assertRankErrorAtMost(first, values, 0.02);
+        assertThatThrownBy(() -> first.merge(new KllSketch(100)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldRestoreSketchFromBytes() {
+        KllSketch sketch = new KllSketch();
+        for (double value : values(100_000, 3)) {
+            sketch.update(value);
+        }
+
+        byte[] bytes = sketch.toBytes();
+        KllSketch restored = KllSketch.fromBytes(bytes);
+
+        assertThat(restored.toBytes()).isEqualTo(bytes);
+        assertThat(restored.getQuantile(0.5)).isEqualTo(sketch.getQuantile(0.5));
+        restored.update(1.0);
+        sketch.update(1.0);
+        assertThat(restored.toBytes()).isEqualTo(sketch.toBytes());
+    }
+
+    private static void assertRankErrorAtMost(KllSketch sketch, double[] values, double maxError) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        assertThat(sketch.getQuantile(0)).isEqualTo(sorted[0]);
+        assertThat(sketch.getQuantile(1)).isEqualTo(sorted[sorted.length - 1]);
+        for (int percentile = 1; percentile < 100; percentile++) {
+            double fraction = percentile / 100.0;
+            int rank = Arrays.binarySearch(sorted, sketch.getQuantile(fraction));
+            assertThat((double) rank / sorted.length).isBetween(fraction - maxError, fraction + maxError);
+        }
+    }
+
+    /**
+     * Distinct values in random order, so that every estimate has a single exact rank.
+     */
+    private static double[] values(int count, long seed) {
+        Random random = new Random(seed);
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = i;
+        }
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            double swap = values[i];
+            values[i] = values[j];
+            values[j] = swap;
+        }
+        return values;
+    }
+}
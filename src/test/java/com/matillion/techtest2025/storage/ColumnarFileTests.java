@@ -0,0 +1,131 @@
+package com.matillion.techtest2025.storage;
+
+import com.matillion.techtest2025.parser.CsvTokenizers;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Verifies that columnar files reproduce every cell's original bytes whatever encoding each chunk
+ * picks, and that chunk metadata describes the chunk.
+ */
+class ColumnarFileTests {
+
+    private static final int CHUNK_ROWS = 32;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldRoundTripEveryCellAndPickEncodingsPerChunk() throws Exception {
+        SplittableRandom random = new SplittableRandom(11);
+        StringBuilder csv = new StringBuilder("id,price,flag,note,padded,huge\n");
+        for (int row = 0; row < 192; row++) {
+            csv.append(row - 100).append(',')
+                    .append(random.nextInt(10) == 0 ? "" : Double.toString(random.nextInt(10_000) / 4.0)).append(',')
+                    .append(row < 80 ? "true" : "false").append(',')
+                    .append(random.nextInt(5) == 0 ? "" : "n" + random.nextInt(1_000) + "é").append(',')
+                    .append(String.format("%04d", row)).append(',')
+                    .append(row % 2 == 0 ? "9223372036854775807" : "-12")
+                    .append('\n');
+        }
+
+        Path file = write(csv.toString());
+
+        List<String[]> expected = new ArrayList<>();
+        for (String line : csv.toString().split("\n")) {
+            expected.add(line.split(",", -1));
+        }
+        try (ColumnarReader reader = ColumnarReader.open(file)) {
+            assertThat(reader.rowCount()).isEqualTo(192);
+            assertThat(reader.columnCount()).isEqualTo(6);
+            assertThat(reader.columnName(3)).isEqualTo("note");
+            assertThat(reader.chunkCount()).isEqualTo(6);
+
+            for (int chunk = 0; chunk < reader.chunkCount(); chunk++) {
+                assertThat(reader.stats(chunk, 0).encoding()).isEqualTo(ColumnEncoding.INT64);
+                assertThat(reader.stats(chunk, 1).encoding()).isEqualTo(ColumnEncoding.FLOAT64);
+                assertThat(reader.stats(chunk, 2).encoding()).isEqualTo(ColumnEncoding.DICTIONARY_RLE);
+                // leading zeros and 19-digit integers cannot be stored as longs without losing their text
+                assertThat(reader.stats(chunk, 4).encoding()).isNotEqualTo(ColumnEncoding.INT64);
+                assertThat(reader.stats(chunk, 5).encoding()).isNotEqualTo(ColumnEncoding.INT64);
+
+                int first = reader.chunkFirstRow(chunk);
+                ChunkStats ids = reader.stats(chunk, 0);
+                assertThat(ids.min()).isEqualTo(first - 100);
+                assertThat(ids.max()).isEqualTo(first + reader.chunkRowCount(chunk) - 1 - 100);
+
+                for (int column = 0; column < reader.columnCount(); column++) {
+                    ColumnChunk values = reader.read(chunk, column);
+                    int nulls = 0;
+                    for (int row = 0; row < values.rowCount(); row++) {
+                        String cell = expected.get(first + row + 1)[column];
+                        assertThat(text(values, row)).isEqualTo(cell);
+                        assertThat(values.isNull(row)).isEqualTo(cell.isEmpty());
+                        nulls += cell.isEmpty() ? 1 : 0;
+                    }
+                    assertThat(reader.stats(chunk, column).nullCount()).isEqualTo(nulls);
+                }
+            }
+        }
+    }
+
+    @Test
+    void shouldWriteEmptyFileForHeaderOnlyData() throws Exception {
+        Path file = write("a,b\n");
+
+        try (ColumnarReader reader = ColumnarReader.open(file)) {
+            assertThat(reader.rowCount()).isZero();
+            assertThat(reader.chunkCount()).isZero();
+            assertThat(reader.columnName(1)).isEqualTo("b");
+        }
+    }
+
+    @Test
+    void shouldRejectTruncatedFiles() throws Exception {
+        Path file = write("a,b\n1,2\n3,4\n");
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+
+        assertThatThrownBy(() -> ColumnarReader.open(file)).isInstanceOf(IOException.class);
+    }
+
+    private Path write(String csv) throws IOException {
+        Path file = Files.createTempFile(directory, "test-", ".col");
+        ColumnarWriter[] writer = new ColumnarWriter[1];
+        CsvTokenizers.scalar().tokenize(csv.getBytes(UTF_8), row -> {
+            if (writer[0] == null) {
+                String[] header = new String[row.fieldCount()];
+                for (int c = 0; c < header.length; c++) {
+                    header[c] = row.value(c);
+                }
+                try {
+                    writer[0] = new ColumnarWriter(file, header, CHUNK_ROWS);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+                return;
+            }
+            writer[0].addRow(row);
+        });
+        assertThat(writer[0].finish()).isTrue();
+        return file;
+    }
+
+    private static String text(ColumnChunk chunk, int row) {
+        String[] value = new String[1];
+        chunk.visit(row, (bytes, start, end) -> value[0] = new String(bytes, start, end - start, UTF_8));
+        return value[0];
+    }
+}